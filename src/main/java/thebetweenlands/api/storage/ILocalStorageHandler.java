@@ -61,6 +61,13 @@ public interface ILocalStorageHandler {
 	 */
 	public <T extends ILocalStorage> List<T> getLocalStorages(Class<T> type, AxisAlignedBB aabb, @Nullable Predicate<T> filter);
 
+	/**
+	 * Called by a loaded local storage when its linked chunks have changed
+	 * so that the local storage lookups can be updated
+	 * @param storage
+	 */
+	public void onLinkedChunksChanged(ILocalStorage storage);
+
 	/**
 	 * Deletes the file (or entry if in a region) of
 	 * the specified local storage
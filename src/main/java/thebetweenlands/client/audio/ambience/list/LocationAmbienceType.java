@@ -4,9 +4,9 @@ import net.minecraft.util.SoundCategory;
 import net.minecraft.util.SoundEvent;
 import thebetweenlands.client.audio.ambience.AmbienceLayer;
 import thebetweenlands.client.audio.ambience.AmbienceType;
+import thebetweenlands.client.handler.LocationProximityHandler;
 import thebetweenlands.common.registries.AmbienceRegistry;
 import thebetweenlands.common.world.storage.location.LocationAmbience;
-import thebetweenlands.common.world.storage.location.LocationStorage;
 import thebetweenlands.common.world.storage.location.LocationAmbience.EnumLocationAmbience;
 
 public class LocationAmbienceType extends AmbienceType {
@@ -19,7 +19,7 @@ public class LocationAmbienceType extends AmbienceType {
 	}
 
 	protected LocationAmbience getAmbience() {
-		return LocationStorage.getAmbience(this.getPlayer());
+		return LocationProximityHandler.INSTANCE.getAmbience(this.getPlayer().world, this.getPlayer().getPositionEyes(1));
 	}
 
 	@Override
@@ -3,30 +3,15 @@ package thebetweenlands.client.audio.ambience.list;
 import net.minecraft.client.Minecraft;
 import net.minecraft.util.SoundCategory;
 import net.minecraft.util.SoundEvent;
-import thebetweenlands.api.storage.ILocalStorage;
 import thebetweenlands.client.audio.ambience.AmbienceLayer;
 import thebetweenlands.client.audio.ambience.AmbienceType;
+import thebetweenlands.client.handler.LocationProximityHandler;
 import thebetweenlands.common.registries.AmbienceRegistry;
 import thebetweenlands.common.registries.SoundRegistry;
-import thebetweenlands.common.world.storage.BetweenlandsWorldStorage;
-import thebetweenlands.common.world.storage.location.EnumLocationType;
-import thebetweenlands.common.world.storage.location.LocationStorage;
 
 public class SpiritTreeAmbienceType extends AmbienceType {
 	private double getClosestSpiritTree() {
-		BetweenlandsWorldStorage worldStorage = BetweenlandsWorldStorage.forWorld(Minecraft.getMinecraft().world);
-		double closestSpiritTree = -1;
-		for(ILocalStorage storage : worldStorage.getLocalStorageHandler().getLoadedStorages()) {
-			if(storage instanceof LocationStorage && ((LocationStorage)storage).getType() == EnumLocationType.SPIRIT_TREE) {
-				double dist = Minecraft.getMinecraft().player.getPositionVector().distanceTo(storage.getBoundingBox().getCenter());
-				if(dist < 75) {
-					if(closestSpiritTree < 0 || dist < closestSpiritTree) {
-						closestSpiritTree = dist;
-					}
-				}
-			}
-		}
-		return closestSpiritTree;
+		return LocationProximityHandler.INSTANCE.getClosestSpiritTreeDistance(Minecraft.getMinecraft().world, Minecraft.getMinecraft().player.getPositionEyes(1));
 	}
 
 	@Override
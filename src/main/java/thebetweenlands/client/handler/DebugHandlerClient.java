@@ -25,19 +25,14 @@ import net.minecraft.init.Blocks;
 import net.minecraft.util.math.AxisAlignedBB;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3d;
-import net.minecraft.util.text.TextComponentString;
 import net.minecraft.world.World;
-import net.minecraft.world.WorldServer;
 import net.minecraftforge.client.event.RenderWorldLastEvent;
-import net.minecraftforge.common.DimensionManager;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
-import net.minecraftforge.fml.common.gameevent.InputEvent;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 import thebetweenlands.api.storage.ILocalStorage;
 import thebetweenlands.common.config.BetweenlandsConfig;
 import thebetweenlands.common.registries.ItemRegistry;
-import thebetweenlands.common.world.gen.ChunkGeneratorBetweenlands;
 import thebetweenlands.common.world.storage.BetweenlandsWorldStorage;
 import thebetweenlands.common.world.storage.location.LocationStorage;
 import thebetweenlands.common.world.storage.location.guard.ILocationGuard;
@@ -282,37 +277,6 @@ public class DebugHandlerClient {
 		GL11.glEnd();
 	}
 
-	@SubscribeEvent
-	public static void onKey(InputEvent.KeyInputEvent event) {
-		if (BetweenlandsConfig.DEBUG.debug && Keyboard.getEventKeyState()) {
-			if (Keyboard.getEventKey() == Keyboard.KEY_Y) {
-				WorldServer world = DimensionManager.getWorld(BetweenlandsConfig.WORLD_AND_DIMENSION.dimensionId);
-				if (world != null) {
-					ChunkGeneratorBetweenlands cgb = (ChunkGeneratorBetweenlands) world
-							.getChunkProvider().chunkGenerator;
-					if (Keyboard.getEventKey() == Keyboard.KEY_Y) {
-						if (Keyboard.isKeyDown(Keyboard.KEY_LMENU) || Keyboard.isKeyDown(Keyboard.KEY_RMENU)) {
-							cgb.debugProvideReset();
-							if (Minecraft.getMinecraft().player != null) {
-								Minecraft.getMinecraft().player.sendMessage(
-										new TextComponentString(String.format("Reset chunk provider debug")));
-							}
-						} else {
-							cgb.debugGenerateChunkProvidesImage(true);
-						}
-					}
-				}
-			} else if (Keyboard.getEventKey() == Keyboard.KEY_X) {
-				ChunkGeneratorBetweenlands.debugRecord = !ChunkGeneratorBetweenlands.debugRecord;
-				if (Minecraft.getMinecraft().player != null) {
-					Minecraft.getMinecraft().player
-							.sendMessage(new TextComponentString(String.format("Chunk provider debug is now %s",
-									ChunkGeneratorBetweenlands.debugRecord ? "enabled" : "disabled")));
-				}
-			}
-		}
-	}
-
 	@SubscribeEvent
 	public static void onGuiDrawPost(GuiContainerEvent.DrawForeground event) {
 		if (BetweenlandsConfig.DEBUG.debug && Keyboard.isKeyDown(Keyboard.KEY_LCONTROL)) {
@@ -28,7 +28,6 @@ import thebetweenlands.api.event.UpdateFogEvent;
 import thebetweenlands.api.misc.Fog;
 import thebetweenlands.api.misc.Fog.MutableFog;
 import thebetweenlands.api.misc.FogState;
-import thebetweenlands.api.storage.ILocalStorage;
 import thebetweenlands.client.render.shader.ShaderHelper;
 import thebetweenlands.common.TheBetweenlands;
 import thebetweenlands.common.block.terrain.BlockSwampWater;
@@ -38,9 +37,7 @@ import thebetweenlands.common.world.WorldProviderBetweenlands;
 import thebetweenlands.common.world.biome.BiomeBetweenlands;
 import thebetweenlands.common.world.event.BLEnvironmentEventRegistry;
 import thebetweenlands.common.world.storage.BetweenlandsWorldStorage;
-import thebetweenlands.common.world.storage.location.EnumLocationType;
 import thebetweenlands.common.world.storage.location.LocationAmbience;
-import thebetweenlands.common.world.storage.location.LocationStorage;
 import thebetweenlands.util.FogGenerator;
 
 public class FogHandler {
@@ -211,7 +208,7 @@ public class FogHandler {
 		Fog biomeFog = event.getBiomeFog();
 		MutableFog fog = new MutableFog(event.getAmbientFog());
 
-		LocationAmbience ambience = LocationStorage.getAmbience(world, position);
+		LocationAmbience ambience = LocationProximityHandler.INSTANCE.getAmbience(world, position);
 		
 		if(ambience != null && !ambience.hasCaveFog()) {
 			fog.setStart(biomeFog.getStart());
@@ -256,18 +253,7 @@ public class FogHandler {
 			}
 		}
 
-		BetweenlandsWorldStorage worldStorage = BetweenlandsWorldStorage.forWorld(world);
-		double closestSpiritTree = -1;
-		for(ILocalStorage storage : worldStorage.getLocalStorageHandler().getLoadedStorages()) {
-			if(storage instanceof LocationStorage && ((LocationStorage)storage).getType() == EnumLocationType.SPIRIT_TREE) {
-				double dist = position.distanceTo(storage.getBoundingBox().getCenter());
-				if(dist < 75) {
-					if(closestSpiritTree < 0 || dist < closestSpiritTree) {
-						closestSpiritTree = dist;
-					}
-				}
-			}
-		}
+		double closestSpiritTree = LocationProximityHandler.INSTANCE.getClosestSpiritTreeDistance(world, position);
 		if(closestSpiritTree >= 0) {
 			float strength = 1.0F - (float)Math.max(0, (closestSpiritTree - 16) / (75.0F - 16));
 			fog.setStart(fog.getStart() * (1 - strength));
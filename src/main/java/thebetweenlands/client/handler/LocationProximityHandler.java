@@ -0,0 +1,281 @@
+package thebetweenlands.client.handler;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+import thebetweenlands.api.storage.ILocalStorage;
+import thebetweenlands.common.world.storage.location.EnumLocationType;
+import thebetweenlands.common.world.storage.location.LocationAmbience;
+import thebetweenlands.common.world.storage.location.LocationStorage;
+
+/**
+ * Client side index of the bounds of all synced locations by {@link EnumLocationType} and by chunk.
+ * The index is updated by {@link thebetweenlands.common.network.clientbound.MessageAddLocalStorage} and
+ * {@link thebetweenlands.common.network.clientbound.MessageRemoveLocalStorage}. The ambience and the closest
+ * spirit tree are memoized per camera block position and tick, so that fog, ambience and music share one lookup
+ */
+@SideOnly(Side.CLIENT)
+public class LocationProximityHandler {
+	public static final LocationProximityHandler INSTANCE = new LocationProximityHandler();
+
+	public static final double SPIRIT_TREE_RANGE = 75.0D;
+
+	private final EnumMap<EnumLocationType, List<LocationStorage>> locationsByType = new EnumMap<>(EnumLocationType.class);
+	private final Long2ObjectMap<List<LocationStorage>> locationsByChunk = new Long2ObjectOpenHashMap<>();
+
+	private World world;
+
+	private long memoTick = Long.MIN_VALUE;
+	private long memoPos;
+	private boolean isAmbienceMemoized;
+	private LocationAmbience memoAmbience;
+	private boolean isSpiritTreeMemoized;
+	private LocationStorage memoSpiritTree;
+
+	private LocationProximityHandler() { }
+
+	/**
+	 * Adds the location to the index if the specified local storage is a location
+	 * @param storage
+	 */
+	public void onLocalStorageAdded(ILocalStorage storage) {
+		if(storage instanceof LocationStorage) {
+			LocationStorage location = (LocationStorage) storage;
+
+			World world = location.getWorldStorage().getWorld();
+			if(this.world != world) {
+				this.clear();
+				this.world = world;
+			}
+
+			List<LocationStorage> typeLocations = this.locationsByType.get(location.getType());
+			if(typeLocations == null) {
+				this.locationsByType.put(location.getType(), typeLocations = new ArrayList<>());
+			}
+			typeLocations.add(location);
+
+			AxisAlignedBB bounds = location.getEnclosingBounds();
+			if(bounds != null) {
+				int sx = MathHelper.floor(bounds.minX) >> 4;
+				int sz = MathHelper.floor(bounds.minZ) >> 4;
+				int ex = MathHelper.floor(bounds.maxX) >> 4;
+				int ez = MathHelper.floor(bounds.maxZ) >> 4;
+				for(int cx = sx; cx <= ex; cx++) {
+					for(int cz = sz; cz <= ez; cz++) {
+						long key = ChunkPos.asLong(cx, cz);
+						List<LocationStorage> chunkLocations = this.locationsByChunk.get(key);
+						if(chunkLocations == null) {
+							this.locationsByChunk.put(key, chunkLocations = new ArrayList<>(2));
+						}
+						chunkLocations.add(location);
+					}
+				}
+			}
+
+			this.invalidateMemo();
+		}
+	}
+
+	/**
+	 * Removes the location from the index if the specified local storage is a location
+	 * @param storage
+	 */
+	public void onLocalStorageRemoved(ILocalStorage storage) {
+		if(storage instanceof LocationStorage && this.world == storage.getWorldStorage().getWorld()) {
+			LocationStorage location = (LocationStorage) storage;
+
+			List<LocationStorage> typeLocations = this.locationsByType.get(location.getType());
+			if(typeLocations != null) {
+				typeLocations.remove(location);
+			}
+
+			AxisAlignedBB bounds = location.getEnclosingBounds();
+			if(bounds != null) {
+				int sx = MathHelper.floor(bounds.minX) >> 4;
+				int sz = MathHelper.floor(bounds.minZ) >> 4;
+				int ex = MathHelper.floor(bounds.maxX) >> 4;
+				int ez = MathHelper.floor(bounds.maxZ) >> 4;
+				for(int cx = sx; cx <= ex; cx++) {
+					for(int cz = sz; cz <= ez; cz++) {
+						long key = ChunkPos.asLong(cx, cz);
+						List<LocationStorage> chunkLocations = this.locationsByChunk.get(key);
+						if(chunkLocations != null && chunkLocations.remove(location) && chunkLocations.isEmpty()) {
+							this.locationsByChunk.remove(key);
+						}
+					}
+				}
+			}
+
+			this.invalidateMemo();
+		}
+	}
+
+	/**
+	 * Removes all locations from the index
+	 */
+	public void clear() {
+		this.locationsByType.clear();
+		this.locationsByChunk.clear();
+		this.world = null;
+		this.invalidateMemo();
+	}
+
+	private void invalidateMemo() {
+		this.memoTick = Long.MIN_VALUE;
+		this.isAmbienceMemoized = false;
+		this.memoAmbience = null;
+		this.isSpiritTreeMemoized = false;
+		this.memoSpiritTree = null;
+	}
+
+	/**
+	 * Returns whether the location is still loaded. Locations can also be unloaded
+	 * without a remove message, e.g. when their chunks are unloaded
+	 * @param location
+	 * @return
+	 */
+	private boolean isLoaded(LocationStorage location) {
+		return location.getWorldStorage().getLocalStorageHandler().getLocalStorage(location.getID()) == location;
+	}
+
+	/**
+	 * Returns the location of the specified type whose center is closest to the specified position
+	 * @param world
+	 * @param type
+	 * @param pos
+	 * @param maxDistance
+	 * @return
+	 */
+	@Nullable
+	public LocationStorage getNearestLocation(World world, EnumLocationType type, Vec3d pos, double maxDistance) {
+		if(this.world != world) {
+			return null;
+		}
+
+		List<LocationStorage> typeLocations = this.locationsByType.get(type);
+		if(typeLocations == null) {
+			return null;
+		}
+
+		LocationStorage nearest = null;
+		double nearestDistSq = maxDistance * maxDistance;
+
+		for(int i = typeLocations.size() - 1; i >= 0; i--) {
+			LocationStorage location = typeLocations.get(i);
+			AxisAlignedBB bounds = location.getBoundingBox();
+			if(bounds != null) {
+				double distSq = pos.squareDistanceTo(bounds.getCenter());
+				if(distSq < nearestDistSq) {
+					if(!this.isLoaded(location)) {
+						this.onLocalStorageRemoved(location);
+						continue;
+					}
+					nearest = location;
+					nearestDistSq = distSq;
+				}
+			}
+		}
+
+		return nearest;
+	}
+
+	/**
+	 * Returns all locations that contain the specified position
+	 * @param world
+	 * @param pos
+	 * @return
+	 */
+	public List<LocationStorage> getLocationsAt(World world, Vec3d pos) {
+		List<LocationStorage> result = new ArrayList<>();
+
+		if(this.world == world) {
+			List<LocationStorage> chunkLocations = this.locationsByChunk.get(ChunkPos.asLong(MathHelper.floor(pos.x) >> 4, MathHelper.floor(pos.z) >> 4));
+			if(chunkLocations != null) {
+				for(int i = chunkLocations.size() - 1; i >= 0; i--) {
+					LocationStorage location = chunkLocations.get(i);
+					if(location.isInside(pos)) {
+						if(!this.isLoaded(location)) {
+							this.onLocalStorageRemoved(location);
+							continue;
+						}
+						result.add(location);
+					}
+				}
+			}
+		}
+
+		return result;
+	}
+
+	private void updateMemo(World world, Vec3d pos) {
+		long tick = world.getTotalWorldTime();
+		long blockPos = BlockPos.toLong(MathHelper.floor(pos.x), MathHelper.floor(pos.y), MathHelper.floor(pos.z));
+		if(this.memoTick != tick || this.memoPos != blockPos) {
+			this.invalidateMemo();
+			this.memoTick = tick;
+			this.memoPos = blockPos;
+		}
+	}
+
+	/**
+	 * Returns the highest priority ambience at the specified camera position. The result is memoized per block position and tick
+	 * @param world
+	 * @param pos
+	 * @return
+	 */
+	@Nullable
+	public LocationAmbience getAmbience(World world, Vec3d pos) {
+		this.updateMemo(world, pos);
+		if(!this.isAmbienceMemoized) {
+			this.memoAmbience = LocationStorage.getAmbience(this.getLocationsAt(world, pos));
+			this.isAmbienceMemoized = true;
+		}
+		return this.memoAmbience;
+	}
+
+	/**
+	 * Returns the distance from the specified camera position to the closest spirit tree,
+	 * or -1 if there is no spirit tree within {@link #SPIRIT_TREE_RANGE}. The closest spirit tree
+	 * is memoized per block position and tick, the distance is always exact
+	 * @param world
+	 * @param pos
+	 * @return
+	 */
+	public double getClosestSpiritTreeDistance(World world, Vec3d pos) {
+		this.updateMemo(world, pos);
+		if(!this.isSpiritTreeMemoized) {
+			//Slightly larger range so that the memoized result is valid for the entire block
+			this.memoSpiritTree = this.getNearestLocation(world, EnumLocationType.SPIRIT_TREE, pos, SPIRIT_TREE_RANGE + 2);
+			this.isSpiritTreeMemoized = true;
+		}
+		if(this.memoSpiritTree != null) {
+			double dist = pos.distanceTo(this.memoSpiritTree.getBoundingBox().getCenter());
+			if(dist < SPIRIT_TREE_RANGE) {
+				return dist;
+			}
+		}
+		return -1;
+	}
+
+	@SubscribeEvent
+	public void onWorldUnload(WorldEvent.Unload event) {
+		if(event.getWorld() == this.world) {
+			this.clear();
+		}
+	}
+}
@@ -7,6 +7,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.function.Consumer;
@@ -33,6 +34,7 @@ import net.minecraftforge.fluids.Fluid;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 import thebetweenlands.api.item.CorrosionHelper;
 import thebetweenlands.api.item.ICorrodible;
+import thebetweenlands.client.render.sprite.CorrosionSpriteGenerator;
 import thebetweenlands.client.render.sprite.TextureCorrosion;
 import thebetweenlands.client.render.sprite.TextureFromData;
 import thebetweenlands.client.render.tile.RenderCenser;
@@ -48,6 +50,8 @@ public class TextureStitchHandler {
 	public static final TextureStitchHandler INSTANCE = new TextureStitchHandler();
 
 	private final List<TextureCorrosion> stitchedCorrosionSprites = new ArrayList<TextureCorrosion>();
+	private final CorrosionSpriteGenerator corrosionSpriteGenerator = new CorrosionSpriteGenerator();
+	private long stitchStartTime;
 
 	private final List<TextureStitcher> stitchers = new ArrayList<TextureStitcher>();
 
@@ -66,6 +70,8 @@ public class TextureStitchHandler {
 			return;
 		}
 		
+		this.stitchStartTime = System.nanoTime();
+
 		//Stich fluid textures onto atlas
 		for(Fluid fluid : FluidRegistry.REGISTERED_FLUIDS) {
 			e.getMap().registerSprite(fluid.getFlowing());
@@ -107,7 +113,9 @@ public class TextureStitchHandler {
 		}
 
 		//Corrosion
+		long corrosionStartTime = System.nanoTime();
 		this.stitchedCorrosionSprites.clear();
+		this.corrosionSpriteGenerator.begin(Minecraft.getMinecraft().getResourceManager());
 		Map<String, TextureAtlasSprite> mapRegisteredSprites;
 		try {
 			mapRegisteredSprites = e.getMap().mapRegisteredSprites;
@@ -141,6 +149,8 @@ public class TextureStitchHandler {
 									for (int n = 0; n < CorrosionHelper.CORROSION_STAGE_COUNT; n++) {
 										String corrosionSpriteName = texture.getNamespace() + ":" + path.substring(0, path.length() - corrodibleSuffix.length()) + "_corrosion_" + n;
 										TextureCorrosion corrosionTexture = new TextureCorrosion(corrosionSpriteName, completeBaseTextureLocation, n, item.getTranslationKey().hashCode());
+										//Corroded frames are generated in parallel and picked up when the sprite is loaded
+										corrosionTexture.setCorrodedTexture(this.corrosionSpriteGenerator.submit(Minecraft.getMinecraft().getResourceManager(), completeBaseTextureLocation, item.getTranslationKey().hashCode()));
 										//Forcibly sets the texture entry because TextureMap#setTextureEntry doesn't allow 
 										//overwriting a previously added sprite (usually set in ModelLoader#setupModelRegistry).
 										//Maybe find a better way to do this, if at all possible anyways
@@ -157,6 +167,8 @@ public class TextureStitchHandler {
 			}
 		}
 
+		TheBetweenlands.logger.info(String.format(Locale.ROOT, "Submitted %d corrosion sprites of %d textures in %.2fms", this.stitchedCorrosionSprites.size(), this.corrosionSpriteGenerator.getSubmittedTextures(), (System.nanoTime() - corrosionStartTime) / 1000000.0F));
+
 		//Stitch textures and split animations if necessary
 		Map<ResourceLocation, Frame[]> animationFramesCache = new HashMap<>();
 		IResourceManager resourceManager = Minecraft.getMinecraft().getResourceManager();
@@ -243,9 +255,14 @@ public class TextureStitchHandler {
 			TextureAtlasSprite parentSprite = map.getTextureExtry(parentIconName);
 			if(parentSprite != null)
 				corrosionSprite.setParentSprite(parentSprite);
+
+			//Sprite frames are loaded by now, the generated frames are no longer needed
+			corrosionSprite.setCorrodedTexture(null);
 		}
 		this.stitchedCorrosionSprites.clear();
 
+		TheBetweenlands.logger.info(String.format(Locale.ROOT, "Stitched blocks texture map in %.2fms, corrosion levels: %d cached, %d generated", (System.nanoTime() - this.stitchStartTime) / 1000000.0F, this.corrosionSpriteGenerator.getCachedStages(), this.corrosionSpriteGenerator.getGeneratedStages()));
+
 		//Frame splitters
 		for(TextureStitcher splitter : this.stitchers) {
 			if(splitter.callback != null) {
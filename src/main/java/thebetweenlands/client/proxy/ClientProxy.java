@@ -73,6 +73,7 @@ import thebetweenlands.client.handler.ElixirClientHandler;
 import thebetweenlands.client.handler.FogHandler;
 import thebetweenlands.client.handler.InputHandler;
 import thebetweenlands.client.handler.ItemTooltipHandler;
+import thebetweenlands.client.handler.LocationProximityHandler;
 import thebetweenlands.client.handler.MusicHandler;
 import thebetweenlands.client.handler.OverlayHandler;
 import thebetweenlands.client.handler.ScreenRenderHandler;
@@ -811,6 +812,7 @@ public class ClientProxy extends CommonProxy implements IResourceManagerReloadLi
 	public void registerEventHandlers() {
 		MinecraftForge.EVENT_BUS.register(ShaderHandler.INSTANCE);
 		MinecraftForge.EVENT_BUS.register(FogHandler.class);
+		MinecraftForge.EVENT_BUS.register(LocationProximityHandler.INSTANCE);
 		MinecraftForge.EVENT_BUS.register(AmbienceSoundPlayHandler.class);
 		MinecraftForge.EVENT_BUS.register(GLUProjection.getInstance());
 		MinecraftForge.EVENT_BUS.register(WorldRenderHandler.class);
@@ -0,0 +1,322 @@
+package thebetweenlands.client.render.shader;
+
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import org.lwjgl.util.vector.Matrix4f;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+/**
+ * Reduces the dynamic light sources of a frame to the ones that are worth uploading to the world shader.
+ * Lights outside of the view frustum or too far away are culled, near-identical neighbours are merged
+ * and the lights with the largest screen contribution are moved to the front.
+ * Only uses plain math, no GL context is required
+ */
+public class LightSourceCuller {
+	/**
+	 * Maximum distance between two lights to be merged
+	 */
+	public static final double MERGE_DISTANCE = 0.5D;
+
+	/**
+	 * Maximum per channel color difference between two lights to be merged
+	 */
+	public static final float MERGE_COLOR_TOLERANCE = 0.05F;
+
+	/**
+	 * Maximum relative radius difference between two lights to be merged
+	 */
+	public static final float MERGE_RADIUS_TOLERANCE = 0.15F;
+
+	/**
+	 * A culled light source. Instances are pooled and reused every frame
+	 */
+	public static class CulledLight {
+		private double x, y, z;
+		private float r, g, b, radius;
+		private double score;
+		private CulledLight nextInCell;
+
+		/**
+		 * X position relative to the viewer
+		 * @return
+		 */
+		public double getX() {
+			return this.x;
+		}
+
+		/**
+		 * Y position relative to the viewer
+		 * @return
+		 */
+		public double getY() {
+			return this.y;
+		}
+
+		/**
+		 * Z position relative to the viewer
+		 * @return
+		 */
+		public double getZ() {
+			return this.z;
+		}
+
+		public float getRed() {
+			return this.r;
+		}
+
+		public float getGreen() {
+			return this.g;
+		}
+
+		public float getBlue() {
+			return this.b;
+		}
+
+		public float getRadius() {
+			return this.radius;
+		}
+
+		/**
+		 * Estimated screen contribution of this light
+		 * @return
+		 */
+		public double getScore() {
+			return this.score;
+		}
+
+		private boolean isDistortion() {
+			return this.r == -1 && this.g == -1 && this.b == -1;
+		}
+
+		private boolean canMerge(double x, double y, double z, float r, float g, float b, float radius) {
+			if(this.isDistortion()) {
+				return false;
+			}
+			double dx = this.x - x;
+			double dy = this.y - y;
+			double dz = this.z - z;
+			return dx * dx + dy * dy + dz * dz <= MERGE_DISTANCE * MERGE_DISTANCE
+					&& Math.abs(this.radius - radius) <= Math.max(this.radius, radius) * MERGE_RADIUS_TOLERANCE
+					&& Math.abs(this.r - r) <= MERGE_COLOR_TOLERANCE && Math.abs(this.g - g) <= MERGE_COLOR_TOLERANCE && Math.abs(this.b - b) <= MERGE_COLOR_TOLERANCE;
+		}
+
+		private void merge(double x, double y, double z, float r, float g, float b, float radius) {
+			//Lights are additive, so the merged light keeps the combined color at the average position
+			float weight = getIntensity(this.r, this.g, this.b);
+			float otherWeight = getIntensity(r, g, b);
+			float totalWeight = weight + otherWeight;
+			if(totalWeight > 0) {
+				this.x = (this.x * weight + x * otherWeight) / totalWeight;
+				this.y = (this.y * weight + y * otherWeight) / totalWeight;
+				this.z = (this.z * weight + z * otherWeight) / totalWeight;
+			}
+			this.r += r;
+			this.g += g;
+			this.b += b;
+			this.radius = Math.max(this.radius, radius);
+		}
+	}
+
+	private final Long2ObjectOpenHashMap<CulledLight> cells = new Long2ObjectOpenHashMap<>();
+
+	private CulledLight[] lights = new CulledLight[64];
+	private int lightCount;
+
+	private final float[] frustumPlanes = new float[5 * 4];
+
+	/**
+	 * Culls, merges and selects the specified light sources
+	 * @param lightSources Light sources of the current frame
+	 * @param viewerX Viewer position that the light positions are made relative to
+	 * @param viewerY
+	 * @param viewerZ
+	 * @param modelviewProjection MVP matrix for positions relative to the viewer, or null to skip frustum culling
+	 * @param maxDistance Lights further away than this distance plus their radius are culled
+	 * @param maxLights Number of lights that are moved to the front by screen contribution
+	 */
+	public void update(List<LightSource> lightSources, double viewerX, double viewerY, double viewerZ, @Nullable Matrix4f modelviewProjection, double maxDistance, int maxLights) {
+		this.lightCount = 0;
+		this.cells.clear();
+
+		if(modelviewProjection != null) {
+			this.updateFrustumPlanes(modelviewProjection);
+		}
+
+		for(int i = 0; i < lightSources.size(); i++) {
+			LightSource light = lightSources.get(i);
+
+			double x = light.x - viewerX;
+			double y = light.y - viewerY;
+			double z = light.z - viewerZ;
+			double dist = Math.sqrt(x * x + y * y + z * z);
+
+			if(dist - light.radius > maxDistance || (modelviewProjection != null && !this.isSphereInFrustum(x, y, z, light.radius))) {
+				continue;
+			}
+
+			this.addOrMerge(x, y, z, light.r, light.g, light.b, light.radius);
+		}
+
+		for(int i = 0; i < this.lightCount; i++) {
+			CulledLight light = this.lights[i];
+			double distSq = light.x * light.x + light.y * light.y + light.z * light.z;
+			double radiusSq = light.radius * light.radius;
+			float intensity = light.isDistortion() ? 1.0F : getIntensity(light.r, light.g, light.b);
+			//Approximates the fraction of the screen covered by the light's sphere of influence
+			light.score = intensity * radiusSq / (distSq + radiusSq);
+		}
+
+		if(maxLights < this.lightCount) {
+			this.selectTop(maxLights);
+		}
+	}
+
+	/**
+	 * Returns the number of lights left after culling and merging
+	 * @return
+	 */
+	public int getLightCount() {
+		return this.lightCount;
+	}
+
+	/**
+	 * Returns the culled light at the specified index. The lights with
+	 * the largest screen contribution come first
+	 * @param index
+	 * @return
+	 */
+	public CulledLight getLight(int index) {
+		return this.lights[index];
+	}
+
+	private void addOrMerge(double x, double y, double z, float r, float g, float b, float radius) {
+		int cx = (int) Math.floor(x / MERGE_DISTANCE);
+		int cy = (int) Math.floor(y / MERGE_DISTANCE);
+		int cz = (int) Math.floor(z / MERGE_DISTANCE);
+
+		for(int ox = -1; ox <= 1; ox++) {
+			for(int oy = -1; oy <= 1; oy++) {
+				for(int oz = -1; oz <= 1; oz++) {
+					CulledLight candidate = this.cells.get(getCellKey(cx + ox, cy + oy, cz + oz));
+					while(candidate != null) {
+						if(candidate.canMerge(x, y, z, r, g, b, radius)) {
+							candidate.merge(x, y, z, r, g, b, radius);
+							return;
+						}
+						candidate = candidate.nextInCell;
+					}
+				}
+			}
+		}
+
+		if(this.lightCount == this.lights.length) {
+			CulledLight[] newLights = new CulledLight[this.lights.length * 2];
+			System.arraycopy(this.lights, 0, newLights, 0, this.lights.length);
+			this.lights = newLights;
+		}
+
+		CulledLight light = this.lights[this.lightCount];
+		if(light == null) {
+			this.lights[this.lightCount] = light = new CulledLight();
+		}
+		this.lightCount++;
+
+		light.x = x;
+		light.y = y;
+		light.z = z;
+		light.r = r;
+		light.g = g;
+		light.b = b;
+		light.radius = radius;
+
+		long key = getCellKey(cx, cy, cz);
+		light.nextInCell = this.cells.get(key);
+		this.cells.put(key, light);
+	}
+
+	/**
+	 * Partially sorts the lights so that the k lights with the highest score come first
+	 * @param k
+	 */
+	private void selectTop(int k) {
+		int left = 0;
+		int right = this.lightCount - 1;
+		while(left < right) {
+			int pivotIndex = this.partition(left, right, (left + right) >>> 1);
+			if(pivotIndex == k) {
+				return;
+			} else if(pivotIndex < k) {
+				left = pivotIndex + 1;
+			} else {
+				right = pivotIndex - 1;
+			}
+		}
+	}
+
+	private int partition(int left, int right, int pivotIndex) {
+		double pivotScore = this.lights[pivotIndex].score;
+		this.swap(pivotIndex, right);
+		int storeIndex = left;
+		for(int i = left; i < right; i++) {
+			if(this.lights[i].score > pivotScore) {
+				this.swap(i, storeIndex);
+				storeIndex++;
+			}
+		}
+		this.swap(storeIndex, right);
+		return storeIndex;
+	}
+
+	private void swap(int i, int j) {
+		CulledLight light = this.lights[i];
+		this.lights[i] = this.lights[j];
+		this.lights[j] = light;
+	}
+
+	/**
+	 * Extracts the left, right, bottom, top and near planes from the MVP matrix.
+	 * The far plane is left to the distance culling
+	 * @param mvp
+	 */
+	private void updateFrustumPlanes(Matrix4f mvp) {
+		this.setPlane(0, mvp.m03 + mvp.m00, mvp.m13 + mvp.m10, mvp.m23 + mvp.m20, mvp.m33 + mvp.m30);
+		this.setPlane(1, mvp.m03 - mvp.m00, mvp.m13 - mvp.m10, mvp.m23 - mvp.m20, mvp.m33 - mvp.m30);
+		this.setPlane(2, mvp.m03 + mvp.m01, mvp.m13 + mvp.m11, mvp.m23 + mvp.m21, mvp.m33 + mvp.m31);
+		this.setPlane(3, mvp.m03 - mvp.m01, mvp.m13 - mvp.m11, mvp.m23 - mvp.m21, mvp.m33 - mvp.m31);
+		this.setPlane(4, mvp.m03 + mvp.m02, mvp.m13 + mvp.m12, mvp.m23 + mvp.m22, mvp.m33 + mvp.m32);
+	}
+
+	private void setPlane(int plane, float a, float b, float c, float d) {
+		float length = (float) Math.sqrt(a * a + b * b + c * c);
+		if(length > 0) {
+			a /= length;
+			b /= length;
+			c /= length;
+			d /= length;
+		}
+		this.frustumPlanes[plane * 4] = a;
+		this.frustumPlanes[plane * 4 + 1] = b;
+		this.frustumPlanes[plane * 4 + 2] = c;
+		this.frustumPlanes[plane * 4 + 3] = d;
+	}
+
+	private boolean isSphereInFrustum(double x, double y, double z, float radius) {
+		for(int i = 0; i < this.frustumPlanes.length; i += 4) {
+			if(this.frustumPlanes[i] * x + this.frustumPlanes[i + 1] * y + this.frustumPlanes[i + 2] * z + this.frustumPlanes[i + 3] < -radius) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static float getIntensity(float r, float g, float b) {
+		return Math.max(Math.abs(r), Math.max(Math.abs(g), Math.abs(b)));
+	}
+
+	private static long getCellKey(int x, int y, int z) {
+		return ((long) x & 0x1FFFFFL) | (((long) y & 0x1FFFFFL) << 21) | (((long) z & 0x1FFFFFL) << 42);
+	}
+}
@@ -0,0 +1,258 @@
+package thebetweenlands.client.render.sprite;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+
+import net.minecraft.client.renderer.texture.TextureUtil;
+import net.minecraft.client.resources.IResource;
+import net.minecraft.client.resources.IResourceManager;
+import net.minecraft.util.ResourceLocation;
+import thebetweenlands.api.item.CorrosionHelper;
+import thebetweenlands.common.TheBetweenlands;
+
+/**
+ * Generates the corroded base frames of {@link TextureCorrosion} sprites on a worker pool while the
+ * texture map is being stitched. Generated frames are cached on disk, keyed by the hash of the parent
+ * texture and the corrosion texture, the corrosion level and the seed
+ */
+public class CorrosionSpriteGenerator {
+	private static final File CACHE_DIR = new File("betweenlands/cache/corrosion");
+	private static final int CACHE_VERSION = 1;
+
+	private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+	private static final ExecutorService GENERATOR = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), runnable -> {
+		Thread thread = new Thread(runnable, "Betweenlands Corrosion Sprite Generator #" + THREAD_COUNTER.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * Corroded base frames of all corrosion levels of a parent texture.
+	 * The frames are not split into animation frames and have no mipmaps
+	 */
+	public static class CorrodedTexture {
+		private final int width, height;
+		private final int[][] stages;
+
+		private CorrodedTexture(int width, int height, int[][] stages) {
+			this.width = width;
+			this.height = height;
+			this.stages = stages;
+		}
+
+		public int getWidth() {
+			return this.width;
+		}
+
+		public int getHeight() {
+			return this.height;
+		}
+
+		/**
+		 * Returns a copy of the corroded pixels of the specified corrosion level
+		 * @param corrosionAmount
+		 * @return
+		 */
+		public int[] getPixels(int corrosionAmount) {
+			return this.stages[corrosionAmount].clone();
+		}
+	}
+
+	private final Map<String, Future<CorrodedTexture>> tasks = new HashMap<>();
+
+	private final AtomicInteger cachedStages = new AtomicInteger();
+	private final AtomicInteger generatedStages = new AtomicInteger();
+
+	private int[] corrosionPixels;
+	private int corrosionWidth;
+	private String corrosionHash;
+
+	/**
+	 * Loads the corrosion texture and clears the previously submitted textures.
+	 * Must be called before textures are submitted
+	 * @param manager
+	 * @return whether the corrosion texture was loaded successfully
+	 */
+	public boolean begin(IResourceManager manager) {
+		this.tasks.clear();
+		this.cachedStages.set(0);
+		this.generatedStages.set(0);
+		this.corrosionPixels = null;
+
+		try(IResource resource = manager.getResource(TextureCorrosion.CORROSION_TEXTURE)) {
+			byte[] data = IOUtils.toByteArray(resource.getInputStream());
+			BufferedImage corrosionImg = TextureUtil.readBufferedImage(new ByteArrayInputStream(data));
+			this.corrosionPixels = new int[corrosionImg.getWidth() * corrosionImg.getHeight()];
+			corrosionImg.getRGB(0, 0, corrosionImg.getWidth(), corrosionImg.getHeight(), this.corrosionPixels, 0, corrosionImg.getWidth());
+			this.corrosionWidth = corrosionImg.getWidth();
+			this.corrosionHash = DigestUtils.sha1Hex(data);
+			return true;
+		} catch(IOException ex) {
+			TheBetweenlands.logger.error("Failed loading corrosion texture, corrosion sprites will be generated on the main thread", ex);
+			return false;
+		}
+	}
+
+	/**
+	 * Submits the parent texture to be corroded with the specified seed. The parent texture is read
+	 * on the calling thread, decoding, corroding and caching is done by the worker pool
+	 * @param manager
+	 * @param parentTexture
+	 * @param seed
+	 * @return
+	 */
+	@Nullable
+	public Future<CorrodedTexture> submit(IResourceManager manager, ResourceLocation parentTexture, long seed) {
+		if(this.corrosionPixels == null) {
+			return null;
+		}
+
+		String key = parentTexture + "#" + seed;
+
+		Future<CorrodedTexture> task = this.tasks.get(key);
+		if(task == null) {
+			byte[] data;
+			try(IResource resource = manager.getResource(parentTexture)) {
+				data = IOUtils.toByteArray(resource.getInputStream());
+			} catch(IOException ex) {
+				//Let the sprite report the missing texture
+				return null;
+			}
+
+			int[] corrosionPixels = this.corrosionPixels;
+			int corrosionWidth = this.corrosionWidth;
+			String corrosionHash = this.corrosionHash;
+
+			this.tasks.put(key, task = GENERATOR.submit(() -> this.generate(data, seed, corrosionPixels, corrosionWidth, corrosionHash)));
+		}
+
+		return task;
+	}
+
+	/**
+	 * Returns the number of distinct parent textures that were submitted
+	 * @return
+	 */
+	public int getSubmittedTextures() {
+		return this.tasks.size();
+	}
+
+	/**
+	 * Returns the number of corrosion levels that were loaded from the disk cache
+	 * @return
+	 */
+	public int getCachedStages() {
+		return this.cachedStages.get();
+	}
+
+	/**
+	 * Returns the number of corrosion levels that had to be generated
+	 * @return
+	 */
+	public int getGeneratedStages() {
+		return this.generatedStages.get();
+	}
+
+	private CorrodedTexture generate(byte[] data, long seed, int[] corrosionPixels, int corrosionWidth, String corrosionHash) throws IOException {
+		String parentHash = DigestUtils.sha1Hex(data);
+
+		int width = -1;
+		int height = -1;
+		int[] parentPixels = null;
+
+		int[][] stages = new int[CorrosionHelper.CORROSION_STAGE_COUNT][];
+
+		for(int corrosionAmount = 0; corrosionAmount < stages.length; corrosionAmount++) {
+			File cacheFile = new File(CACHE_DIR, String.format(Locale.ROOT, "%s_%s_%d_%x.bin", parentHash, corrosionHash.substring(0, 8), corrosionAmount, seed));
+
+			if(cacheFile.exists()) {
+				try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+					if(in.readInt() == CACHE_VERSION) {
+						int cachedWidth = in.readInt();
+						int cachedHeight = in.readInt();
+						if((width < 0 || (cachedWidth == width && cachedHeight == height)) && cachedWidth > 0 && cachedHeight > 0) {
+							int[] pixels = new int[cachedWidth * cachedHeight];
+							for(int i = 0; i < pixels.length; i++) {
+								pixels[i] = in.readInt();
+							}
+							width = cachedWidth;
+							height = cachedHeight;
+							stages[corrosionAmount] = pixels;
+							this.cachedStages.incrementAndGet();
+							continue;
+						}
+					}
+				} catch(IOException ex) {
+					TheBetweenlands.logger.warn(String.format(Locale.ROOT, "Failed reading cached corrosion frames %s, regenerating", cacheFile), ex);
+				}
+			}
+
+			if(parentPixels == null) {
+				try(InputStream in = new ByteArrayInputStream(data)) {
+					BufferedImage parentImg = TextureUtil.readBufferedImage(in);
+					if(width >= 0 && (parentImg.getWidth() != width || parentImg.getHeight() != height)) {
+						throw new IOException("Cached corrosion frames don't match the parent texture size");
+					}
+					width = parentImg.getWidth();
+					height = parentImg.getHeight();
+					parentPixels = new int[width * height];
+					parentImg.getRGB(0, 0, width, height, parentPixels, 0, width);
+				}
+			}
+
+			int[] pixels = parentPixels.clone();
+			TextureCorrosion.applyCorrosion(pixels, width, height, corrosionAmount, seed, corrosionPixels, corrosionWidth);
+			stages[corrosionAmount] = pixels;
+			this.generatedStages.incrementAndGet();
+
+			writeCacheFile(cacheFile, width, height, pixels);
+		}
+
+		return new CorrodedTexture(width, height, stages);
+	}
+
+	private static void writeCacheFile(File cacheFile, int width, int height, int[] pixels) {
+		try {
+			CACHE_DIR.mkdirs();
+			File tempFile = File.createTempFile(cacheFile.getName(), ".tmp", CACHE_DIR);
+			try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+				out.writeInt(CACHE_VERSION);
+				out.writeInt(width);
+				out.writeInt(height);
+				for(int pixel : pixels) {
+					out.writeInt(pixel);
+				}
+			}
+			try {
+				Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			} finally {
+				tempFile.delete();
+			}
+		} catch(IOException ex) {
+			TheBetweenlands.logger.warn(String.format(Locale.ROOT, "Failed writing cached corrosion frames %s", cacheFile), ex);
+		}
+	}
+}
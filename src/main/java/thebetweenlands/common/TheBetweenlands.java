@@ -14,6 +14,7 @@ import net.minecraftforge.fml.common.Mod.InstanceFactory;
 import net.minecraftforge.fml.common.SidedProxy;
 import net.minecraftforge.fml.common.event.FMLFingerprintViolationEvent;
 import net.minecraftforge.fml.common.event.FMLInitializationEvent;
+import net.minecraftforge.fml.common.event.FMLModIdMappingEvent;
 import net.minecraftforge.fml.common.event.FMLPostInitializationEvent;
 import net.minecraftforge.fml.common.event.FMLPreInitializationEvent;
 import net.minecraftforge.fml.common.event.FMLServerStartingEvent;
@@ -28,9 +29,13 @@ import thebetweenlands.common.capability.base.ItemCapabilityHandler;
 import thebetweenlands.common.capability.collision.RingOfDispersionEntityCapability;
 import thebetweenlands.common.command.CommandAspectDiscovery;
 import thebetweenlands.common.command.CommandBLEvent;
+import thebetweenlands.common.command.CommandCascadingGeneration;
 import thebetweenlands.common.command.CommandDecay;
+import thebetweenlands.common.command.CommandLocalStorageIO;
+import thebetweenlands.common.command.CommandPregen;
 import thebetweenlands.common.command.CommandReloadRecipes;
 import thebetweenlands.common.command.CommandResetAspects;
+import thebetweenlands.common.command.CommandSpawnerStats;
 import thebetweenlands.common.config.BetweenlandsConfig;
 import thebetweenlands.common.config.ConfigHelper;
 import thebetweenlands.common.entity.EntityVolarkite;
@@ -81,12 +86,15 @@ import thebetweenlands.common.registries.RecipeRegistry;
 import thebetweenlands.common.registries.Registries;
 import thebetweenlands.common.registries.SoundRegistry;
 import thebetweenlands.common.world.WorldProviderBetweenlands;
+import thebetweenlands.common.world.biome.spawning.EntityCountIndex;
 import thebetweenlands.common.world.biome.spawning.WorldMobSpawner;
+import thebetweenlands.common.world.gen.biome.decorator.SurfaceType;
 import thebetweenlands.common.world.gen.feature.structure.WorldGenDruidCircle;
 import thebetweenlands.common.world.gen.feature.structure.WorldGenWaystone;
 import thebetweenlands.common.world.storage.BetweenlandsChunkStorage;
 import thebetweenlands.common.world.storage.OfflinePlayerHandlerImpl;
 import thebetweenlands.common.world.storage.WorldStorageImpl;
+import thebetweenlands.common.world.teleporter.PortalPlacementSearch;
 import thebetweenlands.compat.tmg.TMGEquipmentInventory;
 import thebetweenlands.core.TheBetweenlandsPreconditions;
 
@@ -196,6 +204,14 @@ public class TheBetweenlands {
 		}*/
 		
 		ConfigHelper.postInit();
+
+		SurfaceType.buildStateTables();
+	}
+
+	@EventHandler
+	public void onIdMapping(FMLModIdMappingEvent event) {
+		//Block state IDs may have changed
+		SurfaceType.buildStateTables();
 	}
 
 	@EventHandler
@@ -210,6 +226,10 @@ public class TheBetweenlands {
 		}*/
 		GameruleRegistry.INSTANCE.onServerStarting(event);
 		event.registerServerCommand(new CommandReloadRecipes());
+		event.registerServerCommand(new CommandLocalStorageIO());
+		event.registerServerCommand(new CommandPregen());
+		event.registerServerCommand(new CommandCascadingGeneration());
+		event.registerServerCommand(new CommandSpawnerStats());
 	}
 
 	/**
@@ -231,6 +251,7 @@ public class TheBetweenlands {
 		MinecraftForge.EVENT_BUS.register(PlayerDecayHandler.class);
 		MinecraftForge.EVENT_BUS.register(AspectSyncHandler.class);
 		MinecraftForge.EVENT_BUS.register(WorldMobSpawner.INSTANCE);
+		MinecraftForge.EVENT_BUS.register(EntityCountIndex.class);
 		MinecraftForge.EVENT_BUS.register(BlockBreakHandler.class);
 		MinecraftForge.EVENT_BUS.register(LocationHandler.class);
 		MinecraftForge.EVENT_BUS.register(AttackDamageHandler.class);
@@ -241,6 +262,7 @@ public class TheBetweenlands {
 		MinecraftForge.EVENT_BUS.register(PuppetHandler.class);
 		MinecraftForge.EVENT_BUS.register(OverworldItemHandler.class);
 		MinecraftForge.EVENT_BUS.register(PlayerPortalHandler.class);
+		MinecraftForge.EVENT_BUS.register(PortalPlacementSearch.class);
 		MinecraftForge.EVENT_BUS.register(FoodSicknessHandler.class);
 		MinecraftForge.EVENT_BUS.register(BlockGenericDugSoil.class);
 		MinecraftForge.EVENT_BUS.register(ElixirCommonHandler.INSTANCE);
@@ -9,9 +9,10 @@ import net.minecraft.entity.Entity;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.network.Packet;
 import net.minecraftforge.common.capabilities.Capability;
 import thebetweenlands.api.capability.ISerializableCapability;
-import thebetweenlands.common.TheBetweenlands;
+import thebetweenlands.common.network.MessageBroadcast;
 import thebetweenlands.common.network.clientbound.MessageSyncEntityCapabilities;
 
 /**
@@ -27,6 +28,10 @@ public abstract class EntityCapability<F extends EntityCapability<F, T, E>, T, E
 	private E entity;
 	private List<EntityCapabilityTracker> trackers = new ArrayList<>();
 
+	//Sync packet shared by all trackers until the data changes or the tick ends
+	private Packet<?> syncPacket;
+	private long syncPacketTime;
+
 	protected EntityCapability() {
 		//Make sure the entity capability is the implementation of the capability
 		Preconditions.checkState(this.getCapabilityClass().isAssignableFrom(this.getClass()), "Entity capability %s must implement %s", this.getClass().getName(), this.getCapabilityClass().getName());
@@ -110,6 +115,7 @@ public abstract class EntityCapability<F extends EntityCapability<F, T, E>, T, E
 	 * Marks the data as dirty
 	 */
 	public void markDirty() {
+		this.syncPacket = null;
 		for(EntityCapabilityTracker tracker : this.trackers) {
 			tracker.markDirty();
 		}
@@ -155,7 +161,11 @@ public abstract class EntityCapability<F extends EntityCapability<F, T, E>, T, E
 	 * Sends a packet with all the tracking sensitive data
 	 */
 	public void sendPacket(EntityPlayerMP player) {
-		MessageSyncEntityCapabilities message = new MessageSyncEntityCapabilities(this);
-		TheBetweenlands.networkWrapper.sendTo(message, player);
+		long time = this.entity.world.getTotalWorldTime();
+		if(this.syncPacket == null || this.syncPacketTime != time) {
+			this.syncPacket = MessageBroadcast.createPacket(new MessageSyncEntityCapabilities(this));
+			this.syncPacketTime = time;
+		}
+		player.connection.sendPacket(this.syncPacket);
 	}
 }
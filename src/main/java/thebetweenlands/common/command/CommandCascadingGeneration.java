@@ -0,0 +1,68 @@
+package thebetweenlands.common.command;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.text.TextComponentString;
+import thebetweenlands.common.TheBetweenlands;
+import thebetweenlands.common.world.gen.CascadingGenerationMonitor;
+
+public class CommandCascadingGeneration extends CommandBase {
+	@Override
+	public String getName() {
+		return "blcascade";
+	}
+
+	@Override
+	public int getRequiredPermissionLevel() {
+		return 2;
+	}
+
+	@Override
+	public String getUsage(ICommandSender sender) {
+		return "command.blcascade.usage";
+	}
+
+	@Override
+	public List<String> getTabCompletions(MinecraftServer server, ICommandSender sender, String[] args, @Nullable BlockPos targetPos) {
+		if(args.length == 1) {
+			return getListOfStringsMatchingLastWord(args, "status", "report", "reset");
+		}
+		return Collections.<String>emptyList();
+	}
+
+	@Override
+	public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException {
+		if(args.length == 0 || "status".equals(args[0])) {
+			for(String line : CascadingGenerationMonitor.INSTANCE.getSummary(10)) {
+				sender.sendMessage(new TextComponentString(line));
+			}
+		} else if("report".equals(args[0])) {
+			File dir = server.getFile("debug");
+			String name = "bl-cascading-generation-" + new SimpleDateFormat("yyyy-MM-dd_HH.mm.ss").format(new Date());
+			try {
+				CascadingGenerationMonitor.INSTANCE.writeReport(dir, name);
+				notifyCommandListener(sender, this, "command.blcascade.report", new File(dir, name).getPath());
+			} catch(IOException ex) {
+				TheBetweenlands.logger.error("Failed writing cascading chunk generation report", ex);
+				throw new CommandException("command.blcascade.report.failed", ex.getMessage());
+			}
+		} else if("reset".equals(args[0])) {
+			CascadingGenerationMonitor.INSTANCE.reset();
+			notifyCommandListener(sender, this, "command.blcascade.reset");
+		} else {
+			throw new CommandException("command.blcascade.usage");
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package thebetweenlands.common.command;
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.text.TextComponentString;
+import thebetweenlands.common.world.storage.LocalStorageIOStats;
+
+public class CommandLocalStorageIO extends CommandBase {
+	@Override
+	public String getName() {
+		return "blstorageio";
+	}
+
+	@Override
+	public int getRequiredPermissionLevel() {
+		return 2;
+	}
+
+	@Override
+	public String getUsage(ICommandSender sender) {
+		return "command.blstorageio.usage";
+	}
+
+	@Override
+	public List<String> getTabCompletions(MinecraftServer server, ICommandSender sender, String[] args, @Nullable BlockPos targetPos) {
+		if(args.length == 1) {
+			return getListOfStringsMatchingLastWord(args, "stats", "reset");
+		}
+		return Collections.<String>emptyList();
+	}
+
+	@Override
+	public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException {
+		if(args.length == 0 || "stats".equals(args[0])) {
+			for(String line : LocalStorageIOStats.getSummary()) {
+				sender.sendMessage(new TextComponentString(line));
+			}
+		} else if("reset".equals(args[0])) {
+			LocalStorageIOStats.reset();
+			notifyCommandListener(sender, this, "command.blstorageio.reset");
+		} else {
+			throw new CommandException("command.blstorageio.usage");
+		}
+	}
+}
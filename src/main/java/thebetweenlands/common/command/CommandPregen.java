@@ -0,0 +1,130 @@
+package thebetweenlands.common.command;
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.text.TextComponentString;
+import net.minecraft.world.WorldServer;
+import thebetweenlands.common.config.BetweenlandsConfig;
+import thebetweenlands.common.world.gen.WorldPregenerator;
+import thebetweenlands.common.world.gen.biome.BiomeProviderBetweenlands;
+import thebetweenlands.common.world.gen.biome.BiomeTileCache;
+import thebetweenlands.common.world.storage.BetweenlandsWorldStorage;
+
+public class CommandPregen extends CommandBase {
+	private static final int DEFAULT_BUDGET = 25;
+
+	@Override
+	public String getName() {
+		return "blpregen";
+	}
+
+	@Override
+	public int getRequiredPermissionLevel() {
+		return 2;
+	}
+
+	@Override
+	public String getUsage(ICommandSender sender) {
+		return "command.blpregen.usage";
+	}
+
+	@Override
+	public List<String> getTabCompletions(MinecraftServer server, ICommandSender sender, String[] args, @Nullable BlockPos targetPos) {
+		if(args.length == 1) {
+			return getListOfStringsMatchingLastWord(args, "start", "pause", "resume", "cancel", "status", "budget");
+		} else if("start".equals(args[0]) && args.length >= 3 && args.length <= 4) {
+			return getTabCompletionCoordinateXZ(args, 2, targetPos);
+		}
+		return Collections.<String>emptyList();
+	}
+
+	@Override
+	public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException {
+		if(args.length == 0) {
+			throw new CommandException("command.blpregen.usage");
+		}
+
+		WorldServer world = server.getWorld(BetweenlandsConfig.WORLD_AND_DIMENSION.dimensionId);
+		BetweenlandsWorldStorage worldStorage = BetweenlandsWorldStorage.forWorld(world);
+		WorldPregenerator pregenerator = worldStorage.getPregenerator();
+
+		switch(args[0]) {
+		case "start": {
+			//The center needs both coordinates
+			if(args.length < 2 || args.length == 3 || args.length > 5) {
+				throw new CommandException("command.blpregen.usage");
+			}
+			if(pregenerator != null && !pregenerator.isFinished()) {
+				throw new CommandException("command.blpregen.running");
+			}
+			int radius = parseInt(args[1], 16, 100000);
+			BlockPos center = sender.getEntityWorld() == world ? sender.getPosition() : BlockPos.ORIGIN;
+			int centerX = center.getX();
+			int centerZ = center.getZ();
+			if(args.length >= 4) {
+				centerX = MathHelper.floor(parseCoordinate(center.getX(), args[2], false).getResult());
+				centerZ = MathHelper.floor(parseCoordinate(center.getZ(), args[3], false).getResult());
+			}
+			int budget = args.length >= 5 ? parseInt(args[4], 1, 1000) : DEFAULT_BUDGET;
+			pregenerator = new WorldPregenerator(centerX >> 4, centerZ >> 4, (radius + 15) >> 4, budget);
+			worldStorage.setPregenerator(pregenerator);
+			notifyCommandListener(sender, this, "command.blpregen.started", pregenerator.getTotal(), centerX, centerZ, radius);
+			break;
+		}
+		case "pause":
+			this.checkRunning(pregenerator);
+			pregenerator.setPaused(true);
+			pregenerator.stop(world);
+			notifyCommandListener(sender, this, "command.blpregen.paused", pregenerator.getIndex(), pregenerator.getTotal());
+			break;
+		case "resume":
+			this.checkRunning(pregenerator);
+			pregenerator.setPaused(false);
+			notifyCommandListener(sender, this, "command.blpregen.resumed", pregenerator.getIndex(), pregenerator.getTotal());
+			break;
+		case "cancel":
+			this.checkRunning(pregenerator);
+			pregenerator.stop(world);
+			worldStorage.setPregenerator(null);
+			notifyCommandListener(sender, this, "command.blpregen.cancelled");
+			break;
+		case "budget":
+			this.checkRunning(pregenerator);
+			if(args.length < 2) {
+				throw new CommandException("command.blpregen.usage");
+			}
+			pregenerator.setBudget(parseInt(args[1], 1, 1000));
+			notifyCommandListener(sender, this, "command.blpregen.budget", pregenerator.getBudget());
+			break;
+		case "status":
+			this.checkRunning(pregenerator);
+			for(String line : pregenerator.getStatus(10)) {
+				sender.sendMessage(new TextComponentString(line));
+			}
+			if(world.getBiomeProvider() instanceof BiomeProviderBetweenlands) {
+				BiomeTileCache tiles = ((BiomeProviderBetweenlands) world.getBiomeProvider()).getBiomeTileCache();
+				long hits = tiles.getHits();
+				long lookups = hits + tiles.getMisses();
+				sender.sendMessage(new TextComponentString(String.format("Biome tiles: %d cached, %d hits, %d misses (%.1f%% hit rate)", tiles.getSize(), hits, tiles.getMisses(), lookups > 0 ? hits * 100.0D / lookups : 0.0D)));
+			}
+			break;
+		default:
+			throw new CommandException("command.blpregen.usage");
+		}
+	}
+
+	private void checkRunning(@Nullable WorldPregenerator pregenerator) throws CommandException {
+		if(pregenerator == null) {
+			throw new CommandException("command.blpregen.none");
+		}
+	}
+}
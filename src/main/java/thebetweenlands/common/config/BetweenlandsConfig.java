@@ -10,6 +10,7 @@ import net.minecraftforge.common.config.Config.Name;
 import net.minecraftforge.common.config.Config.RangeDouble;
 import net.minecraftforge.common.config.Config.RangeInt;
 import net.minecraftforge.common.config.Config.RequiresMcRestart;
+import net.minecraftforge.common.config.Config.RequiresWorldRestart;
 import thebetweenlands.common.config.properties.BlockListProperty;
 import thebetweenlands.common.config.properties.IntSetProperty;
 import thebetweenlands.common.config.properties.ItemDecayFoodProperty;
@@ -119,6 +120,18 @@ public class BetweenlandsConfig {
 		@LangKey(LANG_PREFIX + "generate_portal_in_end")
 		@Comment("Whether custom portals that teleport to the End should create a Portal Tree in the End")
 		public boolean generatePortalInEnd = false;
+
+		@Name("biome_tile_cache_size")
+		@LangKey(LANG_PREFIX + "biome_tile_cache_size")
+		@Comment("Number of 64x64 biome tiles the Betweenlands biome provider keeps in memory to answer biome queries (e.g. mob spawning, maps and portal searches) without running the biome generator again. Each tile takes 4KB of memory. 0 disables the cache")
+		@RangeInt(min = 0, max = 65536)
+		@RequiresWorldRestart
+		public int biomeTileCacheSize = 512;
+
+		@Name("cascading_generation_monitor")
+		@LangKey(LANG_PREFIX + "cascading_generation_monitor")
+		@Comment("Whether chunks that are generated while another chunk is being populated (cascading chunk generation) should be recorded. See /blcascade")
+		public boolean cascadingGenerationMonitor = true;
 	}
 
 	@Name("rendering")
@@ -491,6 +504,12 @@ public class BetweenlandsConfig {
 		@Comment("The maximum amount of naturally spawned entities in the Betweenlands per world")
 		@RangeInt(min = 0)
 		public int hardEntityLimit = 600;
+
+		@Name("spawner_stats_log_interval")
+		@LangKey(LANG_PREFIX + "spawner_stats_log_interval")
+		@Comment("Interval in minutes in which the mob spawner statistics are written to the log. 0 disables the log line. See /blspawnstats")
+		@RangeInt(min = 0)
+		public int spawnerStatsLogInterval = 0;
 	}
 
 	@Name("compatibility")
@@ -6,6 +6,7 @@ import net.minecraft.block.state.IBlockState;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.entity.EntityPlayerSP;
 import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.util.SoundCategory;
 import net.minecraft.util.math.AxisAlignedBB;
 import net.minecraft.util.math.BlockPos;
@@ -27,6 +28,7 @@ import thebetweenlands.common.registries.CapabilityRegistry;
 import thebetweenlands.common.registries.SoundRegistry;
 import thebetweenlands.common.world.storage.BetweenlandsWorldStorage;
 import thebetweenlands.common.world.storage.location.LocationPortal;
+import thebetweenlands.common.world.teleporter.PortalPlacementSearch;
 import thebetweenlands.common.world.teleporter.TeleporterHandler;
 
 public class PlayerPortalHandler {
@@ -54,7 +56,11 @@ public class PlayerPortalHandler {
 					if(inPortalBlock) {
 						if(!cap.wasTeleported()) {
 							if (cap.getTicksUntilTeleport() <= 0 || player.capabilities.isCreativeMode) {
-								if(player.world instanceof WorldServer) {
+								boolean travelling = false;
+								if(player.world instanceof WorldServer && PortalPlacementSearch.isSearching((EntityPlayerMP) player)) {
+									//Destination is still being prepared, the search teleports the player once it's done
+									travelling = true;
+								} else if(player.world instanceof WorldServer) {
 									BetweenlandsWorldStorage worldStorage = BetweenlandsWorldStorage.forWorld(player.world);
 									AxisAlignedBB entityAabb = player.getEntityBoundingBox();
 									List<LocationPortal> portals = worldStorage.getLocalStorageHandler().getLocalStorages(LocationPortal.class, entityAabb, loc -> loc.intersects(entityAabb));
@@ -72,18 +78,32 @@ public class PlayerPortalHandler {
 									if(targetDim != player.dimension) {
 										WorldServer otherDim = ((WorldServer) player.world).getMinecraftServer().getWorld(targetDim);
 										if(otherDim != null) {
-											TeleporterHandler.transferToDim(player, otherDim);
+											if((portal == null || portal.getOtherPortalPosition() == null) && PortalPlacementSearch.canSearch(otherDim)) {
+												//A new portal needs to be generated, search its destination over the next few ticks
+												PortalPlacementSearch.start((EntityPlayerMP) player, otherDim);
+												travelling = true;
+											} else {
+												TeleporterHandler.transferToDim(player, otherDim);
+											}
 										}
 									}
+								} else if(player.world.isRemote && cap.getTicksUntilTeleport() <= 0) {
+									//Keep the portal effect running while the server may still be preparing the destination
+									travelling = true;
+								}
+								if(!travelling) {
+									player.timeUntilPortal = 10;
+									cap.setInPortal(false);
+									cap.setTicksUntilTeleport(MAX_PORTAL_TIME);
 								}
-								player.timeUntilPortal = 10;
-								cap.setInPortal(false);
-								cap.setTicksUntilTeleport(MAX_PORTAL_TIME);
 							} else {
 								cap.setTicksUntilTeleport(cap.getTicksUntilTeleport() - 1);
 							}
 						}
 					} else {
+						if(player instanceof EntityPlayerMP) {
+							PortalPlacementSearch.cancel((EntityPlayerMP) player);
+						}
 						cap.setTicksUntilTeleport(MAX_PORTAL_TIME);
 						cap.setInPortal(false);
 						cap.setWasTeleported(false);
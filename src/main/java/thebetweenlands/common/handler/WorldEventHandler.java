@@ -26,6 +26,7 @@ import net.minecraftforge.fml.relauncher.SideOnly;
 import thebetweenlands.api.storage.ILocalStorage;
 import thebetweenlands.api.storage.IWorldStorage;
 import thebetweenlands.common.lib.ModInfo;
+import thebetweenlands.common.world.storage.LocalStorageHandlerImpl;
 import thebetweenlands.common.world.storage.WorldStorageImpl;
 
 public final class WorldEventHandler {
@@ -105,6 +106,17 @@ public final class WorldEventHandler {
 		worldStorage.getLocalStorageHandler().saveAll();
 	}
 
+	@SubscribeEvent
+	public static void onWorldUnload(WorldEvent.Unload event) {
+		if(!event.getWorld().isRemote) {
+			IWorldStorage worldStorage = WorldStorageImpl.getCapability(event.getWorld());
+			if(worldStorage != null && worldStorage.getLocalStorageHandler() instanceof LocalStorageHandlerImpl) {
+				//Make sure all local storages are written before the world is gone
+				((LocalStorageHandlerImpl) worldStorage.getLocalStorageHandler()).getSaveHandler().flush();
+			}
+		}
+	}
+
 	@SubscribeEvent
 	public static void onServerTick(ServerTickEvent event) {
 		if(event.phase == Phase.END) {
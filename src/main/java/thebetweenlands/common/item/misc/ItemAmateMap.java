@@ -18,6 +18,7 @@ import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.World;
 import net.minecraft.world.biome.Biome;
+import net.minecraft.world.biome.BiomeProvider;
 import net.minecraft.world.storage.MapData;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
@@ -29,8 +30,10 @@ import thebetweenlands.common.network.clientbound.MessageAmateMap;
 import thebetweenlands.common.registries.BiomeRegistry;
 import thebetweenlands.common.registries.ItemRegistry;
 import thebetweenlands.common.registries.ItemRegistry.ICustomMeshCallback;
+import thebetweenlands.common.world.gen.biome.BiomeProviderBetweenlands;
 import thebetweenlands.common.world.storage.AmateMapData;
 import thebetweenlands.common.world.storage.AmateMapData.BLMapDecoration.Location;
+import thebetweenlands.common.world.storage.AmateMapTileRenderer;
 import thebetweenlands.common.world.storage.BetweenlandsWorldStorage;
 import thebetweenlands.common.world.storage.location.LocationCragrockTower;
 import thebetweenlands.common.world.storage.location.LocationGuarded;
@@ -38,11 +41,14 @@ import thebetweenlands.common.world.storage.location.LocationStorage;
 
 import javax.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 public class ItemAmateMap extends ItemMap implements ICustomMeshCallback {
 
     public static final String STR_ID = "amatemap";
     private static final Map<ResourceLocation, BiomeColor> BIOME_COLORS = new HashMap<>();
+    private static byte[] BIOME_PIXELS;
 
     public ItemAmateMap() {
         setCreativeTab(BLCreativeTabs.SPECIALS);
@@ -91,151 +97,131 @@ public class ItemAmateMap extends ItemMap implements ICustomMeshCallback {
 
     @Override
     public void updateMapData(World world, Entity viewer, MapData data) {
-        if (world.provider.getDimension() == BetweenlandsConfig.WORLD_AND_DIMENSION.dimensionId && world.provider.getDimension() == data.dimension && viewer instanceof EntityPlayer && viewer.ticksExisted % 20 == 0) {
-            int blocksPerPixel = 16;
-            int centerX = data.xCenter;
-            int centerZ = data.zCenter;
-            int viewerBlockX = MathHelper.floor((viewer.posX) / blocksPerPixel) * blocksPerPixel;
-            int viewerBlockZ = MathHelper.floor((viewer.posZ) / blocksPerPixel) * blocksPerPixel;
-            int viewerOffsetX = viewerBlockX - MathHelper.floor(centerX / blocksPerPixel) * blocksPerPixel;
-            int viewerOffsetZ = viewerBlockZ - MathHelper.floor(centerZ / blocksPerPixel) * blocksPerPixel;
-            int viewerPixelX = viewerOffsetX / blocksPerPixel + 64;
-            int viewerPixelZ = viewerOffsetZ / blocksPerPixel + 64;
-            int viewRadiusPixels = 256 / blocksPerPixel;
-
-            MapData.MapInfo mapInfo = data.getMapInfo((EntityPlayer)viewer);
-            ++mapInfo.step;
-            
-            boolean terrainChanged = false;
-
-            final int biomeViewRange = viewRadiusPixels * blocksPerPixel / 4 * 2 + 1;
-            
-            int updatedColumns = 0;
-            
-            int prevXPixel = 0;
-            
-            Biome[][] biomes = new Biome[2][];
-            biomes[0] = new Biome[biomeViewRange];
-            biomes[1] = new Biome[biomeViewRange];
-            
-            Map<Integer, List<Integer>> checkedChunks = new HashMap<>();
-            for (int xPixel = viewerPixelX - viewRadiusPixels + 1; xPixel < viewerPixelX + viewRadiusPixels; ++xPixel) {
-                if ((xPixel & 15) == (mapInfo.step & 15) || terrainChanged) {
-                    terrainChanged = false;
-                    
-                    final int primaryBiomesArray = updatedColumns % 2;
-                    final int previousBiomesArray = (updatedColumns + 1) % 2;
-                    
-                    biomes[primaryBiomesArray] = world.getBiomeProvider().getBiomesForGeneration(biomes[primaryBiomesArray], (viewerBlockX + (xPixel - viewerPixelX) * blocksPerPixel) / 4, (viewerBlockZ - (viewRadiusPixels - 1) * blocksPerPixel) / 4, 1, biomeViewRange);
-                    
-                    if(updatedColumns == 0 || xPixel - prevXPixel != 1) {
-                    	biomes[previousBiomesArray] = world.getBiomeProvider().getBiomesForGeneration(biomes[previousBiomesArray], (viewerBlockX + (xPixel - viewerPixelX - 1) * blocksPerPixel) / 4, (viewerBlockZ - (viewRadiusPixels - 1) * blocksPerPixel) / 4, 1, biomeViewRange);
-                    }
-                    
-                    for (int zPixel = viewerPixelZ - viewRadiusPixels - 1; zPixel < viewerPixelZ + viewRadiusPixels; ++zPixel) {
-                        if (xPixel >= 0 && zPixel >= 0 && xPixel < 128 && zPixel < 128) {
-                            int xPixelDist = xPixel - viewerPixelX;
-                            int zPixelDist = zPixel - viewerPixelZ;
-                            boolean shouldFuzz = xPixelDist * xPixelDist + zPixelDist * zPixelDist > (viewRadiusPixels - 2) * (viewRadiusPixels - 2);
-
-                            int biomeIndex = (zPixel - viewerPixelZ + viewRadiusPixels + 1) * blocksPerPixel / 4;
-                            Biome primaryBiome = biomes[primaryBiomesArray][biomeIndex];
-                            
-                            boolean isEdge = false;
-                            
-                            if(biomeIndex >= blocksPerPixel / 4) {
-                            	Biome biomeUp = biomes[primaryBiomesArray][biomeIndex - blocksPerPixel / 4];
-                                if(biomeUp != primaryBiome) {
-                              		isEdge = true;
-                                }
-                            }
-                            
-                        	Biome biomeLeft = biomes[previousBiomesArray][biomeIndex];
-                            if(biomeLeft != primaryBiome) {
-                          		isEdge = true;
-                            }
-                            
-                            BiomeColor colorBrightness = this.getMapColorPerBiome(world, primaryBiome);
-                            
-                            MapColor mapcolor = colorBrightness.color;
-                            int brightness = colorBrightness.brightness;
-
-                            if (zPixel >= 0 && xPixelDist * xPixelDist + zPixelDist * zPixelDist < viewRadiusPixels * viewRadiusPixels && (!shouldFuzz || (xPixel + zPixel & 1) != 0)) {
-                                byte oldPixel = data.colors[xPixel + zPixel * 128];
-                                byte newPixel = (byte) (mapcolor.colorIndex * 4 + brightness);
-
-                                if(isEdge) {
-                                	newPixel = (byte)(29 * 4);
-                                }
-                                
-                                if (oldPixel != newPixel) {
-                                    data.colors[xPixel + zPixel * 128] = newPixel;
-                                    data.updateMapData(xPixel, zPixel);
-                                    terrainChanged = true;
-                                }
-
-                                int worldX = (centerX / blocksPerPixel + xPixel - 64) * blocksPerPixel;
-                                int worldZ = (centerZ / blocksPerPixel + zPixel - 64) * blocksPerPixel;
-                                int chunkX = worldX >> 4;
-                                int chunkZ = worldZ >> 4;
-                                if (!checkedChunks.containsKey(chunkX) || (checkedChunks.containsKey(chunkX) && !checkedChunks.get(chunkX).contains(chunkZ))) {
-                                    checkedChunks.computeIfAbsent(chunkX, integer -> new ArrayList<>()).add(chunkZ);
-                                }
-                            }
-                        }
+        if (world.provider.getDimension() == BetweenlandsConfig.WORLD_AND_DIMENSION.dimensionId && world.provider.getDimension() == data.dimension && viewer instanceof EntityPlayer && data instanceof AmateMapData) {
+            AmateMapData amateMapData = (AmateMapData) data;
+
+            //Merge the tile rendered off-thread as soon as it is done
+            Future<AmateMapTileRenderer.Tile> pendingTile = amateMapData.getPendingTile();
+            if (pendingTile != null && pendingTile.isDone()) {
+                amateMapData.setPendingTile(null);
+                try {
+                    pendingTile.get().merge(amateMapData);
+                } catch (InterruptedException | ExecutionException ex) {
+                    TheBetweenlands.logger.error("Failed rendering amate map tile", ex);
+                }
+            }
+
+            if (viewer.ticksExisted % 20 == 0) {
+                int blocksPerPixel = 16;
+                int centerX = data.xCenter;
+                int centerZ = data.zCenter;
+                int viewerBlockX = MathHelper.floor((viewer.posX) / blocksPerPixel) * blocksPerPixel;
+                int viewerBlockZ = MathHelper.floor((viewer.posZ) / blocksPerPixel) * blocksPerPixel;
+                int viewerOffsetX = viewerBlockX - MathHelper.floor(centerX / blocksPerPixel) * blocksPerPixel;
+                int viewerOffsetZ = viewerBlockZ - MathHelper.floor(centerZ / blocksPerPixel) * blocksPerPixel;
+                int viewerPixelX = viewerOffsetX / blocksPerPixel + 64;
+                int viewerPixelZ = viewerOffsetZ / blocksPerPixel + 64;
+                int viewRadiusPixels = 256 / blocksPerPixel;
+
+                if (amateMapData.getPendingTile() == null) {
+                    AmateMapTileRenderer renderer = new AmateMapTileRenderer(getBiomePixels(world), viewerBlockX, viewerBlockZ, viewerPixelX, viewerPixelZ, viewRadiusPixels, blocksPerPixel);
+
+                    BiomeProvider biomeProvider = world.getBiomeProvider();
+                    if (biomeProvider instanceof BiomeProviderBetweenlands && ((BiomeProviderBetweenlands) biomeProvider).getGenerationBiomeTileCache().isEnabled()) {
+                        amateMapData.setPendingTile(renderer.renderAsync(((BiomeProviderBetweenlands) biomeProvider).getGenerationBiomeTileCache()));
+                    } else {
+                        //Biomes can't be sampled off-thread without the tile cache
+                        renderer.render(biomeProvider).merge(amateMapData);
                     }
-                    
-                    updatedColumns++;
-                    prevXPixel = xPixel;
                 }
+
+                locateBLLocations(world, viewerBlockX, viewerBlockZ, viewRadiusPixels * blocksPerPixel, centerX, centerZ, blocksPerPixel, amateMapData);
             }
-            
-            locateBLLocations(world, checkedChunks, centerX, centerZ, blocksPerPixel, data);
         }
     }
 
-    private void locateBLLocations(World world, Map<Integer, List<Integer>> posList, int centerX, int centerZ, int blocksPerPixel, MapData data) {
+    private void locateBLLocations(World world, int viewerBlockX, int viewerBlockZ, int viewRadius, int centerX, int centerZ, int blocksPerPixel, AmateMapData amateMapData) {
         BetweenlandsWorldStorage worldStorage = BetweenlandsWorldStorage.forWorld(world);
         ILocalStorageHandler handler = worldStorage.getLocalStorageHandler();
-        AmateMapData amateMapData = (AmateMapData) data;
-
-        for (Map.Entry<Integer, List<Integer>> chunkX: posList.entrySet()) {
-            for (Integer z : chunkX.getValue()) {
-                int x = chunkX.getKey();
-                List<LocationStorage> localStorages = handler.getLocalStorages(LocationStorage.class, x << 4, z << 4, input -> true);
-                if (localStorages.size() > 0) {
-                    for (LocationStorage storage : localStorages) {
-                    	AxisAlignedBB aabb = storage.getEnclosingBounds();
-                        Vec3d center = new Vec3d(aabb.minX + (aabb.maxX - aabb.minX) * 0.5D, aabb.minY + (aabb.maxY - aabb.minY) * 0.5D, aabb.minZ + (aabb.maxZ - aabb.minZ) * 0.5D);
-                        byte mapX = (byte) ((center.x - centerX) / (float) blocksPerPixel * 2F);
-                        byte mapZ = (byte) ((center.z - centerZ) / (float) blocksPerPixel * 2F);
-                        Location location = Location.getLocation(storage);
-                        if (location != Location.NONE) {
-                            amateMapData.addDecoration(new AmateMapData.BLMapDecoration(location, mapX, mapZ, (byte) 8));
-
-                            boolean done = false;
-                            if (location == Location.TOWER) {
-                                LocationCragrockTower tower = (LocationCragrockTower) storage;
-                                if (tower.isTopConquered()) {
-                                    done = true;
-                                }
-                            } else if (location == Location.FORTRESS || location == Location.SPIRIT_TREE) {
-                                LocationGuarded guarded = (LocationGuarded) storage;
-                                if (guarded.getGuard().isClear(world)) {
-                                    done = true;
-                                }
-                            }
-                            if (done) {
-                                amateMapData.addDecoration(new AmateMapData.BLMapDecoration(Location.CHECK, mapX, mapZ, (byte) 8));
-                            }
-                        }
+
+        //Area of the map that is visible to the viewer
+        int mapMinX = (centerX / blocksPerPixel - 64) * blocksPerPixel;
+        int mapMinZ = (centerZ / blocksPerPixel - 64) * blocksPerPixel;
+        int mapMaxX = (centerX / blocksPerPixel + 64) * blocksPerPixel;
+        int mapMaxZ = (centerZ / blocksPerPixel + 64) * blocksPerPixel;
+        int minX = Math.max(viewerBlockX - viewRadius, mapMinX);
+        int minZ = Math.max(viewerBlockZ - viewRadius, mapMinZ);
+        int maxX = Math.min(viewerBlockX + viewRadius, mapMaxX);
+        int maxZ = Math.min(viewerBlockZ + viewRadius, mapMaxZ);
+
+        if (minX >= maxX || minZ >= maxZ) {
+            return;
+        }
+
+        List<LocationStorage> localStorages = handler.getLocalStorages(LocationStorage.class, new AxisAlignedBB(minX, 0, minZ, maxX, world.getHeight(), maxZ), storage -> {
+            //Only locations within the view radius are revealed
+            AxisAlignedBB aabb = storage.getEnclosingBounds();
+            double dx = Math.max(0, Math.max(aabb.minX - viewerBlockX, viewerBlockX - aabb.maxX));
+            double dz = Math.max(0, Math.max(aabb.minZ - viewerBlockZ, viewerBlockZ - aabb.maxZ));
+            return dx * dx + dz * dz < viewRadius * viewRadius;
+        });
+
+        for (LocationStorage storage : localStorages) {
+            Location location = Location.getLocation(storage);
+            if (location != Location.NONE) {
+                AxisAlignedBB aabb = storage.getEnclosingBounds();
+                Vec3d center = new Vec3d(aabb.minX + (aabb.maxX - aabb.minX) * 0.5D, aabb.minY + (aabb.maxY - aabb.minY) * 0.5D, aabb.minZ + (aabb.maxZ - aabb.minZ) * 0.5D);
+                float mapXFloat = (float) ((center.x - centerX) / (float) blocksPerPixel * 2F);
+                float mapZFloat = (float) ((center.z - centerZ) / (float) blocksPerPixel * 2F);
+                if (mapXFloat < -128 || mapXFloat >= 128 || mapZFloat < -128 || mapZFloat >= 128) {
+                    //Center is outside of the map
+                    continue;
+                }
+                byte mapX = (byte) mapXFloat;
+                byte mapZ = (byte) mapZFloat;
+
+                amateMapData.addDecoration(new AmateMapData.BLMapDecoration(location, mapX, mapZ, (byte) 8));
+
+                boolean done = false;
+                if (location == Location.TOWER) {
+                    LocationCragrockTower tower = (LocationCragrockTower) storage;
+                    if (tower.isTopConquered()) {
+                        done = true;
+                    }
+                } else if (location == Location.FORTRESS || location == Location.SPIRIT_TREE) {
+                    LocationGuarded guarded = (LocationGuarded) storage;
+                    if (guarded.getGuard().isClear(world)) {
+                        done = true;
                     }
                 }
+                if (done) {
+                    amateMapData.addDecoration(new AmateMapData.BLMapDecoration(Location.CHECK, mapX, mapZ, (byte) 8));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the map pixel of each biome ID, 0 for unregistered biome IDs
+     * @param world
+     * @return
+     */
+    private static byte[] getBiomePixels(World world) {
+        if (BIOME_PIXELS == null) {
+            byte[] pixels = new byte[256];
+            for (int id = 0; id < 256; id++) {
+                Biome biome = Biome.getBiome(id);
+                if (biome != null) {
+                    BiomeColor colorBrightness = getMapColorPerBiome(world, biome);
+                    pixels[id] = (byte) (colorBrightness.color.colorIndex * 4 + colorBrightness.brightness);
+                }
             }
+            BIOME_PIXELS = pixels;
         }
+        return BIOME_PIXELS;
     }
 
-    private BiomeColor getMapColorPerBiome(World world, Biome biome) {
+    private static BiomeColor getMapColorPerBiome(World world, Biome biome) {
         if (BIOME_COLORS.isEmpty()) {
             setupBiomeColors();
         }
@@ -4,7 +4,6 @@ import java.util.function.Predicate;
 
 import javax.annotation.Nullable;
 
-import it.unimi.dsi.fastutil.ints.IntSet;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.entity.player.EntityPlayerMP;
@@ -105,8 +104,7 @@ public class ItemGemSinger extends Item {
 						if(chunk != null) {
 							BetweenlandsChunkStorage storage = BetweenlandsChunkStorage.forChunk(worldIn, chunk);
 							if(storage != null) {
-								IntSet gems = storage.findGems(target);
-								if(gems.contains(BetweenlandsChunkStorage.getGemSingerTargetIndex(gem.getX(), gem.getY(), gem.getZ()))) {
+								if(storage.hasGem(gem.getX(), gem.getY(), gem.getZ(), target)) {
 									valid = true;
 								}
 							}
@@ -0,0 +1,42 @@
+package thebetweenlands.common.network;
+
+import java.util.Collection;
+
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.network.Packet;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import thebetweenlands.common.TheBetweenlands;
+
+/**
+ * Sends the same message to multiple players. The message is serialized only once
+ * and the resulting packet is shared by all players, like Forge does for
+ * {@link net.minecraftforge.fml.common.network.simpleimpl.SimpleNetworkWrapper#sendToAll(IMessage)}
+ */
+public final class MessageBroadcast {
+	private MessageBroadcast() { }
+
+	/**
+	 * Serializes the message into a packet that can be sent to any number of players
+	 * @param message
+	 * @return
+	 */
+	public static Packet<?> createPacket(IMessage message) {
+		return TheBetweenlands.networkWrapper.getPacketFrom(message);
+	}
+
+	/**
+	 * Sends the message to all specified players
+	 * @param message
+	 * @param players
+	 */
+	public static void sendTo(IMessage message, Collection<EntityPlayerMP> players) {
+		if(players.size() == 1) {
+			TheBetweenlands.networkWrapper.sendTo(message, players.iterator().next());
+		} else if(!players.isEmpty()) {
+			Packet<?> packet = createPacket(message);
+			for(EntityPlayerMP player : players) {
+				player.connection.sendPacket(packet);
+			}
+		}
+	}
+}
@@ -17,6 +17,7 @@ import thebetweenlands.api.storage.ILocalStorage;
 import thebetweenlands.api.storage.ILocalStorageHandler;
 import thebetweenlands.api.storage.IWorldStorage;
 import thebetweenlands.api.storage.StorageID;
+import thebetweenlands.client.handler.LocationProximityHandler;
 import thebetweenlands.common.network.MessageBase;
 import thebetweenlands.common.network.datamanager.GenericDataManager;
 import thebetweenlands.common.registries.StorageRegistry;
@@ -90,6 +91,7 @@ public class MessageAddLocalStorage extends MessageBase {
 			ILocalStorage loadedStorage = storageHandler.getLocalStorage(id);
 			if(loadedStorage != null) {
 				storageHandler.removeLocalStorage(loadedStorage);
+				LocationProximityHandler.INSTANCE.onLocalStorageRemoved(loadedStorage);
 			}
 
 			ILocalStorage newStorage = storageHandler.createLocalStorage(this.type, id, null);
@@ -103,7 +105,9 @@ public class MessageAddLocalStorage extends MessageBase {
 				}
 			}
 
-			storageHandler.addLocalStorage(newStorage);
+			if(storageHandler.addLocalStorage(newStorage)) {
+				LocationProximityHandler.INSTANCE.onLocalStorageAdded(newStorage);
+			}
 		}
 	}
 }
\ No newline at end of file
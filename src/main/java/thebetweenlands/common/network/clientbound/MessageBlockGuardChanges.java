@@ -0,0 +1,105 @@
+package thebetweenlands.common.network.clientbound;
+
+import it.unimi.dsi.fastutil.ints.IntList;
+import net.minecraft.client.Minecraft;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+import thebetweenlands.api.storage.ILocalStorage;
+import thebetweenlands.api.storage.StorageID;
+import thebetweenlands.common.network.MessageBase;
+import thebetweenlands.common.world.storage.BetweenlandsWorldStorage;
+import thebetweenlands.common.world.storage.location.LocationGuarded;
+
+/**
+ * Block guard changes of a single chunk within one tick. Positions are encoded
+ * as chunk relative <code>y << 8 | z << 4 | x</code>
+ */
+public class MessageBlockGuardChanges extends MessageBase {
+	private String id;
+	private int chunkX, chunkZ;
+	private int[] guarded;
+	private int[] unguarded;
+
+	public MessageBlockGuardChanges() {}
+
+	public MessageBlockGuardChanges(LocationGuarded storage, int chunkX, int chunkZ, IntList guarded, IntList unguarded) {
+		this.id = storage.getID().getStringID();
+		this.chunkX = chunkX;
+		this.chunkZ = chunkZ;
+		this.guarded = guarded.toIntArray();
+		this.unguarded = unguarded.toIntArray();
+	}
+
+	@Override
+	public void deserialize(PacketBuffer buf) {
+		this.id = buf.readString(256);
+		this.chunkX = buf.readInt();
+		this.chunkZ = buf.readInt();
+		this.guarded = readPositions(buf);
+		this.unguarded = readPositions(buf);
+	}
+
+	private static int[] readPositions(PacketBuffer buf) {
+		int count = buf.readVarInt();
+		if(count < 0 || count > 16 * 16 * 256) {
+			throw new RuntimeException("Invalid block guard data");
+		}
+		int[] positions = new int[count];
+		for(int i = 0; i < count; i++) {
+			positions[i] = buf.readUnsignedShort();
+		}
+		return positions;
+	}
+
+	@Override
+	public void serialize(PacketBuffer buf) {
+		buf.writeString(this.id);
+		buf.writeInt(this.chunkX);
+		buf.writeInt(this.chunkZ);
+		writePositions(buf, this.guarded);
+		writePositions(buf, this.unguarded);
+	}
+
+	private static void writePositions(PacketBuffer buf, int[] positions) {
+		buf.writeVarInt(positions.length);
+		for(int position : positions) {
+			buf.writeShort(position);
+		}
+	}
+
+	@Override
+	public IMessage process(MessageContext ctx) {
+		if(ctx.side == Side.CLIENT) {
+			this.handle();
+		}
+		return null;
+	}
+
+	@SideOnly(Side.CLIENT)
+	private void handle() {
+		World world = Minecraft.getMinecraft().world;
+		if(world != null) {
+			BetweenlandsWorldStorage worldStorage = BetweenlandsWorldStorage.forWorld(world);
+			ILocalStorage storage = worldStorage.getLocalStorageHandler().getLocalStorage(StorageID.fromString(this.id));
+			if(storage != null && storage instanceof LocationGuarded) {
+				LocationGuarded location = (LocationGuarded) storage;
+				BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+				for(int position : this.guarded) {
+					location.getGuard().setGuarded(world, this.getPosition(pos, position), true);
+				}
+				for(int position : this.unguarded) {
+					location.getGuard().setGuarded(world, this.getPosition(pos, position), false);
+				}
+			}
+		}
+	}
+
+	private BlockPos getPosition(BlockPos.MutableBlockPos pos, int position) {
+		return pos.setPos(this.chunkX * 16 + (position & 15), (position >> 8) & 255, this.chunkZ * 16 + ((position >> 4) & 15));
+	}
+}
@@ -1,9 +1,7 @@
 package thebetweenlands.common.network.clientbound;
 
-import java.io.IOException;
-
+import io.netty.buffer.Unpooled;
 import net.minecraft.client.Minecraft;
-import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.network.PacketBuffer;
 import net.minecraft.world.World;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
@@ -15,33 +13,72 @@ import thebetweenlands.api.storage.StorageID;
 import thebetweenlands.common.network.MessageBase;
 import thebetweenlands.common.world.storage.BetweenlandsWorldStorage;
 import thebetweenlands.common.world.storage.location.LocationGuarded;
-import thebetweenlands.common.world.storage.location.LocationStorage;
+import thebetweenlands.common.world.storage.location.guard.BlockLocationGuard;
+import thebetweenlands.common.world.storage.location.guard.BlockLocationGuard.GuardChunk;
 
 public class MessageBlockGuardData extends MessageBase {
 	private String id;
-	private NBTTagCompound data;
+	private boolean replace;
+	private int chunks;
+	private byte[] data;
 
 	public MessageBlockGuardData() {}
 
-	public MessageBlockGuardData(LocationStorage location) {
+	/**
+	 * Syncs all chunks of the location's guard and replaces the client side guard
+	 * @param location
+	 */
+	public MessageBlockGuardData(LocationGuarded location) {
+		this.id = location.getID().getStringID();
+		this.replace = true;
+		PacketBuffer buf = new PacketBuffer(Unpooled.buffer());
+		for(GuardChunk chunk : location.getGuard().getChunks()) {
+			location.getGuard().writeChunk(buf, chunk.x, chunk.z);
+			this.chunks++;
+		}
+		this.data = toByteArray(buf);
+	}
+
+	/**
+	 * Syncs the guard chunks that cover blocks of the specified world chunk
+	 * @param location
+	 * @param worldChunkX
+	 * @param worldChunkZ
+	 */
+	public MessageBlockGuardData(LocationGuarded location, int worldChunkX, int worldChunkZ) {
 		this.id = location.getID().getStringID();
-		this.data = location.writeGuardNBT(new NBTTagCompound());
+		this.replace = false;
+		PacketBuffer buf = new PacketBuffer(Unpooled.buffer());
+		for(int x = worldChunkX; x <= BlockLocationGuard.getMaxGuardChunkCoord(worldChunkX); x++) {
+			for(int z = worldChunkZ; z <= BlockLocationGuard.getMaxGuardChunkCoord(worldChunkZ); z++) {
+				location.getGuard().writeChunk(buf, x, z);
+				this.chunks++;
+			}
+		}
+		this.data = toByteArray(buf);
+	}
+
+	private static byte[] toByteArray(PacketBuffer buf) {
+		byte[] data = new byte[buf.readableBytes()];
+		buf.readBytes(data);
+		buf.release();
+		return data;
 	}
 
 	@Override
 	public void deserialize(PacketBuffer buf) {
 		this.id = buf.readString(256);
-		try {
-			this.data = buf.readCompoundTag();
-		} catch (IOException e) {
-			throw new RuntimeException(e);
-		}
+		this.replace = buf.readBoolean();
+		this.chunks = buf.readVarInt();
+		this.data = buf.readByteArray();
 	}
 
 	@Override
 	public void serialize(PacketBuffer buf) {
 		buf.writeString(this.id);
-		buf.writeCompoundTag(this.data);
+		buf.writeBoolean(this.replace);
+		buf.writeVarInt(this.chunks);
+		buf.writeByteArray(this.data);
 	}
 
 	@Override
@@ -60,8 +97,18 @@ public class MessageBlockGuardData extends MessageBase {
 			ILocalStorage storage = worldStorage.getLocalStorageHandler().getLocalStorage(StorageID.fromString(this.id));
 			if(storage != null && storage instanceof LocationGuarded) {
 				LocationGuarded location = (LocationGuarded) storage;
-				location.readGuardNBT(this.data);
+				if(this.replace) {
+					location.getGuard().clearChunks();
+				}
+				PacketBuffer buf = new PacketBuffer(Unpooled.wrappedBuffer(this.data));
+				try {
+					for(int i = 0; i < this.chunks; i++) {
+						location.getGuard().readChunk(buf);
+					}
+				} catch(IllegalArgumentException ex) {
+					throw new RuntimeException("Invalid block guard data", ex);
+				}
 			}
 		}
 	}
-}
\ No newline at end of file
+}
@@ -14,6 +14,7 @@ import thebetweenlands.api.storage.ILocalStorage;
 import thebetweenlands.api.storage.ILocalStorageHandler;
 import thebetweenlands.api.storage.IWorldStorage;
 import thebetweenlands.api.storage.StorageID;
+import thebetweenlands.client.handler.LocationProximityHandler;
 import thebetweenlands.common.network.MessageBase;
 import thebetweenlands.common.world.storage.WorldStorageImpl;
 
@@ -57,6 +58,7 @@ public class MessageRemoveLocalStorage extends MessageBase {
 			ILocalStorage loadedStorage = localStorageHandler.getLocalStorage(this.id);
 			if(loadedStorage != null) {
 				localStorageHandler.removeLocalStorage(loadedStorage);
+				LocationProximityHandler.INSTANCE.onLocalStorageRemoved(loadedStorage);
 			}
 		}
 	}
@@ -0,0 +1,75 @@
+package thebetweenlands.common.network.clientbound;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+import thebetweenlands.common.network.MessageBase;
+
+/**
+ * Batch of the local storages and chunk storages a player started watching within one tick.
+ * Local storages are added before the chunk storages are synced so that the chunk storages
+ * can load their references
+ */
+public class MessageSyncWatchedStorages extends MessageBase {
+	private List<MessageAddLocalStorage> localStorages = new ArrayList<>();
+	private List<MessageSyncChunkStorage> chunkStorages = new ArrayList<>();
+
+	public MessageSyncWatchedStorages() {}
+
+	public void addLocalStorage(MessageAddLocalStorage message) {
+		this.localStorages.add(message);
+	}
+
+	public void addChunkStorage(MessageSyncChunkStorage message) {
+		this.chunkStorages.add(message);
+	}
+
+	public int getSize() {
+		return this.localStorages.size() + this.chunkStorages.size();
+	}
+
+	@Override
+	public void serialize(PacketBuffer buf) throws IOException {
+		buf.writeVarInt(this.localStorages.size());
+		for(MessageAddLocalStorage message : this.localStorages) {
+			message.serialize(buf);
+		}
+		buf.writeVarInt(this.chunkStorages.size());
+		for(MessageSyncChunkStorage message : this.chunkStorages) {
+			message.serialize(buf);
+		}
+	}
+
+	@Override
+	public void deserialize(PacketBuffer buf) throws IOException {
+		this.localStorages.clear();
+		int localStorages = buf.readVarInt();
+		for(int i = 0; i < localStorages; i++) {
+			MessageAddLocalStorage message = new MessageAddLocalStorage();
+			message.deserialize(buf);
+			this.localStorages.add(message);
+		}
+		this.chunkStorages.clear();
+		int chunkStorages = buf.readVarInt();
+		for(int i = 0; i < chunkStorages; i++) {
+			MessageSyncChunkStorage message = new MessageSyncChunkStorage();
+			message.deserialize(buf);
+			this.chunkStorages.add(message);
+		}
+	}
+
+	@Override
+	public IMessage process(MessageContext ctx) {
+		for(MessageAddLocalStorage message : this.localStorages) {
+			message.process(ctx);
+		}
+		for(MessageSyncChunkStorage message : this.chunkStorages) {
+			message.process(ctx);
+		}
+		return null;
+	}
+}
@@ -15,6 +15,7 @@ import gnu.trove.map.TObjectIntMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.map.hash.TObjectIntHashMap;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.DecoderException;
 import io.netty.handler.codec.EncoderException;
@@ -275,16 +276,21 @@ public class GenericDataManager implements IGenericDataManagerAccess {
 		return this.dirty;
 	}
 
-	private <T> void serializeEntry(GenericDataManager.DataEntry<T> entry, GenericDataManager.DataEntry<?> copy) {
-		PacketBuffer buf = new PacketBuffer(Unpooled.buffer());
+	/**
+	 * Serializes the entry with its custom serializer into the copy.
+	 * The scratch buffer is reused for all entries of one sync
+	 * @param entry
+	 * @param copy
+	 * @param scratch
+	 */
+	private <T> void serializeEntry(GenericDataManager.DataEntry<T> entry, GenericDataManager.DataEntry<?> copy, PacketBuffer scratch) {
+		scratch.clear();
 		try {
-			entry.serializer.serialize(buf, (T) entry.value);
-			copy.serializedData = new byte[buf.readableBytes()];
-			buf.readBytes(copy.serializedData);
+			entry.serializer.serialize(scratch, (T) entry.value);
+			copy.serializedData = new byte[scratch.readableBytes()];
+			scratch.readBytes(copy.serializedData);
 		} catch(Exception ex) {
 			throw new DecoderException("Failed serializing data with custom serializer " + entry.serializer.getClass().getName(), ex);
-		} finally {
-			buf.release();
 		}
 	}
 
@@ -294,6 +300,8 @@ public class GenericDataManager implements IGenericDataManagerAccess {
 		List<IDataEntry<?>> list = null;
 
 		if (this.dirty) {
+			PacketBuffer scratch = null;
+
 			this.lock.readLock().lock();
 
 			try {
@@ -310,12 +318,19 @@ public class GenericDataManager implements IGenericDataManagerAccess {
 						list.add(copy);
 
 						if(entry.serializer != null) {
-							this.serializeEntry(entry, copy);
+							if(scratch == null) {
+								scratch = new PacketBuffer(PooledByteBufAllocator.DEFAULT.buffer());
+							}
+							this.serializeEntry(entry, copy, scratch);
 						}
 					}
 				}
 			} finally {
 				this.lock.readLock().unlock();
+
+				if(scratch != null) {
+					scratch.release();
+				}
 			}
 		}
 
@@ -327,6 +342,7 @@ public class GenericDataManager implements IGenericDataManagerAccess {
 	@Nullable
 	public List<IDataEntry<?>> getAll() {
 		List<IDataEntry<?>> list = null;
+		PacketBuffer scratch = null;
 		this.lock.readLock().lock();
 
 		try {
@@ -340,11 +356,18 @@ public class GenericDataManager implements IGenericDataManagerAccess {
 				list.add(copy);
 
 				if(entry.serializer != null) {
-					this.serializeEntry(entry, copy);
+					if(scratch == null) {
+						scratch = new PacketBuffer(PooledByteBufAllocator.DEFAULT.buffer());
+					}
+					this.serializeEntry(entry, copy, scratch);
 				}
 			}
 		} finally {
 			this.lock.readLock().unlock();
+
+			if(scratch != null) {
+				scratch.release();
+			}
 		}
 
 		return list;
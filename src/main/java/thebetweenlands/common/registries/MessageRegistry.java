@@ -12,8 +12,8 @@ import thebetweenlands.common.TheBetweenlands;
 import thebetweenlands.common.network.MessageBase;
 import thebetweenlands.common.network.clientbound.MessageAddLocalStorage;
 import thebetweenlands.common.network.clientbound.MessageAmateMap;
+import thebetweenlands.common.network.clientbound.MessageBlockGuardChanges;
 import thebetweenlands.common.network.clientbound.MessageBlockGuardData;
-import thebetweenlands.common.network.clientbound.MessageBlockGuardSectionChange;
 import thebetweenlands.common.network.clientbound.MessageClearBlockGuard;
 import thebetweenlands.common.network.clientbound.MessageCureDecayParticles;
 import thebetweenlands.common.network.clientbound.MessageDamageReductionParticle;
@@ -36,6 +36,7 @@ import thebetweenlands.common.network.clientbound.MessageSyncGameRules;
 import thebetweenlands.common.network.clientbound.MessageSyncLocalStorageData;
 import thebetweenlands.common.network.clientbound.MessageSyncLocalStorageReferences;
 import thebetweenlands.common.network.clientbound.MessageSyncStaticAspects;
+import thebetweenlands.common.network.clientbound.MessageSyncWatchedStorages;
 import thebetweenlands.common.network.clientbound.MessageWeedwoodBushRustle;
 import thebetweenlands.common.network.clientbound.MessageWightVolatileParticles;
 import thebetweenlands.common.network.serverbound.MessageConnectCavingRope;
@@ -69,7 +70,7 @@ public class MessageRegistry {
 		registerMessage(MessageWightVolatileParticles.class, Side.CLIENT);
 		registerMessage(MessageGemProc.class, Side.CLIENT);
 		registerMessage(MessageMireSnailEggHatching.class, Side.CLIENT);
-		registerMessage(MessageBlockGuardSectionChange.class, Side.CLIENT);
+		registerMessage(MessageBlockGuardChanges.class, Side.CLIENT);
 		registerMessage(MessageBlockGuardData.class, Side.CLIENT);
 		registerMessage(MessageClearBlockGuard.class, Side.CLIENT);
 		registerMessage(MessagePlayEntityIdle.class, Side.CLIENT);
@@ -88,6 +89,7 @@ public class MessageRegistry {
 		registerMessage(MessageSoundRipple.class, Side.CLIENT);
 		registerMessage(MessageSyncGameRules.class, Side.CLIENT);
 		registerMessage(MessageCureDecayParticles.class, Side.CLIENT);
+		registerMessage(MessageSyncWatchedStorages.class, Side.CLIENT);
 		
 		registerMessage(MessageEquipItem.class, Side.SERVER);
 		registerMessage(MessageOpenPouch.class, Side.SERVER);
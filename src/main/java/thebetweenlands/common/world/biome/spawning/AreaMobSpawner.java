@@ -1,17 +1,19 @@
 package thebetweenlands.common.world.biome.spawning;
 
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
 import javax.annotation.Nullable;
 
 import gnu.trove.map.hash.TObjectIntHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityLiving;
@@ -35,7 +37,6 @@ import thebetweenlands.api.entity.spawning.ICustomSpawnEntriesProvider;
 import thebetweenlands.api.entity.spawning.ICustomSpawnEntry;
 import thebetweenlands.common.config.BetweenlandsConfig;
 import thebetweenlands.common.lib.ModInfo;
-import thebetweenlands.util.WeightedList;
 
 public abstract class AreaMobSpawner {
 	@Nullable
@@ -43,6 +44,8 @@ public abstract class AreaMobSpawner {
 
 	protected boolean strictDynamicLimit = true;
 
+	protected final SpawnerStats stats = new SpawnerStats();
+
 	/**
 	 * Sets whether the dynamic limit is strict, i.e. enforced and not
 	 * just approximated by randomness and weight.
@@ -128,6 +131,59 @@ public abstract class AreaMobSpawner {
 		return provider != null ? provider.getCustomSpawnEntries() : Collections.emptyList();
 	}
 
+	private static class CompiledSpawnEntries {
+		private final ICustomSpawnEntry[] source;
+		private final SpawnEntryTable all, hostile, passive;
+
+		private CompiledSpawnEntries(List<ICustomSpawnEntry> entries) {
+			this.source = entries.toArray(new ICustomSpawnEntry[0]);
+			this.all = SpawnEntryTable.compile(entries, entry -> true);
+			this.hostile = SpawnEntryTable.compile(entries, entry -> entry.isHostile());
+			this.passive = SpawnEntryTable.compile(entries, entry -> !entry.isHostile());
+		}
+
+		private boolean isCompiledFrom(List<ICustomSpawnEntry> entries) {
+			if(this.source.length != entries.size()) {
+				return false;
+			}
+			for(int i = 0; i < this.source.length; i++) {
+				if(this.source[i] != entries.get(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	private final Map<ICustomSpawnEntriesProvider, CompiledSpawnEntries> compiledSpawnEntries = new IdentityHashMap<>();
+
+	/**
+	 * Returns the compiled spawn entry table of all spawn entries at the specified position.
+	 * The tables are compiled once per provider from {@link #getSpawnEntries(World, BlockPos, ICustomSpawnEntriesProvider)}
+	 * and recompiled if the spawn entries change
+	 * @param world
+	 * @param pos
+	 * @param provider
+	 * @param hostile
+	 * @param passive
+	 * @return
+	 */
+	@Nullable
+	protected SpawnEntryTable getSpawnEntryTable(World world, BlockPos pos, @Nullable ICustomSpawnEntriesProvider provider, boolean hostile, boolean passive) {
+		if(!hostile && !passive) {
+			return null;
+		}
+
+		List<ICustomSpawnEntry> entries = this.getSpawnEntries(world, pos, provider);
+
+		CompiledSpawnEntries compiled = this.compiledSpawnEntries.get(provider);
+		if(compiled == null || !compiled.isCompiledFrom(entries)) {
+			this.compiledSpawnEntries.put(provider, compiled = new CompiledSpawnEntries(entries));
+		}
+
+		return hostile && passive ? compiled.all : (hostile ? compiled.hostile : compiled.passive);
+	}
+
 	/**
 	 * Returns the spawn entry data, such as spawning cooldowns etc.
 	 * @param world
@@ -353,56 +409,92 @@ public abstract class AreaMobSpawner {
 		public void onSpawned(EntityLivingBase entity) { }
 	}
 
+	/**
+	 * Returns the statistics of this spawner
+	 * @return
+	 */
+	public SpawnerStats getStats() {
+		return this.stats;
+	}
+
 	public void populate(WorldServer world, boolean spawnHostiles, boolean spawnAnimals) {
-		int totalWorldEntityCount = 0;
-		for(Entity entity : (List<Entity>)world.loadedEntityList) {
-			if(entity instanceof EntityLivingBase) {
-				totalWorldEntityCount++;
+		long start = System.nanoTime();
+		this.stats.onRun();
+		this.populateSpawnerChunks(world, spawnHostiles, spawnAnimals);
+		this.stats.record(SpawnerStats.Phase.TOTAL, System.nanoTime() - start);
+	}
+
+	private void populateSpawnerChunks(WorldServer world, boolean spawnHostiles, boolean spawnAnimals) {
+		EntityCountIndex entityCountIndex = EntityCountIndex.get(world);
+
+		if(this.getHardEntityLimit() != Integer.MAX_VALUE) {
+			int totalWorldEntityCount = 0;
+			if(entityCountIndex != null) {
+				totalWorldEntityCount = entityCountIndex.getTotalCount();
+			} else {
+				for(Entity entity : (List<Entity>)world.loadedEntityList) {
+					if(entity instanceof EntityLivingBase) {
+						totalWorldEntityCount++;
+					}
+				}
 			}
-		}
 
-		if(totalWorldEntityCount >= this.getHardEntityLimit()) {
-			//Hard limit reached, don't spawn any more entities
-			return;
+			if(totalWorldEntityCount >= this.getHardEntityLimit()) {
+				//Hard limit reached, don't spawn any more entities
+				this.stats.onRejected(SpawnerStats.Rejection.HARD_LIMIT);
+				return;
+			}
 		}
 
-		this.updateSpawnerChunks(world, this.eligibleChunksForSpawning);
+		long start = System.nanoTime();
+		LongSet eligibleChunksForSpawning = this.getSpawnerChunks(world);
+		this.stats.record(SpawnerStats.Phase.CHUNKS, System.nanoTime() - start);
 
-		if(this.eligibleChunksForSpawning.isEmpty()) {
+		if(eligibleChunksForSpawning.isEmpty()) {
 			//No spawning chunks
 			return;
 		}
 
-		List<ChunkPos> spawnerChunks = new ArrayList<ChunkPos>(this.eligibleChunksForSpawning.size());
+		LongArrayList spawnerChunks = new LongArrayList(eligibleChunksForSpawning.size());
 
-		//Add valid chunks
-		for(ChunkPos chunkPos : this.eligibleChunksForSpawning) {
-			//Don't load chunks
-			if(world.isBlockLoaded(new BlockPos(chunkPos.x * 16, 64, chunkPos.z * 16))) {
-				spawnerChunks.add(chunkPos);
+		if(this.areSpawnerChunksLoaded()) {
+			spawnerChunks.addAll(eligibleChunksForSpawning);
+		} else {
+			//Add valid chunks
+			LongIterator it = eligibleChunksForSpawning.iterator();
+			while(it.hasNext()) {
+				long chunk = it.nextLong();
+				//Don't load chunks
+				if(world.getChunkProvider().getLoadedChunk(getChunkX(chunk), getChunkZ(chunk)) != null) {
+					spawnerChunks.add(chunk);
+				}
 			}
 		}
 
-		this.updateEntityCounts(world);
+		start = System.nanoTime();
+		this.updateEntityCounts(world, eligibleChunksForSpawning, entityCountIndex);
 		int totalEligibleEntityCount = 0;
 		for(int count : this.entityCounts.values()) {
 			totalEligibleEntityCount += count;
 		}
+		this.stats.record(SpawnerStats.Phase.ENTITY_COUNTS, System.nanoTime() - start);
 
 		int maxEntitiesForLoadedArea = Math.min(this.getHardEntityLimit(), (int) (spawnerChunks.size() * this.getMaxEntitiesPerSpawnChunkFraction(spawnerChunks.size())));
 
 		if(totalEligibleEntityCount >= maxEntitiesForLoadedArea) {
 			//Too many entities, don't spawn any more entities
+			this.stats.onRejected(SpawnerStats.Rejection.LOADED_AREA_LIMIT);
 			return;
 		}
 
-		Collections.shuffle(spawnerChunks);
+		LongArrays.shuffle(spawnerChunks.elements(), 0, spawnerChunks.size(), world.rand);
 
 		//The approximate number of loaded areas (one area is the area loaded by one player)
 		float loadedAreas = Math.max(1.0f, this.getLoadedAreasCount(spawnerChunks.size()));
 
-		for(ChunkPos chunkPos : spawnerChunks) {
-			this.populateChunk(world, chunkPos, spawnHostiles, spawnAnimals, true, false, 
+		for(int i = 0; i < spawnerChunks.size(); i++) {
+			long chunk = spawnerChunks.getLong(i);
+			this.populateChunk(world, new ChunkPos(getChunkX(chunk), getChunkZ(chunk)), spawnHostiles, spawnAnimals, true, false, 
 					this.getSpawningAttempsPerChunk(), this.getMaxSpawnsPerChunk(), this.getSpawningAttemptsPerGroup(), maxEntitiesForLoadedArea, loadedAreas);
 		}
 	}
@@ -411,52 +503,50 @@ public abstract class AreaMobSpawner {
 			int attemptsPerChunk, int maxSpawnsPerChunk, int attemptsPerGroup, int entityLimit, float loadedAreas) {
 		loadedAreas = Math.max(1.0f, loadedAreas);
 
+		EntityCountIndex entityCountIndex = EntityCountIndex.get(world);
+
 		int attempts = 0, chunkSpawnedEntities = 0;
 
+		long candidateTime = 0, commitTime = 0;
+
 		spawnLoop:
 			while(attempts++ < attemptsPerChunk && chunkSpawnedEntities < maxSpawnsPerChunk) {
+				this.stats.onAttempt();
+
 				BlockPos spawnPos = this.getRandomSpawnPosition(world, chunkPos);
 
 				if(!this.isInsideSpawningArea(world, spawnPos, false)) {
+					this.stats.onRejected(SpawnerStats.Rejection.AREA);
 					continue;
 				}
 
 				Biome biome = world.getBiome(spawnPos);
 
-				int totalBaseWeight = 0;
-				int totalWeight = 0;
-
-				//Get possible spawn entries and update weights
-				List<ICustomSpawnEntry> possibleSpawns = new ArrayList<>();
-				possibleSpawns.addAll(this.getSpawnEntries(world, spawnPos, biome instanceof ICustomSpawnEntriesProvider ? (ICustomSpawnEntriesProvider) biome : null));
-
-				Iterator<ICustomSpawnEntry> spawnEntriesIT = possibleSpawns.iterator();
-				while(spawnEntriesIT.hasNext()) {
-					ICustomSpawnEntry spawnEntry = spawnEntriesIT.next();
+				SpawnEntryTable spawnTable = this.getSpawnEntryTable(world, spawnPos, biome instanceof ICustomSpawnEntriesProvider ? (ICustomSpawnEntriesProvider) biome : null, spawnHostiles, spawnAnimals);
+				if(spawnTable == null || spawnTable.isEmpty()) {
+					this.stats.onRejected(SpawnerStats.Rejection.WEIGHT);
+					continue;
+				}
 
-					if((spawnEntry.isHostile() && !spawnHostiles) || (!spawnEntry.isHostile() && !spawnAnimals)) {
-						spawnEntriesIT.remove();
-						continue;
-					}
+				//Update weights
+				spawnTable.update(world, spawnPos);
 
-					spawnEntry.update(world, spawnPos);
-					totalBaseWeight += spawnEntry.getBaseWeight();
-					totalWeight += spawnEntry.getWeight();
-				}
+				int totalBaseWeight = spawnTable.getTotalBaseWeight();
+				int totalWeight = spawnTable.getTotalWeight();
 
-				if(possibleSpawns.isEmpty() || totalWeight == 0 || totalBaseWeight == 0) {
+				if(totalWeight == 0 || totalBaseWeight == 0) {
+					this.stats.onRejected(SpawnerStats.Rejection.WEIGHT);
 					continue;
 				}
 
-				WeightedList<ICustomSpawnEntry> weightedPossibleSpawns = new WeightedList<>();
-				weightedPossibleSpawns.addAll(possibleSpawns);
-				weightedPossibleSpawns.recalculateWeight();
-
-				ICustomSpawnEntry spawnEntry = weightedPossibleSpawns.getRandomItem(world.rand);
+				ICustomSpawnEntry spawnEntry = spawnTable.getRandomEntry(world.rand);
 				if(spawnEntry == null) {
+					this.stats.onRejected(SpawnerStats.Rejection.WEIGHT);
 					continue;
 				}
 
+				this.stats.onSelected(spawnEntry);
+
 				int dynamicLimitBase = (int)((double)entityLimit / (double)totalBaseWeight * spawnEntry.getBaseWeight());
 				int dynamicLimit = (int)((double)entityLimit / (double)totalWeight * spawnEntry.getWeight());
 
@@ -466,9 +556,23 @@ public abstract class AreaMobSpawner {
 
 				if(spawnEntityCount >= spawnEntityCountLimit || (spawnEntry.getWorldLimit() >= 0 && spawnEntityCount >= spawnEntry.getWorldLimit())) {
 					//Entity reached world spawning limit
+					this.stats.onRejected(SpawnerStats.Rejection.WORLD_LIMIT);
 					continue;
 				}
 
+				IBiomeSpawnEntriesData spawnEntriesData = this.getSpawnEntriesData(world, spawnPos, biome instanceof ICustomSpawnEntriesProvider ? (ICustomSpawnEntriesProvider) biome : null);
+				long lastSpawn = spawnEntriesData != null ? spawnEntriesData.getLastSpawn(spawnEntry) : -1;
+
+				if(!ignoreRestrictions && lastSpawn >= 0) {
+					//Adjust intervals for MP when there are multiple players and the loaded area is bigger -> smaller intervals
+					int adjustedInterval = (int)(spawnEntry.getSpawningInterval() / loadedAreas);
+					if(spawnEntriesData != null && world.getTotalWorldTime() - lastSpawn < adjustedInterval) {
+						//Too early, don't spawn yet
+						this.stats.onRejected(SpawnerStats.Rejection.INTERVAL);
+						continue;
+					}
+				}
+
 				int desiredGroupSize = spawnEntry.getMinGroupSize() + world.rand.nextInt(spawnEntry.getMaxGroupSize() - spawnEntry.getMinGroupSize() + 1);
 				double groupCheckRadius = spawnEntry.getSpawnCheckRadius();
 				//Check whether chunks are loaded in the check radius, prevents entities from spawning somewhere even though the group limit was already reached in an unloaded chunk
@@ -479,6 +583,7 @@ public abstract class AreaMobSpawner {
 				for (int cx = csx; cx <= cex; ++cx) {
 					for (int cz = csz; cz <= cez; ++cz) {
 						if(world.getChunkProvider().getLoadedChunk(cx, cz) == null && (cx != chunkPos.x || cz != chunkPos.z)) {
+							this.stats.onRejected(SpawnerStats.Rejection.UNLOADED);
 							continue spawnLoop;
 						}
 					}
@@ -498,122 +603,111 @@ public abstract class AreaMobSpawner {
 					}
 				}
 
-				if(desiredGroupSize > 0) {
+				if(desiredGroupSize <= 0) {
+					this.stats.onRejected(SpawnerStats.Rejection.GROUP_FULL);
+				} else {
 					int groupSpawnedEntities = 0, groupSpawnAttempts = 0;
 					int maxGroupSpawnAttempts = attemptsPerGroup + desiredGroupSize * 2;
 
-					IBiomeSpawnEntriesData spawnEntriesData = this.getSpawnEntriesData(world, spawnPos, biome instanceof ICustomSpawnEntriesProvider ? (ICustomSpawnEntriesProvider) biome : null);
-					long lastSpawn = spawnEntriesData != null ? spawnEntriesData.getLastSpawn(spawnEntry) : -1;
-
-					if(!ignoreRestrictions && lastSpawn >= 0) {
-						//Adjust intervals for MP when there are multiple players and the loaded area is bigger -> smaller intervals
-						int adjustedInterval = (int)(spawnEntry.getSpawningInterval() / loadedAreas);
-						if(spawnEntriesData != null && world.getTotalWorldTime() - lastSpawn < adjustedInterval) {
-							//Too early, don't spawn yet
-							continue;
-						}
-					}
-
 					IEntityLivingData groupData = null;
 
 					EntityLiving cachedEntity = null;
 
 					while(groupSpawnAttempts++ < maxGroupSpawnAttempts && groupSpawnedEntities < desiredGroupSize) {
+						this.stats.onGroupAttempt();
+
+						long candidateStart = System.nanoTime();
+
 						BlockPos entitySpawnPos = this.getRandomSpawnPosition(world, spawnPos, MathHelper.floor(groupSpawnRadius));
 
 						boolean inChunk = (entitySpawnPos.getX() >> 4) == chunkPos.x && (entitySpawnPos.getZ() >> 4) == chunkPos.z;
 
 						if(!loadChunks && !inChunk) {
+							this.stats.onRejected(SpawnerStats.Rejection.OUTSIDE_CHUNK);
+							candidateTime += System.nanoTime() - candidateStart;
 							continue;
 						}
 
-						if(!this.isInsideSpawningArea(world, entitySpawnPos, false)) {
-							continue;
-						}
+						Chunk spawnChunk = world.getChunk(entitySpawnPos);
 
-						IBlockState spawnBlockState = world.getBlockState(entitySpawnPos);
+						//Candidate phase, only reads the world and rejects the position as early as possible
+						boolean isCandidate = this.isSpawnCandidate(world, spawnChunk, entitySpawnPos, spawnEntry, entityCountIndex);
 
-						int spawnSegmentY = entitySpawnPos.getY() / 16;
-						Chunk spawnChunk = world.getChunk(entitySpawnPos);
-						ClassInheritanceMultiMap<Entity>[] entityLists = spawnChunk.getEntityLists();
-						int chunkEntityCount = 0;
-						for(int l = 0; l < entityLists.length; l++) {
-							int subChunkEntityCount = 0;
-							for(Entity entity : entityLists[l]) {
-								if(entity.getClass() == spawnEntry.getEntityType()) {
-									subChunkEntityCount++;
-									chunkEntityCount++;
-								}
-							}
-							if(l == spawnSegmentY) {
-								if(spawnEntry.getSubChunkLimit() >= 0 && subChunkEntityCount >= spawnEntry.getSubChunkLimit()) {
-									//Entity reached sub chunk limit
-									continue;
-								}
-							}
-						}
+						long commitStart = System.nanoTime();
+						candidateTime += commitStart - candidateStart;
 
-						if(spawnEntry.getChunkLimit() >= 0 && chunkEntityCount >= spawnEntry.getChunkLimit()) {
-							//Entity reached chunk limit
+						if(!isCandidate) {
 							continue;
 						}
 
-						IBlockState surfaceBlockState = spawnChunk.getBlockState(entitySpawnPos.getX() - spawnChunk.x * 16, entitySpawnPos.getY() - 1, entitySpawnPos.getZ() - spawnChunk.z * 16);
+						//Commit phase, creates and spawns the entity
+						double sx = entitySpawnPos.getX() + 0.5D;
+						double sy = entitySpawnPos.getY();
+						double sz = entitySpawnPos.getZ() + 0.5D;
+						float yaw = world.rand.nextFloat() * 360.0F;
 
-						if(spawnEntry.canSpawn(world, spawnChunk, entitySpawnPos, spawnBlockState, surfaceBlockState)) {
-							double sx = entitySpawnPos.getX() + 0.5D;
-							double sy = entitySpawnPos.getY();
-							double sz = entitySpawnPos.getZ() + 0.5D;
-							float yaw = world.rand.nextFloat() * 360.0F;
+						EntityLiving spawningEntity;
+
+						//If a a previous attempt created an entity but it was not used then we
+						//can reuse it for this attempt, since the spawnEntry doesn't change during group spawning
+						if(cachedEntity != null) {
+							spawningEntity = cachedEntity;
+						} else {
+							spawningEntity = cachedEntity = spawnEntry.createEntity(world);
+						}
 
-							EntityLiving spawningEntity;
+						if(spawningEntity != null) {
+							spawningEntity.setLocationAndAngles(sx, sy, sz, yaw, 0.0F);
 
-							//If a a previous attempt created an entity but it was not used then we
-							//can reuse it for this attempt, since the spawnEntry doesn't change during group spawning
-							if(cachedEntity != null) {
-								spawningEntity = cachedEntity;
+							Result canSpawn = ForgeEventFactory.canEntitySpawn(spawningEntity, world, (float)sx, (float)sy, (float)sz, null);
+							if(canSpawn == Result.DENY) {
+								this.stats.onRejected(SpawnerStats.Rejection.FORGE_DENY);
+							} else if(canSpawn == Result.DEFAULT && !spawningEntity.getCanSpawnHere()) {
+								this.stats.onRejected(SpawnerStats.Rejection.ENTITY_CAN_SPAWN_HERE);
+							} else if(canSpawn == Result.DEFAULT && !spawningEntity.isNotColliding()) {
+								this.stats.onRejected(SpawnerStats.Rejection.COLLIDING);
 							} else {
-								spawningEntity = cachedEntity = spawnEntry.createEntity(world);
-							}
+								NBTTagCompound entityNBT = spawningEntity.getEntityData();
+								entityNBT.setBoolean("naturallySpawned", true);
 
-							if(spawningEntity != null) {
-								spawningEntity.setLocationAndAngles(sx, sy, sz, yaw, 0.0F);
+								if (!ForgeEventFactory.doSpecialSpawn(spawningEntity, world, (float)sx, (float)sy, (float)sz, null)) {
+									groupData = spawningEntity.onInitialSpawn(world.getDifficultyForLocation(new BlockPos(sx, sy, sz)), groupData);
+								}
 
-								Result canSpawn = ForgeEventFactory.canEntitySpawn(spawningEntity, world, (float)sx, (float)sy, (float)sz, null);
-								if (canSpawn == Result.ALLOW || (canSpawn == Result.DEFAULT && spawningEntity.getCanSpawnHere() && spawningEntity.isNotColliding())) {
-									NBTTagCompound entityNBT = spawningEntity.getEntityData();
-									entityNBT.setBoolean("naturallySpawned", true);
+								if(spawningEntity.isNotColliding()) {
+									groupSpawnedEntities++;
+									chunkSpawnedEntities++;
 
-									if (!ForgeEventFactory.doSpecialSpawn(spawningEntity, world, (float)sx, (float)sy, (float)sz, null)) {
-										groupData = spawningEntity.onInitialSpawn(world.getDifficultyForLocation(new BlockPos(sx, sy, sz)), groupData);
-									}
+									world.spawnEntity(spawningEntity);
 
-									if(spawningEntity.isNotColliding()) {
-										groupSpawnedEntities++;
-										chunkSpawnedEntities++;
+									spawnEntry.onSpawned(spawningEntity);
 
-										world.spawnEntity(spawningEntity);
+									this.stats.onSpawned(spawnEntry);
 
-										spawnEntry.onSpawned(spawningEntity);
+									if(this.isCountedEntity(world, spawningEntity)) {
+										this.entityCounts.adjustOrPutValue(spawningEntity.getClass(), 1, 1);
+									}
 
-										if(this.isCountedEntity(world, spawningEntity)) {
-											this.entityCounts.adjustOrPutValue(spawningEntity.getClass(), 1, 1);
-										}
+									//Entity was spawned so it can't be reused!
+									cachedEntity = null;
+								} else {
+									this.stats.onRejected(SpawnerStats.Rejection.COLLIDING);
 
-										//Entity was spawned so it can't be reused!
-										cachedEntity = null;
-									} else if(cachedEntity != null) {
+									if(cachedEntity != null) {
 										//Cached entity was onInitialSpawned but not spawned so it can't be reused and must be killed.
 										cachedEntity.setDead();
 										cachedEntity = null;
 									}
+								}
 
-									if (groupSpawnedEntities >= ForgeEventFactory.getMaxSpawnPackSize(spawningEntity))  {
-										break;
-									}
+								if (groupSpawnedEntities >= ForgeEventFactory.getMaxSpawnPackSize(spawningEntity))  {
+									commitTime += System.nanoTime() - commitStart;
+									break;
 								}
 							}
 						}
+
+						commitTime += System.nanoTime() - commitStart;
 					}
 
 					if(cachedEntity != null) {
@@ -625,9 +719,101 @@ public abstract class AreaMobSpawner {
 					}
 				}
 			}
+
+		this.stats.record(SpawnerStats.Phase.CANDIDATES, candidateTime);
+		this.stats.record(SpawnerStats.Phase.COMMIT, commitTime);
+
 		return chunkSpawnedEntities;
 	}
 
+	/**
+	 * Returns whether the spawn entry can spawn an entity at the specified position. If the entity count index is
+	 * available the O(1) chunk limits are checked first, otherwise the spawn entry's conditions are checked before
+	 * the limits because those require scanning the chunk's entity lists. The spawning area is checked last
+	 * @param world
+	 * @param spawnChunk
+	 * @param pos
+	 * @param spawnEntry
+	 * @param entityCountIndex
+	 * @return
+	 */
+	private boolean isSpawnCandidate(World world, Chunk spawnChunk, BlockPos pos, ICustomSpawnEntry spawnEntry, @Nullable EntityCountIndex entityCountIndex) {
+		if(entityCountIndex != null && !this.isWithinChunkLimits(spawnChunk, pos, spawnEntry, entityCountIndex)) {
+			return false;
+		}
+
+		int bx = pos.getX() & 15;
+		int bz = pos.getZ() & 15;
+
+		IBlockState spawnBlockState = spawnChunk.getBlockState(bx, pos.getY(), bz);
+		IBlockState surfaceBlockState = spawnChunk.getBlockState(bx, pos.getY() - 1, bz);
+
+		if(!spawnEntry.canSpawn(world, spawnChunk, pos, spawnBlockState, surfaceBlockState)) {
+			this.stats.onRejected(SpawnerStats.Rejection.CAN_SPAWN);
+			return false;
+		}
+
+		if(entityCountIndex == null && !this.isWithinChunkLimits(spawnChunk, pos, spawnEntry, null)) {
+			return false;
+		}
+
+		if(!this.isInsideSpawningArea(world, pos, false)) {
+			this.stats.onRejected(SpawnerStats.Rejection.AREA);
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns whether the spawn entry's chunk and sub chunk limits allow another entity at the specified position
+	 * @param spawnChunk
+	 * @param pos
+	 * @param spawnEntry
+	 * @param entityCountIndex If null the chunk's entity lists are scanned instead
+	 * @return
+	 */
+	private boolean isWithinChunkLimits(Chunk spawnChunk, BlockPos pos, ICustomSpawnEntry spawnEntry, @Nullable EntityCountIndex entityCountIndex) {
+		if(spawnEntry.getSubChunkLimit() >= 0 || spawnEntry.getChunkLimit() >= 0) {
+			Class<? extends Entity> entityType = spawnEntry.getEntityType();
+			int spawnSegmentY = pos.getY() / 16;
+
+			int chunkEntityCount = 0;
+			int subChunkEntityCount = 0;
+
+			if(entityCountIndex != null) {
+				chunkEntityCount = entityCountIndex.getChunkCount(spawnChunk.x, spawnChunk.z, entityType);
+				subChunkEntityCount = entityCountIndex.getSubChunkCount(spawnChunk.x, spawnSegmentY, spawnChunk.z, entityType);
+			} else {
+				ClassInheritanceMultiMap<Entity>[] entityLists = spawnChunk.getEntityLists();
+				for(int l = 0; l < entityLists.length; l++) {
+					for(Entity entity : entityLists[l]) {
+						if(entity.getClass() == entityType) {
+							if(l == spawnSegmentY) {
+								subChunkEntityCount++;
+							}
+							chunkEntityCount++;
+						}
+					}
+				}
+			}
+
+			if(spawnEntry.getSubChunkLimit() >= 0 && subChunkEntityCount >= spawnEntry.getSubChunkLimit()) {
+				//Entity reached sub chunk limit
+				this.stats.onRejected(SpawnerStats.Rejection.SUB_CHUNK_LIMIT);
+				return false;
+			}
+
+			if(spawnEntry.getChunkLimit() >= 0 && chunkEntityCount >= spawnEntry.getChunkLimit()) {
+				//Entity reached chunk limit
+				this.stats.onRejected(SpawnerStats.Rejection.CHUNK_LIMIT);
+				return false;
+			}
+		}
+
+		return true;
+	}
+
 	private BlockPos getRandomSpawnPosition(World world, ChunkPos chunkPos) {
 		Chunk chunk = world.getChunk(chunkPos.x, chunkPos.z);
 		int x = chunkPos.x * 16 + world.rand.nextInt(16);
@@ -643,23 +829,60 @@ public abstract class AreaMobSpawner {
 				centerPos.getZ() + world.rand.nextInt(radius*2) - radius);
 	}
 
-	private final Set<ChunkPos> eligibleChunksForSpawning = new HashSet<>();
-
 	/**
-	 * Finds all chunks that are eligible for mob spawning and updates the specified set accordingly
+	 * Returns all chunks that are eligible for mob spawning, encoded with {@link ChunkPos#asLong(int, int)}.
+	 * The returned set is only read until the next call
 	 * @param world
-	 * @param spawnerChunks
+	 * @return
 	 */
-	protected abstract void updateSpawnerChunks(WorldServer world, Set<ChunkPos> spawnerChunks);
+	protected abstract LongSet getSpawnerChunks(WorldServer world);
+
+	/**
+	 * Returns whether all chunks returned by {@link #getSpawnerChunks(WorldServer)} are guaranteed to be loaded
+	 * @return
+	 */
+	protected boolean areSpawnerChunksLoaded() {
+		return false;
+	}
+
+	protected static int getChunkX(long chunk) {
+		return (int) chunk;
+	}
+
+	protected static int getChunkZ(long chunk) {
+		return (int) (chunk >> 32);
+	}
 
 	private final TObjectIntHashMap<Class<? extends Entity>> entityCounts = new TObjectIntHashMap<Class<? extends Entity>>();
 
-	private void updateEntityCounts(World world) {
+	/**
+	 * Returns whether all living entities in the spawner chunks are counted, i.e. {@link #isInsideSpawningArea(World, BlockPos, boolean)}
+	 * returns true for all entity count checks and there is no entity count filter. If so, the entity counts are read from the
+	 * {@link EntityCountIndex} instead of iterating over all entities of the spawner chunks
+	 * @return
+	 */
+	protected boolean isChunkAlignedEntityCount() {
+		return this.entityCountFilter == null;
+	}
+
+	private void updateEntityCounts(World world, LongSet spawnerChunks, @Nullable EntityCountIndex entityCountIndex) {
 		this.entityCounts.clear();
 
-		for(ChunkPos chunkPos : this.eligibleChunksForSpawning) {
-			if(world.getChunkProvider().getLoadedChunk(chunkPos.x, chunkPos.z) != null) {
-				Chunk chunk = world.getChunk(chunkPos.x, chunkPos.z);
+		boolean useIndex = entityCountIndex != null && this.isChunkAlignedEntityCount();
+
+		LongIterator it = spawnerChunks.iterator();
+		while(it.hasNext()) {
+			long chunkPos = it.nextLong();
+			int chunkX = getChunkX(chunkPos);
+			int chunkZ = getChunkZ(chunkPos);
+
+			Chunk chunk = world.getChunkProvider().getLoadedChunk(chunkX, chunkZ);
+			if(chunk != null) {
+				if(useIndex) {
+					entityCountIndex.addChunkCounts(chunkX, chunkZ, this.entityCounts);
+					continue;
+				}
+
 				ClassInheritanceMultiMap<Entity>[] entityLists = chunk.getEntityLists();
 
 				for(ClassInheritanceMultiMap<Entity> entityList : entityLists) {
@@ -2,10 +2,11 @@ package thebetweenlands.common.world.biome.spawning;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 
 import gnu.trove.map.TObjectLongMap;
 import gnu.trove.map.hash.TObjectLongHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.math.AxisAlignedBB;
 import net.minecraft.util.math.BlockPos;
@@ -41,6 +42,7 @@ public class BoxMobSpawner extends AreaMobSpawner {
 	private List<AxisAlignedBB> areas = new ArrayList<>();
 	private List<ICustomSpawnEntry> spawnEntries = new ArrayList<>();
 	private int maxEntities;
+	private final LongSet spawnerChunks = new LongOpenHashSet();
 
 	public void addArea(AxisAlignedBB area) {
 		this.areas.add(area);
@@ -86,8 +88,8 @@ public class BoxMobSpawner extends AreaMobSpawner {
 	}
 
 	@Override
-	protected void updateSpawnerChunks(WorldServer world, Set<ChunkPos> spawnerChunks) {
-		spawnerChunks.clear();
+	protected LongSet getSpawnerChunks(WorldServer world) {
+		this.spawnerChunks.clear();
 
 		for(AxisAlignedBB area : this.areas) {
 			int sx = MathHelper.floor(area.minX) >> 4;
@@ -97,10 +99,17 @@ public class BoxMobSpawner extends AreaMobSpawner {
 
 			for(int cx = sx; cx <= ex; cx++) {
 				for(int cz = sz; cz <= ez; cz++) {
-					spawnerChunks.add(new ChunkPos(cx, cz));
+					this.spawnerChunks.add(ChunkPos.asLong(cx, cz));
 				}
 			}
 		}
+
+		return this.spawnerChunks;
+	}
+
+	@Override
+	protected boolean isChunkAlignedEntityCount() {
+		return false;
 	}
 
 	@Override
@@ -0,0 +1,285 @@
+package thebetweenlands.common.world.biome.spawning;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import gnu.trove.map.hash.TObjectIntHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityLivingBase;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.util.SoundCategory;
+import net.minecraft.util.SoundEvent;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.IWorldEventListener;
+import net.minecraft.world.World;
+import net.minecraftforge.event.entity.EntityEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+
+/**
+ * Incrementally maintained living entity counts of a server world per entity class, chunk and sub chunk.
+ * The counts are updated when entities join or leave the world and when they enter a new chunk or sub chunk,
+ * so that {@link AreaMobSpawner} doesn't need to iterate over the entities
+ */
+public class EntityCountIndex implements IWorldEventListener {
+	public static final int SUB_CHUNKS = 16;
+
+	private static final Map<World, EntityCountIndex> INDICES = new HashMap<>();
+
+	private static class ChunkCounts {
+		private final Object2IntOpenHashMap<Class<? extends Entity>> counts = new Object2IntOpenHashMap<>();
+		@SuppressWarnings("unchecked")
+		private final Object2IntOpenHashMap<Class<? extends Entity>>[] subChunkCounts = new Object2IntOpenHashMap[SUB_CHUNKS];
+		private int total;
+	}
+
+	private static class TrackedEntity {
+		private long chunk;
+		private int subChunk;
+	}
+
+	private final Reference2ObjectOpenHashMap<Entity, TrackedEntity> trackedEntities = new Reference2ObjectOpenHashMap<>();
+	private final Long2ObjectOpenHashMap<ChunkCounts> chunkCounts = new Long2ObjectOpenHashMap<>();
+	private final Object2IntOpenHashMap<Class<? extends Entity>> worldCounts = new Object2IntOpenHashMap<>();
+
+	private EntityCountIndex() { }
+
+	/**
+	 * Returns the entity count index of the specified world, or null if the world is not indexed
+	 * @param world
+	 * @return
+	 */
+	@Nullable
+	public static EntityCountIndex get(World world) {
+		return INDICES.get(world);
+	}
+
+	/**
+	 * Returns the total number of living entities in the world
+	 * @return
+	 */
+	public int getTotalCount() {
+		return this.trackedEntities.size();
+	}
+
+	/**
+	 * Returns the number of living entities of exactly the specified class in the world
+	 * @param type
+	 * @return
+	 */
+	public int getCount(Class<? extends Entity> type) {
+		return this.worldCounts.getInt(type);
+	}
+
+	/**
+	 * Returns the number of living entities of exactly the specified class in the specified chunk
+	 * @param chunkX
+	 * @param chunkZ
+	 * @param type
+	 * @return
+	 */
+	public int getChunkCount(int chunkX, int chunkZ, Class<? extends Entity> type) {
+		ChunkCounts counts = this.chunkCounts.get(ChunkPos.asLong(chunkX, chunkZ));
+		return counts != null ? counts.counts.getInt(type) : 0;
+	}
+
+	/**
+	 * Returns the number of living entities of exactly the specified class in the specified sub chunk
+	 * @param chunkX
+	 * @param subChunk
+	 * @param chunkZ
+	 * @param type
+	 * @return
+	 */
+	public int getSubChunkCount(int chunkX, int subChunk, int chunkZ, Class<? extends Entity> type) {
+		ChunkCounts counts = this.chunkCounts.get(ChunkPos.asLong(chunkX, chunkZ));
+		if(counts != null && subChunk >= 0 && subChunk < SUB_CHUNKS) {
+			Object2IntOpenHashMap<Class<? extends Entity>> subChunkCounts = counts.subChunkCounts[subChunk];
+			return subChunkCounts != null ? subChunkCounts.getInt(type) : 0;
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns the number of living entities in the specified chunk
+	 * @param chunkX
+	 * @param chunkZ
+	 * @return
+	 */
+	public int getChunkTotalCount(int chunkX, int chunkZ) {
+		ChunkCounts counts = this.chunkCounts.get(ChunkPos.asLong(chunkX, chunkZ));
+		return counts != null ? counts.total : 0;
+	}
+
+	/**
+	 * Adds the living entity counts per class of the specified chunk to the specified map
+	 * @param chunkX
+	 * @param chunkZ
+	 * @param counts
+	 */
+	public void addChunkCounts(int chunkX, int chunkZ, TObjectIntHashMap<Class<? extends Entity>> counts) {
+		ChunkCounts chunkCounts = this.chunkCounts.get(ChunkPos.asLong(chunkX, chunkZ));
+		if(chunkCounts != null) {
+			for(Object2IntMap.Entry<Class<? extends Entity>> entry : chunkCounts.counts.object2IntEntrySet()) {
+				counts.adjustOrPutValue(entry.getKey(), entry.getIntValue(), entry.getIntValue());
+			}
+		}
+	}
+
+	private void add(Entity entity, int chunkX, int subChunk, int chunkZ) {
+		if(this.trackedEntities.containsKey(entity)) {
+			//Already counted
+			return;
+		}
+		TrackedEntity tracked = new TrackedEntity();
+		tracked.chunk = ChunkPos.asLong(chunkX, chunkZ);
+		tracked.subChunk = subChunk;
+		this.trackedEntities.put(entity, tracked);
+		this.worldCounts.addTo(entity.getClass(), 1);
+		this.adjust(entity.getClass(), tracked, 1);
+	}
+
+	private void remove(Entity entity) {
+		TrackedEntity tracked = this.trackedEntities.remove(entity);
+		if(tracked != null) {
+			this.adjust(entity.getClass(), tracked, -1);
+			if(this.worldCounts.addTo(entity.getClass(), -1) <= 1) {
+				this.worldCounts.removeInt(entity.getClass());
+			}
+		}
+	}
+
+	private void move(Entity entity, int chunkX, int subChunk, int chunkZ) {
+		TrackedEntity tracked = this.trackedEntities.get(entity);
+		if(tracked != null) {
+			long chunk = ChunkPos.asLong(chunkX, chunkZ);
+			if(tracked.chunk != chunk || tracked.subChunk != subChunk) {
+				this.adjust(entity.getClass(), tracked, -1);
+				tracked.chunk = chunk;
+				tracked.subChunk = subChunk;
+				this.adjust(entity.getClass(), tracked, 1);
+			}
+		}
+	}
+
+	private void adjust(Class<? extends Entity> type, TrackedEntity tracked, int amount) {
+		ChunkCounts counts = this.chunkCounts.get(tracked.chunk);
+		if(counts == null) {
+			if(amount < 0) {
+				return;
+			}
+			this.chunkCounts.put(tracked.chunk, counts = new ChunkCounts());
+		}
+
+		Object2IntOpenHashMap<Class<? extends Entity>> subChunkCounts = counts.subChunkCounts[tracked.subChunk];
+		if(subChunkCounts == null) {
+			subChunkCounts = counts.subChunkCounts[tracked.subChunk] = new Object2IntOpenHashMap<>();
+		}
+
+		if(subChunkCounts.addTo(type, amount) + amount <= 0) {
+			subChunkCounts.removeInt(type);
+		}
+		if(counts.counts.addTo(type, amount) + amount <= 0) {
+			counts.counts.removeInt(type);
+		}
+
+		counts.total += amount;
+		if(counts.total <= 0) {
+			this.chunkCounts.remove(tracked.chunk);
+		}
+	}
+
+	private static int getSubChunk(Entity entity) {
+		return MathHelper.clamp(MathHelper.floor(entity.posY / 16.0D), 0, SUB_CHUNKS - 1);
+	}
+
+	@SubscribeEvent
+	public static void onWorldLoad(WorldEvent.Load event) {
+		World world = event.getWorld();
+		if(!world.isRemote && !INDICES.containsKey(world)) {
+			EntityCountIndex index = new EntityCountIndex();
+			for(Entity entity : world.loadedEntityList) {
+				index.onEntityAdded(entity);
+			}
+			INDICES.put(world, index);
+			world.addEventListener(index);
+		}
+	}
+
+	@SubscribeEvent
+	public static void onWorldUnload(WorldEvent.Unload event) {
+		EntityCountIndex index = INDICES.remove(event.getWorld());
+		if(index != null) {
+			event.getWorld().removeEventListener(index);
+		}
+	}
+
+	@SubscribeEvent
+	public static void onEnteringChunk(EntityEvent.EnteringChunk event) {
+		Entity entity = event.getEntity();
+		if(entity instanceof EntityLivingBase && !entity.world.isRemote) {
+			EntityCountIndex index = INDICES.get(entity.world);
+			if(index != null) {
+				//Fired by Chunk#addEntity before the entity's chunk coordinates are updated
+				index.move(entity, event.getNewChunkX(), getSubChunk(entity), event.getNewChunkZ());
+			}
+		}
+	}
+
+	@Override
+	public void onEntityAdded(Entity entity) {
+		if(entity instanceof EntityLivingBase) {
+			if(entity.addedToChunk) {
+				this.add(entity, entity.chunkCoordX, MathHelper.clamp(entity.chunkCoordY, 0, SUB_CHUNKS - 1), entity.chunkCoordZ);
+			} else {
+				this.add(entity, MathHelper.floor(entity.posX / 16.0D), getSubChunk(entity), MathHelper.floor(entity.posZ / 16.0D));
+			}
+		}
+	}
+
+	@Override
+	public void onEntityRemoved(Entity entity) {
+		if(entity instanceof EntityLivingBase) {
+			this.remove(entity);
+		}
+	}
+
+	@Override
+	public void notifyBlockUpdate(World worldIn, BlockPos pos, IBlockState oldState, IBlockState newState, int flags) { }
+
+	@Override
+	public void notifyLightSet(BlockPos pos) { }
+
+	@Override
+	public void markBlockRangeForRenderUpdate(int x1, int y1, int z1, int x2, int y2, int z2) { }
+
+	@Override
+	public void playSoundToAllNearExcept(EntityPlayer player, SoundEvent soundIn, SoundCategory category, double x, double y, double z, float volume, float pitch) { }
+
+	@Override
+	public void playRecord(SoundEvent soundIn, BlockPos pos) { }
+
+	@Override
+	public void spawnParticle(int particleID, boolean ignoreRange, double xCoord, double yCoord, double zCoord, double xSpeed, double ySpeed, double zSpeed, int... parameters) { }
+
+	@Override
+	public void spawnParticle(int id, boolean ignoreRange, boolean minimiseParticleLevel, double x, double y, double z, double xSpeed, double ySpeed, double zSpeed, int... parameters) { }
+
+	@Override
+	public void broadcastSound(int soundID, BlockPos pos, int data) { }
+
+	@Override
+	public void playEvent(EntityPlayer player, int type, BlockPos blockPosIn, int data) { }
+
+	@Override
+	public void sendBlockBreakProgress(int breakerId, BlockPos pos, int progress) { }
+}
@@ -0,0 +1,115 @@
+package thebetweenlands.common.world.biome.spawning;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import javax.annotation.Nullable;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import thebetweenlands.api.entity.spawning.ICustomSpawnEntry;
+
+/**
+ * Precompiled weighted table of a fixed set of spawn entries. The table keeps a cumulative weight array
+ * that is adjusted by the weight changes of {@link ICustomSpawnEntry#update(World, BlockPos)}, so that
+ * selecting an entry is a binary search and doesn't allocate
+ */
+public class SpawnEntryTable {
+	private final ICustomSpawnEntry[] entries;
+	private final int[] weights;
+	private final int[] cumulativeWeights;
+	private final int totalBaseWeight;
+
+	private SpawnEntryTable(ICustomSpawnEntry[] entries) {
+		this.entries = entries;
+		this.weights = new int[entries.length];
+		this.cumulativeWeights = new int[entries.length];
+
+		int totalBaseWeight = 0;
+		int totalWeight = 0;
+		for(int i = 0; i < entries.length; i++) {
+			totalBaseWeight += entries[i].getBaseWeight();
+			totalWeight += this.weights[i] = Math.max(0, entries[i].getWeight());
+			this.cumulativeWeights[i] = totalWeight;
+		}
+		this.totalBaseWeight = totalBaseWeight;
+	}
+
+	/**
+	 * Compiles a table of all spawn entries that match the filter
+	 * @param entries
+	 * @param filter
+	 * @return
+	 */
+	public static SpawnEntryTable compile(List<ICustomSpawnEntry> entries, Predicate<ICustomSpawnEntry> filter) {
+		return new SpawnEntryTable(entries.stream().filter(filter).toArray(ICustomSpawnEntry[]::new));
+	}
+
+	/**
+	 * Updates all spawn entries for the specified position and applies their weight changes
+	 * @param world
+	 * @param pos
+	 */
+	public void update(World world, BlockPos pos) {
+		for(int i = 0; i < this.entries.length; i++) {
+			ICustomSpawnEntry entry = this.entries[i];
+
+			entry.update(world, pos);
+
+			int weight = Math.max(0, entry.getWeight());
+			int delta = weight - this.weights[i];
+			if(delta != 0) {
+				this.weights[i] = weight;
+				for(int j = i; j < this.cumulativeWeights.length; j++) {
+					this.cumulativeWeights[j] += delta;
+				}
+			}
+		}
+	}
+
+	public boolean isEmpty() {
+		return this.entries.length == 0;
+	}
+
+	public int getTotalBaseWeight() {
+		return this.totalBaseWeight;
+	}
+
+	/**
+	 * Returns the total weight as of the last {@link #update(World, BlockPos)}
+	 * @return
+	 */
+	public int getTotalWeight() {
+		return this.entries.length == 0 ? 0 : this.cumulativeWeights[this.cumulativeWeights.length - 1];
+	}
+
+	/**
+	 * Returns a random spawn entry according to the weights of the last {@link #update(World, BlockPos)}
+	 * @param rand
+	 * @return
+	 */
+	@Nullable
+	public ICustomSpawnEntry getRandomEntry(Random rand) {
+		int totalWeight = this.getTotalWeight();
+		if(totalWeight <= 0) {
+			return null;
+		}
+
+		int weight = rand.nextInt(totalWeight);
+
+		//Find first entry whose cumulative weight is larger than the random weight
+		int low = 0;
+		int high = this.cumulativeWeights.length - 1;
+		while(low < high) {
+			int mid = (low + high) >>> 1;
+			if(this.cumulativeWeights[mid] > weight) {
+				high = mid;
+			} else {
+				low = mid + 1;
+			}
+		}
+
+		return this.entries[low];
+	}
+}
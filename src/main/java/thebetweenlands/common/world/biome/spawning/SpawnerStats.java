@@ -0,0 +1,194 @@
+package thebetweenlands.common.world.biome.spawning;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import thebetweenlands.api.entity.spawning.ICustomSpawnEntry;
+import thebetweenlands.util.TimingHistogram;
+
+/**
+ * Statistics of an {@link AreaMobSpawner}. Only updated and read on the server thread
+ */
+public class SpawnerStats {
+	public static enum Rejection {
+		HARD_LIMIT("hard limit"),
+		LOADED_AREA_LIMIT("loaded area limit"),
+		AREA("area"),
+		WEIGHT("weight"),
+		WORLD_LIMIT("world limit"),
+		INTERVAL("interval"),
+		UNLOADED("unloaded chunks"),
+		GROUP_FULL("group full"),
+		OUTSIDE_CHUNK("outside chunk"),
+		CAN_SPAWN("canSpawn"),
+		CHUNK_LIMIT("chunk limit"),
+		SUB_CHUNK_LIMIT("sub chunk limit"),
+		FORGE_DENY("forge deny"),
+		ENTITY_CAN_SPAWN_HERE("getCanSpawnHere"),
+		COLLIDING("colliding");
+
+		public final String name;
+
+		private Rejection(String name) {
+			this.name = name;
+		}
+	}
+
+	public static enum Phase {
+		TOTAL("total"),
+		CHUNKS("chunks"),
+		ENTITY_COUNTS("entity counts"),
+		CANDIDATES("candidates"),
+		COMMIT("commit"),
+		CHUNK_GENERATION("chunk generation");
+
+		public final String name;
+
+		private Phase(String name) {
+			this.name = name;
+		}
+	}
+
+	private static class EntryStats {
+		private final String name;
+		private long selected, spawned;
+
+		private EntryStats(String name) {
+			this.name = name;
+		}
+	}
+
+	private final long[] rejections = new long[Rejection.values().length];
+	private final TimingHistogram[] phaseTimes = new TimingHistogram[Phase.values().length];
+	private final Map<ICustomSpawnEntry, EntryStats> entryStats = new IdentityHashMap<>();
+
+	private long runs, attempts, groupAttempts, spawned;
+	private long startTime = System.currentTimeMillis();
+
+	public SpawnerStats() {
+		for(int i = 0; i < this.phaseTimes.length; i++) {
+			this.phaseTimes[i] = new TimingHistogram();
+		}
+	}
+
+	public void onRun() {
+		this.runs++;
+	}
+
+	public void onAttempt() {
+		this.attempts++;
+	}
+
+	public void onGroupAttempt() {
+		this.groupAttempts++;
+	}
+
+	public void onRejected(Rejection reason) {
+		this.rejections[reason.ordinal()]++;
+	}
+
+	public void onSelected(ICustomSpawnEntry entry) {
+		this.getEntryStats(entry).selected++;
+	}
+
+	public void onSpawned(ICustomSpawnEntry entry) {
+		this.spawned++;
+		this.getEntryStats(entry).spawned++;
+	}
+
+	/**
+	 * Records the duration of a phase
+	 * @param phase
+	 * @param nanos
+	 */
+	public void record(Phase phase, long nanos) {
+		this.phaseTimes[phase.ordinal()].record(nanos);
+	}
+
+	public long getRejections(Rejection reason) {
+		return this.rejections[reason.ordinal()];
+	}
+
+	public TimingHistogram getPhaseTime(Phase phase) {
+		return this.phaseTimes[phase.ordinal()];
+	}
+
+	public long getAttempts() {
+		return this.attempts;
+	}
+
+	public long getSpawned() {
+		return this.spawned;
+	}
+
+	private EntryStats getEntryStats(ICustomSpawnEntry entry) {
+		EntryStats stats = this.entryStats.get(entry);
+		if(stats == null) {
+			this.entryStats.put(entry, stats = new EntryStats(entry.getID() + " (" + entry.getEntityType().getSimpleName() + ")"));
+		}
+		return stats;
+	}
+
+	public void reset() {
+		for(int i = 0; i < this.rejections.length; i++) {
+			this.rejections[i] = 0;
+		}
+		for(TimingHistogram histogram : this.phaseTimes) {
+			histogram.reset();
+		}
+		this.entryStats.clear();
+		this.runs = this.attempts = this.groupAttempts = this.spawned = 0;
+		this.startTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * Returns a single line summary of the statistics
+	 * @return
+	 */
+	public String getLogLine() {
+		return String.format(Locale.ROOT, "Mob spawner: %d runs, %d attempts, %d group attempts, %d spawned, mean run time %.3fms, max %.3fms",
+				this.runs, this.attempts, this.groupAttempts, this.spawned,
+				this.getPhaseTime(Phase.TOTAL).getMean() / 1000000.0D, this.getPhaseTime(Phase.TOTAL).getMax() / 1000000.0D);
+	}
+
+	/**
+	 * Returns a human readable summary of the statistics
+	 * @param maxEntries Maximum number of listed spawn entries
+	 * @return
+	 */
+	public List<String> getSummary(int maxEntries) {
+		List<String> lines = new ArrayList<>();
+
+		lines.add(String.format(Locale.ROOT, "Runs: %d, attempts: %d, group attempts: %d, spawned: %d over %ds",
+				this.runs, this.attempts, this.groupAttempts, this.spawned, (System.currentTimeMillis() - this.startTime) / 1000L));
+
+		StringBuilder rejections = new StringBuilder("Rejections:");
+		for(Rejection reason : Rejection.values()) {
+			long count = this.rejections[reason.ordinal()];
+			if(count > 0) {
+				rejections.append(' ').append(reason.name).append('=').append(count);
+			}
+		}
+		lines.add(rejections.toString());
+
+		for(Phase phase : Phase.values()) {
+			TimingHistogram histogram = this.phaseTimes[phase.ordinal()];
+			if(histogram.getCount() > 0) {
+				lines.add("Time " + phase.name + ": " + histogram);
+			}
+		}
+
+		List<EntryStats> entries = new ArrayList<>(this.entryStats.values());
+		entries.sort(Comparator.comparingLong((EntryStats stats) -> stats.selected).reversed());
+		for(int i = 0; i < entries.size() && i < maxEntries; i++) {
+			EntryStats stats = entries.get(i);
+			lines.add(String.format(Locale.ROOT, "  %s: selected %d, spawned %d", stats.name, stats.selected, stats.spawned));
+		}
+
+		return lines;
+	}
+}
@@ -1,10 +1,14 @@
 package thebetweenlands.common.world.biome.spawning;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
 
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.server.management.PlayerChunkMapEntry;
 import net.minecraft.util.math.BlockPos;
@@ -14,11 +18,14 @@ import net.minecraft.world.World;
 import net.minecraft.world.WorldServer;
 import net.minecraft.world.biome.Biome;
 import net.minecraftforge.common.DimensionManager;
+import net.minecraftforge.event.world.ChunkWatchEvent;
+import net.minecraftforge.event.world.WorldEvent;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
 import net.minecraftforge.fml.common.gameevent.TickEvent.ServerTickEvent;
 import thebetweenlands.api.entity.spawning.IBiomeSpawnEntriesData;
 import thebetweenlands.api.entity.spawning.ICustomSpawnEntriesProvider;
+import thebetweenlands.common.TheBetweenlands;
 import thebetweenlands.common.config.BetweenlandsConfig;
 import thebetweenlands.common.world.WorldProviderBetweenlands;
 import thebetweenlands.common.world.storage.BetweenlandsWorldStorage;
@@ -61,45 +68,179 @@ public class WorldMobSpawner extends AreaMobSpawner {
 		return null;
 	}
 
+	private static class TrackedPlayer {
+		private long chunk;
+		private int mark;
+	}
+
+	private World trackedWorld;
+	private int trackingMark;
+
+	//Players whose spawning rings are currently added to the reference counts
+	private final Reference2ObjectOpenHashMap<EntityPlayer, TrackedPlayer> trackedPlayers = new Reference2ObjectOpenHashMap<>();
+	//Number of players that have the chunk in the outer part of their spawning ring
+	private final Long2IntOpenHashMap ringReferences = new Long2IntOpenHashMap();
+	//Number of players that have the chunk too close to spawn mobs
+	private final Long2IntOpenHashMap innerReferences = new Long2IntOpenHashMap();
+	//Chunks that were sent to at least one player
+	private final LongOpenHashSet sentChunks = new LongOpenHashSet();
+	private final LongOpenHashSet eligibleChunks = new LongOpenHashSet();
+
+	private long lastUpdateTime;
+	private int lastUpdatedChunks;
+
+	/**
+	 * Returns the number of chunks that are currently eligible for mob spawning
+	 * @return
+	 */
+	public int getEligibleChunkCount() {
+		return this.eligibleChunks.size();
+	}
+
+	/**
+	 * Returns the time in nanoseconds the last update of the eligible chunks took
+	 * @return
+	 */
+	public long getLastUpdateTime() {
+		return this.lastUpdateTime;
+	}
+
+	/**
+	 * Returns the number of chunk reference changes of the last update of the eligible chunks
+	 * @return
+	 */
+	public int getLastUpdatedChunks() {
+		return this.lastUpdatedChunks;
+	}
+
 	@Override
-	protected void updateSpawnerChunks(WorldServer world, Set<ChunkPos> spawnerChunks) {
-		spawnerChunks.clear();
-
-		Map<ChunkPos, Boolean> eligibleChunks = new HashMap<>();
-
-		for (EntityPlayer entityplayer : world.playerEntities) {
-			if (!entityplayer.isSpectator()) {
-				int cx = MathHelper.floor(entityplayer.posX / 16.0D);
-				int cz = MathHelper.floor(entityplayer.posZ / 16.0D);
-
-				for (int xo = -SPAWN_CHUNK_MAX_RANGE; xo <= SPAWN_CHUNK_MAX_RANGE; ++xo) {
-					for (int zo = -SPAWN_CHUNK_MAX_RANGE; zo <= SPAWN_CHUNK_MAX_RANGE; ++zo) {
-						boolean isBorder = Math.abs(xo) > SPAWN_CHUNK_MIN_RANGE || Math.abs(zo) > SPAWN_CHUNK_MIN_RANGE;
-						ChunkPos chunkpos = new ChunkPos(xo + cx, zo + cz);
-
-						if (world.getWorldBorder().contains(chunkpos)) {
-							PlayerChunkMapEntry playerchunkmapentry = world.getPlayerChunkMap().getEntry(chunkpos.x, chunkpos.z);
-
-							if (playerchunkmapentry != null && playerchunkmapentry.isSentToPlayers()) {
-								if(!isBorder) {
-									eligibleChunks.put(chunkpos, false);
-								} else {
-									if(!eligibleChunks.containsKey(chunkpos)) {
-										eligibleChunks.put(chunkpos, true);
-									}
-								}
-							}
-						}
-					}
+	protected boolean areSpawnerChunksLoaded() {
+		//Only chunks that were sent to players are eligible
+		return true;
+	}
+
+	@Override
+	protected LongSet getSpawnerChunks(WorldServer world) {
+		long start = System.nanoTime();
+
+		this.setTrackedWorld(world);
+
+		this.lastUpdatedChunks = 0;
+
+		int mark = ++this.trackingMark;
+
+		for(EntityPlayer player : world.playerEntities) {
+			if(!player.isSpectator()) {
+				long chunk = ChunkPos.asLong(MathHelper.floor(player.posX / 16.0D), MathHelper.floor(player.posZ / 16.0D));
+
+				TrackedPlayer tracked = this.trackedPlayers.get(player);
+				if(tracked == null) {
+					tracked = new TrackedPlayer();
+					tracked.chunk = chunk;
+					this.trackedPlayers.put(player, tracked);
+					this.updateRing(world, chunk, 1);
+				} else if(tracked.chunk != chunk) {
+					//Player crossed a chunk boundary
+					this.updateRing(world, tracked.chunk, -1);
+					tracked.chunk = chunk;
+					this.updateRing(world, chunk, 1);
 				}
+
+				tracked.mark = mark;
 			}
 		}
 
-		for(Entry<ChunkPos, Boolean> entry : eligibleChunks.entrySet()) {
-			if(entry.getValue()) {
-				spawnerChunks.add(entry.getKey());
+		//Remove players that left the world or became spectators
+		ObjectIterator<Reference2ObjectMap.Entry<EntityPlayer, TrackedPlayer>> it = this.trackedPlayers.reference2ObjectEntrySet().fastIterator();
+		while(it.hasNext()) {
+			TrackedPlayer tracked = it.next().getValue();
+			if(tracked.mark != mark) {
+				it.remove();
+				this.updateRing(world, tracked.chunk, -1);
 			}
-		}			
+		}
+
+		this.lastUpdateTime = System.nanoTime() - start;
+
+		return this.eligibleChunks;
+	}
+
+	private void updateRing(World world, long center, int amount) {
+		int cx = getChunkX(center);
+		int cz = getChunkZ(center);
+
+		for (int xo = -SPAWN_CHUNK_MAX_RANGE; xo <= SPAWN_CHUNK_MAX_RANGE; ++xo) {
+			for (int zo = -SPAWN_CHUNK_MAX_RANGE; zo <= SPAWN_CHUNK_MAX_RANGE; ++zo) {
+				boolean isBorder = Math.abs(xo) > SPAWN_CHUNK_MIN_RANGE || Math.abs(zo) > SPAWN_CHUNK_MIN_RANGE;
+				long chunk = ChunkPos.asLong(cx + xo, cz + zo);
+
+				Long2IntOpenHashMap references = isBorder ? this.ringReferences : this.innerReferences;
+				if(references.addTo(chunk, amount) + amount <= 0) {
+					references.remove(chunk);
+				}
+
+				this.updateEligibility(world, chunk);
+			}
+		}
+
+		this.lastUpdatedChunks += (SPAWN_CHUNK_MAX_RANGE * 2 + 1) * (SPAWN_CHUNK_MAX_RANGE * 2 + 1);
+	}
+
+	private void updateEligibility(World world, long chunk) {
+		if(this.ringReferences.get(chunk) > 0 && this.innerReferences.get(chunk) <= 0 && this.sentChunks.contains(chunk) &&
+				world.getWorldBorder().contains(new ChunkPos(getChunkX(chunk), getChunkZ(chunk)))) {
+			this.eligibleChunks.add(chunk);
+		} else {
+			this.eligibleChunks.remove(chunk);
+		}
+	}
+
+	private void setTrackedWorld(World world) {
+		if(this.trackedWorld != world) {
+			this.trackedWorld = world;
+			this.trackedPlayers.clear();
+			this.ringReferences.clear();
+			this.innerReferences.clear();
+			this.sentChunks.clear();
+			this.eligibleChunks.clear();
+		}
+	}
+
+	private boolean isSpawnerWorld(World world) {
+		return world != null && !world.isRemote && world.provider.getDimension() == BetweenlandsConfig.WORLD_AND_DIMENSION.dimensionId;
+	}
+
+	@SubscribeEvent
+	public void onWatchChunk(ChunkWatchEvent.Watch event) {
+		World world = event.getChunkInstance() != null ? event.getChunkInstance().getWorld() : null;
+		if(this.isSpawnerWorld(world)) {
+			this.setTrackedWorld(world);
+			long chunk = ChunkPos.asLong(event.getChunk().x, event.getChunk().z);
+			if(this.sentChunks.add(chunk)) {
+				this.updateEligibility(world, chunk);
+			}
+		}
+	}
+
+	@SubscribeEvent
+	public void onUnwatchChunk(ChunkWatchEvent.UnWatch event) {
+		World world = event.getChunkInstance() != null ? event.getChunkInstance().getWorld() : null;
+		if(world == this.trackedWorld && this.isSpawnerWorld(world)) {
+			PlayerChunkMapEntry entry = ((WorldServer) world).getPlayerChunkMap().getEntry(event.getChunk().x, event.getChunk().z);
+			if(entry == null || !entry.isSentToPlayers() || !entry.hasPlayerMatching(player -> player != event.getPlayer())) {
+				long chunk = ChunkPos.asLong(event.getChunk().x, event.getChunk().z);
+				if(this.sentChunks.remove(chunk)) {
+					this.updateEligibility(world, chunk);
+				}
+			}
+		}
+	}
+
+	@SubscribeEvent
+	public void onWorldUnload(WorldEvent.Unload event) {
+		if(event.getWorld() == this.trackedWorld) {
+			this.setTrackedWorld(null);
+		}
 	}
 
 	@SubscribeEvent
@@ -113,13 +254,29 @@ public class WorldMobSpawner extends AreaMobSpawner {
 				boolean spawnHostiles = ((WorldProviderBetweenlands)world.provider).getCanSpawnHostiles();
 				boolean spawnAnimals = ((WorldProviderBetweenlands)world.provider).getCanSpawnAnimals();
 
-				//long start = System.nanoTime();
 				this.populate(world, spawnHostiles, spawnAnimals);
-				//System.out.println("Time: " + (System.nanoTime() - start) / 1000000.0F);
+			}
+
+			int logInterval = BetweenlandsConfig.MOB_SPAWNING.spawnerStatsLogInterval;
+			if(logInterval > 0 && world.getTotalWorldTime() % (logInterval * 1200L) == 0) {
+				TheBetweenlands.logger.info(this.stats.getLogLine() + String.format(", %d eligible chunks", this.getEligibleChunkCount()));
 			}
 		}
 	}
 
+	/**
+	 * Returns a human readable summary of the spawner statistics
+	 * @param maxEntries Maximum number of listed spawn entries
+	 * @return
+	 */
+	public List<String> getStatsSummary(int maxEntries) {
+		List<String> lines = new ArrayList<>();
+		lines.add(String.format("Eligible chunks: %d, last update: %.3fms, %d chunk reference changes",
+				this.getEligibleChunkCount(), this.getLastUpdateTime() / 1000000.0D, this.getLastUpdatedChunks()));
+		lines.addAll(this.stats.getSummary(maxEntries));
+		return lines;
+	}
+
 	public void populateChunk(WorldServer world, int chunkX, int chunkZ) {
 		if(world == null || world.provider.getDimension() != BetweenlandsConfig.WORLD_AND_DIMENSION.dimensionId)
 			return;
@@ -128,11 +285,10 @@ public class WorldMobSpawner extends AreaMobSpawner {
 			boolean spawnHostiles = ((WorldProviderBetweenlands)world.provider).getCanSpawnHostiles();
 			boolean spawnAnimals = ((WorldProviderBetweenlands)world.provider).getCanSpawnAnimals();
 
-			//long start = System.nanoTime();
-			int spawnedEntities = 0;
-			spawnedEntities += this.populateChunk(world, new ChunkPos(chunkX, chunkZ), spawnHostiles, spawnAnimals, false, true,
+			long start = System.nanoTime();
+			this.populateChunk(world, new ChunkPos(chunkX, chunkZ), spawnHostiles, spawnAnimals, false, true,
 					this.getSpawningAttempsPerChunk() * CHUNK_GEN_SPAWN_RUNS, 60, this.getSpawningAttemptsPerGroup(), this.getHardEntityLimit(), 1.0F);
-			//System.out.println("Spawned: " + spawnedEntities + " Time: " + (System.nanoTime() - start) / 1000000.0F);
+			this.stats.record(SpawnerStats.Phase.CHUNK_GENERATION, System.nanoTime() - start);
 		}
 	}
 }
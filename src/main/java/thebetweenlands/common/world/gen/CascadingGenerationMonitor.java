@@ -0,0 +1,400 @@
+package thebetweenlands.common.world.gen;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.util.math.ChunkPos;
+import thebetweenlands.common.config.BetweenlandsConfig;
+
+/**
+ * Detects chunks that are generated while another chunk is being populated by the
+ * {@link ChunkGeneratorBetweenlands}, i.e. cascading chunk generation. The populate depth is tracked per thread,
+ * so stack traces are only captured for chunks that actually cascade. Cascades are aggregated by the feature that caused them
+ */
+public class CascadingGenerationMonitor {
+	public static final CascadingGenerationMonitor INSTANCE = new CascadingGenerationMonitor();
+
+	private static final int MAX_TRACE_LENGTH = 12;
+	private static final int MAX_TRACES_PER_FEATURE = 16;
+	private static final int MAX_SAMPLES_PER_FEATURE = 32;
+	private static final int MAX_IMAGE_SIZE = 2048;
+
+	/**
+	 * Classes that are never blamed for a cascade
+	 */
+	private static final ImmutableSet<String> IGNORED_CLASSES = ImmutableSet.of(
+			CascadingGenerationMonitor.class.getName(),
+			ChunkGeneratorBetweenlands.class.getName(),
+			"thebetweenlands.common.world.gen.feature.WorldGenHelper",
+			"thebetweenlands.common.world.gen.biome.decorator.DecoratorPositionProvider",
+			"thebetweenlands.common.world.gen.biome.decorator.DecoratorColumnSnapshot"
+			);
+
+	/**
+	 * Classes that contain many different features, cascades are aggregated by method for these
+	 */
+	private static final ImmutableSet<String> FEATURE_METHOD_CLASSES = ImmutableSet.of(
+			"thebetweenlands.common.world.gen.biome.decorator.DecorationHelper"
+			);
+
+	private static class PopulateState {
+		private int depth;
+		private long[] chunks = new long[4];
+	}
+
+	public static class FeatureStats {
+		private final String feature;
+		private int cascades;
+		private int maxDepth;
+		private final Object2IntMap<String> traces = new Object2IntOpenHashMap<>();
+		/**
+		 * Pairs of populated chunk and generated chunk
+		 */
+		private final LongList samples = new LongArrayList();
+
+		private FeatureStats(String feature) {
+			this.feature = feature;
+		}
+
+		public String getFeature() {
+			return this.feature;
+		}
+
+		public int getCascades() {
+			return this.cascades;
+		}
+
+		public int getMaxDepth() {
+			return this.maxDepth;
+		}
+	}
+
+	private final ThreadLocal<PopulateState> populateState = ThreadLocal.withInitial(PopulateState::new);
+
+	private final Map<String, FeatureStats> features = new HashMap<>();
+	private final Long2IntMap heatMap = new Long2IntOpenHashMap();
+	private long populates;
+	private long cascades;
+	private long startTime = System.currentTimeMillis();
+
+	/**
+	 * Called when the generator starts populating a chunk
+	 * @param chunkX
+	 * @param chunkZ
+	 */
+	public void onPopulateStart(int chunkX, int chunkZ) {
+		PopulateState state = this.populateState.get();
+		if(state.depth == state.chunks.length) {
+			long[] chunks = new long[state.depth * 2];
+			System.arraycopy(state.chunks, 0, chunks, 0, state.depth);
+			state.chunks = chunks;
+		}
+		state.chunks[state.depth++] = ChunkPos.asLong(chunkX, chunkZ);
+		synchronized(this) {
+			this.populates++;
+		}
+	}
+
+	/**
+	 * Called when the generator has finished populating a chunk
+	 */
+	public void onPopulateEnd() {
+		PopulateState state = this.populateState.get();
+		if(state.depth > 0) {
+			state.depth--;
+		}
+	}
+
+	/**
+	 * Called when the generator generates a chunk. Records a cascade if a chunk is currently being populated
+	 * @param chunkX
+	 * @param chunkZ
+	 */
+	public void onGenerateChunk(int chunkX, int chunkZ) {
+		PopulateState state = this.populateState.get();
+		if(state.depth == 0 || !BetweenlandsConfig.WORLD_AND_DIMENSION.cascadingGenerationMonitor) {
+			return;
+		}
+
+		StackTraceElement[] stack = Thread.currentThread().getStackTrace();
+
+		String feature = null;
+		StringBuilder trace = new StringBuilder();
+		int traceLength = 0;
+
+		for(StackTraceElement element : stack) {
+			String cls = element.getClassName();
+
+			if(ChunkGeneratorBetweenlands.class.getName().equals(cls) && "populate".equals(element.getMethodName())) {
+				break;
+			}
+
+			if(!cls.startsWith("thebetweenlands.") || IGNORED_CLASSES.contains(cls)) {
+				continue;
+			}
+
+			String simpleName = cls.substring(cls.lastIndexOf('.') + 1);
+
+			if(feature == null) {
+				feature = FEATURE_METHOD_CLASSES.contains(cls) ? simpleName + "#" + element.getMethodName() : simpleName;
+			}
+
+			if(traceLength++ < MAX_TRACE_LENGTH) {
+				if(trace.length() > 0) {
+					trace.append(" <- ");
+				}
+				trace.append(simpleName).append('#').append(element.getMethodName()).append(':').append(element.getLineNumber());
+			}
+		}
+
+		if(feature == null) {
+			feature = "unknown";
+		}
+
+		long populatedChunk = state.chunks[state.depth - 1];
+
+		synchronized(this) {
+			this.cascades++;
+
+			FeatureStats stats = this.features.computeIfAbsent(feature, FeatureStats::new);
+			stats.cascades++;
+			stats.maxDepth = Math.max(stats.maxDepth, state.depth);
+
+			String traceStr = trace.toString();
+			if(stats.traces.containsKey(traceStr) || stats.traces.size() < MAX_TRACES_PER_FEATURE) {
+				stats.traces.put(traceStr, stats.traces.getInt(traceStr) + 1);
+			}
+
+			if(stats.samples.size() < MAX_SAMPLES_PER_FEATURE * 2) {
+				stats.samples.add(populatedChunk);
+				stats.samples.add(ChunkPos.asLong(chunkX, chunkZ));
+			}
+
+			this.heatMap.put(populatedChunk, this.heatMap.get(populatedChunk) + 1);
+		}
+	}
+
+	/**
+	 * Returns the number of chunks that were populated since the last reset
+	 * @return
+	 */
+	public synchronized long getPopulates() {
+		return this.populates;
+	}
+
+	/**
+	 * Returns the number of cascading chunk generations since the last reset
+	 * @return
+	 */
+	public synchronized long getCascades() {
+		return this.cascades;
+	}
+
+	/**
+	 * Returns the statistics of all features that caused cascading chunk generation, most cascades first
+	 * @return
+	 */
+	public synchronized List<FeatureStats> getSortedFeatures() {
+		List<FeatureStats> sorted = new ArrayList<>(this.features.values());
+		sorted.sort((s1, s2) -> Integer.compare(s2.cascades, s1.cascades));
+		return sorted;
+	}
+
+	/**
+	 * Removes all recorded cascades
+	 */
+	public synchronized void reset() {
+		this.features.clear();
+		this.heatMap.clear();
+		this.populates = 0;
+		this.cascades = 0;
+		this.startTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * Returns a short summary of the recorded cascades
+	 * @param maxFeatures
+	 * @return
+	 */
+	public synchronized List<String> getSummary(int maxFeatures) {
+		List<String> lines = new ArrayList<>();
+		lines.add(String.format("Cascading chunk generations: %d in %d populated chunks over %ds", this.cascades, this.populates, (System.currentTimeMillis() - this.startTime) / 1000L));
+		List<FeatureStats> sorted = this.getSortedFeatures();
+		for(int i = 0; i < Math.min(maxFeatures, sorted.size()); i++) {
+			FeatureStats stats = sorted.get(i);
+			lines.add(String.format("  %s: %d (max depth %d)", stats.feature, stats.cascades, stats.maxDepth));
+		}
+		return lines;
+	}
+
+	/**
+	 * Writes a text report, a JSON report and a heat map of the populated chunks that caused cascades
+	 * @param dir
+	 * @param name File name without extension
+	 * @throws IOException
+	 */
+	public void writeReport(File dir, String name) throws IOException {
+		if(!dir.exists() && !dir.mkdirs()) {
+			throw new IOException("Failed creating directory " + dir);
+		}
+
+		String text;
+		JsonObject json;
+		BufferedImage heatMap;
+		synchronized(this) {
+			text = this.createTextReport();
+			json = this.createJsonReport();
+			heatMap = this.createHeatMap();
+		}
+
+		Files.write(new File(dir, name + ".txt").toPath(), text.getBytes(StandardCharsets.UTF_8));
+
+		Gson gson = new GsonBuilder().setPrettyPrinting().create();
+		try(Writer writer = Files.newBufferedWriter(new File(dir, name + ".json").toPath(), StandardCharsets.UTF_8)) {
+			gson.toJson(json, writer);
+		}
+
+		if(heatMap != null) {
+			ImageIO.write(heatMap, "png", new File(dir, name + ".png"));
+		}
+	}
+
+	private String createTextReport() {
+		StringBuilder sb = new StringBuilder();
+		for(String line : this.getSummary(Integer.MAX_VALUE)) {
+			sb.append(line).append('\n');
+		}
+		for(FeatureStats stats : this.getSortedFeatures()) {
+			sb.append('\n').append(stats.feature).append(": ").append(stats.cascades).append(" cascades, max depth ").append(stats.maxDepth).append('\n');
+			List<Object2IntMap.Entry<String>> traces = new ArrayList<>(stats.traces.object2IntEntrySet());
+			traces.sort((e1, e2) -> Integer.compare(e2.getIntValue(), e1.getIntValue()));
+			for(Object2IntMap.Entry<String> trace : traces) {
+				sb.append("  ").append(trace.getIntValue()).append("x ").append(trace.getKey()).append('\n');
+			}
+			sb.append("  Populated -> generated chunks:");
+			for(int i = 0; i < stats.samples.size(); i += 2) {
+				long populated = stats.samples.getLong(i);
+				long generated = stats.samples.getLong(i + 1);
+				sb.append(' ').append((int) populated).append(',').append((int) (populated >> 32));
+				sb.append("->").append((int) generated).append(',').append((int) (generated >> 32));
+			}
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+
+	private JsonObject createJsonReport() {
+		JsonObject json = new JsonObject();
+		json.addProperty("populates", this.populates);
+		json.addProperty("cascades", this.cascades);
+		json.addProperty("duration", (System.currentTimeMillis() - this.startTime) / 1000L);
+
+		JsonArray features = new JsonArray();
+		for(FeatureStats stats : this.getSortedFeatures()) {
+			JsonObject feature = new JsonObject();
+			feature.addProperty("feature", stats.feature);
+			feature.addProperty("cascades", stats.cascades);
+			feature.addProperty("max_depth", stats.maxDepth);
+
+			JsonArray traces = new JsonArray();
+			for(Object2IntMap.Entry<String> entry : stats.traces.object2IntEntrySet()) {
+				JsonObject trace = new JsonObject();
+				trace.addProperty("trace", entry.getKey());
+				trace.addProperty("count", entry.getIntValue());
+				traces.add(trace);
+			}
+			feature.add("traces", traces);
+
+			JsonArray samples = new JsonArray();
+			for(int i = 0; i < stats.samples.size(); i += 2) {
+				long populated = stats.samples.getLong(i);
+				long generated = stats.samples.getLong(i + 1);
+				JsonObject sample = new JsonObject();
+				sample.addProperty("populated_x", (int) populated);
+				sample.addProperty("populated_z", (int) (populated >> 32));
+				sample.addProperty("generated_x", (int) generated);
+				sample.addProperty("generated_z", (int) (generated >> 32));
+				samples.add(sample);
+			}
+			feature.add("samples", samples);
+
+			features.add(feature);
+		}
+		json.add("features", features);
+
+		return json;
+	}
+
+	private BufferedImage createHeatMap() {
+		if(this.heatMap.isEmpty()) {
+			return null;
+		}
+
+		int minX = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+		int maxCount = 0;
+		for(Long2IntMap.Entry entry : this.heatMap.long2IntEntrySet()) {
+			int x = (int) entry.getLongKey();
+			int z = (int) (entry.getLongKey() >> 32);
+			minX = Math.min(minX, x);
+			minZ = Math.min(minZ, z);
+			maxX = Math.max(maxX, x);
+			maxZ = Math.max(maxZ, z);
+		}
+
+		//Chunks per pixel
+		int scale = 1;
+		while((maxX - minX) / scale + 1 > MAX_IMAGE_SIZE || (maxZ - minZ) / scale + 1 > MAX_IMAGE_SIZE) {
+			scale *= 2;
+		}
+
+		int width = (maxX - minX) / scale + 1;
+		int height = (maxZ - minZ) / scale + 1;
+		int[] counts = new int[width * height];
+		for(Long2IntMap.Entry entry : this.heatMap.long2IntEntrySet()) {
+			int x = ((int) entry.getLongKey() - minX) / scale;
+			int z = ((int) (entry.getLongKey() >> 32) - minZ) / scale;
+			int count = counts[x + z * width] += entry.getIntValue();
+			maxCount = Math.max(maxCount, count);
+		}
+
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		double logMax = Math.log(maxCount + 1);
+		for(int z = 0; z < height; z++) {
+			for(int x = 0; x < width; x++) {
+				int count = counts[x + z * width];
+				int rgb = 0x202020;
+				if(count > 0) {
+					//Red to yellow, logarithmic
+					float heat = (float) (Math.log(count + 1) / logMax);
+					int green = (int) (heat * 255);
+					rgb = 0xFF0000 | (green << 8);
+				}
+				image.setRGB(x, z, rgb);
+			}
+		}
+
+		return image;
+	}
+}
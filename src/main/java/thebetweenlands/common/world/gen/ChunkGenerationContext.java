@@ -0,0 +1,178 @@
+package thebetweenlands.common.world.gen;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.biome.BiomeProvider;
+import net.minecraft.world.chunk.ChunkPrimer;
+import thebetweenlands.common.world.gen.feature.MapGenCavesBetweenlands;
+import thebetweenlands.common.world.gen.feature.MapGenGiantRoots;
+import thebetweenlands.common.world.gen.feature.MapGenRavineBetweenlands;
+
+/**
+ * Holds all the mutable state that is required to generate the terrain of a single chunk,
+ * i.e. the primer, the RNG, all noise buffers and the stateful map generators.
+ * The chunk generator and the biome generators/features themselves only hold immutable state
+ * so that multiple chunks can be generated at the same time with one context per thread.
+ * <p>
+ * A context must only be used by one thread at a time.
+ */
+public class ChunkGenerationContext {
+	/**
+	 * Biome provider used by this context. {@link net.minecraft.world.gen.layer.GenLayer}s
+	 * are not thread safe, hence each context that is used off the main thread has its own provider
+	 */
+	final BiomeProvider biomeProvider;
+
+	final Random rand = new Random();
+
+	/**
+	 * Technically this isn't a heightmap, it's a 3D density map
+	 */
+	final double[] heightMap = new double[825];
+	double[] surfaceNoiseBuffer = new double[256];
+	final float[] terrainBiomeWeights = new float[25];
+	final float[] interpolatedTerrainBiomeWeights = new float[256];
+	Biome[] biomesForGeneration;
+	Biome[] biomes;
+	double[] mainNoiseRegion;
+	double[] minLimitRegion;
+	double[] maxLimitRegion;
+	double[] depthRegion;
+
+	final MapGenCavesBetweenlands caveGenerator;
+	final MapGenRavineBetweenlands ravineGenerator;
+	final MapGenGiantRoots giantRootGenerator;
+
+	private final Map<Object, double[][]> noiseBuffers = new IdentityHashMap<>();
+	private final Map<Object, Random> randoms = new IdentityHashMap<>();
+	private final Set<Object> generatedNoise = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	private ChunkPrimer primer;
+	private int chunkX, chunkZ;
+
+	public ChunkGenerationContext(long seed, BiomeProvider biomeProvider) {
+		this.biomeProvider = biomeProvider;
+		this.caveGenerator = new MapGenCavesBetweenlands(seed);
+		this.ravineGenerator = new MapGenRavineBetweenlands();
+		this.giantRootGenerator = new MapGenGiantRoots(seed);
+		this.giantRootGenerator.setBiomeProvider(biomeProvider);
+	}
+
+	/**
+	 * Prepares the context for the generation of a new chunk
+	 * @param chunkX
+	 * @param chunkZ
+	 * @param primer
+	 */
+	void begin(int chunkX, int chunkZ, ChunkPrimer primer) {
+		this.chunkX = chunkX;
+		this.chunkZ = chunkZ;
+		this.primer = primer;
+		this.generatedNoise.clear();
+		this.rand.setSeed((long)chunkX * 341873128712L + (long)chunkZ * 132897987541L);
+	}
+
+	/**
+	 * Releases the primer after the chunk has been generated
+	 */
+	void end() {
+		this.primer = null;
+	}
+
+	/**
+	 * Returns the X coordinate of the chunk that is currently being generated
+	 * @return
+	 */
+	public int getChunkX() {
+		return this.chunkX;
+	}
+
+	/**
+	 * Returns the Z coordinate of the chunk that is currently being generated
+	 * @return
+	 */
+	public int getChunkZ() {
+		return this.chunkZ;
+	}
+
+	/**
+	 * Returns the primer of the chunk that is currently being generated
+	 * @return
+	 */
+	public ChunkPrimer getPrimer() {
+		return this.primer;
+	}
+
+	/**
+	 * Returns the RNG of this context. The RNG is seeded with the chunk position at the start of each chunk
+	 * @return
+	 */
+	public Random getRandom() {
+		return this.rand;
+	}
+
+	/**
+	 * Returns the biome provider that must be used by this context
+	 * @return
+	 */
+	public BiomeProvider getBiomeProvider() {
+		return this.biomeProvider;
+	}
+
+	/**
+	 * Returns the 16x16 biomes of the chunk that is currently being generated
+	 * @return
+	 */
+	public Biome[] getBiomes() {
+		return this.biomes;
+	}
+
+	/**
+	 * Returns a 16x16 noise buffer of the specified owner that is reused across chunks
+	 * @param owner Owner of the buffer, e.g. a biome feature
+	 * @param index Index of the buffer if the owner requires multiple buffers
+	 * @return
+	 */
+	public double[] getNoiseBuffer(Object owner, int index) {
+		double[][] buffers = this.noiseBuffers.get(owner);
+		if(buffers == null || buffers.length <= index) {
+			double[][] newBuffers = new double[index + 1][];
+			if(buffers != null) {
+				System.arraycopy(buffers, 0, newBuffers, 0, buffers.length);
+			}
+			this.noiseBuffers.put(owner, buffers = newBuffers);
+		}
+		double[] buffer = buffers[index];
+		if(buffer == null) {
+			buffers[index] = buffer = new double[256];
+		}
+		return buffer;
+	}
+
+	/**
+	 * Returns a RNG of the specified owner that is reused across chunks
+	 * @param owner
+	 * @return
+	 */
+	public Random getRandom(Object owner) {
+		Random rand = this.randoms.get(owner);
+		if(rand == null) {
+			this.randoms.put(owner, rand = new Random());
+		}
+		return rand;
+	}
+
+	/**
+	 * Marks the noise of the specified owner as generated for the current chunk
+	 * @param owner
+	 * @return True if the noise has not yet been generated for the current chunk
+	 */
+	public boolean markNoiseGenerated(Object owner) {
+		return this.generatedNoise.add(owner);
+	}
+}
@@ -1,33 +1,27 @@
 package thebetweenlands.common.world.gen;
 
-import java.awt.Color;
-import java.awt.Desktop;
-import java.awt.Graphics2D;
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.LinkedHashSet;
+import java.util.Collection;
 import java.util.List;
+import java.util.Queue;
 import java.util.Random;
-import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 
 import javax.annotation.Nullable;
-import javax.imageio.ImageIO;
 
-import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Multimap;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockFalling;
 import net.minecraft.block.state.IBlockState;
-import net.minecraft.client.Minecraft;
 import net.minecraft.entity.EnumCreatureType;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.World;
 import net.minecraft.world.WorldEntitySpawner;
@@ -37,21 +31,19 @@ import net.minecraft.world.biome.Biome.SpawnListEntry;
 import net.minecraft.world.chunk.Chunk;
 import net.minecraft.world.chunk.ChunkPrimer;
 import net.minecraft.world.gen.IChunkGenerator;
-import net.minecraft.world.gen.MapGenBase;
 import net.minecraft.world.gen.NoiseGeneratorOctaves;
 import net.minecraft.world.gen.NoiseGeneratorPerlin;
 import net.minecraft.world.gen.NoiseGeneratorSimplex;
 import net.minecraftforge.event.ForgeEventFactory;
 import thebetweenlands.common.TheBetweenlands;
+import thebetweenlands.common.world.WorldProviderBetweenlands;
 import thebetweenlands.common.world.biome.BiomeBetweenlands;
 import thebetweenlands.common.world.biome.spawning.WorldMobSpawner;
+import thebetweenlands.common.world.gen.biome.BiomeProviderBetweenlands;
 import thebetweenlands.common.world.gen.biome.BiomeWeights;
 import thebetweenlands.common.world.gen.biome.decorator.BiomeDecoratorBetweenlands;
 import thebetweenlands.common.world.gen.biome.generator.BiomeGenerator;
 import thebetweenlands.common.world.gen.biome.generator.BiomeGenerator.EnumGeneratorPass;
-import thebetweenlands.common.world.gen.feature.MapGenCavesBetweenlands;
-import thebetweenlands.common.world.gen.feature.MapGenGiantRoots;
-import thebetweenlands.common.world.gen.feature.MapGenRavineBetweenlands;
 
 public class ChunkGeneratorBetweenlands implements IChunkGenerator {
 	/**
@@ -78,29 +70,47 @@ public class ChunkGeneratorBetweenlands implements IChunkGenerator {
 	public NoiseGeneratorOctaves scaleNoise;
 	public NoiseGeneratorOctaves depthNoise;
 	private final World worldObj;
-	/**
-	 * Technically this isn't a heightmap, it's a 3D density map
-	 */
-	private final double[] heightMap;
 	private final float[] biomeWeights;
-	private double[] surfaceNoiseBuffer = new double[256];
-	private float[] terrainBiomeWeights = new float[25];
-	private float[] interpolatedTerrainBiomeWeights = new float[256];
-	private Biome[] biomesForGeneration;
-	private double[] mainNoiseRegion;
-	private double[] minLimitRegion;
-	private double[] maxLimitRegion;
-	private double[] depthRegion;
 	private final long seed;
 	private final int layerHeight;
 
-	private MapGenCavesBetweenlands caveGenerator;
-	private MapGenBase ravineGenerator;
-	private MapGenBase giantRootGenerator;
-
 	private NoiseGeneratorSimplex treeNoise;
 	private NoiseGeneratorSimplex speleothemDensityNoise;
 
+	/**
+	 * Context used to generate chunks on the main thread
+	 */
+	private final ChunkGenerationContext mainContext;
+
+	/**
+	 * Contexts used by the terrain generation threads, see {@link #pregenerateTerrain(Collection)}
+	 */
+	private final Queue<ChunkGenerationContext> workerContexts = new ConcurrentLinkedQueue<>();
+	private int workerContextCount = 0;
+
+	/**
+	 * Terrain that was generated in parallel and is waiting to be turned into a chunk
+	 */
+	private final Long2ObjectMap<GeneratedTerrain> pregeneratedTerrain = new Long2ObjectOpenHashMap<>();
+
+	private static ForkJoinPool terrainGenerationPool;
+
+	/**
+	 * Generated terrain and biomes of a chunk
+	 */
+	protected static class GeneratedTerrain {
+		protected final int chunkX, chunkZ;
+		protected final ChunkPrimer primer;
+		protected final byte[] biomes;
+
+		protected GeneratedTerrain(int chunkX, int chunkZ, ChunkPrimer primer, byte[] biomes) {
+			this.chunkX = chunkX;
+			this.chunkZ = chunkZ;
+			this.primer = primer;
+			this.biomes = biomes;
+		}
+	}
+
 	public ChunkGeneratorBetweenlands(World world, long seed, Block baseBlock, Block layerBlock, int layerHeight) {
 		this.baseBlock = baseBlock;
 		this.baseBlockState = baseBlock.getDefaultState();
@@ -110,7 +120,6 @@ public class ChunkGeneratorBetweenlands implements IChunkGenerator {
 		this.worldObj = world;
 		this.seed = seed;
 		this.rand = new Random(seed);
-		this.heightMap = new double[825];
 		this.biomeWeights = new float[25];
 		for (int i = -2; i <= 2; ++i) {
 			for (int j = -2; j <= 2; ++j) {
@@ -137,93 +146,248 @@ public class ChunkGeneratorBetweenlands implements IChunkGenerator {
 		this.treeNoise = ctx.getTreeNoise();
 		this.speleothemDensityNoise = ctx.getSpeleothemDensityNoise();
 		world.setSeaLevel(layerHeight);
-		this.caveGenerator = new MapGenCavesBetweenlands(seed);
-		this.ravineGenerator = new MapGenRavineBetweenlands();
-		this.giantRootGenerator = new MapGenGiantRoots(seed);
+		this.mainContext = new ChunkGenerationContext(seed, world.getBiomeProvider());
 	}
 
 
 	//TODO Not sure at all about this
 	@Override
 	public Chunk generateChunk(int chunkX, int chunkZ) {
-		this.rand.setSeed((long)chunkX * 341873128712L + (long)chunkZ * 132897987541L);
-		debugProvideHandle(chunkX, chunkZ);
+		CascadingGenerationMonitor.INSTANCE.onGenerateChunk(chunkX, chunkZ);
+
+		GeneratedTerrain terrain = this.pregeneratedTerrain.remove(ChunkPos.asLong(chunkX, chunkZ));
+		if(terrain == null) {
+			terrain = this.generateTerrain(this.mainContext, chunkX, chunkZ);
+		}
+
+		Chunk chunk = new Chunk(this.worldObj, terrain.primer, chunkX, chunkZ);
+		byte[] biomeArray = chunk.getBiomeArray();
+		System.arraycopy(terrain.biomes, 0, biomeArray, 0, biomeArray.length);
+
+		chunk.generateSkylightMap();
+		return chunk;
+	}
 
+	/**
+	 * Generates the terrain and biomes of a chunk without touching the world.
+	 * Only accesses the specified context and immutable state of the generator, so
+	 * this can be called from multiple threads as long as each thread uses its own context
+	 * @param context
+	 * @param chunkX
+	 * @param chunkZ
+	 * @return
+	 */
+	protected GeneratedTerrain generateTerrain(ChunkGenerationContext context, int chunkX, int chunkZ) {
 		ChunkPrimer chunkprimer = new ChunkPrimer();
 
+		context.begin(chunkX, chunkZ, chunkprimer);
+
+		try {
+			this.setBlocksInChunk(context, chunkX, chunkZ, chunkprimer);
+
+			//Interpolate biome weights
+			for(int z = 0; z < 16; z++) {
+				for(int x = 0; x < 16; x++) {
+					float fractionZ = (z % 4) / 4.0F;
+					float fractionX = (x % 4) / 4.0F;
+					int biomeWeightZ = z / 4;
+					int biomeWeightX = x / 4;
+
+					float weightXCZC = context.terrainBiomeWeights[biomeWeightX + biomeWeightZ * 5];
+					float weightXNZC = context.terrainBiomeWeights[biomeWeightX+1 + biomeWeightZ * 5];
+					float weightXCZN = context.terrainBiomeWeights[biomeWeightX + (biomeWeightZ+1) * 5];
+					float weightXNZN = context.terrainBiomeWeights[biomeWeightX+1 + (biomeWeightZ+1) * 5];
+
+					float interpZAxisXC = weightXCZC + (weightXCZN - weightXCZC) * fractionZ;
+					float interpZAxisXN = weightXNZC + (weightXNZN - weightXNZC) * fractionZ;
+					float currentVal = interpZAxisXC + (interpZAxisXN - interpZAxisXC) * fractionX;
+
+					context.interpolatedTerrainBiomeWeights[x + z * 16] = currentVal;
+				}
+			}
+
+			BiomeWeights biomeWeights = new BiomeWeights(context.interpolatedTerrainBiomeWeights);
 
-		this.setBlocksInChunk(chunkX, chunkZ, chunkprimer);
+			context.biomes = context.biomeProvider.getBiomes(context.biomes, chunkX * 16, chunkZ * 16, 16, 16);
 
-		//Interpolate biome weights
-		for(int z = 0; z < 16; z++) {
-			for(int x = 0; x < 16; x++) {
-				float fractionZ = (z % 4) / 4.0F;
-				float fractionX = (x % 4) / 4.0F;
-				int biomeWeightZ = z / 4;
-				int biomeWeightX = x / 4;
+			this.replaceBiomeBlocks(context, chunkX, chunkZ, chunkprimer, context.biomes, biomeWeights);
+
+			//Gen caves
+			context.caveGenerator.setBiomeTerrainWeights(biomeWeights);
+			context.caveGenerator.setBiomes(context.biomes);
+			context.caveGenerator.generate(this.worldObj, chunkX, chunkZ, chunkprimer);
+
+			//Gen ravines
+			context.ravineGenerator.setBiomes(context.biomes);
+			context.ravineGenerator.generate(this.worldObj, chunkX, chunkZ, chunkprimer);
+
+			//Add biome features (post cave)
+			for(int z = 0; z < 16; z++) {
+				for(int x = 0; x < 16; x++) {
+					double baseBlockNoise = context.surfaceNoiseBuffer[z + x * 16];
+					Biome biome = context.biomes[z + x * 16];
+					if(biome instanceof BiomeBetweenlands) {
+						BiomeGenerator generator = ((BiomeBetweenlands)biome).getBiomeGenerator();
+						generator.runBiomeFeatures(context, chunkZ * 16 + z, chunkX * 16 + x, z, x, baseBlockNoise, chunkprimer, this, context.biomes, biomeWeights, EnumGeneratorPass.POST_GEN_CAVES);
+					}
+				}
+			}
+
+			//Generate giant roots
+			context.giantRootGenerator.generate(this.worldObj, chunkX, chunkZ, chunkprimer);
 
-				float weightXCZC = this.terrainBiomeWeights[biomeWeightX + biomeWeightZ * 5];
-				float weightXNZC = this.terrainBiomeWeights[biomeWeightX+1 + biomeWeightZ * 5];
-				float weightXCZN = this.terrainBiomeWeights[biomeWeightX + (biomeWeightZ+1) * 5];
-				float weightXNZN = this.terrainBiomeWeights[biomeWeightX+1 + (biomeWeightZ+1) * 5];
+			byte[] biomes = new byte[256];
+			for (int i = 0; i < biomes.length; ++i) {
+				biomes[i] = (byte)Biome.getIdForBiome(context.biomes[i]);
+			}
 
-				float interpZAxisXC = weightXCZC + (weightXCZN - weightXCZC) * fractionZ;
-				float interpZAxisXN = weightXNZC + (weightXNZN - weightXNZC) * fractionZ;
-				float currentVal = interpZAxisXC + (interpZAxisXN - interpZAxisXC) * fractionX;
+			return new GeneratedTerrain(chunkX, chunkZ, chunkprimer, biomes);
+		} finally {
+			context.end();
+		}
+	}
 
-				this.interpolatedTerrainBiomeWeights[x + z * 16] = currentVal;
+	/**
+	 * Generates the terrain of the specified chunks in parallel on the terrain generation threads.
+	 * The terrain is kept until the chunks are generated by {@link #generateChunk(int, int)}, population
+	 * still happens on the main thread as usual. Blocks until all chunks are done and must
+	 * only be called from the main thread.
+	 * <p>
+	 * <b>Note:</b> The terrain is kept in memory until the chunk is generated, so only reasonably sized
+	 * batches should be pregenerated. {@link net.minecraftforge.event.terraingen.ChunkGeneratorEvent.ReplaceBiomeBlocks}
+	 * is fired from the terrain generation threads for these chunks.
+	 * @param chunks
+	 * @return Number of chunks whose terrain was generated
+	 */
+	public int pregenerateTerrain(Collection<ChunkPos> chunks) {
+		List<ChunkPos> pending = new ArrayList<>(chunks.size());
+		for(ChunkPos pos : chunks) {
+			if(!this.pregeneratedTerrain.containsKey(ChunkPos.asLong(pos.x, pos.z))) {
+				pending.add(pos);
 			}
 		}
 
-		BiomeWeights biomeWeights = new BiomeWeights(this.interpolatedTerrainBiomeWeights);
+		if(pending.isEmpty()) {
+			return 0;
+		}
 
-		this.biomesForGeneration = this.worldObj.getBiomeProvider().getBiomes(this.biomesForGeneration, chunkX * 16, chunkZ * 16, 16, 16);
+		ForkJoinPool pool = getTerrainGenerationPool();
 
-		this.replaceBiomeBlocks(chunkX, chunkZ, chunkprimer, this.biomesForGeneration, biomeWeights);
+		//Contexts are created on the main thread because creating a biome provider fires events
+		int requiredContexts = Math.min(pool.getParallelism(), pending.size());
+		while(this.workerContextCount < requiredContexts) {
+			ChunkGenerationContext context = this.createWorkerContext();
+			if(context == null) {
+				break;
+			}
+			this.workerContexts.add(context);
+			this.workerContextCount++;
+		}
 
-		//Gen caves
-		this.caveGenerator.setBiomeTerrainWeights(biomeWeights);
-		this.caveGenerator.generate(this.worldObj, chunkX, chunkZ, chunkprimer);
+		if(this.workerContextCount == 0) {
+			//Terrain can't be generated in parallel
+			for(ChunkPos pos : pending) {
+				this.pregeneratedTerrain.put(ChunkPos.asLong(pos.x, pos.z), this.generateTerrain(this.mainContext, pos.x, pos.z));
+			}
+			return pending.size();
+		}
 
-		//Gen ravines
-		this.ravineGenerator.generate(this.worldObj, chunkX, chunkZ, chunkprimer);
-		
-		//Add biome features (post cave)
-		for(int z = 0; z < 16; z++) {
-			for(int x = 0; x < 16; x++) {
-				double baseBlockNoise = this.surfaceNoiseBuffer[z + x * 16];
-				Biome biome = this.biomesForGeneration[z + x * 16];
-				if(biome instanceof BiomeBetweenlands) {
-					BiomeGenerator generator = ((BiomeBetweenlands)biome).getBiomeGenerator();
-					generator.runBiomeFeatures(chunkZ * 16 + z, chunkX * 16 + x, z, x, baseBlockNoise, chunkprimer, this, this.biomesForGeneration, biomeWeights, EnumGeneratorPass.POST_GEN_CAVES);
+		List<ForkJoinTask<GeneratedTerrain>> tasks = new ArrayList<>(pending.size());
+		for(ChunkPos pos : pending) {
+			tasks.add(pool.submit(() -> {
+				ChunkGenerationContext context = this.workerContexts.poll();
+				if(context == null) {
+					//Only happens if the pool runs more tasks than its parallelism, just wait for a context
+					while((context = this.workerContexts.poll()) == null) {
+						Thread.yield();
+					}
+				}
+				try {
+					return this.generateTerrain(context, pos.x, pos.z);
+				} finally {
+					this.workerContexts.add(context);
 				}
+			}));
+		}
+
+		int generated = 0;
+		for(int i = 0; i < tasks.size(); i++) {
+			ChunkPos pos = pending.get(i);
+			try {
+				GeneratedTerrain terrain = tasks.get(i).join();
+				this.pregeneratedTerrain.put(ChunkPos.asLong(terrain.chunkX, terrain.chunkZ), terrain);
+				generated++;
+			} catch(Exception ex) {
+				//Chunk will be generated on the main thread instead
+				TheBetweenlands.logger.error(String.format("Failed pregenerating terrain of chunk %d, %d", pos.x, pos.z), ex);
 			}
 		}
-		
-		//Generate giant roots
-		this.giantRootGenerator.generate(this.worldObj, chunkX, chunkZ, chunkprimer);
 
-		Chunk chunk = new Chunk(this.worldObj, chunkprimer, chunkX, chunkZ);
-		byte[] biomeArray = chunk.getBiomeArray();
+		//All tasks are done, so the biome caches of the worker contexts can be cleaned up safely
+		for(ChunkGenerationContext context : this.workerContexts) {
+			context.biomeProvider.cleanupCache();
+		}
 
-		for (int i = 0; i < biomeArray.length; ++i) {
-			biomeArray[i] = (byte)Biome.getIdForBiome(this.biomesForGeneration[i]);
+		return generated;
+	}
+
+	/**
+	 * Returns whether the terrain of the specified chunk has been pregenerated and is
+	 * waiting to be generated
+	 * @param chunkX
+	 * @param chunkZ
+	 * @return
+	 */
+	public boolean hasPregeneratedTerrain(int chunkX, int chunkZ) {
+		return this.pregeneratedTerrain.containsKey(ChunkPos.asLong(chunkX, chunkZ));
+	}
+
+	/**
+	 * Discards all pregenerated terrain that has not been generated yet
+	 */
+	public void discardPregeneratedTerrain() {
+		this.pregeneratedTerrain.clear();
+	}
+
+	/**
+	 * Creates a new context for the terrain generation threads, or null if the
+	 * terrain can't be generated off the main thread
+	 * @return
+	 */
+	@Nullable
+	protected ChunkGenerationContext createWorkerContext() {
+		if(this.worldObj.provider instanceof WorldProviderBetweenlands) {
+			//GenLayers aren't thread safe so each context needs its own biome provider
+			return new ChunkGenerationContext(this.seed, new BiomeProviderBetweenlands((WorldProviderBetweenlands) this.worldObj.provider, this.worldObj.getWorldInfo()));
 		}
+		return null;
+	}
 
-		chunk.generateSkylightMap();
-		return chunk;
+	private static synchronized ForkJoinPool getTerrainGenerationPool() {
+		if(terrainGenerationPool == null) {
+			int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+			terrainGenerationPool = new ForkJoinPool(threads, pool -> {
+				ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+				thread.setName("Betweenlands Terrain Generator #" + thread.getPoolIndex());
+				return thread;
+			}, null, false);
+		}
+		return terrainGenerationPool;
 	}
 
 	/**
 	 * Generates the base terrain
+	 * @param context
 	 * @param chunkX
 	 * @param chunkZ
 	 * @param primer
 	 */
-	public void setBlocksInChunk(int chunkX, int chunkZ, ChunkPrimer primer) {
-		this.biomesForGeneration = this.worldObj.getBiomeProvider().getBiomesForGeneration(this.biomesForGeneration, chunkX * 4 - 5, chunkZ * 4 - 5, 15, 15);
+	public void setBlocksInChunk(ChunkGenerationContext context, int chunkX, int chunkZ, ChunkPrimer primer) {
+		context.biomesForGeneration = context.biomeProvider.getBiomesForGeneration(context.biomesForGeneration, chunkX * 4 - 5, chunkZ * 4 - 5, 15, 15);
 
-		this.generateHeightmap(chunkX * 4, 0, chunkZ * 4);
+		this.generateHeightmap(context, chunkX * 4, 0, chunkZ * 4);
+
+		double[] heightMap = context.heightMap;
 
 		//X
 		for (int heightMapX = 0; heightMapX < 4; ++heightMapX) {
@@ -249,14 +413,14 @@ public class ChunkGeneratorBetweenlands implements IChunkGenerator {
 				//Y
 				for (int heightMapY = 0; heightMapY < 32; ++heightMapY) {
 					//Values
-					double valXCZCYC = this.heightMap[indexXCZC + heightMapY]; //1
-					double valXCZNYC = this.heightMap[indexXCZN + heightMapY]; //2
-					double valXNZCYC = this.heightMap[indexXNZC + heightMapY]; //3
-					double valXNZNYC = this.heightMap[indexXNZN + heightMapY]; //4
-					double valXCZCYN = this.heightMap[indexXCZC + heightMapY + 1]; //5
-					double valXCZNYN = this.heightMap[indexXCZN + heightMapY + 1]; //6
-					double valXNZCYN = this.heightMap[indexXNZC + heightMapY + 1]; //7
-					double valXNZNYN = this.heightMap[indexXNZN + heightMapY + 1]; //8
+					double valXCZCYC = heightMap[indexXCZC + heightMapY]; //1
+					double valXCZNYC = heightMap[indexXCZN + heightMapY]; //2
+					double valXNZCYC = heightMap[indexXNZC + heightMapY]; //3
+					double valXNZNYC = heightMap[indexXNZN + heightMapY]; //4
+					double valXCZCYN = heightMap[indexXCZC + heightMapY + 1]; //5
+					double valXCZNYN = heightMap[indexXCZN + heightMapY + 1]; //6
+					double valXNZCYN = heightMap[indexXNZC + heightMapY + 1]; //7
+					double valXNZNYN = heightMap[indexXNZN + heightMapY + 1]; //8
 
 					//Step along Y axis (1/8 of the difference)
 					double stepYAxisXCZC = (valXCZCYN - valXCZCYC) * 0.125D;
@@ -324,17 +488,18 @@ public class ChunkGeneratorBetweenlands implements IChunkGenerator {
 
 	/**
 	 * Generates a 33x5x5 (Y*X*Z) heightmap
+	 * @param context
 	 * @param x
 	 * @param y
 	 * @param z
 	 */
-	private void generateHeightmap(int x, int y, int z) {
-		this.depthRegion = this.depthNoise.generateNoiseOctaves(this.depthRegion, x, z, 5, 5, 200.0D, 200.0D, 0.5D);
+	private void generateHeightmap(ChunkGenerationContext context, int x, int y, int z) {
+		context.depthRegion = this.depthNoise.generateNoiseOctaves(context.depthRegion, x, z, 5, 5, 200.0D, 200.0D, 0.5D);
 		float scaleXZ = 684.412F * 8;
 		float scaleY = 684.412F * 8;
-		this.mainNoiseRegion = this.mainPerlinNoise.generateNoiseOctaves(this.mainNoiseRegion, x, y, z, 5, 33, 5, (double)(scaleXZ / 80.0F), (double)(scaleY / 160.0F), (double)(scaleXZ / 80.0F));
-		this.minLimitRegion = this.minLimitPerlinNoise.generateNoiseOctaves(this.minLimitRegion, x, y, z, 5, 33, 5, (double)scaleXZ, (double)scaleY, (double)scaleXZ);
-		this.maxLimitRegion = this.maxLimitPerlinNoise.generateNoiseOctaves(this.maxLimitRegion, x, y, z, 5, 33, 5, (double)scaleXZ, (double)scaleY, (double)scaleXZ);
+		context.mainNoiseRegion = this.mainPerlinNoise.generateNoiseOctaves(context.mainNoiseRegion, x, y, z, 5, 33, 5, (double)(scaleXZ / 80.0F), (double)(scaleY / 160.0F), (double)(scaleXZ / 80.0F));
+		context.minLimitRegion = this.minLimitPerlinNoise.generateNoiseOctaves(context.minLimitRegion, x, y, z, 5, 33, 5, (double)scaleXZ, (double)scaleY, (double)scaleXZ);
+		context.maxLimitRegion = this.maxLimitPerlinNoise.generateNoiseOctaves(context.maxLimitRegion, x, y, z, 5, 33, 5, (double)scaleXZ, (double)scaleY, (double)scaleXZ);
 
 		int noiseIndex = 0;
 		int heightMapIndex = 0;
@@ -344,14 +509,14 @@ public class ChunkGeneratorBetweenlands implements IChunkGenerator {
 				float biomeVariation = 0.0F;
 				float biomeDepth = 0.0F;
 				float totalBiomeWeight = 0.0F;
-				Biome centerBiome = this.biomesForGeneration[heightMapX + 5 + (heightMapZ + 5) * 15];
+				Biome centerBiome = context.biomesForGeneration[heightMapX + 5 + (heightMapZ + 5) * 15];
 
 				float nearestOtherBiomeSq = 50;
 
 				//Averages biome height and variation in a 5x5 area and calculates the biome terrain weight from an 11x11 area
 				for (int offsetX = -5; offsetX <= 5; ++offsetX) {
 					for (int offsetZ = -5; offsetZ <= 5; ++offsetZ) {
-						Biome nearbyBiome = this.biomesForGeneration[heightMapX + 5 + offsetX + (heightMapZ + 5 + offsetZ) * 15];
+						Biome nearbyBiome = context.biomesForGeneration[heightMapX + 5 + offsetX + (heightMapZ + 5 + offsetZ) * 15];
 						float nearbyBiomeDepth = nearbyBiome.getBaseHeight();
 						float nearbyBiomeVariation = nearbyBiome.getHeightVariation();
 
@@ -382,13 +547,13 @@ public class ChunkGeneratorBetweenlands implements IChunkGenerator {
 				}
 
 				//The 0 point is offset by some blocks so that the lerp doesn't cause problems later on
-				this.terrainBiomeWeights[heightMapIndex] = MathHelper.clamp(Math.max((nearestOtherBiomeSq - 2) / 46.0F, 0.0F), 0.0F, 1.0F);
+				context.terrainBiomeWeights[heightMapIndex] = MathHelper.clamp(Math.max((nearestOtherBiomeSq - 2) / 46.0F, 0.0F), 0.0F, 1.0F);
 
 				biomeVariation = biomeVariation / totalBiomeWeight;
 				biomeDepth = biomeDepth / totalBiomeWeight;
 
 				//Small offset for biome depth?
-				double depthPerturbation = this.depthRegion[heightMapIndex] / 8000.0D;
+				double depthPerturbation = context.depthRegion[heightMapIndex] / 8000.0D;
 
 				//depthPerturbation = 0.0D;
 
@@ -437,12 +602,12 @@ public class ChunkGeneratorBetweenlands implements IChunkGenerator {
 					}
 					maxGenDensity8 /= 2.0D;*/
 
-					double minDensity = (this.minLimitRegion[noiseIndex] / maxGenDensity16) * biomeVariation / 256.0D;
-					double maxDensity = (this.maxLimitRegion[noiseIndex] / maxGenDensity16) * biomeVariation / 256.0D;
-					double mainDensity = (this.mainNoiseRegion[noiseIndex] / maxGenDensity8);
+					double minDensity = (context.minLimitRegion[noiseIndex] / maxGenDensity16) * biomeVariation / 256.0D;
+					double maxDensity = (context.maxLimitRegion[noiseIndex] / maxGenDensity16) * biomeVariation / 256.0D;
+					double mainDensity = (context.mainNoiseRegion[noiseIndex] / maxGenDensity8);
 
 					//TODO Not sure if clampedlerp is the right thing to use
-					this.heightMap[noiseIndex] = MathHelper.clampedLerp(minDensity, maxDensity, mainDensity) - densityOffset;
+					context.heightMap[noiseIndex] = MathHelper.clampedLerp(minDensity, maxDensity, mainDensity) - densityOffset;
 
 					++noiseIndex;
 				}
@@ -457,36 +622,28 @@ public class ChunkGeneratorBetweenlands implements IChunkGenerator {
 	 * @param primer
 	 * @param biomesIn
 	 */
-	public void replaceBiomeBlocks(int chunkX, int chunkZ, ChunkPrimer primer, Biome[] biomesIn, BiomeWeights biomeWeights) {
+	public void replaceBiomeBlocks(ChunkGenerationContext context, int chunkX, int chunkZ, ChunkPrimer primer, Biome[] biomesIn, BiomeWeights biomeWeights) {
 		if (!net.minecraftforge.event.ForgeEventFactory.onReplaceBiomeBlocks(this, chunkX, chunkZ, primer, this.worldObj))
 			return;
 
-		this.surfaceNoiseBuffer = this.surfaceNoise.getRegion(this.surfaceNoiseBuffer, (double)(chunkX * 16), (double)(chunkZ * 16), 16, 16, 0.0625D, 0.0625D, 1.0D);
-
-
-		List<BiomeGenerator> foundGenerators = new ArrayList<BiomeGenerator>();
+		context.surfaceNoiseBuffer = this.surfaceNoise.getRegion(context.surfaceNoiseBuffer, (double)(chunkX * 16), (double)(chunkZ * 16), 16, 16, 0.0625D, 0.0625D, 1.0D);
 
 		for(int z = 0; z < 16; z++) {
 			for(int x = 0; x < 16; x++) {
-				double baseBlockNoise = this.surfaceNoiseBuffer[z + x * 16];
+				double baseBlockNoise = context.surfaceNoiseBuffer[z + x * 16];
 				Biome biome = biomesIn[z + x * 16];
 				if(biome instanceof BiomeBetweenlands) {
 					BiomeGenerator generator = ((BiomeBetweenlands)biome).getBiomeGenerator();
 					generator.initializeGenerators(this.seed);
-					generator.generateNoise(chunkZ, chunkX);
-					foundGenerators.add(generator);
-					generator.runBiomeFeatures(chunkZ * 16 + z, chunkX * 16 + x, z, x, baseBlockNoise, primer, this, biomesIn, biomeWeights, EnumGeneratorPass.PRE_REPLACE_BIOME_BLOCKS);
-					generator.replaceBiomeBlocks(chunkZ * 16 + z, chunkX * 16 + x, z, x, baseBlockNoise, this.rand, this.seed, primer, this, biomesIn, biomeWeights);
-					generator.runBiomeFeatures(chunkZ * 16 + z, chunkX * 16 + x, z, x, baseBlockNoise, primer, this, biomesIn, biomeWeights, EnumGeneratorPass.POST_REPLACE_BIOME_BLOCKS);
+					generator.generateNoise(context, chunkZ, chunkX);
+					generator.runBiomeFeatures(context, chunkZ * 16 + z, chunkX * 16 + x, z, x, baseBlockNoise, primer, this, biomesIn, biomeWeights, EnumGeneratorPass.PRE_REPLACE_BIOME_BLOCKS);
+					generator.replaceBiomeBlocks(context, chunkZ * 16 + z, chunkX * 16 + x, z, x, baseBlockNoise, context.rand, this.seed, primer, this, biomesIn, biomeWeights);
+					generator.runBiomeFeatures(context, chunkZ * 16 + z, chunkX * 16 + x, z, x, baseBlockNoise, primer, this, biomesIn, biomeWeights, EnumGeneratorPass.POST_REPLACE_BIOME_BLOCKS);
 				} else {
-					biome.genTerrainBlocks(this.worldObj, this.rand, primer, chunkX * 16 + x, chunkZ * 16 + z, baseBlockNoise);
+					biome.genTerrainBlocks(this.worldObj, context.rand, primer, chunkX * 16 + x, chunkZ * 16 + z, baseBlockNoise);
 				}
 			}
 		}
-
-		for(BiomeGenerator gen : foundGenerators) {
-			gen.resetNoise();
-		}
 	}
 
 //	@Override
@@ -496,6 +653,15 @@ public class ChunkGeneratorBetweenlands implements IChunkGenerator {
 
 	@Override
 	public void populate(int x, int z) {
+		CascadingGenerationMonitor.INSTANCE.onPopulateStart(x, z);
+		try {
+			this.populateChunk(x, z);
+		} finally {
+			CascadingGenerationMonitor.INSTANCE.onPopulateEnd();
+		}
+	}
+
+	private void populateChunk(int x, int z) {
 		BlockFalling.fallInstantly = true;
 		int bx = x * 16;
 		int bz = z * 16;
@@ -569,181 +735,4 @@ public class ChunkGeneratorBetweenlands implements IChunkGenerator {
 	public double evalSpeleothemDensityNoise(double x, double z) {
 		return this.speleothemDensityNoise.getValue(x, z);
 	}
-
-	public static boolean debugRecord = false;
-
-	private static class ChunkProvide {
-		int x, z;
-
-		boolean player;
-
-		int provides;
-
-		String[] cause;
-
-		int[] signature;
-
-		public ChunkProvide(int x, int z, boolean player, int provides, String[] cause, int[] signature) {
-			this.x = x;
-			this.z = z;
-			this.player = player;
-			this.provides = provides;
-			this.cause = cause;
-			this.signature = signature;
-		}
-
-		@Override
-		public int hashCode() {
-			return x * 31 + z;
-		}
-
-		@Override
-		public boolean equals(Object obj) {
-			return obj instanceof ChunkProvide && ((ChunkProvide) obj).x == x && ((ChunkProvide) obj).z == z;
-		}
-	}
-
-	private Set<ChunkProvide> chunkProvides = Collections.synchronizedSet(new LinkedHashSet<>());
-
-	private int maxSigLen, maxProvides;
-
-	private void debugProvideHandle(int x, int z) {
-		if (!debugRecord) {
-			return;
-		}
-		StackTraceElement[] elems = Thread.currentThread().getStackTrace();
-		boolean inside = false;
-		int provides = 0;
-		boolean player = false;
-		int[] signature = new int[0];
-		StringBuilder[] signatureCauses = new StringBuilder[0];
-		int signatureIdx = -1;
-		boolean newSignature = false;
-		boolean lastOther = false;
-		for (int i = 0; i < elems.length; i++) {
-			StackTraceElement elem = elems[i];
-			String cls = elem.getClassName();
-			String method = elem.getMethodName();
-			boolean other = false;
-			if ("net.minecraft.world.gen.ChunkProviderServer".equals(cls) && "provideChunk".equals(method)) {
-				provides++;
-				inside = true;
-				signature = Arrays.copyOf(signature, signature.length + 1);
-                signatureCauses = Arrays.copyOf(signatureCauses, signature.length);
-				signatureIdx++;
-				signatureCauses[signatureIdx] = new StringBuilder();
-				newSignature = true;
-				signatureCauses[signatureIdx].append("ChunkProviderServer#provideChunk\n");
-			} else if (inside) {
-				if ("net.minecraft.server.management.PlayerChunkMapEntry".equals(cls) && "providePlayerChunk".equals(method)) {
-					player = true;
-				} else if (cls.startsWith("thebetweenlands")) {
-					String name;
-					int dot = cls.lastIndexOf('.');
-					if (dot > -1) {
-					    signatureCauses[signatureIdx].append(cls);
-					} else {
-					    signatureCauses[signatureIdx].append(cls.substring(dot + 1));
-					}
-					signatureCauses[signatureIdx].append('#').append(method).append(':').append(elem.getLineNumber()).append("\n");
-					signature[signatureIdx] = (((signature[signatureIdx] * 31) + cls.hashCode()) * 31 + method.hashCode()) * 31 + elem.getLineNumber();
-					newSignature = false;
-				} else {
-				    if (!lastOther) {
-				        signatureCauses[signatureIdx].append("...\n");   
-				    }
-					other = true;
-				}
-			}
-			lastOther = other;
-		}
-		if (newSignature) {
-			signature = Arrays.copyOfRange(signature, 0, signature.length - 1);
-		}
-		if (signature.length > maxSigLen) {
-			maxSigLen = signature.length;
-		}
-		if (provides > maxProvides) {
-			maxProvides = provides;
-		}
-		String[] causes = new String[signatureCauses.length];
-		for (int i = 0; i < signatureCauses.length; i++) {
-		    causes[i] = signatureCauses[i].toString();
-		}
-		chunkProvides.add(new ChunkProvide(x, z, player, provides, causes, signature));
-	}
-
-	public void debugGenerateChunkProvidesImage(boolean open) {
-		int minX = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
-		synchronized (chunkProvides) {
-	        for (ChunkProvide p : chunkProvides) {
-	            if (p.x < minX) {
-	                minX = p.x;
-	            }
-	            if (p.z < minZ) {
-	                minZ = p.z;
-	            }
-	            if (p.x > maxX) {
-	                maxX = p.x;
-	            }
-	            if (p.z > maxZ) {
-	                maxZ = p.z;
-	            }
-	        }
-        }
-		int half = (int) Math.ceil(Math.sqrt(maxSigLen / 2D));
-		int tile = 2 * half;
-		int pad = 1;
-		int unit = tile + pad;
-		BufferedImage img = new BufferedImage((maxX - minX + 1) * unit + pad, (maxZ - minZ + 1) * unit + pad, BufferedImage.TYPE_INT_RGB);
-		Graphics2D g = img.createGraphics();
-		Multimap<String, ChunkProvide> byCause = HashMultimap.create();
-		Set<String> printed = new HashSet<>();
-        synchronized (chunkProvides) {
-    		for (ChunkProvide p : chunkProvides) {
-    		    byCause.put(p.cause[0], p);
-    			int px = (p.x - minX) * unit + pad, pz = (p.z - minZ) * unit + pad;
-    			g.setColor(Color.LIGHT_GRAY);
-    			g.fillRect(px, pz, tile, tile);
-    			if (p.player) {
-    				g.setColor(Color.WHITE);
-    			} else {
-    				g.setColor(Color.MAGENTA);
-    			}
-    			g.fillRect(px, pz, half, half);
-    			g.setColor(new Color(Color.HSBtoRGB((1 - (p.provides - 1) / (float) maxProvides) * 0.333F, 1, 1)));
-    			g.fillRect(px, pz + half, half, half);
-    			for (int i = 0, j = p.signature.length - 1; i < p.signature.length; i++, j--) {
-    			    int color = p.signature[j];
-    				g.setColor(new Color(color));
-    				g.fillRect(px + half + i % half, pz + i / half, 1, 1);
-    				if (printed.add(p.cause[i])) {
-    					TheBetweenlands.logger.debug("#%s:%n%s%n", Integer.toHexString(color | 0xFF000000).substring(2), p.cause[i]);
-    				}
-    			}
-    		}
-        }
-		List<String> sortedCauses = new ArrayList<>(byCause.keySet());
-		sortedCauses.sort((s1, s2) -> byCause.get(s2).size() - byCause.get(s1).size());
-		for (String cause : sortedCauses) {
-		    int c = byCause.get(cause).size();
-		    if (c > 2) {
-		    	TheBetweenlands.logger.debug("%d caused by:%n%s%n", c, cause);   
-		    }
-		}
-		g.dispose();
-		File out = new File(Minecraft.getMinecraft().gameDir, "chunk_provides.png");
-		try {
-			ImageIO.write(img, "png", out);
-			Desktop.getDesktop().edit(out);
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-	}
-
-	public void debugProvideReset() {
-		chunkProvides.clear();
-		maxSigLen = 0;
-		maxProvides = 0;
-	}
 }
@@ -0,0 +1,394 @@
+package thebetweenlands.common.world.gen;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.gen.ChunkProviderServer;
+import thebetweenlands.common.world.gen.biome.decorator.BiomeDecoratorBetweenlands;
+import thebetweenlands.common.world.gen.biome.decorator.DecoratorColumnSnapshot;
+import thebetweenlands.util.SectionTimings;
+
+/**
+ * Generates and populates all chunks within a radius around a center chunk in spiral order.
+ * Only spends a limited amount of time per tick so that the server keeps running at 20 TPS,
+ * and regularly unloads the generated chunks so that the memory usage stays bounded.
+ * <p>
+ * The progress is checkpointed in batches so that the pregenerator can continue after a restart.
+ */
+public class WorldPregenerator {
+	/**
+	 * Number of spiral positions that are processed before the loaded chunks are unloaded and the progress is checkpointed
+	 */
+	private static final int BATCH_SIZE = 256;
+
+	/**
+	 * Number of spiral positions whose terrain is generated in parallel at once
+	 */
+	private static final int TERRAIN_BATCH_SIZE = 16;
+
+	/**
+	 * Pregeneration waits until the server has unloaded enough chunks if more chunks than this are loaded
+	 */
+	private static final int MAX_LOADED_CHUNKS = 3000;
+
+	/**
+	 * Time per tick that is always kept free for the rest of the server, in ms
+	 */
+	private static final int TICK_MARGIN = 5;
+
+	private final int centerX, centerZ;
+	private final int radius;
+	private final long total;
+	private int budget;
+	private boolean paused;
+
+	private long index;
+	private long checkpoint;
+
+	private final LongSet loadedChunks = new LongOpenHashSet();
+	private long terrainPregeneratedUntil;
+	private int processedSinceCheckpoint;
+
+	private final SectionTimings timings = new SectionTimings();
+	private long processedSinceStart;
+	private long activeTime;
+	private long lastUpdateTime;
+	private long lastWorkTime;
+
+	/**
+	 * @param centerX Center chunk X
+	 * @param centerZ Center chunk Z
+	 * @param radius Radius in chunks
+	 * @param budget Maximum time per tick in ms
+	 */
+	public WorldPregenerator(int centerX, int centerZ, int radius, int budget) {
+		this.centerX = centerX;
+		this.centerZ = centerZ;
+		this.radius = radius;
+		this.budget = budget;
+		this.total = (2L * radius + 1L) * (2L * radius + 1L);
+	}
+
+	/**
+	 * Returns the chunk offset from the center at the specified spiral index.
+	 * Index 0 is the center, ring k (k >= 1) consists of the 8k chunks at a chebyshev distance of k
+	 * @param index
+	 * @return
+	 */
+	public static ChunkPos getSpiralOffset(long index) {
+		if(index <= 0) {
+			return new ChunkPos(0, 0);
+		}
+		int ring = (int) ((Math.sqrt(index) + 1) / 2);
+		//Fix possible floating point errors
+		while((2L * ring + 1) * (2L * ring + 1) <= index) {
+			ring++;
+		}
+		while(ring > 1 && (2L * ring - 1) * (2L * ring - 1) > index) {
+			ring--;
+		}
+		long ringIndex = index - (2L * ring - 1) * (2L * ring - 1);
+		int side = (int) (ringIndex / (2 * ring));
+		int t = (int) (ringIndex % (2 * ring));
+		switch(side) {
+		default:
+		case 0:
+			return new ChunkPos(ring, -ring + 1 + t);
+		case 1:
+			return new ChunkPos(ring - 1 - t, ring);
+		case 2:
+			return new ChunkPos(-ring, ring - 1 - t);
+		case 3:
+			return new ChunkPos(-ring + 1 + t, -ring);
+		}
+	}
+
+	public int getCenterX() {
+		return this.centerX;
+	}
+
+	public int getCenterZ() {
+		return this.centerZ;
+	}
+
+	public int getRadius() {
+		return this.radius;
+	}
+
+	public int getBudget() {
+		return this.budget;
+	}
+
+	public void setBudget(int budget) {
+		this.budget = budget;
+	}
+
+	public boolean isPaused() {
+		return this.paused;
+	}
+
+	public void setPaused(boolean paused) {
+		this.paused = paused;
+		this.lastUpdateTime = 0;
+		this.lastWorkTime = 0;
+	}
+
+	public boolean isFinished() {
+		return this.index >= this.total;
+	}
+
+	public long getIndex() {
+		return this.index;
+	}
+
+	public long getTotal() {
+		return this.total;
+	}
+
+	/**
+	 * Generates and populates chunks within the time budget of this tick
+	 * @param world
+	 */
+	public void update(WorldServer world) {
+		if(this.paused) {
+			return;
+		}
+
+		if(this.isFinished()) {
+			if(!this.loadedChunks.isEmpty()) {
+				this.unloadChunks(world);
+				this.checkpoint = this.index;
+			}
+			return;
+		}
+
+		ChunkProviderServer provider = world.getChunkProvider();
+
+		long now = System.nanoTime();
+		if(this.lastUpdateTime != 0) {
+			this.activeTime += now - this.lastUpdateTime;
+		}
+		this.lastUpdateTime = now;
+
+		if(provider.getLoadedChunkCount() > MAX_LOADED_CHUNKS) {
+			//Chunks loaded by population aren't tracked, so queue everything that isn't
+			//watched by a player and wait for the chunk provider to catch up with unloading
+			this.unloadUnwatchedChunks(world);
+			this.lastWorkTime = 0;
+			return;
+		}
+
+		//Uses the work time of the previous tick, so it must be computed before it is overwritten below
+		long budgetNanos = this.getTickBudget(world.getMinecraftServer()) * 1000000L;
+		long start = System.nanoTime();
+
+		BiomeDecoratorBetweenlands.setSectionTimings(this.timings);
+		try {
+			do {
+				if(this.index >= this.terrainPregeneratedUntil) {
+					this.pregenerateTerrain(provider);
+				}
+
+				ChunkPos offset = getSpiralOffset(this.index);
+				int chunkX = this.centerX + offset.x;
+				int chunkZ = this.centerZ + offset.z;
+
+				//Chunk is populated once all chunks in the positive direction are loaded
+				for(int xo = 0; xo <= 1; xo++) {
+					for(int zo = 0; zo <= 1; zo++) {
+						this.loadChunk(provider, chunkX + xo, chunkZ + zo);
+					}
+				}
+
+				this.index++;
+				this.processedSinceStart++;
+				this.processedSinceCheckpoint++;
+			} while(!this.isFinished() && this.processedSinceCheckpoint < BATCH_SIZE && System.nanoTime() - start < budgetNanos);
+		} finally {
+			BiomeDecoratorBetweenlands.setSectionTimings(null);
+		}
+
+		if(this.processedSinceCheckpoint >= BATCH_SIZE || this.isFinished()) {
+			this.unloadChunks(world);
+			this.checkpoint = this.index;
+			this.processedSinceCheckpoint = 0;
+		}
+
+		this.lastWorkTime = System.nanoTime() - start;
+	}
+
+	/**
+	 * Returns how much time can be spent in this tick, in ms
+	 * @param server
+	 * @return
+	 */
+	protected long getTickBudget(MinecraftServer server) {
+		long lastTickTime = server.tickTimeArray[(server.getTickCounter() + server.tickTimeArray.length - 1) % server.tickTimeArray.length];
+		//Time the rest of the server needed last tick
+		long otherTime = Math.max(0, lastTickTime - this.lastWorkTime) / 1000000L;
+		//Always process at least one chunk so that pregeneration can't stall entirely
+		return Math.max(1, Math.min(this.budget, 50 - TICK_MARGIN - otherTime));
+	}
+
+	private void loadChunk(ChunkProviderServer provider, int chunkX, int chunkZ) {
+		if(provider.getLoadedChunk(chunkX, chunkZ) == null) {
+			provider.provideChunk(chunkX, chunkZ);
+			this.loadedChunks.add(ChunkPos.asLong(chunkX, chunkZ));
+		}
+	}
+
+	/**
+	 * Generates the terrain of the next few spiral positions in parallel
+	 * @param provider
+	 */
+	private void pregenerateTerrain(ChunkProviderServer provider) {
+		long end = Math.min(this.total, this.index + TERRAIN_BATCH_SIZE);
+
+		if(provider.chunkGenerator instanceof ChunkGeneratorBetweenlands) {
+			List<ChunkPos> chunks = new ArrayList<>();
+			LongSet added = new LongOpenHashSet();
+
+			for(long i = this.index; i < end; i++) {
+				ChunkPos offset = getSpiralOffset(i);
+				for(int xo = 0; xo <= 1; xo++) {
+					for(int zo = 0; zo <= 1; zo++) {
+						int chunkX = this.centerX + offset.x + xo;
+						int chunkZ = this.centerZ + offset.z + zo;
+						if(added.add(ChunkPos.asLong(chunkX, chunkZ)) && !provider.isChunkGeneratedAt(chunkX, chunkZ)) {
+							chunks.add(new ChunkPos(chunkX, chunkZ));
+						}
+					}
+				}
+			}
+
+			if(!chunks.isEmpty()) {
+				((ChunkGeneratorBetweenlands) provider.chunkGenerator).pregenerateTerrain(chunks);
+			}
+		}
+
+		this.terrainPregeneratedUntil = end;
+	}
+
+	/**
+	 * Queues all chunks loaded by the pregenerator for unloading, unless a player is nearby.
+	 * The chunk provider saves the chunks when it unloads them
+	 * @param world
+	 */
+	private void unloadChunks(WorldServer world) {
+		ChunkProviderServer provider = world.getChunkProvider();
+		LongIterator it = this.loadedChunks.iterator();
+		while(it.hasNext()) {
+			long pos = it.nextLong();
+			int chunkX = (int) (pos & 0xFFFFFFFFL);
+			int chunkZ = (int) (pos >>> 32);
+			Chunk chunk = provider.getLoadedChunk(chunkX, chunkZ);
+			if(chunk != null && !world.getPlayerChunkMap().contains(chunkX, chunkZ)) {
+				provider.queueUnload(chunk);
+			}
+		}
+		this.loadedChunks.clear();
+	}
+
+	/**
+	 * Queues all loaded chunks that aren't watched by a player for unloading. This also covers
+	 * the chunks that were loaded by population and were therefore never tracked by the pregenerator
+	 * @param world
+	 */
+	private void unloadUnwatchedChunks(WorldServer world) {
+		ChunkProviderServer provider = world.getChunkProvider();
+		for(Chunk chunk : provider.getLoadedChunks()) {
+			if(!chunk.unloadQueued && !world.getPlayerChunkMap().contains(chunk.x, chunk.z)) {
+				provider.queueUnload(chunk);
+			}
+		}
+		this.loadedChunks.clear();
+	}
+
+	/**
+	 * Stops the pregenerator and releases all chunks and pregenerated terrain
+	 * @param world
+	 */
+	public void stop(WorldServer world) {
+		this.unloadChunks(world);
+		if(world.getChunkProvider().chunkGenerator instanceof ChunkGeneratorBetweenlands) {
+			((ChunkGeneratorBetweenlands) world.getChunkProvider().chunkGenerator).discardPregeneratedTerrain();
+		}
+		this.terrainPregeneratedUntil = 0;
+		this.checkpoint = this.index;
+		this.processedSinceCheckpoint = 0;
+		this.lastUpdateTime = 0;
+	}
+
+	/**
+	 * Returns a human readable status of the pregenerator
+	 * @param maxSections Maximum number of decorator sections to list
+	 * @return
+	 */
+	public List<String> getStatus(int maxSections) {
+		List<String> lines = new ArrayList<>();
+
+		double seconds = this.activeTime / 1000000000.0D;
+		double chunksPerSecond = seconds > 0 ? this.processedSinceStart / seconds : 0;
+		long remaining = this.total - this.index;
+
+		lines.add(String.format("Center: %d, %d (chunks), radius: %d chunks, budget: %dms/tick%s", this.centerX, this.centerZ, this.radius, this.budget, this.paused ? " (paused)" : (this.isFinished() ? " (finished)" : "")));
+		lines.add(String.format("Progress: %d/%d (%.2f%%), checkpoint: %d", this.index, this.total, this.index * 100.0D / this.total, this.checkpoint));
+		lines.add(String.format("Speed: %.1f chunks/s, ETA: %s", chunksPerSecond, chunksPerSecond > 0 ? formatDuration((long) (remaining / chunksPerSecond)) : "-"));
+
+		double columnHitRate = DecoratorColumnSnapshot.getHitRate();
+		if(columnHitRate >= 0) {
+			lines.add(String.format("Decorator column snapshot: %.1f%% hit rate (%d hits, %d misses)", columnHitRate * 100.0D, DecoratorColumnSnapshot.getTotalHits(), DecoratorColumnSnapshot.getTotalMisses()));
+		}
+
+		List<Object2LongMap.Entry<String>> sections = this.timings.getSortedTimes();
+		if(!sections.isEmpty() && this.processedSinceStart > 0) {
+			lines.add("Decorator sections:");
+			for(int i = 0; i < Math.min(maxSections, sections.size()); i++) {
+				Object2LongMap.Entry<String> section = sections.get(i);
+				lines.add(String.format("  %s: %.1fs total, %.3fms/chunk", section.getKey(), section.getLongValue() / 1000000000.0D, section.getLongValue() / 1000000.0D / this.processedSinceStart));
+			}
+		}
+
+		return lines;
+	}
+
+	private static String formatDuration(long seconds) {
+		return String.format("%d:%02d:%02d", seconds / 3600, (seconds / 60) % 60, seconds % 60);
+	}
+
+	/**
+	 * Writes the checkpoint of the pregenerator to NBT
+	 * @param nbt
+	 * @return
+	 */
+	public NBTTagCompound writeToNBT(NBTTagCompound nbt) {
+		nbt.setInteger("centerX", this.centerX);
+		nbt.setInteger("centerZ", this.centerZ);
+		nbt.setInteger("radius", this.radius);
+		nbt.setInteger("budget", this.budget);
+		nbt.setBoolean("paused", this.paused);
+		nbt.setLong("index", this.checkpoint);
+		return nbt;
+	}
+
+	/**
+	 * Creates a pregenerator from the checkpoint NBT
+	 * @param nbt
+	 * @return
+	 */
+	public static WorldPregenerator readFromNBT(NBTTagCompound nbt) {
+		WorldPregenerator pregenerator = new WorldPregenerator(nbt.getInteger("centerX"), nbt.getInteger("centerZ"), nbt.getInteger("radius"), nbt.getInteger("budget"));
+		pregenerator.paused = nbt.getBoolean("paused");
+		pregenerator.index = pregenerator.checkpoint = Math.max(0, Math.min(pregenerator.total, nbt.getLong("index")));
+		return pregenerator;
+	}
+}
@@ -2,13 +2,18 @@ package thebetweenlands.common.world.gen.biome;
 
 import java.util.List;
 
+import javax.annotation.Nullable;
+
 import com.google.common.collect.Lists;
 
+import net.minecraft.init.Biomes;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.WorldType;
 import net.minecraft.world.biome.Biome;
 import net.minecraft.world.biome.BiomeProvider;
 import net.minecraft.world.gen.layer.GenLayer;
 import net.minecraft.world.storage.WorldInfo;
+import thebetweenlands.common.config.BetweenlandsConfig;
 import thebetweenlands.common.world.WorldProviderBetweenlands;
 import thebetweenlands.common.world.gen.layer.GenLayerBetweenlands;
 
@@ -16,10 +21,109 @@ public class BiomeProviderBetweenlands extends BiomeProvider {
 	public static final List<Biome> ALLOWED_SPAWN_BIOMES = Lists.newArrayList(/*TODO: Add biomes suitable for spawning*/);
 
 	protected final WorldProviderBetweenlands provider;
-	
+
+	/**
+	 * Biome tiles in block coordinates
+	 */
+	protected final BiomeTileCache biomeTiles;
+
+	/**
+	 * Biome tiles in generation coordinates, i.e. 1 biome per 4x4 blocks
+	 */
+	protected final BiomeTileCache generationBiomeTiles;
+
 	public BiomeProviderBetweenlands(WorldProviderBetweenlands provider, WorldInfo worldInfo) {
 		super(worldInfo);
 		this.provider = provider;
+		int tileCacheSize = BetweenlandsConfig.WORLD_AND_DIMENSION.biomeTileCacheSize;
+		this.biomeTiles = new BiomeTileCache((x, z, width, depth) -> toBiomeIds(super.getBiomes(null, x, z, width, depth, false), width * depth), tileCacheSize);
+		this.generationBiomeTiles = new BiomeTileCache((x, z, width, depth) -> toBiomeIds(super.getBiomesForGeneration(null, x, z, width, depth), width * depth), Math.max(tileCacheSize / 16, Math.min(tileCacheSize, 16)));
+	}
+
+	private static int[] toBiomeIds(Biome[] biomes, int size) {
+		int[] ids = new int[size];
+		for(int i = 0; i < size; i++) {
+			ids[i] = Biome.getIdForBiome(biomes[i]);
+		}
+		return ids;
+	}
+
+	private static Biome[] toBiomes(@Nullable Biome[] biomes, byte[] ids, int size) {
+		if(biomes == null || biomes.length < size) {
+			biomes = new Biome[size];
+		}
+		for(int i = 0; i < size; i++) {
+			biomes[i] = Biome.getBiome(ids[i] & 0xFF, Biomes.DEFAULT);
+		}
+		return biomes;
+	}
+
+	@Override
+	public Biome getBiome(BlockPos pos, Biome defaultBiome) {
+		if(this.biomeTiles.isEnabled()) {
+			return Biome.getBiome(this.biomeTiles.getBiomeId(pos.getX(), pos.getZ()), defaultBiome);
+		}
+		return super.getBiome(pos, defaultBiome);
+	}
+
+	@Override
+	public Biome[] getBiomes(@Nullable Biome[] listToReuse, int x, int z, int width, int depth, boolean cacheFlag) {
+		if(this.biomeTiles.isEnabled()) {
+			return toBiomes(listToReuse, this.biomeTiles.getBiomeIds(null, x, z, width, depth), width * depth);
+		}
+		return super.getBiomes(listToReuse, x, z, width, depth, cacheFlag);
+	}
+
+	@Override
+	public Biome[] getBiomesForGeneration(@Nullable Biome[] biomes, int x, int z, int width, int height) {
+		if(this.generationBiomeTiles.isEnabled()) {
+			return toBiomes(biomes, this.generationBiomeTiles.getBiomeIds(null, x, z, width, height), width * height);
+		}
+		return super.getBiomesForGeneration(biomes, x, z, width, height);
+	}
+
+	/**
+	 * Returns the biome IDs of the specified area in block coordinates, indexed by <code>x + z * width</code>.
+	 * Large areas are answered from cached biome tiles where possible
+	 * @param ids Array to reuse, may be null
+	 * @param x
+	 * @param z
+	 * @param width
+	 * @param depth
+	 * @return
+	 */
+	public byte[] getBiomeIds(@Nullable byte[] ids, int x, int z, int width, int depth) {
+		return this.biomeTiles.getBiomeIds(ids, x, z, width, depth);
+	}
+
+	/**
+	 * Returns the biome IDs of the specified area in generation coordinates (1 biome per 4x4 blocks), indexed by <code>x + z * width</code>.
+	 * Large areas are answered from cached biome tiles where possible
+	 * @param ids Array to reuse, may be null
+	 * @param x
+	 * @param z
+	 * @param width
+	 * @param depth
+	 * @return
+	 */
+	public byte[] getGenerationBiomeIds(@Nullable byte[] ids, int x, int z, int width, int depth) {
+		return this.generationBiomeTiles.getBiomeIds(ids, x, z, width, depth);
+	}
+
+	/**
+	 * Returns the biome tile cache in block coordinates
+	 * @return
+	 */
+	public BiomeTileCache getBiomeTileCache() {
+		return this.biomeTiles;
+	}
+
+	/**
+	 * Returns the biome tile cache in generation coordinates
+	 * @return
+	 */
+	public BiomeTileCache getGenerationBiomeTileCache() {
+		return this.generationBiomeTiles;
 	}
 
 	@Override
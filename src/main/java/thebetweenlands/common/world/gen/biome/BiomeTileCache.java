@@ -0,0 +1,200 @@
+package thebetweenlands.common.world.gen.biome;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import net.minecraft.util.math.ChunkPos;
+
+/**
+ * LRU cache of square biome ID tiles. Each tile stores {@link #TILE_SIZE}x{@link #TILE_SIZE}
+ * biome IDs as bytes, indexed by <code>x + z * TILE_SIZE</code>. Tiles are generated on demand by a {@link TileGenerator}
+ */
+public class BiomeTileCache {
+	public static final int TILE_SIZE_BITS = 6;
+	public static final int TILE_SIZE = 1 << TILE_SIZE_BITS;
+	public static final int TILE_MASK = TILE_SIZE - 1;
+
+	public static interface TileGenerator {
+		/**
+		 * Generates the biome IDs of the specified area
+		 * @param x
+		 * @param z
+		 * @param width
+		 * @param depth
+		 * @return biome IDs indexed by <code>x + z * width</code>
+		 */
+		public int[] generate(int x, int z, int width, int depth);
+	}
+
+	private final TileGenerator generator;
+	private final Long2ObjectLinkedOpenHashMap<byte[]> tiles = new Long2ObjectLinkedOpenHashMap<>();
+	private final Object generatorLock = new Object();
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	private int maxSize;
+
+	public BiomeTileCache(TileGenerator generator, int maxSize) {
+		this.generator = generator;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Sets the maximum number of cached tiles. 0 disables the cache
+	 * @param maxSize
+	 */
+	public synchronized void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+		this.trim();
+	}
+
+	public boolean isEnabled() {
+		return this.maxSize > 0;
+	}
+
+	/**
+	 * Returns the tile at the specified tile coordinates and generates it if necessary.
+	 * Tiles are generated outside of the cache lock so that other threads can still read
+	 * cached tiles in the meantime. The returned array must not be modified
+	 * @param tileX
+	 * @param tileZ
+	 * @return
+	 */
+	public byte[] getTile(int tileX, int tileZ) {
+		long key = ChunkPos.asLong(tileX, tileZ);
+
+		synchronized(this) {
+			byte[] tile = this.tiles.getAndMoveToLast(key);
+			if(tile != null) {
+				this.hits.incrementAndGet();
+				return tile;
+			}
+		}
+
+		byte[] tile;
+
+		//The generator (e.g. GenLayers) isn't thread safe, so generation is still serialized
+		synchronized(this.generatorLock) {
+			//Another thread may have generated the tile while this one was waiting
+			synchronized(this) {
+				tile = this.tiles.getAndMoveToLast(key);
+			}
+			if(tile != null) {
+				this.hits.incrementAndGet();
+				return tile;
+			}
+
+			this.misses.incrementAndGet();
+
+			int[] ids = this.generator.generate(tileX << TILE_SIZE_BITS, tileZ << TILE_SIZE_BITS, TILE_SIZE, TILE_SIZE);
+			tile = new byte[TILE_SIZE * TILE_SIZE];
+			for(int i = 0; i < tile.length; i++) {
+				tile[i] = (byte) ids[i];
+			}
+
+			//Added before the generator lock is released so that waiting threads find it
+			synchronized(this) {
+				if(this.maxSize > 0) {
+					this.tiles.putAndMoveToLast(key, tile);
+					this.trim();
+				}
+			}
+		}
+
+		return tile;
+	}
+
+	/**
+	 * Returns the tile at the specified tile coordinates if it is cached. Missing tiles are not generated,
+	 * so unlike {@link #getTile(int, int)} this never touches the biome generator and can be used from other threads.
+	 * The returned array must not be modified
+	 * @param tileX
+	 * @param tileZ
+	 * @return
+	 */
+	@Nullable
+	public synchronized byte[] getCachedTile(int tileX, int tileZ) {
+		return this.tiles.get(ChunkPos.asLong(tileX, tileZ));
+	}
+
+	/**
+	 * Returns the biome ID at the specified position
+	 * @param x
+	 * @param z
+	 * @return
+	 */
+	public int getBiomeId(int x, int z) {
+		return this.getTile(x >> TILE_SIZE_BITS, z >> TILE_SIZE_BITS)[(x & TILE_MASK) + (z & TILE_MASK) * TILE_SIZE] & 0xFF;
+	}
+
+	/**
+	 * Copies the biome IDs of the specified area into the array, indexed by <code>x + z * width</code>.
+	 * Each tile overlapping the area is only looked up once
+	 * @param ids
+	 * @param x
+	 * @param z
+	 * @param width
+	 * @param depth
+	 * @return
+	 */
+	public byte[] getBiomeIds(byte[] ids, int x, int z, int width, int depth) {
+		if(ids == null || ids.length < width * depth) {
+			ids = new byte[width * depth];
+		}
+
+		int minTileX = x >> TILE_SIZE_BITS;
+		int minTileZ = z >> TILE_SIZE_BITS;
+		int maxTileX = (x + width - 1) >> TILE_SIZE_BITS;
+		int maxTileZ = (z + depth - 1) >> TILE_SIZE_BITS;
+
+		for(int tileZ = minTileZ; tileZ <= maxTileZ; tileZ++) {
+			for(int tileX = minTileX; tileX <= maxTileX; tileX++) {
+				byte[] tile = this.getTile(tileX, tileZ);
+
+				int startX = Math.max(x, tileX << TILE_SIZE_BITS);
+				int endX = Math.min(x + width, (tileX + 1) << TILE_SIZE_BITS);
+				int startZ = Math.max(z, tileZ << TILE_SIZE_BITS);
+				int endZ = Math.min(z + depth, (tileZ + 1) << TILE_SIZE_BITS);
+
+				for(int bz = startZ; bz < endZ; bz++) {
+					System.arraycopy(tile, (startX & TILE_MASK) + (bz & TILE_MASK) * TILE_SIZE, ids, (startX - x) + (bz - z) * width, endX - startX);
+				}
+			}
+		}
+
+		return ids;
+	}
+
+	/**
+	 * Removes all cached tiles
+	 */
+	public synchronized void clear() {
+		this.tiles.clear();
+	}
+
+	public synchronized int getSize() {
+		return this.tiles.size();
+	}
+
+	public long getHits() {
+		return this.hits.get();
+	}
+
+	public long getMisses() {
+		return this.misses.get();
+	}
+
+	public void resetCounters() {
+		this.hits.set(0);
+		this.misses.set(0);
+	}
+
+	private void trim() {
+		while(this.tiles.size() > this.maxSize) {
+			this.tiles.removeFirst();
+		}
+	}
+}
@@ -11,19 +11,26 @@ import thebetweenlands.common.registries.BlockRegistry;
 import thebetweenlands.common.world.WorldProviderBetweenlands;
 import thebetweenlands.common.world.gen.ChunkGeneratorBetweenlands;
 import thebetweenlands.common.world.gen.feature.OreGens;
+import thebetweenlands.util.SectionTimings;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.function.Function;
 
+import javax.annotation.Nullable;
+
 public class BiomeDecoratorBetweenlands extends DecoratorPositionProvider {
     private static final List<String> profiledGenerators = new ArrayList<String>();
     private static boolean decorating;
+    private static SectionTimings sectionTimings;
     private final Biome biome;
+    private final DecoratorColumnSnapshot columns = new DecoratorColumnSnapshot();
+    private int decorateDepth;
 
     public BiomeDecoratorBetweenlands(Biome biome) {
         this.biome = biome;
+        this.setColumnSnapshot(this.columns);
     }
 
     @Override
@@ -40,6 +47,9 @@ public class BiomeDecoratorBetweenlands extends DecoratorPositionProvider {
      * @param z
      */
     public final void decorate(World world, ChunkGeneratorBetweenlands generator, Random rand, int x, int z) {
+        this.columns.reset(world, x, z);
+        this.decorateDepth++;
+
         this.init(world, this.biome, generator, rand, x, z);
 
         boolean wasDecorating = decorating;
@@ -48,17 +58,27 @@ public class BiomeDecoratorBetweenlands extends DecoratorPositionProvider {
         if (!wasDecorating) {
             profiledGenerators.clear();
             this.getProfiler().startSection(this.getBiome().getRegistryName().getPath());
+            if (sectionTimings != null) {
+                sectionTimings.start(this.getBiome().getRegistryName().getPath());
+            }
         }
 
         this.decorate();
 
         if (!wasDecorating) {
+            if (sectionTimings != null) {
+                sectionTimings.end();
+            }
             this.getProfiler().endSection();
         }
 
         if (!wasDecorating) {
             decorating = false;
         }
+
+        if (--this.decorateDepth == 0) {
+            this.columns.clear();
+        }
     }
 
     /**
@@ -113,16 +133,17 @@ public class BiomeDecoratorBetweenlands extends DecoratorPositionProvider {
             if (rand.nextInt(9 / cycles + 1) == 0) {
                 int xx = this.getX() + this.offsetXZ();
                 int zz = this.getZ() + this.offsetXZ();
-                int yy = world.getHeight(new BlockPos(xx, 0, zz)).getY() - 1;
+                int yy = this.getSurfaceHeight(xx, zz) - 1;
                 boolean hasMud = false;
                 for (int yo = 0; yo < 16; yo++) {
-                    if (world.getBlockState(new BlockPos(xx, yy + yo, zz)).getBlock() == BlockRegistry.SWAMP_WATER
-                            && world.getBlockState(new BlockPos(xx, yy + yo - 1, zz)).getBlock() == BlockRegistry.MUD) {
+                    if (this.getBlockState(xx, yy + yo, zz).getBlock() == BlockRegistry.SWAMP_WATER
+                            && this.getBlockState(xx, yy + yo - 1, zz).getBlock() == BlockRegistry.MUD) {
                         hasMud = true;
                         yy = yy + yo - 1;
                     }
                 }
                 if (hasMud) {
+                    this.invalidateColumn(xx, zz);
                     switch (rand.nextInt(3)) {
                         case 0:
                             world.setBlockState(new BlockPos(xx, yy, zz), BlockRegistry.AQUA_MIDDLE_GEM_ORE.getDefaultState());
@@ -172,8 +193,11 @@ public class BiomeDecoratorBetweenlands extends DecoratorPositionProvider {
         boolean generated = false;
         tries = MathHelper.floor(tries) + (this.getRand().nextFloat() <= (tries - MathHelper.floor(tries)) ? 1 : 0);
         for (int i = 0; i < tries; i++) {
-            if (generator.apply(this))
+            if (generator.apply(this)) {
                 generated = true;
+                //Generators don't report which columns they have changed
+                this.invalidateColumns();
+            }
         }
         return generated;
     }
@@ -215,12 +239,25 @@ public class BiomeDecoratorBetweenlands extends DecoratorPositionProvider {
         return false;
     }
 
+    /**
+     * Sets the timings that all decorator profiler sections are additionally recorded to,
+     * regardless of whether profiling is enabled. Used by the world pregenerator.
+     *
+     * @param timings
+     */
+    public static void setSectionTimings(@Nullable SectionTimings timings) {
+        sectionTimings = timings;
+    }
+
     /**
      * Starts a profiler section if enabled
      *
      * @param name
      */
     public void startProfilerSection(String name) {
+        if (sectionTimings != null) {
+            sectionTimings.start(name);
+        }
         if (this.isProfilingEnabled() && this.getProfiler().profilingEnabled && (this.isRecursiveProfilingEnabled() || !profiledGenerators.contains(this.getProfiler().getNameOfLastSection()))) {
             this.getProfiler().startSection(name);
 
@@ -235,6 +272,9 @@ public class BiomeDecoratorBetweenlands extends DecoratorPositionProvider {
      * Stops a profiler section if enabled
      */
     public void endProfilerSection() {
+        if (sectionTimings != null) {
+            sectionTimings.end();
+        }
         if (this.isProfilingEnabled() && this.getProfiler().profilingEnabled) {
             if (!this.isRecursiveProfilingEnabled()) {
                 String section = this.getProfiler().getNameOfLastSection();
@@ -16,8 +16,9 @@ public class BiomeDecoratorMarsh extends BiomeDecoratorBetweenlands {
 		this.startProfilerSection("fire");
 		for (int i = 0; i < 10; i++) {
 			BlockPos pos = this.getRandomPos();
-			if (SurfaceType.PEAT.matches(this.getWorld().getBlockState(pos))) {
+			if (this.isSurfaceType(SurfaceType.PEAT, pos.getX(), pos.getY(), pos.getZ())) {
 				this.getWorld().setBlockState(pos.up(), Blocks.FIRE.getDefaultState());
+				this.invalidateColumn(pos.getX(), pos.getZ());
 			}
 		}
 		this.endProfilerSection();
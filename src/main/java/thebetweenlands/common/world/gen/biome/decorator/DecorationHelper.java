@@ -772,8 +772,8 @@ public class DecorationHelper {
 			for(int zo = 0; zo < 32; zo++) {
 				int px = decorator.getX() + xo;
 				int pz = decorator.getZ() + zo;
-				int py = world.getHeight(px, pz) - 1;
-				Block surfaceBlock = world.getBlockState(checkPos.setPos(px, py, pz)).getBlock();
+				int py = decorator.getSurfaceHeight(px, pz) - 1;
+				Block surfaceBlock = decorator.getBlockState(px, py, pz).getBlock();
 				if(surfaceBlock instanceof BlockLeaves) {
 					int yo = 0;
 					boolean hasLeaves = true;
@@ -782,7 +782,7 @@ public class DecorationHelper {
 						if(py-yo <= WorldProviderBetweenlands.CAVE_START) {
 							break;
 						}
-						IBlockState cBlockState = world.getBlockState(checkPos.setPos(px, py-yo, pz));
+						IBlockState cBlockState = decorator.getBlockState(px, py-yo, pz);
 						boolean isBlockLeaves = cBlockState.getBlock() instanceof BlockLeaves;
 						if(isBlockLeaves) {
 							hasLeaves = true;
@@ -879,7 +879,7 @@ public class DecorationHelper {
 					pos.setY(decorator.getWorld().getChunk(pos).getHeightValue(pos.getX() & 15, pos.getY() & 15));
 					BlockPos genPos = null;
 					for(int i = 0; i > -8; i--) {
-						if(surface.matches(decorator.getWorld().getBlockState(pos))) {
+						if(decorator.isSurfaceType(surface, pos.getX(), pos.getY(), pos.getZ())) {
 							genPos = pos.toImmutable().up();
 							break;
 						}
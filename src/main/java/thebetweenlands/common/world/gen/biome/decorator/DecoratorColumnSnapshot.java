@@ -0,0 +1,214 @@
+package thebetweenlands.common.world.gen.biome.decorator;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import thebetweenlands.common.world.WorldProviderBetweenlands;
+
+/**
+ * Per-populate snapshot of the sea ground of the columns of the 2x2 chunks that are populated by a decorator.
+ * Columns are scanned lazily on first access and rescanned if their height map value has changed
+ * or they were invalidated. Columns outside of the snapshot are scanned on every access.
+ * Not thread safe, but the hit counters are shared by all snapshots
+ */
+public class DecoratorColumnSnapshot {
+	public static final int SIZE = 32;
+
+	private static final int SCRATCH = SIZE * SIZE;
+
+	private static final AtomicLong TOTAL_HITS = new AtomicLong();
+	private static final AtomicLong TOTAL_MISSES = new AtomicLong();
+
+	private final Chunk[] chunks = new Chunk[4];
+	private final BitSet valid = new BitSet(SIZE * SIZE);
+
+	private final int[] heights = new int[SIZE * SIZE + 1];
+	private final int[] seaGroundY = new int[SIZE * SIZE + 1];
+
+	private World world;
+	private int originX, originZ;
+
+	/**
+	 * Resets the snapshot to the 2x2 chunks starting at the specified block coordinates
+	 * @param world
+	 * @param x
+	 * @param z
+	 */
+	public void reset(World world, int x, int z) {
+		this.world = world;
+		this.originX = x;
+		this.originZ = z;
+		for(int i = 0; i < 4; i++) {
+			this.chunks[i] = null;
+		}
+		this.valid.clear();
+	}
+
+	/**
+	 * Releases the world and chunks
+	 */
+	public void clear() {
+		this.reset(null, 0, 0);
+	}
+
+	/**
+	 * Returns whether the column is part of this snapshot
+	 * @param x
+	 * @param z
+	 * @return
+	 */
+	public boolean contains(int x, int z) {
+		return x >= this.originX && x < this.originX + SIZE && z >= this.originZ && z < this.originZ + SIZE;
+	}
+
+	/**
+	 * Invalidates all columns
+	 */
+	public void invalidate() {
+		this.valid.clear();
+	}
+
+	/**
+	 * Invalidates the specified column
+	 * @param x
+	 * @param z
+	 */
+	public void invalidate(int x, int z) {
+		if(this.contains(x, z)) {
+			this.valid.clear((x - this.originX) + (z - this.originZ) * SIZE);
+		}
+	}
+
+	/**
+	 * Invalidates all columns in the specified area
+	 * @param minX
+	 * @param minZ
+	 * @param maxX
+	 * @param maxZ
+	 */
+	public void invalidate(int minX, int minZ, int maxX, int maxZ) {
+		minX = Math.max(minX, this.originX) - this.originX;
+		minZ = Math.max(minZ, this.originZ) - this.originZ;
+		maxX = Math.min(maxX, this.originX + SIZE - 1) - this.originX;
+		maxZ = Math.min(maxZ, this.originZ + SIZE - 1) - this.originZ;
+		for(int z = minZ; z <= maxZ; z++) {
+			if(minX <= maxX) {
+				this.valid.clear(minX + z * SIZE, maxX + z * SIZE + 1);
+			}
+		}
+	}
+
+	/**
+	 * Returns the height map value of the specified column, like {@link World#getHeight(int, int)}
+	 * @param x
+	 * @param z
+	 * @return
+	 */
+	public int getHeight(int x, int z) {
+		return this.getChunk(x, z).getHeightValue(x & 15, z & 15);
+	}
+
+	/**
+	 * Returns the Y coordinate below liquids of the specified column, like {@link DecoratorPositionProvider#getSeaGroundY()}
+	 * @param x
+	 * @param z
+	 * @return
+	 */
+	public int getSeaGroundY(int x, int z) {
+		return this.seaGroundY[this.update(x, z)];
+	}
+
+	/**
+	 * Returns the chunk that contains the specified column
+	 * @param x
+	 * @param z
+	 * @return
+	 */
+	public Chunk getChunk(int x, int z) {
+		if(this.contains(x, z)) {
+			int index = ((x - this.originX) >> 4) + ((z - this.originZ) >> 4) * 2;
+			Chunk chunk = this.chunks[index];
+			if(chunk == null || chunk.x != (x >> 4) || chunk.z != (z >> 4)) {
+				chunk = this.chunks[index] = this.world.getChunk(x >> 4, z >> 4);
+			}
+			return chunk;
+		}
+		return this.world.getChunk(x >> 4, z >> 4);
+	}
+
+	private int update(int x, int z) {
+		Chunk chunk = this.getChunk(x, z);
+		int height = chunk.getHeightValue(x & 15, z & 15);
+
+		int index;
+		if(this.contains(x, z)) {
+			index = (x - this.originX) + (z - this.originZ) * SIZE;
+			if(this.valid.get(index) && this.heights[index] == height) {
+				TOTAL_HITS.incrementAndGet();
+				return index;
+			}
+			this.valid.set(index);
+		} else {
+			index = SCRATCH;
+		}
+
+		TOTAL_MISSES.incrementAndGet();
+
+		//Same as the sea ground search in DecoratorPositionProvider#init
+		int seaGroundY = height;
+		if(height <= WorldProviderBetweenlands.LAYER_HEIGHT && getBlockState(chunk, x, height, z).getMaterial().isLiquid()) {
+			for(int y = height; y > 0; y--) {
+				if(!getBlockState(chunk, x, y, z).getMaterial().isLiquid()) {
+					seaGroundY = y;
+					break;
+				}
+			}
+		}
+		this.heights[index] = height;
+		this.seaGroundY[index] = seaGroundY;
+
+		return index;
+	}
+
+	private static IBlockState getBlockState(Chunk chunk, int x, int y, int z) {
+		if(y < 0 || y >= 256) {
+			return Blocks.AIR.getDefaultState();
+		}
+		return chunk.getBlockState(x, y, z);
+	}
+
+	/**
+	 * Returns the total number of column lookups that were answered from a snapshot
+	 * @return
+	 */
+	public static long getTotalHits() {
+		return TOTAL_HITS.get();
+	}
+
+	/**
+	 * Returns the total number of column lookups that required a column scan
+	 * @return
+	 */
+	public static long getTotalMisses() {
+		return TOTAL_MISSES.get();
+	}
+
+	/**
+	 * Returns the hit rate of all snapshots from 0 to 1, or -1 if there weren't any lookups yet
+	 * @return
+	 */
+	public static double getHitRate() {
+		long hits = TOTAL_HITS.get();
+		long lookups = hits + TOTAL_MISSES.get();
+		return lookups > 0 ? hits / (double) lookups : -1;
+	}
+
+	public static void resetCounters() {
+		TOTAL_HITS.set(0);
+		TOTAL_MISSES.set(0);
+	}
+}
@@ -4,10 +4,13 @@ import java.util.Random;
 
 import javax.annotation.Nullable;
 
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.BlockPos.MutableBlockPos;
 import net.minecraft.world.World;
 import net.minecraft.world.biome.Biome;
+import net.minecraft.world.chunk.Chunk;
 import net.minecraft.world.gen.IChunkGenerator;
 import thebetweenlands.common.world.WorldProviderBetweenlands;
 
@@ -18,6 +21,8 @@ public class DecoratorPositionProvider {
 	private Random rand;
 	private IChunkGenerator generator;
 	private int minOffsetXZ = 8, maxOffsetXZ = 24, minOffsetY = -8, maxOffsetY = 8;
+	private Chunk probeChunk;
+	private DecoratorColumnSnapshot columns;
 
 	/**
 	 * Returns the chunk generator
@@ -195,6 +200,106 @@ public class DecoratorPositionProvider {
 		return this.rand;
 	}
 
+	private Chunk getProbeChunk(int x, int z) {
+		if(this.columns != null) {
+			return this.columns.getChunk(x, z);
+		}
+		Chunk chunk = this.probeChunk;
+		if(chunk == null || chunk.x != (x >> 4) || chunk.z != (z >> 4)) {
+			chunk = this.probeChunk = this.world.getChunk(x >> 4, z >> 4);
+		}
+		return chunk;
+	}
+
+	/**
+	 * Returns the column snapshot, or null if this provider doesn't use one
+	 * @return
+	 */
+	@Nullable
+	public DecoratorColumnSnapshot getColumnSnapshot() {
+		return this.columns;
+	}
+
+	/**
+	 * Sets the column snapshot that column queries are answered from. The snapshot must be reset
+	 * before {@link #init(World, Biome, IChunkGenerator, Random, int, int, int)} is called
+	 * @param columns
+	 */
+	protected void setColumnSnapshot(@Nullable DecoratorColumnSnapshot columns) {
+		this.columns = columns;
+	}
+
+	/**
+	 * Invalidates the snapshot of the specified column, must be called when blocks
+	 * are placed in a column without changing its height
+	 * @param x
+	 * @param z
+	 */
+	public void invalidateColumn(int x, int z) {
+		if(this.columns != null) {
+			this.columns.invalidate(x, z);
+		}
+	}
+
+	/**
+	 * Invalidates the snapshot of all columns
+	 */
+	public void invalidateColumns() {
+		if(this.columns != null) {
+			this.columns.invalidate();
+		}
+	}
+
+	/**
+	 * Returns the block state at the specified position. Subsequent lookups in the same
+	 * chunk skip the world's chunk lookup
+	 * @param x
+	 * @param y
+	 * @param z
+	 * @return
+	 */
+	public IBlockState getBlockState(int x, int y, int z) {
+		if(y < 0 || y >= 256) {
+			return Blocks.AIR.getDefaultState();
+		}
+		return this.getProbeChunk(x, z).getBlockState(x, y, z);
+	}
+
+	/**
+	 * Returns the Y coordinate above the highest non-transparent block of the specified column, like {@link World#getHeight(int, int)}
+	 * @param x
+	 * @param z
+	 * @return
+	 */
+	public int getSurfaceHeight(int x, int z) {
+		if(this.columns != null) {
+			return this.columns.getHeight(x, z);
+		}
+		return this.getProbeChunk(x, z).getHeightValue(x & 15, z & 15);
+	}
+
+	/**
+	 * Returns the highest non-transparent block state of the specified column
+	 * @param x
+	 * @param z
+	 * @return
+	 */
+	public IBlockState getSurfaceState(int x, int z) {
+		return this.getBlockState(x, this.getSurfaceHeight(x, z) - 1, z);
+	}
+
+	/**
+	 * Returns whether the block at the specified position matches the surface type
+	 * @param type
+	 * @param x
+	 * @param y
+	 * @param z
+	 * @return
+	 */
+	public boolean isSurfaceType(SurfaceType type, int x, int y, int z) {
+		return type.matches(this.getBlockState(x, y, z));
+	}
+
 	/**
 	 * Sets the minimum and maximum offsets in X/Z direction
 	 * @param min
@@ -230,21 +335,27 @@ public class DecoratorPositionProvider {
 	public void init(World world, Biome biome, @Nullable IChunkGenerator generator, Random rand, int x, int y, int z) {
 		this.generator = generator;
 		this.biome = biome;
+		this.probeChunk = null;
 		this.x = x;
 		this.z = z;
-		if(y == -1) {
-			this.y = world.getChunk(x >> 4, z >> 4).getHeightValue(x & 15, z & 15);
+		if(y == -1 && this.columns != null && this.columns.contains(x, z)) {
+			this.y = this.columns.getHeight(x, z);
+			this.seaGroundY = this.columns.getSeaGroundY(x, z);
 		} else {
-			this.y = y;
-		}
-		this.seaGroundY = this.y;
-		if(this.y <= WorldProviderBetweenlands.LAYER_HEIGHT && world.getBlockState(new BlockPos(this.x, this.y, this.z)).getMaterial().isLiquid()) {
-			MutableBlockPos offsetPos = new MutableBlockPos();
-			for(int oy = this.y; oy > 0; oy--) {
-				offsetPos.setPos(this.x, oy, this.z);
-				if(!world.getBlockState(offsetPos).getMaterial().isLiquid()) {
-					this.seaGroundY = oy;
-					break;
+			if(y == -1) {
+				this.y = world.getChunk(x >> 4, z >> 4).getHeightValue(x & 15, z & 15);
+			} else {
+				this.y = y;
+			}
+			this.seaGroundY = this.y;
+			if(this.y <= WorldProviderBetweenlands.LAYER_HEIGHT && world.getBlockState(new BlockPos(this.x, this.y, this.z)).getMaterial().isLiquid()) {
+				MutableBlockPos offsetPos = new MutableBlockPos();
+				for(int oy = this.y; oy > 0; oy--) {
+					offsetPos.setPos(this.x, oy, this.z);
+					if(!world.getBlockState(offsetPos).getMaterial().isLiquid()) {
+						this.seaGroundY = oy;
+						break;
+					}
 				}
 			}
 		}
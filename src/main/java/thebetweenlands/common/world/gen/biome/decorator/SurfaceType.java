@@ -1,5 +1,6 @@
 package thebetweenlands.common.world.gen.biome.decorator;
 
+import java.util.BitSet;
 import java.util.List;
 
 import javax.annotation.Nullable;
@@ -7,6 +8,7 @@ import javax.annotation.Nullable;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
 
+import net.minecraft.block.Block;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.block.state.pattern.BlockMatcher;
 import net.minecraft.init.Blocks;
@@ -67,6 +69,21 @@ public enum SurfaceType implements Predicate<IBlockState> {
 	private final List<Predicate<IBlockState>> matchers;
 	private final SurfaceType types[];
 
+	private volatile StateTable stateTable;
+
+	private static class StateTable {
+		/**
+		 * Bit per block state ID ({@link Block#getStateId(IBlockState)}) that is set if the state matches the surface type
+		 */
+		private final BitSet matching = new BitSet();
+
+		/**
+		 * Bit per block state ID that is set if the states with that ID do not all match or all not match, e.g. due to non-meta properties.
+		 * Such states are checked with the matchers instead
+		 */
+		private final BitSet ambiguous = new BitSet();
+	}
+
 	private SurfaceType(@Nullable List<Predicate<IBlockState>> matchers, SurfaceType... types) {
 		this.matchers = matchers;
 		this.types = types;
@@ -80,6 +97,21 @@ public enum SurfaceType implements Predicate<IBlockState> {
 	public boolean apply(IBlockState input) {
 		if(input == null)
 			return false;
+		StateTable stateTable = this.stateTable;
+		if(stateTable != null) {
+			Block block = input.getBlock();
+			int blockId = Block.getIdFromBlock(block);
+			if(blockId >= 0) {
+				int stateId = blockId + (block.getMetaFromState(input) << 12);
+				if(!stateTable.ambiguous.get(stateId)) {
+					return stateTable.matching.get(stateId);
+				}
+			}
+		}
+		return this.applyMatchers(input);
+	}
+
+	private boolean applyMatchers(IBlockState input) {
 		if(this.types != null && this.types.length > 0){
 			for(SurfaceType type : this.types)
 				if(type.apply(input))
@@ -94,6 +126,49 @@ public enum SurfaceType implements Predicate<IBlockState> {
 		return false;
 	}
 
+	/**
+	 * Builds the block state lookup tables of all surface types. Must be called again
+	 * whenever the block IDs change
+	 */
+	public static void buildStateTables() {
+		SurfaceType[] types = values();
+
+		//Composite types apply their nested types, which must not use their tables from the old block IDs
+		for(SurfaceType type : types) {
+			type.stateTable = null;
+		}
+
+		StateTable[] stateTables = new StateTable[types.length];
+		for(int i = 0; i < types.length; i++) {
+			stateTables[i] = new StateTable();
+		}
+
+		BitSet seenStates = new BitSet();
+
+		for(Block block : Block.REGISTRY) {
+			for(IBlockState state : block.getBlockState().getValidStates()) {
+				int stateId = Block.getStateId(state);
+				boolean seen = seenStates.get(stateId);
+				seenStates.set(stateId);
+
+				for(int i = 0; i < types.length; i++) {
+					StateTable table = stateTables[i];
+					boolean matches = types[i].applyMatchers(state);
+					if(seen && matches != table.matching.get(stateId)) {
+						table.ambiguous.set(stateId);
+					}
+					if(matches) {
+						table.matching.set(stateId);
+					}
+				}
+			}
+		}
+
+		for(int i = 0; i < types.length; i++) {
+			types[i].stateTable = stateTables[i];
+		}
+	}
+
 	public boolean matches(World world, BlockPos pos) {
 		return world.isBlockLoaded(pos) && this.apply(world.getBlockState(pos));
 	}
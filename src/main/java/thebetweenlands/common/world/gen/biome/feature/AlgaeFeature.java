@@ -9,6 +9,7 @@ import net.minecraft.world.chunk.ChunkPrimer;
 import net.minecraft.world.gen.NoiseGeneratorPerlin;
 import thebetweenlands.common.registries.BlockRegistry;
 import thebetweenlands.common.world.WorldProviderBetweenlands;
+import thebetweenlands.common.world.gen.ChunkGenerationContext;
 import thebetweenlands.common.world.gen.ChunkGeneratorBetweenlands;
 import thebetweenlands.common.world.gen.biome.BiomeWeights;
 import thebetweenlands.common.world.gen.biome.generator.BiomeGenerator.EnumGeneratorPass;
@@ -18,7 +19,6 @@ import thebetweenlands.common.world.gen.biome.generator.BiomeGenerator.EnumGener
  */
 public class AlgaeFeature extends BiomeFeature {
 	private NoiseGeneratorPerlin algaeNoiseGen;
-	private double[] algaeNoise = new double[256];
 
 	@Override
 	public void initializeGenerators(long seed, Biome biome) {
@@ -27,17 +27,17 @@ public class AlgaeFeature extends BiomeFeature {
 	}
 
 	@Override
-	public void generateNoise(int chunkX, int chunkZ, Biome biome) {
-		this.algaeNoise = this.algaeNoiseGen.getRegion(this.algaeNoise, (double) (chunkX * 16), (double) (chunkZ * 16), 16, 16, 0.08D * 2.0D, 0.08D * 2.0D, 1.0D);
+	public void generateNoise(ChunkGenerationContext context, int chunkX, int chunkZ, Biome biome) {
+		this.algaeNoiseGen.getRegion(context.getNoiseBuffer(this, 0), (double) (chunkX * 16), (double) (chunkZ * 16), 16, 16, 0.08D * 2.0D, 0.08D * 2.0D, 1.0D);
 	}
 
 	@Override
-	public void replaceStackBlocks(int x, int z, double baseBlockNoise, ChunkPrimer chunkPrimer,
+	public void replaceStackBlocks(ChunkGenerationContext context, int x, int z, double baseBlockNoise, ChunkPrimer chunkPrimer,
 			ChunkGeneratorBetweenlands chunkGenerator, Biome[] biomesForGeneration, Biome biome, BiomeWeights biomeWeights,
 			EnumGeneratorPass pass) {
 		if(pass == EnumGeneratorPass.POST_GEN_CAVES) {
 			float biomeWeight = biomeWeights.get(x, z);
-			if(this.algaeNoise[x * 16 + z] / 1.6f * biomeWeight + 1.8f <= 0) {
+			if(context.getNoiseBuffer(this, 0)[x * 16 + z] / 1.6f * biomeWeight + 1.8f <= 0) {
 				int y = WorldProviderBetweenlands.LAYER_HEIGHT;
 				Block currentBlock = chunkPrimer.getBlockState(x, y, z).getBlock();
 				Block blockAbove = chunkPrimer.getBlockState(x, y + 1, z).getBlock();
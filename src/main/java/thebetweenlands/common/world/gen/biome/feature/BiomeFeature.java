@@ -4,6 +4,7 @@ import net.minecraft.block.state.IBlockState;
 import net.minecraft.init.Blocks;
 import net.minecraft.world.biome.Biome;
 import net.minecraft.world.chunk.ChunkPrimer;
+import thebetweenlands.common.world.gen.ChunkGenerationContext;
 import thebetweenlands.common.world.gen.ChunkGeneratorBetweenlands;
 import thebetweenlands.common.world.gen.biome.BiomeWeights;
 import thebetweenlands.common.world.gen.biome.generator.BiomeGenerator.EnumGeneratorPass;
@@ -11,6 +12,8 @@ import thebetweenlands.common.world.gen.biome.generator.BiomeGenerator.EnumGener
 public abstract class BiomeFeature {
 	/**
 	 * Initializes additional noise generators.
+	 * Called once before any chunk is generated, the generators must not be modified afterwards
+	 * since they are shared by all generation threads.
 	 * @param seed World seed
 	 */
 	public void initializeGenerators(long seed, Biome biome) {
@@ -18,17 +21,20 @@ public abstract class BiomeFeature {
 	}
 
 	/**
-	 * Generates the noise fields.
+	 * Generates the noise fields. Noise must be stored in the buffers of the context,
+	 * see {@link ChunkGenerationContext#getNoiseBuffer(Object, int)}.
+	 * @param context
 	 * @param chunkX
 	 * @param chunkZ
 	 */
-	public void generateNoise(int chunkX, int chunkZ, Biome biome) {
+	public void generateNoise(ChunkGenerationContext context, int chunkX, int chunkZ, Biome biome) {
 
 	}
 
 	/**
 	 * Modifies the terrain at the specified block stack.
 	 * <p><b>Note:</b> Do not generate outside of the specified block stack!
+	 * @param context
 	 * @param blockX
 	 * @param blockZ
 	 * @param inChunkX
@@ -40,7 +46,7 @@ public abstract class BiomeFeature {
 	 * @param biomesForGeneration
 	 * @param pass
 	 */
-	public abstract void replaceStackBlocks(int x, int z, 
+	public abstract void replaceStackBlocks(ChunkGenerationContext context, int x, int z, 
 			double baseBlockNoise, ChunkPrimer chunkPrimer, 
 			ChunkGeneratorBetweenlands chunkGenerator, Biome[] biomesForGeneration, Biome biome, BiomeWeights biomeWeights, EnumGeneratorPass pass);
 
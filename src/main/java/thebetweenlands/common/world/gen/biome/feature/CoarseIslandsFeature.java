@@ -11,6 +11,7 @@ import thebetweenlands.common.block.terrain.BlockCragrock;
 import thebetweenlands.common.block.terrain.BlockCragrock.EnumCragrockType;
 import thebetweenlands.common.registries.BlockRegistry;
 import thebetweenlands.common.world.WorldProviderBetweenlands;
+import thebetweenlands.common.world.gen.ChunkGenerationContext;
 import thebetweenlands.common.world.gen.ChunkGeneratorBetweenlands;
 import thebetweenlands.common.world.gen.biome.BiomeWeights;
 import thebetweenlands.common.world.gen.biome.generator.BiomeGenerator.EnumGeneratorPass;
@@ -24,10 +25,8 @@ public class CoarseIslandsFeature extends BiomeFeature {
 	private final IBlockState cragrockMossy2 = BlockRegistry.CRAGROCK.getDefaultState().withProperty(BlockCragrock.VARIANT, EnumCragrockType.MOSSY_2);
 
 	private NoiseGeneratorPerlin islandNoiseGen;
-	private double[] islandNoise = new double[256];
 
 	private NoiseGeneratorPerlin cragNoiseGen;
-	private double[] cragNoise = new double[256];
 
 	@Override
 	public void initializeGenerators(long seed, Biome biome) {
@@ -37,37 +36,37 @@ public class CoarseIslandsFeature extends BiomeFeature {
 	}
 
 	@Override
-	public void generateNoise(int chunkX, int chunkZ, Biome biome) {
-		this.islandNoise = this.islandNoiseGen.getRegion(this.islandNoise, (double) (chunkX * 16), (double) (chunkZ * 16), 16, 16, 0.08D * 0.6D, 0.08D * 0.6D, 1.0D);
-		this.cragNoise = this.cragNoiseGen.getRegion(this.cragNoise, (double) (chunkX * 16), (double) (chunkZ * 16), 16, 16, 0.1D * 4.5D, 0.1D * 4.5D, 1.0D);
+	public void generateNoise(ChunkGenerationContext context, int chunkX, int chunkZ, Biome biome) {
+		this.islandNoiseGen.getRegion(context.getNoiseBuffer(this, 0), (double) (chunkX * 16), (double) (chunkZ * 16), 16, 16, 0.08D * 0.6D, 0.08D * 0.6D, 1.0D);
+		this.cragNoiseGen.getRegion(context.getNoiseBuffer(this, 1), (double) (chunkX * 16), (double) (chunkZ * 16), 16, 16, 0.1D * 4.5D, 0.1D * 4.5D, 1.0D);
 	}
 
-	public double getIslandNoiseAt(int inChunkX, int inChunkZ, float biomeWeight) {
-		double islandNoise = this.islandNoise[inChunkX * 16 + inChunkZ] / 0.9f * biomeWeight + 2.1f;
+	public double getIslandNoiseAt(ChunkGenerationContext context, int inChunkX, int inChunkZ, float biomeWeight) {
+		double islandNoise = context.getNoiseBuffer(this, 0)[inChunkX * 16 + inChunkZ] / 0.9f * biomeWeight + 2.1f;
 		return islandNoise;
 	}
 	
-	public double getCragrockNoiseAt(int inChunkX, int inChunkZ) {
-		double cragNoise = this.cragNoise[inChunkX * 16 + inChunkZ] / 2.1f + 2.0f;
+	public double getCragrockNoiseAt(ChunkGenerationContext context, int inChunkX, int inChunkZ) {
+		double cragNoise = context.getNoiseBuffer(this, 1)[inChunkX * 16 + inChunkZ] / 2.1f + 2.0f;
 		return cragNoise;
 	}
 	
-	public boolean isIslandAt(int inChunkX, int inChunkZ, float biomeWeight) {
-		return this.getIslandNoiseAt(inChunkX, inChunkZ, biomeWeight) <= 0;
+	public boolean isIslandAt(ChunkGenerationContext context, int inChunkX, int inChunkZ, float biomeWeight) {
+		return this.getIslandNoiseAt(context, inChunkX, inChunkZ, biomeWeight) <= 0;
 	}
 	
-	public boolean isIslandCragrockAt(int inChunkX, int inChunkZ) {
-		return this.getCragrockNoiseAt(inChunkX, inChunkZ) <= 0;
+	public boolean isIslandCragrockAt(ChunkGenerationContext context, int inChunkX, int inChunkZ) {
+		return this.getCragrockNoiseAt(context, inChunkX, inChunkZ) <= 0;
 	}
 	
 	@Override
-	public void replaceStackBlocks(int x, int z, double baseBlockNoise, ChunkPrimer chunkPrimer,
+	public void replaceStackBlocks(ChunkGenerationContext context, int x, int z, double baseBlockNoise, ChunkPrimer chunkPrimer,
 			ChunkGeneratorBetweenlands chunkGenerator, Biome[] biomesForGeneration, Biome biome, BiomeWeights biomeWeights,
 			EnumGeneratorPass pass) {
 		if(pass == EnumGeneratorPass.PRE_REPLACE_BIOME_BLOCKS) {
 			float biomeWeight = biomeWeights.get(x, z, 2, 12);
-			double islandNoise = this.getIslandNoiseAt(x, z, biomeWeight);
-			double cragNoise = this.getCragrockNoiseAt(x, z);
+			double islandNoise = this.getIslandNoiseAt(context, x, z, biomeWeight);
+			double cragNoise = this.getCragrockNoiseAt(context, x, z);
 			boolean isCrag = cragNoise <= 0;
 			int layerHeight = WorldProviderBetweenlands.LAYER_HEIGHT;
 			if(islandNoise <= 0 && chunkPrimer.getBlockState(x, layerHeight, z).getBlock() == chunkGenerator.layerBlock) {
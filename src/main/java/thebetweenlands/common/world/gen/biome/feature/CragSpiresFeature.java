@@ -11,6 +11,7 @@ import thebetweenlands.common.block.terrain.BlockCragrock;
 import thebetweenlands.common.block.terrain.BlockCragrock.EnumCragrockType;
 import thebetweenlands.common.registries.BlockRegistry;
 import thebetweenlands.common.world.WorldProviderBetweenlands;
+import thebetweenlands.common.world.gen.ChunkGenerationContext;
 import thebetweenlands.common.world.gen.ChunkGeneratorBetweenlands;
 import thebetweenlands.common.world.gen.biome.BiomeWeights;
 import thebetweenlands.common.world.gen.biome.generator.BiomeGenerator.EnumGeneratorPass;
@@ -24,7 +25,6 @@ public class CragSpiresFeature extends BiomeFeature {
 	private final IBlockState cragrockMossy2 = BlockRegistry.CRAGROCK.getDefaultState().withProperty(BlockCragrock.VARIANT, EnumCragrockType.MOSSY_2);
 
 	private NoiseGeneratorPerlin spireNoiseGen;
-	private double[] spireNoise = new double[256];
 
 	@Override
 	public void initializeGenerators(long seed, Biome biome) {
@@ -33,17 +33,18 @@ public class CragSpiresFeature extends BiomeFeature {
 	}
 
 	@Override
-	public void generateNoise(int chunkX, int chunkZ, Biome biome) {
-		this.spireNoise = this.spireNoiseGen.getRegion(this.spireNoise, (double) (chunkX * 16), (double) (chunkZ * 16), 16, 16, 0.08D * 2.0D, 0.08D * 2.0D, 1.0D);
+	public void generateNoise(ChunkGenerationContext context, int chunkX, int chunkZ, Biome biome) {
+		this.spireNoiseGen.getRegion(context.getNoiseBuffer(this, 0), (double) (chunkX * 16), (double) (chunkZ * 16), 16, 16, 0.08D * 2.0D, 0.08D * 2.0D, 1.0D);
 	}
 
 	@Override
-	public void replaceStackBlocks(int x, int z, double baseBlockNoise, ChunkPrimer chunkPrimer,
+	public void replaceStackBlocks(ChunkGenerationContext context, int x, int z, double baseBlockNoise, ChunkPrimer chunkPrimer,
 			ChunkGeneratorBetweenlands chunkGenerator, Biome[] biomesForGeneration, Biome biome, BiomeWeights biomeWeights,
 			EnumGeneratorPass pass) {
 		if(pass == EnumGeneratorPass.PRE_REPLACE_BIOME_BLOCKS) {
 			float biomeWeight = biomeWeights.get(x, z);
-			double noise = this.spireNoise[x * 16 + z] / 1.5f * biomeWeight + 2.4f;
+			double[] spireNoise = context.getNoiseBuffer(this, 0);
+			double noise = spireNoise[x * 16 + z] / 1.5f * biomeWeight + 2.4f;
 			int layerHeight = WorldProviderBetweenlands.LAYER_HEIGHT;
 			if(chunkPrimer.getBlockState(x, layerHeight, z).getBlock() != chunkGenerator.layerBlock) {
 				return;
@@ -83,7 +84,7 @@ public class CragSpiresFeature extends BiomeFeature {
 						int nz = z + zo;
 						nx = nx < 0 ? 0 : (nx > 15 ? 15 : nx);
 						nz = nz < 0 ? 0 : (nz > 15 ? 15 : nz);
-						double sNoise = this.spireNoise[nx * 16 + nz] * biomeWeight / 1.5f + 2.4f;
+						double sNoise = spireNoise[nx * 16 + nz] * biomeWeight / 1.5f + 2.4f;
 						if(-sNoise * 12 >= 1) {
 							validSpire = true;
 							break;
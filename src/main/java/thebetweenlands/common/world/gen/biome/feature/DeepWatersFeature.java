@@ -7,13 +7,13 @@ import net.minecraft.world.biome.Biome;
 import net.minecraft.world.chunk.ChunkPrimer;
 import net.minecraft.world.gen.NoiseGeneratorPerlin;
 import thebetweenlands.common.world.WorldProviderBetweenlands;
+import thebetweenlands.common.world.gen.ChunkGenerationContext;
 import thebetweenlands.common.world.gen.ChunkGeneratorBetweenlands;
 import thebetweenlands.common.world.gen.biome.BiomeWeights;
 import thebetweenlands.common.world.gen.biome.generator.BiomeGenerator.EnumGeneratorPass;
 
 public class DeepWatersFeature extends BiomeFeature {
 	private NoiseGeneratorPerlin islandNoiseGen;
-	private double[] terrainNoise = new double[256];
 
 	@Override
 	public void initializeGenerators(long seed, Biome biome) {
@@ -22,13 +22,13 @@ public class DeepWatersFeature extends BiomeFeature {
 	}
 
 	@Override
-	public void generateNoise(int chunkX, int chunkZ,
+	public void generateNoise(ChunkGenerationContext context, int chunkX, int chunkZ,
 			Biome biome) {
-		this.terrainNoise = this.islandNoiseGen.getRegion(this.terrainNoise, (double) (chunkX * 16), (double) (chunkZ * 16), 16, 16, 0.05D * 1.0D, 0.05D * 1.0D, 1.0D);
+		this.islandNoiseGen.getRegion(context.getNoiseBuffer(this, 0), (double) (chunkX * 16), (double) (chunkZ * 16), 16, 16, 0.05D * 1.0D, 0.05D * 1.0D, 1.0D);
 	}
 
 	@Override
-	public void replaceStackBlocks(int x, int z, double baseBlockNoise, ChunkPrimer chunkPrimer,
+	public void replaceStackBlocks(ChunkGenerationContext context, int x, int z, double baseBlockNoise, ChunkPrimer chunkPrimer,
 			ChunkGeneratorBetweenlands chunkGenerator, Biome[] biomesForGeneration, Biome biome, BiomeWeights biomeWeights,
 			EnumGeneratorPass pass) {
 		if(pass == EnumGeneratorPass.PRE_REPLACE_BIOME_BLOCKS) {
@@ -44,7 +44,7 @@ public class DeepWatersFeature extends BiomeFeature {
 					break;
 				}
 			}
-			double noise = this.terrainNoise[x * 16 + z] / 12.0f;
+			double noise = context.getNoiseBuffer(this, 0)[x * 16 + z] / 12.0f;
 			for(int y = lowestBlock; y < lerp(layerHeight - (layerHeight - lowestBlock) / 2.5f + noise * (layerHeight - lowestBlock) - 2, lowestBlock, biomeWeight); y++) {
 				chunkPrimer.setBlockState(x, y, z, chunkGenerator.baseBlockState);
 			}
@@ -7,6 +7,7 @@ import net.minecraft.init.Blocks;
 import net.minecraft.world.biome.Biome;
 import net.minecraft.world.chunk.ChunkPrimer;
 import net.minecraft.world.gen.NoiseGeneratorPerlin;
+import thebetweenlands.common.world.gen.ChunkGenerationContext;
 import thebetweenlands.common.world.gen.ChunkGeneratorBetweenlands;
 import thebetweenlands.common.world.gen.biome.BiomeWeights;
 import thebetweenlands.common.world.gen.biome.generator.BiomeGenerator.EnumGeneratorPass;
@@ -19,10 +20,8 @@ public class FlatLandFeature extends BiomeFeature {
 	private final int terrainOffset;
 
 	private NoiseGeneratorPerlin landNoiseGen;
-	private double[] landNoise = new double[256];
 
 	private NoiseGeneratorPerlin riverNoiseGen;
-	private double[] riverNoise = new double[256];
 
 	public FlatLandFeature(int waterHeight, int terrainOffset) {
 		this.waterHeight = waterHeight;
@@ -37,13 +36,13 @@ public class FlatLandFeature extends BiomeFeature {
 	}
 
 	@Override
-	public void generateNoise(int chunkX, int chunkZ, Biome biome) {
-		this.landNoise = this.landNoiseGen.getRegion(this.landNoise, (double) (chunkX * 16), (double) (chunkZ * 16), 16, 16, 0.06D, 0.06D, 1.0D);
-		this.riverNoise = this.riverNoiseGen.getRegion(this.riverNoise, (double) (chunkX * 16), (double) (chunkZ * 16), 16, 16, 0.032D, 0.032D, 1.0D);
+	public void generateNoise(ChunkGenerationContext context, int chunkX, int chunkZ, Biome biome) {
+		this.landNoiseGen.getRegion(context.getNoiseBuffer(this, 0), (double) (chunkX * 16), (double) (chunkZ * 16), 16, 16, 0.06D, 0.06D, 1.0D);
+		this.riverNoiseGen.getRegion(context.getNoiseBuffer(this, 1), (double) (chunkX * 16), (double) (chunkZ * 16), 16, 16, 0.032D, 0.032D, 1.0D);
 	}
 
 	@Override
-	public void replaceStackBlocks(int x, int z, double baseBlockNoise, ChunkPrimer chunkPrimer,
+	public void replaceStackBlocks(ChunkGenerationContext context, int x, int z, double baseBlockNoise, ChunkPrimer chunkPrimer,
 			ChunkGeneratorBetweenlands chunkGenerator, Biome[] biomesForGeneration, Biome biome, BiomeWeights biomeWeights,
 			EnumGeneratorPass pass) {
 		if(pass == EnumGeneratorPass.PRE_REPLACE_BIOME_BLOCKS) {
@@ -58,8 +57,8 @@ public class FlatLandFeature extends BiomeFeature {
 					break;
 				}
 			}
-			double noise = this.landNoise[x * 16 + z] / 18.0f;
-			double riverNoise = Math.abs(this.riverNoise[x * 16 + z]) * 4.0D;
+			double noise = context.getNoiseBuffer(this, 0)[x * 16 + z] / 18.0f;
+			double riverNoise = Math.abs(context.getNoiseBuffer(this, 1)[x * 16 + z]) * 4.0D;
 			riverNoise *= riverNoise * riverNoise * riverNoise * riverNoise;
 			riverNoise *= 25.0D;
 			int terrainHeight = (int)Math.ceil(Math.abs(noise * (this.waterHeight - lowestBlock + this.terrainOffset)));
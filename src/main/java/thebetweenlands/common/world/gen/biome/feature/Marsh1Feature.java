@@ -7,15 +7,14 @@ import net.minecraft.world.biome.Biome;
 import net.minecraft.world.chunk.ChunkPrimer;
 import net.minecraft.world.gen.NoiseGeneratorPerlin;
 import thebetweenlands.common.world.WorldProviderBetweenlands;
+import thebetweenlands.common.world.gen.ChunkGenerationContext;
 import thebetweenlands.common.world.gen.ChunkGeneratorBetweenlands;
 import thebetweenlands.common.world.gen.biome.BiomeWeights;
 import thebetweenlands.common.world.gen.biome.generator.BiomeGenerator.EnumGeneratorPass;
 
 public class Marsh1Feature extends BiomeFeature {
 	protected NoiseGeneratorPerlin islandNoiseGen;
-	protected double[] islandNoise = new double[256];
 	protected NoiseGeneratorPerlin fuzzNoiseGen;
-	protected double[] fuzzNoise = new double[256];
 
 	@Override
 	public void initializeGenerators(long seed, Biome biome) {
@@ -25,19 +24,19 @@ public class Marsh1Feature extends BiomeFeature {
 	}
 
 	@Override
-	public void generateNoise(int chunkX, int chunkZ, Biome biome) {
-		this.islandNoise = this.islandNoiseGen.getRegion(this.islandNoise, (double) (chunkX * 16), (double) (chunkZ * 16), 16, 16, 0.08D * 2.0D, 0.08D * 2.0D, 1.0D);
-		this.fuzzNoise = this.fuzzNoiseGen.getRegion(this.fuzzNoise, (double) (chunkX * 16), (double) (chunkZ * 16), 16, 16, 10.5D, 10.5D, 1.0D);
+	public void generateNoise(ChunkGenerationContext context, int chunkX, int chunkZ, Biome biome) {
+		this.islandNoiseGen.getRegion(context.getNoiseBuffer(this, 0), (double) (chunkX * 16), (double) (chunkZ * 16), 16, 16, 0.08D * 2.0D, 0.08D * 2.0D, 1.0D);
+		this.fuzzNoiseGen.getRegion(context.getNoiseBuffer(this, 1), (double) (chunkX * 16), (double) (chunkZ * 16), 16, 16, 10.5D, 10.5D, 1.0D);
 	}
 
 	@Override
-	public void replaceStackBlocks(int x, int z, double baseBlockNoise, ChunkPrimer chunkPrimer,
+	public void replaceStackBlocks(ChunkGenerationContext context, int x, int z, double baseBlockNoise, ChunkPrimer chunkPrimer,
 			ChunkGeneratorBetweenlands chunkGenerator, Biome[] biomesForGeneration, Biome biome, BiomeWeights biomeWeights,
 			EnumGeneratorPass pass) {
 		if(pass == EnumGeneratorPass.PRE_REPLACE_BIOME_BLOCKS) {
 			float biomeWeight = biomeWeights.get(x, z, 0, 5);
-			double noise = (this.islandNoise[x * 16 + z] / 1.4f +
-					this.fuzzNoise[x * 16 + z] / 1.4f) * Math.pow(biomeWeight, 4) + 1.8f;
+			double noise = (context.getNoiseBuffer(this, 0)[x * 16 + z] / 1.4f +
+					context.getNoiseBuffer(this, 1)[x * 16 + z] / 1.4f) * Math.pow(biomeWeight, 4) + 1.8f;
 			int layerHeight = WorldProviderBetweenlands.LAYER_HEIGHT;
 			if(noise <= 0 && chunkPrimer.getBlockState(x, layerHeight, z).getBlock() == chunkGenerator.layerBlock) {
 				int waterHeight = 2;
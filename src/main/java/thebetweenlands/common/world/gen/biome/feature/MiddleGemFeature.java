@@ -7,6 +7,7 @@ import net.minecraft.init.Blocks;
 import net.minecraft.world.biome.Biome;
 import net.minecraft.world.chunk.ChunkPrimer;
 import thebetweenlands.common.registries.BlockRegistry;
+import thebetweenlands.common.world.gen.ChunkGenerationContext;
 import thebetweenlands.common.world.gen.ChunkGeneratorBetweenlands;
 import thebetweenlands.common.world.gen.biome.BiomeWeights;
 import thebetweenlands.common.world.gen.biome.generator.BiomeGenerator.EnumGeneratorPass;
@@ -15,7 +16,6 @@ import thebetweenlands.common.world.gen.biome.generator.BiomeGenerator.EnumGener
  * Adds additional middle gems to the terrain
  */
 public class MiddleGemFeature extends BiomeFeature {
-	private Random rand = new Random();
 	private long seed;
 
 	@Override
@@ -24,20 +24,22 @@ public class MiddleGemFeature extends BiomeFeature {
 	}
 
 	@Override
-	public void generateNoise(int chunkX, int chunkZ, Biome biome) {
-		this.rand.setSeed(this.seed);
-		long seedX = this.rand.nextLong() / 2L * 2L + 1L;
-		long seedZ = this.rand.nextLong() / 2L * 2L + 1L;
-		this.rand.setSeed((long)chunkX * seedX + (long)chunkZ * seedZ ^ this.seed);
+	public void generateNoise(ChunkGenerationContext context, int chunkX, int chunkZ, Biome biome) {
+		Random rand = context.getRandom(this);
+		rand.setSeed(this.seed);
+		long seedX = rand.nextLong() / 2L * 2L + 1L;
+		long seedZ = rand.nextLong() / 2L * 2L + 1L;
+		rand.setSeed((long)chunkX * seedX + (long)chunkZ * seedZ ^ this.seed);
 	}
 
 	@Override
-	public void replaceStackBlocks(int x, int z, double baseBlockNoise, ChunkPrimer chunkPrimer,
+	public void replaceStackBlocks(ChunkGenerationContext context, int x, int z, double baseBlockNoise, ChunkPrimer chunkPrimer,
 			ChunkGeneratorBetweenlands chunkGenerator, Biome[] biomesForGeneration, Biome biome, BiomeWeights biomeWeights,
 			EnumGeneratorPass pass) {
 		if(pass == EnumGeneratorPass.POST_GEN_CAVES) {
 			float biomeWeight = biomeWeights.get(x, z);
-			if(biomeWeight >= 1.0F && this.rand.nextInt(180) == 0) {
+			Random rand = context.getRandom(this);
+			if(biomeWeight >= 1.0F && rand.nextInt(180) == 0) {
 				int y = 255;
 				for(;y > 1; y--) {
 					IBlockState state = chunkPrimer.getBlockState(x, y, z);
@@ -50,7 +52,7 @@ public class MiddleGemFeature extends BiomeFeature {
 				IBlockState blockStateAbove = chunkPrimer.getBlockState(x, y+1, z);
 				if(blockState.getBlock() == BlockRegistry.MUD && blockStateAbove.getBlock() == BlockRegistry.SWAMP_WATER) {
 					IBlockState gem;
-					switch(this.rand.nextInt(3)) {
+					switch(rand.nextInt(3)) {
 					default:
 					case 0:
 						gem = BlockRegistry.AQUA_MIDDLE_GEM_ORE.getDefaultState();
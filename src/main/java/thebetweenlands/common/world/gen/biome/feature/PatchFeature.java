@@ -9,6 +9,7 @@ import net.minecraft.world.biome.Biome;
 import net.minecraft.world.chunk.ChunkPrimer;
 import net.minecraft.world.gen.NoiseGeneratorPerlin;
 import thebetweenlands.common.world.WorldProviderBetweenlands;
+import thebetweenlands.common.world.gen.ChunkGenerationContext;
 import thebetweenlands.common.world.gen.ChunkGeneratorBetweenlands;
 import thebetweenlands.common.world.gen.biome.BiomeWeights;
 import thebetweenlands.common.world.gen.biome.generator.BiomeGenerator.EnumGeneratorPass;
@@ -18,7 +19,6 @@ import thebetweenlands.common.world.gen.biome.generator.BiomeGenerator.EnumGener
  */
 public class PatchFeature extends BiomeFeature {
 	private NoiseGeneratorPerlin mudNoiseGen;
-	private double[] mudNoise = new double[256];
 	private double scaleX, scaleY;
 	private double mult = 1.0D / 1.6D;
 	private double offset = 1.5D;
@@ -45,17 +45,17 @@ public class PatchFeature extends BiomeFeature {
 	}
 
 	@Override
-	public void generateNoise(int chunkX, int chunkZ, Biome biome) {
-		this.mudNoise = this.mudNoiseGen.getRegion(this.mudNoise, (double) (chunkX * 16), (double) (chunkZ * 16), 16, 16, this.scaleX, this.scaleY, 1.0D);
+	public void generateNoise(ChunkGenerationContext context, int chunkX, int chunkZ, Biome biome) {
+		this.mudNoiseGen.getRegion(context.getNoiseBuffer(this, 0), (double) (chunkX * 16), (double) (chunkZ * 16), 16, 16, this.scaleX, this.scaleY, 1.0D);
 	}
 
 	@Override
-	public void replaceStackBlocks(int x, int z, double baseBlockNoise,
+	public void replaceStackBlocks(ChunkGenerationContext context, int x, int z, double baseBlockNoise,
 			ChunkPrimer chunkPrimer, ChunkGeneratorBetweenlands chunkGenerator, Biome[] biomesForGeneration,
 			Biome biome, BiomeWeights biomeWeights, EnumGeneratorPass pass) {
 		if(pass == EnumGeneratorPass.POST_GEN_CAVES) {
 			float biomeWeight = biomeWeights.get(x, z);
-			if(this.mudNoise[x * 16 + z] * this.mult * biomeWeight + this.offset <= 0) {
+			if(context.getNoiseBuffer(this, 0)[x * 16 + z] * this.mult * biomeWeight + this.offset <= 0) {
 				int y = WorldProviderBetweenlands.LAYER_HEIGHT + 20;
 				for(int yo = 0; yo < WorldProviderBetweenlands.LAYER_HEIGHT + 20; yo++) {
 					Block currentBlock = chunkPrimer.getBlockState(x, y - yo, z).getBlock();
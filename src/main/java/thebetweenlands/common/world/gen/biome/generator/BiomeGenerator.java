@@ -9,10 +9,10 @@ import net.minecraft.block.material.Material;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.world.biome.Biome;
 import net.minecraft.world.chunk.ChunkPrimer;
-import net.minecraft.world.gen.IChunkGenerator;
 import net.minecraft.world.gen.NoiseGeneratorPerlin;
 import thebetweenlands.common.registries.BlockRegistry;
 import thebetweenlands.common.world.WorldProviderBetweenlands;
+import thebetweenlands.common.world.gen.ChunkGenerationContext;
 import thebetweenlands.common.world.gen.ChunkGeneratorBetweenlands;
 import thebetweenlands.common.world.gen.biome.BiomeWeights;
 import thebetweenlands.common.world.gen.biome.decorator.BiomeDecoratorBetweenlands;
@@ -31,15 +31,10 @@ public class BiomeGenerator {
 
 	protected boolean hasBaseBlockPatches = true;
 	private NoiseGeneratorPerlin baseBlockLayerVariationNoiseGen;
-	protected double[] baseBlockLayerVariationNoise = new double[256];
 
 	private final List<BiomeFeature> biomeFeatures = new ArrayList<BiomeFeature>();
 
-	protected IChunkGenerator chunkGenerator;
-	protected Biome[] biomesForGeneration;
-
-	protected boolean noiseGeneratorsInitialized = false;
-	protected boolean noiseGenerated = false;
+	protected volatile boolean noiseGeneratorsInitialized = false;
 
 	protected BiomeDecoratorBetweenlands decorator;
 
@@ -169,31 +164,36 @@ public class BiomeGenerator {
 	}
 
 	/**
-	 * Initializes additional noise generators if necessary
+	 * Initializes additional noise generators if necessary.
+	 * Safe to be called from multiple generation threads
 	 * @param seed Seeded Random
 	 */
 	public void initializeGenerators(long seed) {
 		if(!this.noiseGeneratorsInitialized) {
-			this.baseBlockLayerVariationNoiseGen = new NoiseGeneratorPerlin(new Random(seed), 4);
-			for(BiomeFeature feature : this.biomeFeatures) {
-				feature.initializeGenerators(seed, this.biome);
+			synchronized(this) {
+				if(!this.noiseGeneratorsInitialized) {
+					this.baseBlockLayerVariationNoiseGen = new NoiseGeneratorPerlin(new Random(seed), 4);
+					for(BiomeFeature feature : this.biomeFeatures) {
+						feature.initializeGenerators(seed, this.biome);
+					}
+					this.noiseGeneratorsInitialized = true;
+				}
 			}
-			this.noiseGeneratorsInitialized = true;
 		}
 	}
 
 	/**
-	 * Generates the noise fields if necessary
+	 * Generates the noise fields of the context if they haven't been generated yet for the current chunk
+	 * @param context
 	 * @param chunkX
 	 * @param chunkZ
 	 */
-	public void generateNoise(int chunkX, int chunkZ) {
-		if(!this.noiseGenerated) {
-			this.baseBlockLayerVariationNoise = this.baseBlockLayerVariationNoiseGen.getRegion(this.baseBlockLayerVariationNoise, (double) (chunkX * 16), (double) (chunkZ * 16), 16, 16, 0.08D * 2.0D, 0.08D * 2.0D, 1.0D);
+	public void generateNoise(ChunkGenerationContext context, int chunkX, int chunkZ) {
+		if(context.markNoiseGenerated(this)) {
+			this.baseBlockLayerVariationNoiseGen.getRegion(context.getNoiseBuffer(this, 0), (double) (chunkX * 16), (double) (chunkZ * 16), 16, 16, 0.08D * 2.0D, 0.08D * 2.0D, 1.0D);
 			for(BiomeFeature feature : this.biomeFeatures) {
-				feature.generateNoise(chunkX, chunkZ, this.biome);
+				feature.generateNoise(context, chunkX, chunkZ, this.biome);
 			}
-			this.noiseGenerated = true;
 		}
 	}
 
@@ -204,13 +204,6 @@ public class BiomeGenerator {
 		this.noiseGeneratorsInitialized = false;
 	}
 
-	/**
-	 * Resets and regenerates the noise at the next {@link BiomeGenerator#generateNoise(int, int)} call
-	 */
-	public void resetNoise() {
-		this.noiseGenerated = false;
-	}
-
 	public static enum EnumGeneratorPass {
 		PRE_REPLACE_BIOME_BLOCKS,
 		POST_REPLACE_BIOME_BLOCKS,
@@ -219,6 +212,7 @@ public class BiomeGenerator {
 
 	/**
 	 * Modifies the terrain with {@link BiomeFeature} specific features.
+	 * @param context
 	 * @param blockX
 	 * @param blockZ
 	 * @param inChunkX
@@ -230,17 +224,18 @@ public class BiomeGenerator {
 	 * @param biomeWeights
 	 * @param pass
 	 */
-	public final void runBiomeFeatures(int blockX, int blockZ, int inChunkX, int inChunkZ, 
+	public final void runBiomeFeatures(ChunkGenerationContext context, int blockX, int blockZ, int inChunkX, int inChunkZ, 
 			double baseBlockNoise, ChunkPrimer chunkPrimer, 
 			ChunkGeneratorBetweenlands chunkGenerator, Biome[] biomesForGeneration,
 			BiomeWeights biomeWeights, EnumGeneratorPass pass) {
 		for(BiomeFeature feature : this.biomeFeatures) {
-			feature.replaceStackBlocks(inChunkX, inChunkZ, baseBlockNoise, chunkPrimer, chunkGenerator, biomesForGeneration, this.biome, biomeWeights, pass);
+			feature.replaceStackBlocks(context, inChunkX, inChunkZ, baseBlockNoise, chunkPrimer, chunkGenerator, biomesForGeneration, this.biome, biomeWeights, pass);
 		}
 	}
 
 	/**
 	 * Modifies the terrain with biome specific features.
+	 * @param context
 	 * @param blockX
 	 * @param blockZ
 	 * @param inChunkX
@@ -253,15 +248,12 @@ public class BiomeGenerator {
 	 * @param biomesForGeneration
 	 * @param biomeWeights
 	 */
-	public final void replaceBiomeBlocks(
+	public final void replaceBiomeBlocks(ChunkGenerationContext context,
 			int blockX, int blockZ, int inChunkX, int inChunkZ, 
 			double baseBlockNoise, Random rng, long seed, ChunkPrimer chunkPrimer, 
 			ChunkGeneratorBetweenlands chunkGenerator, Biome[] biomesForGeneration,
 			BiomeWeights biomeWeights) {
-		this.chunkGenerator = chunkGenerator;
-		this.biomesForGeneration = biomesForGeneration;
-
-		if(!this.replaceStackBlocks(blockX, blockZ, inChunkX, inChunkZ, baseBlockNoise, chunkPrimer, chunkGenerator, biomesForGeneration, biomeWeights, EnumGeneratorPass.PRE_REPLACE_BIOME_BLOCKS)) {
+		if(!this.replaceStackBlocks(context, blockX, blockZ, inChunkX, inChunkZ, baseBlockNoise, chunkPrimer, chunkGenerator, biomesForGeneration, biomeWeights, EnumGeneratorPass.PRE_REPLACE_BIOME_BLOCKS)) {
 			return;
 		}
 
@@ -270,6 +262,8 @@ public class BiomeGenerator {
 		//Random number for base block patch generation based on the base block noise
 		int baseBlockNoiseRN = (int) (baseBlockNoise / 3.0D + 3.0D + fastRng.nextDouble() * 0.25D);
 
+		double[] baseBlockLayerVariationNoise = context.getNoiseBuffer(this, 0);
+
 		//Amount of blocks below the surface
 		int blocksBelow = -1;
 		//Amount of blocks below the first block under the layer
@@ -298,7 +292,7 @@ public class BiomeGenerator {
 				continue;
 			}
 
-			int baseBlockVariationLayer = (int) (Math.abs(this.baseBlockLayerVariationNoise[inChunkX * 16 + inChunkZ] * 0.7F));
+			int baseBlockVariationLayer = (int) (Math.abs(baseBlockLayerVariationNoise[inChunkX * 16 + inChunkZ] * 0.7F));
 			int layerBlockY = y - baseBlockVariationLayer;
 			if(layerBlockY < 0) {
 				layerBlockY = 0;
@@ -335,7 +329,7 @@ public class BiomeGenerator {
 			}
 		}
 
-		this.replaceStackBlocks(blockX, blockZ, inChunkX, inChunkZ, baseBlockNoise, chunkPrimer, chunkGenerator, biomesForGeneration, biomeWeights, EnumGeneratorPass.POST_REPLACE_BIOME_BLOCKS);
+		this.replaceStackBlocks(context, blockX, blockZ, inChunkX, inChunkZ, baseBlockNoise, chunkPrimer, chunkGenerator, biomesForGeneration, biomeWeights, EnumGeneratorPass.POST_REPLACE_BIOME_BLOCKS);
 	}
 
 	/**
@@ -349,6 +343,7 @@ public class BiomeGenerator {
 	/**
 	 * Modifies the terrain at the specified block stack.
 	 * <p><b>Note:</b> Do not generate outside of the specified block stack!
+	 * @param context
 	 * @param blockX
 	 * @param blockZ
 	 * @param inChunkX
@@ -361,7 +356,7 @@ public class BiomeGenerator {
 	 * @param pass
 	 * @return
 	 */
-	protected boolean replaceStackBlocks(int blockX, int blockZ, int inChunkX, int inChunkZ, 
+	protected boolean replaceStackBlocks(ChunkGenerationContext context, int blockX, int blockZ, int inChunkX, int inChunkZ, 
 			double baseBlockNoise, ChunkPrimer chunkPrimer, 
 			ChunkGeneratorBetweenlands chunkGenerator, Biome[] biomesForGeneration, BiomeWeights biomeWeights, EnumGeneratorPass pass) {
 		return true;
@@ -57,6 +57,8 @@ public class MapGenCavesBetweenlands extends MapGenBase {
 
 	private BiomeWeights biomeWeights;
 
+	private Biome[] biomes;
+
 	private double[] noiseField = new double[9 * 9 * 129];
 	private double[] seaBreakNoiseField = new double[16 * 16];
 
@@ -79,6 +81,15 @@ public class MapGenCavesBetweenlands extends MapGenBase {
 		this.biomeWeights = biomeWeights;
 	}
 
+	/**
+	 * Sets the 16x16 biomes of the chunk that is generated next. Avoids
+	 * querying the world's biome provider, which is not thread safe
+	 * @param biomes
+	 */
+	public void setBiomes(Biome[] biomes) {
+		this.biomes = biomes;
+	}
+
 	@Override
 	public void generate(World world, int chunkX, int chunkZ, ChunkPrimer primer) {
 		int cx = chunkX * CHUNK_SIZE;
@@ -157,7 +168,7 @@ public class MapGenCavesBetweenlands extends MapGenBase {
 
 							int bz = z * 2 + zo;
 
-							Biome biome = world.getBiome(pos.setPos(cx + bx, 0, cz + bz));
+							Biome biome = this.biomes != null ? this.biomes[bx + bz * 16] : world.getBiome(pos.setPos(cx + bx, 0, cz + bz));
 
 							// Only break in correct biomes and don't generate in biome transitions
 							double shouldntBreak = noBreakBiomes.contains(biome) ? SHOULDNT_BREAK : (1 - this.biomeWeights.get(bx, bz)) * SHOULDNT_BREAK;
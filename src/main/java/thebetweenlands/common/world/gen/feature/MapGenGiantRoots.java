@@ -10,6 +10,7 @@ import javax.annotation.Nullable;
 import net.minecraft.util.math.AxisAlignedBB;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
+import net.minecraft.world.biome.BiomeProvider;
 import net.minecraft.world.chunk.ChunkPrimer;
 import net.minecraft.world.gen.MapGenBase;
 import thebetweenlands.common.registries.BiomeRegistry;
@@ -22,11 +23,22 @@ public class MapGenGiantRoots extends MapGenBase {
 
 	protected List<WorldGenGiantRoot> giantRootGens = new ArrayList<>();
 
+	protected BiomeProvider biomeProvider;
+
 	public MapGenGiantRoots(long worldSeed) {
 		this.range = 5;
 		this.coarseIslandsFeature.initializeGenerators(worldSeed, BiomeRegistry.COARSE_ISLANDS);
 	}
 
+	/**
+	 * Sets the biome provider used to find root start positions. If not set the
+	 * world's biome provider is used, which must only be accessed from the main thread
+	 * @param biomeProvider
+	 */
+	public void setBiomeProvider(@Nullable BiomeProvider biomeProvider) {
+		this.biomeProvider = biomeProvider;
+	}
+
 	@Override
 	public void generate(World worldIn, int x, int z, ChunkPrimer primer) {
 		this.giantRootGens.clear();
@@ -50,11 +62,13 @@ public class MapGenGiantRoots extends MapGenBase {
 
 		List<BlockPos> startCandidates = new ArrayList<>();
 
+		BiomeProvider biomeProvider = this.biomeProvider != null ? this.biomeProvider : worldIn.getBiomeProvider();
+
 		int inChunkX = 0;
 		int inChunkZ = 0;
 		for(int xs = 0; xs < subDivs; xs++) {
 			for(int zs = 0; zs < subDivs; zs++) {
-				if(worldIn.getBiomeProvider().getBiome(new BlockPos(chunkX * 16 + inChunkX, 64, chunkZ * 16 + inChunkZ)) == BiomeRegistry.COARSE_ISLANDS && this.rand.nextInt(28) == 0 /*&& this.coarseIslandsFeature.isIslandAt(inChunkX, inChunkZ, 1) && !this.coarseIslandsFeature.isIslandCragrockAt(inChunkX, inChunkZ)*/) {
+				if(biomeProvider.getBiome(new BlockPos(chunkX * 16 + inChunkX, 64, chunkZ * 16 + inChunkZ)) == BiomeRegistry.COARSE_ISLANDS && this.rand.nextInt(28) == 0 /*&& this.coarseIslandsFeature.isIslandAt(inChunkX, inChunkZ, 1) && !this.coarseIslandsFeature.isIslandCragrockAt(inChunkX, inChunkZ)*/) {
 					BlockPos candidate = new BlockPos(chunkX * 16 + inChunkX, WorldProviderBetweenlands.LAYER_HEIGHT - 6, chunkZ * 16 + inChunkZ);
 					startCandidates.add(candidate);
 				}
@@ -13,6 +13,17 @@ import thebetweenlands.common.world.WorldProviderBetweenlands;
 public class MapGenRavineBetweenlands extends MapGenRavine {
 	protected static final IBlockState SWAMP_WATER = BlockRegistry.SWAMP_WATER.getDefaultState();
 
+	private Biome[] biomes;
+
+	/**
+	 * Sets the 16x16 biomes of the chunk that is generated next. Avoids
+	 * querying the world's biome provider, which is not thread safe
+	 * @param biomes
+	 */
+	public void setBiomes(Biome[] biomes) {
+		this.biomes = biomes;
+	}
+
 	@Override
 	protected void recursiveGenerate(World worldIn, int chunkX, int chunkZ, int p_180701_4_, int p_180701_5_, ChunkPrimer chunkPrimerIn) {
 		if (this.rand.nextInt(60) == 0) {
@@ -40,7 +51,7 @@ public class MapGenRavineBetweenlands extends MapGenRavine {
 
 	@Override
 	protected void digBlock(ChunkPrimer data, int x, int y, int z, int chunkX, int chunkZ, boolean foundTop) {
-		Biome biome = world.getBiome(new BlockPos(x + chunkX * 16, 0, z + chunkZ * 16));
+		Biome biome = this.biomes != null ? this.biomes[x + z * 16] : world.getBiome(new BlockPos(x + chunkX * 16, 0, z + chunkZ * 16));
 		IBlockState state = data.getBlockState(x, y, z);
 		IBlockState top = biome.topBlock;
 		IBlockState filler = biome.fillerBlock;
@@ -3,6 +3,26 @@ package thebetweenlands.common.world.gen.layer;
 import net.minecraft.world.gen.layer.GenLayer;
 
 public class GenLayerResetCache extends GenLayerBetweenlands {
+	/**
+	 * Number of results that are cached per thread, must be a power of two
+	 */
+	private static final int RESULT_CACHE_SIZE = 64;
+
+	/**
+	 * Larger areas are not cached
+	 */
+	private static final int MAX_CACHED_AREA = 64 * 64;
+
+	/**
+	 * Direct mapped cache of the most recent results, keyed by the requested area
+	 */
+	private static class ResultCache {
+		private final int[] keys = new int[RESULT_CACHE_SIZE * 4];
+		private final int[][] results = new int[RESULT_CACHE_SIZE][];
+	}
+
+	private final ThreadLocal<ResultCache> resultCache = ThreadLocal.withInitial(ResultCache::new);
+
 	public GenLayerResetCache(InstancedIntCache cache, GenLayer parent) {
 		super(cache, 0L);
 		this.parent = parent;
@@ -11,6 +31,37 @@ public class GenLayerResetCache extends GenLayerBetweenlands {
 	@Override
 	public int[] getInts(int areaX, int areaY, int areaWidth, int areaHeight) {
 		this.cache.resetIntCache();
-		return this.parent.getInts(areaX, areaY, areaWidth, areaHeight);
+
+		int size = areaWidth * areaHeight;
+		if(size > MAX_CACHED_AREA) {
+			return this.parent.getInts(areaX, areaY, areaWidth, areaHeight);
+		}
+
+		ResultCache resultCache = this.resultCache.get();
+
+		int hash = ((areaX * 31 + areaY) * 31 + areaWidth) * 31 + areaHeight;
+		hash ^= hash >>> 16;
+		int slot = hash & (RESULT_CACHE_SIZE - 1);
+		int keyIndex = slot * 4;
+
+		int[] cached = resultCache.results[slot];
+		if(cached != null && resultCache.keys[keyIndex] == areaX && resultCache.keys[keyIndex + 1] == areaY && resultCache.keys[keyIndex + 2] == areaWidth && resultCache.keys[keyIndex + 3] == areaHeight) {
+			int[] ints = this.cache.getIntCache(size);
+			System.arraycopy(cached, 0, ints, 0, size);
+			return ints;
+		}
+
+		int[] ints = this.parent.getInts(areaX, areaY, areaWidth, areaHeight);
+
+		if(cached == null || cached.length < size) {
+			cached = resultCache.results[slot] = new int[size];
+		}
+		System.arraycopy(ints, 0, cached, 0, size);
+		resultCache.keys[keyIndex] = areaX;
+		resultCache.keys[keyIndex + 1] = areaY;
+		resultCache.keys[keyIndex + 2] = areaWidth;
+		resultCache.keys[keyIndex + 3] = areaHeight;
+
+		return ints;
 	}
 }
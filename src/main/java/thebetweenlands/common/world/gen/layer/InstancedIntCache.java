@@ -1,57 +1,70 @@
 package thebetweenlands.common.world.gen.layer;
 
-import java.util.List;
-
-import com.google.common.collect.Lists;
+import java.util.Arrays;
 
+/**
+ * Int array arena for a {@link GenLayerBetweenlands} stack. Arrays are pooled per thread in
+ * power of two size classes, so requesting an array never locks and arrays are never discarded when
+ * larger arrays are requested. All arrays handed out by a thread become free again once that thread calls {@link #resetIntCache()}.
+ */
 public class InstancedIntCache {
-	private int intCacheSize = 256;
-	private final List<int[]> freeSmallArrays = Lists.<int[]>newArrayList();
-	private final List<int[]> inUseSmallArrays = Lists.<int[]>newArrayList();
-	private final List<int[]> freeLargeArrays = Lists.<int[]>newArrayList();
-	private final List<int[]> inUseLargeArrays = Lists.<int[]>newArrayList();
-
-	public synchronized int[] getIntCache(int size) {
-		if (size <= 256) {
-			if (freeSmallArrays.isEmpty()) {
-				int[] aint4 = new int[256];
-				inUseSmallArrays.add(aint4);
-				return aint4;
-			} else {
-				int[] aint3 = freeSmallArrays.remove(freeSmallArrays.size() - 1);
-				inUseSmallArrays.add(aint3);
-				return aint3;
+	private static final int MIN_SIZE_CLASS = 8; //256
+
+	private static class Arena {
+		private int[][][] pools = new int[0][][];
+		private int[] used = new int[0];
+		private int maxUsedClass = -1;
+
+		private int[] get(int size) {
+			int sizeClass = Math.max(MIN_SIZE_CLASS, 32 - Integer.numberOfLeadingZeros(Math.max(size, 1) - 1)) - MIN_SIZE_CLASS;
+
+			if(sizeClass >= this.pools.length) {
+				this.pools = Arrays.copyOf(this.pools, sizeClass + 1);
+				this.used = Arrays.copyOf(this.used, sizeClass + 1);
+			}
+
+			int[][] pool = this.pools[sizeClass];
+			int index = this.used[sizeClass]++;
+
+			if(pool == null || index >= pool.length) {
+				pool = this.pools[sizeClass] = pool == null ? new int[4][] : Arrays.copyOf(pool, pool.length * 2);
 			}
-		} else if (size > intCacheSize) {
-			intCacheSize = size;
-			freeLargeArrays.clear();
-			inUseLargeArrays.clear();
-			int[] aint2 = new int[intCacheSize];
-			inUseLargeArrays.add(aint2);
-			return aint2;
-		} else if (freeLargeArrays.isEmpty()) {
-			int[] aint1 = new int[intCacheSize];
-			inUseLargeArrays.add(aint1);
-			return aint1;
-		} else {
-			int[] aint = freeLargeArrays.remove(freeLargeArrays.size() - 1);
-			inUseLargeArrays.add(aint);
-			return aint;
-		}
-	}
 
-	public synchronized void resetIntCache() {
-		if (!freeLargeArrays.isEmpty()) {
-			freeLargeArrays.remove(freeLargeArrays.size() - 1);
+			int[] array = pool[index];
+			if(array == null) {
+				array = pool[index] = new int[1 << (sizeClass + MIN_SIZE_CLASS)];
+			}
+
+			if(sizeClass > this.maxUsedClass) {
+				this.maxUsedClass = sizeClass;
+			}
+
+			return array;
 		}
 
-		if (!freeSmallArrays.isEmpty()) {
-			freeSmallArrays.remove(freeSmallArrays.size() - 1);
+		private void reset() {
+			for(int i = 0; i <= this.maxUsedClass; i++) {
+				this.used[i] = 0;
+			}
+			this.maxUsedClass = -1;
 		}
+	}
+
+	private final ThreadLocal<Arena> arena = ThreadLocal.withInitial(Arena::new);
+
+	/**
+	 * Returns an int array with at least the specified size. The contents of the array are undefined
+	 * @param size
+	 * @return
+	 */
+	public int[] getIntCache(int size) {
+		return this.arena.get().get(size);
+	}
 
-		freeLargeArrays.addAll(inUseLargeArrays);
-		freeSmallArrays.addAll(inUseSmallArrays);
-		inUseLargeArrays.clear();
-		inUseSmallArrays.clear();
+	/**
+	 * Frees all arrays that were handed out to the current thread
+	 */
+	public void resetIntCache() {
+		this.arena.get().reset();
 	}
-}
\ No newline at end of file
+}
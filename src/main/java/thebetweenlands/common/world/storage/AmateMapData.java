@@ -24,15 +24,38 @@ import thebetweenlands.common.world.storage.location.LocationStorage;
 import thebetweenlands.util.MathUtils;
 
 import java.util.Objects;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nullable;
 
 public class AmateMapData extends MapData {
 	public final Int2ObjectMap<BLMapDecoration> decorations = new Int2ObjectOpenHashMap<>();
 	private final IntSet occupiedSpots = new IntOpenHashSet();
+
+	@Nullable
+	private Future<AmateMapTileRenderer.Tile> pendingTile;
 	
     public AmateMapData(String mapname) {
         super(mapname);
     }
 
+    /**
+     * Returns the biome colour tile that is currently being rendered off-thread for this map, if any
+     * @return
+     */
+    @Nullable
+    public Future<AmateMapTileRenderer.Tile> getPendingTile() {
+        return this.pendingTile;
+    }
+
+    /**
+     * Sets the biome colour tile that is currently being rendered off-thread for this map
+     * @param pendingTile
+     */
+    public void setPendingTile(@Nullable Future<AmateMapTileRenderer.Tile> pendingTile) {
+        this.pendingTile = pendingTile;
+    }
+
     public void addDecoration(BLMapDecoration deco) {
     	int x = deco.getX();
         int y = deco.getY();
@@ -0,0 +1,221 @@
+package thebetweenlands.common.world.storage;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.biome.BiomeProvider;
+import net.minecraft.world.storage.MapData;
+import thebetweenlands.common.world.gen.biome.BiomeTileCache;
+
+/**
+ * Renders the biome colours of the area around an amate map viewer into a tile of map pixels.
+ * Tiles can be rendered off-thread from the cached biome tiles of the Betweenlands biome provider,
+ * finished tiles are then merged into the map data on the main thread
+ */
+public class AmateMapTileRenderer {
+	private static final ExecutorService RENDERER = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "Betweenlands Amate Map Renderer");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private static final byte EDGE_PIXEL = (byte) (29 * 4);
+
+	public static interface BiomeSampler {
+		/**
+		 * Returns the biome ID at the specified position in generation coordinates, or -1 if it is unknown
+		 * @param x
+		 * @param z
+		 * @return
+		 */
+		public int getBiomeId(int x, int z);
+	}
+
+	/**
+	 * Rendered map pixels of a rectangular area of the map. Pixels that were not rendered are 0
+	 */
+	public static class Tile {
+		private final int minPixelX, minPixelZ, width, depth;
+		private final byte[] pixels;
+
+		private Tile(int minPixelX, int minPixelZ, int width, int depth) {
+			this.minPixelX = minPixelX;
+			this.minPixelZ = minPixelZ;
+			this.width = width;
+			this.depth = depth;
+			this.pixels = new byte[width * depth];
+		}
+
+		/**
+		 * Merges the rendered pixels into the map data and marks the changed pixels dirty.
+		 * Must be called on the main thread
+		 * @param data
+		 * @return The number of changed pixels
+		 */
+		public int merge(MapData data) {
+			int changed = 0;
+			for(int z = 0; z < this.depth; z++) {
+				for(int x = 0; x < this.width; x++) {
+					byte pixel = this.pixels[x + z * this.width];
+					if(pixel != 0) {
+						int xPixel = this.minPixelX + x;
+						int zPixel = this.minPixelZ + z;
+						if(data.colors[xPixel + zPixel * 128] != pixel) {
+							data.colors[xPixel + zPixel * 128] = pixel;
+							data.updateMapData(xPixel, zPixel);
+							changed++;
+						}
+					}
+				}
+			}
+			return changed;
+		}
+	}
+
+	private final byte[] biomePixels;
+	private final int viewerBlockX, viewerBlockZ;
+	private final int viewerPixelX, viewerPixelZ;
+	private final int viewRadiusPixels;
+	private final int blocksPerPixel;
+
+	private final int minPixelX, minPixelZ, maxPixelX, maxPixelZ;
+	private final int sampleMinX, sampleMinZ, sampleMaxX, sampleMaxZ;
+
+	/**
+	 * @param biomePixels Map pixel per biome ID, 0 for biomes that shouldn't be rendered. Must not be modified afterwards
+	 * @param viewerBlockX
+	 * @param viewerBlockZ
+	 * @param viewerPixelX
+	 * @param viewerPixelZ
+	 * @param viewRadiusPixels
+	 * @param blocksPerPixel
+	 */
+	public AmateMapTileRenderer(byte[] biomePixels, int viewerBlockX, int viewerBlockZ, int viewerPixelX, int viewerPixelZ, int viewRadiusPixels, int blocksPerPixel) {
+		this.biomePixels = biomePixels;
+		this.viewerBlockX = viewerBlockX;
+		this.viewerBlockZ = viewerBlockZ;
+		this.viewerPixelX = viewerPixelX;
+		this.viewerPixelZ = viewerPixelZ;
+		this.viewRadiusPixels = viewRadiusPixels;
+		this.blocksPerPixel = blocksPerPixel;
+
+		this.minPixelX = Math.max(0, viewerPixelX - viewRadiusPixels + 1);
+		this.maxPixelX = Math.min(127, viewerPixelX + viewRadiusPixels - 1);
+		this.minPixelZ = Math.max(0, viewerPixelZ - viewRadiusPixels - 1);
+		this.maxPixelZ = Math.min(127, viewerPixelZ + viewRadiusPixels - 1);
+
+		int step = blocksPerPixel / 4;
+		this.sampleMinX = this.getSampleX(this.minPixelX) - step;
+		this.sampleMaxX = this.getSampleX(this.maxPixelX);
+		this.sampleMinZ = this.getSampleZ(this.minPixelZ) - step;
+		this.sampleMaxZ = this.getSampleZ(this.maxPixelZ);
+	}
+
+	private int getSampleX(int xPixel) {
+		return (this.viewerBlockX + (xPixel - this.viewerPixelX) * this.blocksPerPixel) / 4;
+	}
+
+	private int getSampleZ(int zPixel) {
+		return (this.viewerBlockZ - (this.viewRadiusPixels - 1) * this.blocksPerPixel) / 4 + (zPixel - this.viewerPixelZ + this.viewRadiusPixels + 1) * this.blocksPerPixel / 4;
+	}
+
+	/**
+	 * Renders the tile on the calling thread, sampling the biomes directly from the biome provider
+	 * @param biomeProvider
+	 * @return
+	 */
+	public Tile render(BiomeProvider biomeProvider) {
+		if(this.minPixelX > this.maxPixelX || this.minPixelZ > this.maxPixelZ) {
+			return new Tile(0, 0, 0, 0);
+		}
+
+		int width = this.sampleMaxX - this.sampleMinX + 1;
+		Biome[] biomes = biomeProvider.getBiomesForGeneration(null, this.sampleMinX, this.sampleMinZ, width, this.sampleMaxZ - this.sampleMinZ + 1);
+
+		return this.render((x, z) -> Biome.getIdForBiome(biomes[(x - this.sampleMinX) + (z - this.sampleMinZ) * width]));
+	}
+
+	/**
+	 * Renders the tile off-thread from the specified biome tile cache. The required biome tiles are generated
+	 * on the calling thread if necessary, the renderer thread only reads cached tiles
+	 * @param generationBiomeTiles Biome tile cache in generation coordinates
+	 * @return
+	 */
+	public Future<Tile> renderAsync(BiomeTileCache generationBiomeTiles) {
+		int minTileX = this.sampleMinX >> BiomeTileCache.TILE_SIZE_BITS;
+		int minTileZ = this.sampleMinZ >> BiomeTileCache.TILE_SIZE_BITS;
+		int tilesX = (this.sampleMaxX >> BiomeTileCache.TILE_SIZE_BITS) - minTileX + 1;
+		int tilesZ = (this.sampleMaxZ >> BiomeTileCache.TILE_SIZE_BITS) - minTileZ + 1;
+
+		for(int tileZ = 0; tileZ < tilesZ; tileZ++) {
+			for(int tileX = 0; tileX < tilesX; tileX++) {
+				generationBiomeTiles.getTile(minTileX + tileX, minTileZ + tileZ);
+			}
+		}
+
+		return RENDERER.submit(() -> {
+			byte[][] tiles = new byte[tilesX * tilesZ][];
+			for(int tileZ = 0; tileZ < tilesZ; tileZ++) {
+				for(int tileX = 0; tileX < tilesX; tileX++) {
+					//May have been evicted in the meantime, those pixels are skipped until the next render
+					tiles[tileX + tileZ * tilesX] = generationBiomeTiles.getCachedTile(minTileX + tileX, minTileZ + tileZ);
+				}
+			}
+
+			return this.render((x, z) -> {
+				byte[] tile = tiles[((x >> BiomeTileCache.TILE_SIZE_BITS) - minTileX) + ((z >> BiomeTileCache.TILE_SIZE_BITS) - minTileZ) * tilesX];
+				return tile != null ? tile[(x & BiomeTileCache.TILE_MASK) + (z & BiomeTileCache.TILE_MASK) * BiomeTileCache.TILE_SIZE] & 0xFF : -1;
+			});
+		});
+	}
+
+	private Tile render(BiomeSampler sampler) {
+		if(this.minPixelX > this.maxPixelX || this.minPixelZ > this.maxPixelZ) {
+			return new Tile(0, 0, 0, 0);
+		}
+
+		Tile tile = new Tile(this.minPixelX, this.minPixelZ, this.maxPixelX - this.minPixelX + 1, this.maxPixelZ - this.minPixelZ + 1);
+
+		int step = this.blocksPerPixel / 4;
+		int radiusSq = this.viewRadiusPixels * this.viewRadiusPixels;
+		int fuzzRadiusSq = (this.viewRadiusPixels - 2) * (this.viewRadiusPixels - 2);
+
+		for(int zPixel = this.minPixelZ; zPixel <= this.maxPixelZ; zPixel++) {
+			int zPixelDist = zPixel - this.viewerPixelZ;
+			int sampleZ = this.getSampleZ(zPixel);
+			boolean hasUpperNeighbour = zPixelDist + this.viewRadiusPixels + 1 >= 1;
+
+			for(int xPixel = this.minPixelX; xPixel <= this.maxPixelX; xPixel++) {
+				int xPixelDist = xPixel - this.viewerPixelX;
+				int distSq = xPixelDist * xPixelDist + zPixelDist * zPixelDist;
+
+				if(distSq >= radiusSq || (distSq > fuzzRadiusSq && (xPixel + zPixel & 1) == 0)) {
+					continue;
+				}
+
+				int sampleX = this.getSampleX(xPixel);
+
+				int biome = sampler.getBiomeId(sampleX, sampleZ);
+				int biomeLeft = sampler.getBiomeId(sampleX - step, sampleZ);
+				int biomeUp = hasUpperNeighbour ? sampler.getBiomeId(sampleX, sampleZ - step) : biome;
+
+				if(biome < 0 || biomeLeft < 0 || biomeUp < 0) {
+					continue;
+				}
+
+				byte pixel;
+				if(biomeLeft != biome || biomeUp != biome) {
+					pixel = EDGE_PIXEL;
+				} else {
+					pixel = this.biomePixels[biome];
+				}
+
+				tile.pixels[(xPixel - this.minPixelX) + (zPixel - this.minPixelZ) * tile.width] = pixel;
+			}
+		}
+
+		return tile;
+	}
+}
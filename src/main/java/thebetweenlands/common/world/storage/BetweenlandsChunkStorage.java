@@ -1,34 +1,34 @@
 package thebetweenlands.common.world.storage;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Random;
 
 import javax.annotation.Nullable;
 
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
-import it.unimi.dsi.fastutil.ints.IntArraySet;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.ints.IntLists;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import it.unimi.dsi.fastutil.ints.IntSet;
-import it.unimi.dsi.fastutil.ints.IntSets;
-import net.minecraft.block.state.IBlockState;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagIntArray;
 import net.minecraft.nbt.NBTTagList;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.World;
 import net.minecraft.world.chunk.Chunk;
 import net.minecraftforge.common.util.Constants;
 import thebetweenlands.api.storage.IWorldStorage;
 import thebetweenlands.common.config.BetweenlandsConfig;
 import thebetweenlands.common.item.misc.ItemGemSinger;
-import thebetweenlands.common.world.WorldProviderBetweenlands;
 
 
 public class BetweenlandsChunkStorage extends ChunkStorageImpl {
 	private IntSet savedGemTargets = new IntOpenHashSet();
-	private Int2ObjectMap<IntSet> gemToPositions = new Int2ObjectOpenHashMap<>();
+	//Sorted by index, i.e. by Y first
+	private Int2ObjectMap<IntArrayList> gemToPositions = new Int2ObjectOpenHashMap<>();
 
 	private boolean rescanGemSingerTargets = false;
 
@@ -64,7 +64,7 @@ public class BetweenlandsChunkStorage extends ChunkStorageImpl {
 			nbt.setTag("gemTargetTypes", new NBTTagIntArray(this.savedGemTargets.toArray(new int[0])));
 
 			NBTTagList gemToPositionsNbt = new NBTTagList();
-			for(Int2ObjectMap.Entry<IntSet> entry : this.gemToPositions.int2ObjectEntrySet()) {
+			for(Int2ObjectMap.Entry<IntArrayList> entry : this.gemToPositions.int2ObjectEntrySet()) {
 				NBTTagCompound targetNbt = new NBTTagCompound();
 				targetNbt.setInteger("id", entry.getIntKey());
 				targetNbt.setTag("positions", new NBTTagIntArray(entry.getValue().toIntArray()));
@@ -103,7 +103,17 @@ public class BetweenlandsChunkStorage extends ChunkStorageImpl {
 				NBTTagCompound targetNbt = gemToPositionsNbt.getCompoundTagAt(i);
 				int id = targetNbt.getInteger("id");
 				int[] positions = targetNbt.getIntArray("positions");
-				this.gemToPositions.put(id, new IntArraySet(positions));
+				if(positions.length > 0) {
+					//Positions were saved as unsorted set before
+					IntArrays.quickSort(positions);
+					int size = 1;
+					for(int j = 1; j < positions.length; j++) {
+						if(positions[j] != positions[size - 1]) {
+							positions[size++] = positions[j];
+						}
+					}
+					this.gemToPositions.put(id, IntArrayList.wrap(positions, size));
+				}
 			}
 		}
 	}
@@ -114,37 +124,29 @@ public class BetweenlandsChunkStorage extends ChunkStorageImpl {
 
 		if(!this.world.isRemote && this.rescanGemSingerTargets) {
 			this.rescanGemSingerTargets = false;
-			this.gemToPositions.clear();
-
-			Chunk chunk = this.getChunk();
 
-			int maxCheckY = Math.min(WorldProviderBetweenlands.LAYER_HEIGHT + 16, 255);
-
-			for(int y = 0; y < maxCheckY; y++) {
-				for(int x = 0; x < 16; x++) {
-					for(int z = 0; z < 16; z++) {
-						IBlockState state = chunk.getBlockState(x, y, z);
-
-						for(ItemGemSinger.GemSingerTarget target : ItemGemSinger.GemSingerTarget.values()) {
-							if(target.test(state)) {
-								IntSet indices = this.gemToPositions.get(target.getId());
-								if(indices == null) {
-									this.gemToPositions.put(target.getId(), indices = new IntArraySet());
-								}
-								indices.add(getGemSingerTargetIndex(x, y, z));
-								break;
-							}
-						}
-					}
-				}
+			if(this.worldStorage instanceof BetweenlandsWorldStorage) {
+				((BetweenlandsWorldStorage) this.worldStorage).getGemSingerTargetScanner().enqueue(this);
 			}
+		}
+	}
 
-			for(ItemGemSinger.GemSingerTarget target : ItemGemSinger.GemSingerTarget.values()) {
-				this.savedGemTargets.add(target.getId());
-			}
+	/**
+	 * Removes all marked gems before a rescan
+	 */
+	void clearGems() {
+		this.gemToPositions.clear();
+	}
 
-			this.markDirty();
+	/**
+	 * Called by {@link GemSingerTargetScanner} once all gem singer targets were rescanned
+	 */
+	void onGemSingerTargetsRescanned() {
+		for(ItemGemSinger.GemSingerTarget target : ItemGemSinger.GemSingerTarget.values()) {
+			this.savedGemTargets.add(target.getId());
 		}
+
+		this.markDirty();
 	}
 
 	/**
@@ -177,12 +179,17 @@ public class BetweenlandsChunkStorage extends ChunkStorageImpl {
 	 * @return true if successfully marked
 	 */
 	public boolean markGem(int x, int y, int z, ItemGemSinger.GemSingerTarget target) {
-		IntSet indices = this.gemToPositions.get(target.getId());
+		IntArrayList indices = this.gemToPositions.get(target.getId());
 		if(indices == null) {
-			this.gemToPositions.put(target.getId(), indices = new IntArraySet());
+			this.gemToPositions.put(target.getId(), indices = new IntArrayList());
 		}
 		int index = getGemSingerTargetIndex(x & 15, y, z & 15);
-		return indices.add(index);
+		int insertion = IntArrays.binarySearch(indices.elements(), 0, indices.size(), index);
+		if(insertion < 0) {
+			indices.add(-insertion - 1, index);
+			return true;
+		}
+		return false;
 	}
 
 	/**
@@ -194,9 +201,11 @@ public class BetweenlandsChunkStorage extends ChunkStorageImpl {
 	 * @return true if successfully unmarked
 	 */
 	public boolean unmarkGem(int x, int y, int z, ItemGemSinger.GemSingerTarget target) {
-		IntSet indices = this.gemToPositions.get(target.getId());
+		IntArrayList indices = this.gemToPositions.get(target.getId());
 		if(indices != null) {
-			if(indices.rem(getGemSingerTargetIndex(x & 15, y, z & 15))) {
+			int position = IntArrays.binarySearch(indices.elements(), 0, indices.size(), getGemSingerTargetIndex(x & 15, y, z & 15));
+			if(position >= 0) {
+				indices.removeInt(position);
 				if(indices.isEmpty()) {
 					this.gemToPositions.remove(target.getId());
 				}
@@ -206,17 +215,30 @@ public class BetweenlandsChunkStorage extends ChunkStorageImpl {
 		return false;
 	}
 
+	/**
+	 * Returns whether a gem of the specified target type is marked at the specified position
+	 * @param x X
+	 * @param y Y
+	 * @param z Z
+	 * @param target Gem target type
+	 * @return true if a gem is marked at the specified position
+	 */
+	public boolean hasGem(int x, int y, int z, ItemGemSinger.GemSingerTarget target) {
+		IntArrayList indices = this.gemToPositions.get(target.getId());
+		return indices != null && IntArrays.binarySearch(indices.elements(), 0, indices.size(), getGemSingerTargetIndex(x & 15, y, z & 15)) >= 0;
+	}
+
 	/**
 	 * Tries to find all gems of the specified target type
 	 * @param target Gem target type
-	 * @return an unmodifiable set of all gem positions which can be decoded by {@link #getGemSingerTargetPosition(int)}
+	 * @return an unmodifiable sorted list of all gem positions which can be decoded by {@link #getGemSingerTargetPosition(int)}
 	 */
-	public IntSet findGems(ItemGemSinger.GemSingerTarget target) {
-		IntSet indices = this.gemToPositions.get(target.getId());
+	public IntList findGems(ItemGemSinger.GemSingerTarget target) {
+		IntArrayList indices = this.gemToPositions.get(target.getId());
 		if(indices != null) {
-			return IntSets.unmodifiable(indices);
+			return IntLists.unmodifiable(indices);
 		}
-		return IntSets.EMPTY_SET;
+		return IntLists.EMPTY_LIST;
 	}
 
 	/**
@@ -229,23 +251,49 @@ public class BetweenlandsChunkStorage extends ChunkStorageImpl {
 	 */
 	@Nullable
 	public BlockPos findRandomGem(ItemGemSinger.GemSingerTarget target, Random rand, BlockPos pos, float range) {
-		BlockPos relPos = pos.add(-this.getChunk().x * 16, 0, -this.getChunk().z * 16);
-		IntSet indices = this.gemToPositions.get(target.getId());
-		if(indices != null) {
-			List<BlockPos> found = new ArrayList<>();
-			for(int index : indices) {
-				BlockPos gem = getGemSingerTargetPosition(index);
-				if(gem.distanceSq(relPos) <= range * range) {
-					found.add(gem);
+		IntArrayList indices = this.gemToPositions.get(target.getId());
+		if(indices != null && !indices.isEmpty()) {
+			int relX = pos.getX() - this.getChunk().x * 16;
+			int relY = pos.getY();
+			int relZ = pos.getZ() - this.getChunk().z * 16;
+			double rangeSq = range * range;
+
+			//Indices are sorted by Y first, so only the indices within the Y range need to be checked
+			int[] elements = indices.elements();
+			int start = findFirstIndex(elements, indices.size(), getGemSingerTargetIndex(0, Math.max(MathHelper.floor(relY - range), 0), 0));
+			int end = findFirstIndex(elements, indices.size(), getGemSingerTargetIndex(0, Math.min(MathHelper.ceil(relY + range), 255) + 1, 0));
+
+			int found = 0;
+			for(int i = start; i < end; i++) {
+				if(isGemInRange(elements[i], relX, relY, relZ, rangeSq)) {
+					found++;
 				}
 			}
-			if(!found.isEmpty()) {
-				return found.get(rand.nextInt(found.size())).add(this.getChunk().x * 16, 0, this.getChunk().z * 16);
+
+			if(found > 0) {
+				int selected = rand.nextInt(found);
+				for(int i = start; i < end; i++) {
+					if(isGemInRange(elements[i], relX, relY, relZ, rangeSq) && selected-- == 0) {
+						return getGemSingerTargetPosition(elements[i]).add(this.getChunk().x * 16, 0, this.getChunk().z * 16);
+					}
+				}
 			}
 		}
 		return null;
 	}
 
+	private static int findFirstIndex(int[] elements, int size, int index) {
+		int position = IntArrays.binarySearch(elements, 0, size, index);
+		return position >= 0 ? position : -position - 1;
+	}
+
+	private static boolean isGemInRange(int index, int relX, int relY, int relZ, double rangeSq) {
+		double dx = (index & 0b1111) - relX;
+		double dy = ((index >> 8) & 0b11111111) - relY;
+		double dz = ((index >> 4) & 0b1111) - relZ;
+		return dx * dx + dy * dy + dz * dz <= rangeSq;
+	}
+
 	/**
 	 * @see #markGem(int, int, int, thebetweenlands.common.item.misc.ItemGemSinger.GemSingerTarget)
 	 * 
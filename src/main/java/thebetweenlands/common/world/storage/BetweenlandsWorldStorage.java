@@ -15,6 +15,7 @@ import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.EnumSkyBlock;
 import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
 import net.minecraft.world.biome.Biome;
 import net.minecraft.world.chunk.Chunk;
 import net.minecraftforge.common.util.Constants;
@@ -31,6 +32,7 @@ import thebetweenlands.common.registries.BiomeRegistry;
 import thebetweenlands.common.registries.SoundRegistry;
 import thebetweenlands.common.world.biome.BiomeBetweenlands;
 import thebetweenlands.common.world.event.BLEnvironmentEventRegistry;
+import thebetweenlands.common.world.gen.WorldPregenerator;
 
 import javax.annotation.Nullable;
 import java.util.*;
@@ -47,6 +49,10 @@ public class BetweenlandsWorldStorage extends WorldStorageImpl {
 
 	protected List<SpiritTreeKillToken> spiritTreeKillTokens = new ArrayList<>();
 
+	protected WorldPregenerator pregenerator;
+
+	protected final GemSingerTargetScanner gemSingerTargetScanner = new GemSingerTargetScanner();
+
 	public BLEnvironmentEventRegistry getEnvironmentEventRegistry() {
 		return this.environmentEventRegistry;
 	}
@@ -55,6 +61,10 @@ public class BetweenlandsWorldStorage extends WorldStorageImpl {
 		return this.aspectManager;
 	}
 
+	public GemSingerTargetScanner getGemSingerTargetScanner() {
+		return this.gemSingerTargetScanner;
+	}
+
 	@Override
 	public BiomeSpawnEntriesData getBiomeSpawnEntriesData(Biome biome) {
 		if(biome instanceof ICustomSpawnEntriesProvider) {
@@ -109,6 +119,11 @@ public class BetweenlandsWorldStorage extends WorldStorageImpl {
 			for(int i = 0; i < spiritTreeKillTokensNbt.tagCount(); i++) {
 				this.spiritTreeKillTokens.add(SpiritTreeKillToken.readFromNBT(spiritTreeKillTokensNbt.getCompoundTagAt(i)));
 			}
+
+			this.pregenerator = null;
+			if(nbt.hasKey("pregenerator", Constants.NBT.TAG_COMPOUND)) {
+				this.pregenerator = WorldPregenerator.readFromNBT(nbt.getCompoundTag("pregenerator"));
+			}
 		}
 	}
 
@@ -136,6 +151,10 @@ public class BetweenlandsWorldStorage extends WorldStorageImpl {
 				spiritTreeKillTokensNbt.appendTag(token.writeToNBT());
 			}
 			nbt.setTag("spiritTreeKillTokens", spiritTreeKillTokensNbt);
+
+			if(this.pregenerator != null) {
+				nbt.setTag("pregenerator", this.pregenerator.writeToNBT(new NBTTagCompound()));
+			}
 		}
 	}
 
@@ -143,6 +162,14 @@ public class BetweenlandsWorldStorage extends WorldStorageImpl {
 	public void tick() {
 		super.tick();
 
+		if(this.pregenerator != null && this.getWorld() instanceof WorldServer) {
+			this.pregenerator.update((WorldServer) this.getWorld());
+		}
+
+		if(!this.getWorld().isRemote) {
+			this.gemSingerTargetScanner.update();
+		}
+
 		if(this.getWorld().isRemote && this.getWorld().provider.getDimension() == BetweenlandsConfig.WORLD_AND_DIMENSION.dimensionId) {
 			this.updateAmbientCaveSounds();
 		}
@@ -246,6 +273,24 @@ public class BetweenlandsWorldStorage extends WorldStorageImpl {
 		return this.spiritTreeKillTokens;
 	}
 
+	/**
+	 * Returns the world pregenerator, if one was started
+	 * @return
+	 */
+	@Nullable
+	public WorldPregenerator getPregenerator() {
+		return this.pregenerator;
+	}
+
+	/**
+	 * Sets the world pregenerator. The pregenerator is ticked with this world
+	 * and its progress is saved with this world storage
+	 * @param pregenerator
+	 */
+	public void setPregenerator(@Nullable WorldPregenerator pregenerator) {
+		this.pregenerator = pregenerator;
+	}
+
 	public static class BiomeSpawnEntriesData implements IBiomeSpawnEntriesData {
 		public final ICustomSpawnEntriesProvider biome;
 
@@ -26,6 +26,7 @@ import thebetweenlands.api.storage.IWorldStorage;
 import thebetweenlands.api.storage.LocalStorageReference;
 import thebetweenlands.api.storage.StorageID;
 import thebetweenlands.common.TheBetweenlands;
+import thebetweenlands.common.network.MessageBroadcast;
 import thebetweenlands.common.network.clientbound.MessageSyncChunkStorage;
 import thebetweenlands.common.network.clientbound.MessageSyncLocalStorageReferences;
 
@@ -182,7 +183,15 @@ public abstract class ChunkStorageImpl implements IChunkStorage, ITickable {
 			}
 		}
 
-		TheBetweenlands.networkWrapper.sendTo(new MessageSyncChunkStorage(this), player);
+		if(this.worldStorage instanceof WorldStorageImpl) {
+			//Sent batched with the other storages the player started watching this tick
+			((WorldStorageImpl) this.worldStorage).getWatchSyncQueue().addChunkStorage(player, this);
+		} else {
+			NBTTagCompound nbt = this.writeToNBT(new NBTTagCompound(), true);
+			if(nbt.getSize() > 0) {
+				TheBetweenlands.networkWrapper.sendTo(new MessageSyncChunkStorage(this, nbt), player);
+			}
+		}
 	}
 
 	@Override
@@ -205,6 +214,10 @@ public abstract class ChunkStorageImpl implements IChunkStorage, ITickable {
 				localStorage.removeWatcher(this, player);
 			}
 		}
+
+		if(this.worldStorage instanceof WorldStorageImpl) {
+			((WorldStorageImpl) this.worldStorage).getWatchSyncQueue().removeChunkStorage(player, this);
+		}
 	}
 
 	@Override
@@ -309,10 +322,7 @@ public abstract class ChunkStorageImpl implements IChunkStorage, ITickable {
 		if(this.syncStorageLinks) {
 			this.syncStorageLinks = false;
 
-			MessageSyncLocalStorageReferences message = new MessageSyncLocalStorageReferences(this);
-			for(EntityPlayerMP watcher : this.watchers) {
-				TheBetweenlands.networkWrapper.sendTo(message, watcher);
-			}
+			MessageBroadcast.sendTo(new MessageSyncLocalStorageReferences(this), this.watchers);
 		}
 	}
 }
@@ -0,0 +1,175 @@
+package thebetweenlands.common.world.storage;
+
+import java.lang.reflect.Field;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.world.chunk.BlockStatePaletteHashMap;
+import net.minecraft.world.chunk.BlockStatePaletteLinear;
+import net.minecraft.world.chunk.BlockStateContainer;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.IBlockStatePalette;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+import net.minecraftforge.fml.relauncher.ReflectionHelper;
+import thebetweenlands.common.TheBetweenlands;
+import thebetweenlands.common.item.misc.ItemGemSinger;
+import thebetweenlands.common.world.WorldProviderBetweenlands;
+
+/**
+ * Throttled queue of chunk storages whose gem singer targets need to be rescanned.
+ * Chunks are scanned one section per step on the server thread, and sections whose
+ * palette doesn't contain any gem singer target states are skipped entirely
+ */
+public class GemSingerTargetScanner {
+	private static final int MAX_SECTIONS_PER_TICK = 16;
+	private static final long MAX_NANOS_PER_TICK = 2000000L;
+
+	@Nullable
+	private static final Field PALETTE_FIELD = findPaletteField();
+
+	private final Deque<BetweenlandsChunkStorage> queue = new ArrayDeque<>();
+	private final Set<BetweenlandsChunkStorage> queued = new ReferenceOpenHashSet<>();
+
+	private BetweenlandsChunkStorage current;
+	private int currentSection;
+
+	/**
+	 * Queues the specified chunk storage to be rescanned
+	 * @param storage
+	 */
+	public void enqueue(BetweenlandsChunkStorage storage) {
+		if(storage != this.current && this.queued.add(storage)) {
+			this.queue.add(storage);
+		}
+	}
+
+	/**
+	 * Returns the number of chunks that are queued or currently being scanned
+	 * @return
+	 */
+	public int getQueuedChunks() {
+		return this.queue.size() + (this.current != null ? 1 : 0);
+	}
+
+	/**
+	 * Scans the queued chunks until the per tick budget is exhausted
+	 */
+	public void update() {
+		long start = System.nanoTime();
+
+		int maxSection = (getMaxCheckY() - 1) >> 4;
+
+		for(int i = 0; i < MAX_SECTIONS_PER_TICK && System.nanoTime() - start < MAX_NANOS_PER_TICK; i++) {
+			if(this.current == null) {
+				this.current = this.queue.poll();
+				this.currentSection = 0;
+
+				if(this.current == null) {
+					break;
+				}
+
+				this.queued.remove(this.current);
+
+				this.current.clearGems();
+			}
+
+			Chunk chunk = this.current.getChunk();
+
+			if(!chunk.isLoaded()) {
+				//Chunk was unloaded before its scan was finished, it will be queued again when it is loaded
+				this.current = null;
+				continue;
+			}
+
+			if(this.currentSection <= maxSection) {
+				ExtendedBlockStorage section = chunk.getBlockStorageArray()[this.currentSection];
+				if(mayContainTargets(section)) {
+					this.scanSection(this.current, section, this.currentSection << 4);
+				}
+				this.currentSection++;
+			}
+
+			if(this.currentSection > maxSection) {
+				this.current.onGemSingerTargetsRescanned();
+				this.current = null;
+			}
+		}
+	}
+
+	private void scanSection(BetweenlandsChunkStorage storage, ExtendedBlockStorage section, int minY) {
+		int maxY = Math.min(16, getMaxCheckY() - minY);
+
+		for(int y = 0; y < maxY; y++) {
+			for(int z = 0; z < 16; z++) {
+				for(int x = 0; x < 16; x++) {
+					IBlockState state = section.get(x, y, z);
+
+					for(ItemGemSinger.GemSingerTarget target : ItemGemSinger.GemSingerTarget.values()) {
+						if(target.test(state)) {
+							storage.markGem(x, minY + y, z, target);
+							break;
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static int getMaxCheckY() {
+		return Math.min(WorldProviderBetweenlands.LAYER_HEIGHT + 16, 255);
+	}
+
+	/**
+	 * Returns whether the specified section may contain any gem singer target states
+	 * @param section
+	 * @return
+	 */
+	private static boolean mayContainTargets(ExtendedBlockStorage section) {
+		if(section == Chunk.NULL_BLOCK_STORAGE || section.isEmpty()) {
+			return false;
+		}
+
+		if(PALETTE_FIELD != null) {
+			IBlockStatePalette palette;
+			try {
+				palette = (IBlockStatePalette) PALETTE_FIELD.get(section.getData());
+			} catch(IllegalAccessException ex) {
+				return true;
+			}
+
+			//The registry palette is used for sections with many different states and can't be enumerated
+			if(palette instanceof BlockStatePaletteLinear || palette instanceof BlockStatePaletteHashMap) {
+				for(int id = 0; id < 256; id++) {
+					IBlockState state = palette.getBlockState(id);
+					if(state == null) {
+						//Palette IDs are assigned sequentially
+						return false;
+					}
+					for(ItemGemSinger.GemSingerTarget target : ItemGemSinger.GemSingerTarget.values()) {
+						if(target.test(state)) {
+							return true;
+						}
+					}
+				}
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	@Nullable
+	private static Field findPaletteField() {
+		try {
+			return ReflectionHelper.findField(BlockStateContainer.class, "palette", "field_186022_c");
+		} catch(Exception ex) {
+			TheBetweenlands.logger.warn("Failed finding block state palette field, gem singer target scans won't skip sections", ex);
+			return null;
+		}
+	}
+}
@@ -2,32 +2,33 @@ package thebetweenlands.common.world.storage;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 import javax.annotation.Nullable;
 
 import org.apache.commons.io.FileUtils;
 
-import net.minecraft.nbt.CompressedStreamTools;
 import net.minecraft.nbt.NBTTagCompound;
-import net.minecraftforge.common.util.Constants;
 import thebetweenlands.api.storage.LocalRegion;
 import thebetweenlands.api.storage.StorageID;
 import thebetweenlands.common.TheBetweenlands;
 
 public class LocalRegionData {
 	private String id;
-	private NBTTagCompound nbt;
+	private final Map<StorageID, NBTTagCompound> changedEntries = new HashMap<>();
 	private int refCounter;
 	private boolean dirty;
 
 	private final LocalRegionCache cache;
-	
-	public LocalRegionData(LocalRegionCache cache, String id, NBTTagCompound nbt) {
+	private final File file;
+
+	public LocalRegionData(LocalRegionCache cache, String id, File file) {
 		this.id = id;
-		this.nbt = nbt;
 		this.refCounter = 0;
 		this.dirty = false;
 		this.cache = cache;
+		this.file = file;
 	}
 
 	/**
@@ -38,6 +39,14 @@ public class LocalRegionData {
 		return this.id;
 	}
 
+	/**
+	 * Returns the region file
+	 * @return
+	 */
+	public File getFile() {
+		return this.file;
+	}
+
 	/**
 	 * Increases the reference counter
 	 */
@@ -60,10 +69,21 @@ public class LocalRegionData {
 		return this.refCounter > 0;
 	}
 
+	/**
+	 * Returns the NBT of a local storage in this region. Only reads
+	 * the entry of the specified local storage from the region file
+	 * @param id
+	 * @return
+	 */
 	@Nullable
 	public NBTTagCompound getLocalStorageNBT(StorageID id) {
-		if(this.nbt.hasKey(id.getStringID(), Constants.NBT.TAG_COMPOUND)) {
-			return this.nbt.getCompoundTag(id.getStringID());
+		if(this.changedEntries.containsKey(id)) {
+			return this.changedEntries.get(id);
+		}
+		try {
+			return this.cache.getLocalStorageHandler().getSaveHandler().loadRegionEntryNbt(this.file, id);
+		} catch(Exception ex) {
+			TheBetweenlands.logger.error(String.format("Failed loading local storage %s from local region file: %s", id.getStringID(), this.file.getAbsolutePath()), ex);
 		}
 		return null;
 	}
@@ -74,7 +94,7 @@ public class LocalRegionData {
 	 * @param nbt
 	 */
 	public void setLocalStorageNBT(StorageID id, NBTTagCompound nbt) {
-		this.nbt.setTag(id.getStringID(), nbt);
+		this.changedEntries.put(id, nbt);
 		this.dirty = true;
 	}
 
@@ -92,67 +112,52 @@ public class LocalRegionData {
 	 * @param id
 	 */
 	public void deleteLocalStorage(File dir, StorageID id) {
-		if(this.nbt.hasKey(id.getStringID(), Constants.NBT.TAG_COMPOUND)) {
-			this.dirty = true;
-			this.nbt.removeTag(id.getStringID());
-			if(this.nbt.getSize() == 0) {
-				this.deleteRegionFile(dir);
-			}
-		}
+		this.changedEntries.put(id, null);
+		this.dirty = true;
 	}
 
 	/**
-	 * Tries to read the region from a file and if it doesn't exist a new region is created
+	 * Tries to read the region from a file and if it doesn't exist a new region is created.
+	 * Legacy region files are converted to the new region file format
 	 * @param cache
 	 * @param dir
 	 * @param region
 	 * @return
 	 */
 	public static LocalRegionData getOrCreateRegion(LocalRegionCache cache, File dir, LocalRegion region) {
-		NBTTagCompound regionNbt = null;
-		File file = new File(dir, region.getFileName() + ".dat");
-		try {
-			regionNbt = cache.getLocalStorageHandler().getSaveHandler().loadFileNbt(file);
-		} catch(Exception ex) {
-			TheBetweenlands.logger.error("Failed loading local region cache", ex);
-			File backup = new File(file.getAbsolutePath() + ".backup");
+		File file = new File(dir, region.getFileName() + LocalRegionFile.FILE_EXTENSION);
+		File legacyFile = new File(dir, region.getFileName() + ".dat");
+		if(legacyFile.exists()) {
 			try {
-				FileUtils.copyFile(file, backup);
-				TheBetweenlands.logger.info(String.format("Created a backup of local region cache at %s", backup.getAbsolutePath()));
-			} catch (IOException e) {
-				TheBetweenlands.logger.error("Failed creating backup of local region cache", e);
+				cache.getLocalStorageHandler().getSaveHandler().convertLegacyRegion(legacyFile, file);
+			} catch(Exception ex) {
+				TheBetweenlands.logger.error("Failed converting legacy local region file", ex);
+				File backup = new File(legacyFile.getAbsolutePath() + ".backup");
+				try {
+					FileUtils.copyFile(legacyFile, backup);
+					TheBetweenlands.logger.info(String.format("Created a backup of legacy local region file at %s", backup.getAbsolutePath()));
+				} catch (IOException e) {
+					TheBetweenlands.logger.error("Failed creating backup of legacy local region file", e);
+				}
+				try {
+					legacyFile.delete();
+				} catch(Exception e) {}
 			}
-			try {
-				file.delete();
-			} catch(Exception e) {}
-			regionNbt = null;
 		}
-		if(regionNbt == null) {
-			regionNbt = new NBTTagCompound();
-		}
-		return new LocalRegionData(cache, region.getFileName(), regionNbt);
+		return new LocalRegionData(cache, region.getFileName(), file);
 	}
 
 	/**
-	 * Saves the region to a file
+	 * Queues all changed local storages of the region to be saved.
+	 * Unchanged local storages are not rewritten
 	 * @param dir
 	 */
 	public void saveRegion(File dir) {
-		if(this.nbt.getSize() > 0) {
-			File file = new File(dir, this.getID() + ".dat");
-			this.cache.getLocalStorageHandler().getSaveHandler().queueRegion(file, this.nbt.copy());
-		} else {
-			this.deleteRegionFile(dir);
+		LocalStorageSaveHandler saveHandler = this.cache.getLocalStorageHandler().getSaveHandler();
+		for(Map.Entry<StorageID, NBTTagCompound> entry : this.changedEntries.entrySet()) {
+			saveHandler.queueRegionEntry(this.file, entry.getKey(), entry.getValue());
 		}
+		this.changedEntries.clear();
 		this.dirty = false;
 	}
-
-	/**
-	 * Deletes the region file
-	 * @param dir
-	 */
-	public void deleteRegionFile(File dir) {
-		File file = new File(dir, this.getID() + ".dat");
-		this.cache.getLocalStorageHandler().getSaveHandler().queueRegion(file, null);
-	}
 }
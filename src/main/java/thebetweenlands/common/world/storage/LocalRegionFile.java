@@ -0,0 +1,345 @@
+package thebetweenlands.common.world.storage;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.annotation.Nullable;
+
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import thebetweenlands.common.TheBetweenlands;
+
+/**
+ * Sector based container file for all local storages of one {@link thebetweenlands.api.storage.LocalRegion}, similar to
+ * the vanilla region files. Each entry is compressed individually and stored in its own sectors so that
+ * single local storages can be read or written without touching any other entries of the region.
+ * <p>
+ * The first sector contains the header that points to the offset table, which is itself stored like an entry.
+ * Entries are never overwritten in place. New data is always written to free sectors and the header is
+ * updated last, so an interrupted write leaves the previous state of the file intact.
+ * <p>
+ * Not thread safe, access must be synchronized externally.
+ */
+public class LocalRegionFile {
+	public static final String FILE_EXTENSION = ".blr";
+
+	private static final int SECTOR_SIZE = 4096;
+	private static final int MAGIC = 0x424C5246; //BLRF
+	private static final int VERSION = 1;
+
+	private static final byte COMPRESSION_NONE = 0;
+	private static final byte COMPRESSION_DEFLATE = 1;
+
+	private static final byte[] EMPTY_SECTOR = new byte[SECTOR_SIZE];
+
+	private static class Location {
+		private final int sectorOffset;
+		private final int sectorCount;
+
+		private Location(int sectorOffset, int sectorCount) {
+			this.sectorOffset = sectorOffset;
+			this.sectorCount = sectorCount;
+		}
+	}
+
+	private final File file;
+
+	private final Map<String, Location> offsets = new HashMap<>();
+	private final BitSet usedSectors = new BitSet();
+	private Location indexLocation;
+
+	private LocalRegionFile(File file) {
+		this.file = file;
+		this.usedSectors.set(0);
+	}
+
+	/**
+	 * Opens the region file and reads its offset table. If the file does not exist yet
+	 * an empty region file is returned and the file is created on the first write.
+	 * A corrupt file is renamed to <code>.corrupt</code> and an empty region file is returned instead
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public static LocalRegionFile open(File file) throws IOException {
+		LocalRegionFile regionFile = new LocalRegionFile(file);
+		if(file.exists()) {
+			try {
+				regionFile.readIndex();
+			} catch(IOException | RuntimeException ex) {
+				//Move the broken file out of the way and start with an empty region, like vanilla region files
+				File corruptFile = new File(file.getParentFile(), file.getName() + ".corrupt");
+				for(int i = 1; corruptFile.exists(); i++) {
+					corruptFile = new File(file.getParentFile(), file.getName() + ".corrupt" + i);
+				}
+				if(!file.renameTo(corruptFile)) {
+					throw new IOException("Failed moving corrupt local region file " + file.getAbsolutePath(), ex);
+				}
+				TheBetweenlands.logger.error(String.format(Locale.ROOT, "Local region file %s is corrupt, moved it to %s and continuing with an empty region", file.getAbsolutePath(), corruptFile.getName()), ex);
+				regionFile = new LocalRegionFile(file);
+			}
+		}
+		return regionFile;
+	}
+
+	/**
+	 * Returns the file of this region
+	 * @return
+	 */
+	public File getFile() {
+		return this.file;
+	}
+
+	/**
+	 * Returns whether the region contains no entries
+	 * @return
+	 */
+	public boolean isEmpty() {
+		return this.offsets.isEmpty();
+	}
+
+	/**
+	 * Returns the number of entries in this region
+	 * @return
+	 */
+	public int getEntryCount() {
+		return this.offsets.size();
+	}
+
+	/**
+	 * Returns whether the region contains an entry with the specified ID
+	 * @param id
+	 * @return
+	 */
+	public boolean hasEntry(String id) {
+		return this.offsets.containsKey(id);
+	}
+
+	private void readIndex() throws IOException {
+		try(RandomAccessFile raf = new RandomAccessFile(this.file, "r")) {
+			if(raf.length() < SECTOR_SIZE) {
+				throw new IOException("Local region file is truncated: " + this.file.getAbsolutePath());
+			}
+			raf.seek(0);
+			int magic = raf.readInt();
+			int version = raf.readInt();
+			if(magic != MAGIC || version > VERSION) {
+				throw new IOException(String.format("Unsupported local region file format %d (%d): %s", version, magic, this.file.getAbsolutePath()));
+			}
+			int indexOffset = raf.readInt();
+			int indexSectors = raf.readInt();
+			if(indexSectors > 0) {
+				if(!this.isInBounds(indexOffset, indexSectors, raf.length())) {
+					throw new IOException("Local region file offset table is out of bounds: " + this.file.getAbsolutePath());
+				}
+				this.indexLocation = new Location(indexOffset, indexSectors);
+				this.usedSectors.set(indexOffset, indexOffset + indexSectors);
+				try(DataInputStream in = this.openEntryStream(raf, this.indexLocation)) {
+					int count = in.readInt();
+					for(int i = 0; i < count; i++) {
+						String id = in.readUTF();
+						int sectorOffset = in.readInt();
+						int sectorCount = in.readInt();
+						if(!this.isInBounds(sectorOffset, sectorCount, raf.length())) {
+							//Only this entry is lost, its sectors are free to be reused
+							TheBetweenlands.logger.error(String.format(Locale.ROOT, "Local region file entry %s is out of bounds, skipping it: %s", id, this.file.getAbsolutePath()));
+							continue;
+						}
+						this.offsets.put(id, new Location(sectorOffset, sectorCount));
+						this.usedSectors.set(sectorOffset, sectorOffset + sectorCount);
+					}
+				}
+			}
+		}
+	}
+
+	private boolean isInBounds(int sectorOffset, int sectorCount, long fileLength) {
+		return sectorOffset >= 1 && sectorCount > 0 && ((long)sectorOffset + sectorCount) * SECTOR_SIZE <= fileLength;
+	}
+
+	/**
+	 * Reads the entry with the specified ID
+	 * @param id
+	 * @return
+	 * @throws IOException
+	 */
+	@Nullable
+	public NBTTagCompound read(String id) throws IOException {
+		Location location = this.offsets.get(id);
+		if(location == null) {
+			return null;
+		}
+		try(RandomAccessFile raf = new RandomAccessFile(this.file, "r"); DataInputStream in = this.openEntryStream(raf, location)) {
+			return CompressedStreamTools.read(in);
+		}
+	}
+
+	/**
+	 * Reads all entries of this region
+	 * @return
+	 * @throws IOException
+	 */
+	public Map<String, NBTTagCompound> readAll() throws IOException {
+		Map<String, NBTTagCompound> entries = new HashMap<>();
+		if(!this.offsets.isEmpty()) {
+			try(RandomAccessFile raf = new RandomAccessFile(this.file, "r")) {
+				for(Map.Entry<String, Location> entry : this.offsets.entrySet()) {
+					try(DataInputStream in = this.openEntryStream(raf, entry.getValue())) {
+						entries.put(entry.getKey(), CompressedStreamTools.read(in));
+					}
+				}
+			}
+		}
+		return entries;
+	}
+
+	private DataInputStream openEntryStream(RandomAccessFile raf, Location location) throws IOException {
+		if((long)(location.sectorOffset + location.sectorCount) * SECTOR_SIZE > raf.length()) {
+			throw new IOException("Local region file entry is out of bounds: " + this.file.getAbsolutePath());
+		}
+		raf.seek((long)location.sectorOffset * SECTOR_SIZE);
+		int length = raf.readInt();
+		if(length <= 0 || length + 5 > location.sectorCount * SECTOR_SIZE) {
+			throw new IOException("Local region file entry has an invalid length: " + this.file.getAbsolutePath());
+		}
+		byte compression = raf.readByte();
+		byte[] data = new byte[length];
+		raf.readFully(data);
+		switch(compression) {
+		case COMPRESSION_NONE:
+			return new DataInputStream(new ByteArrayInputStream(data));
+		case COMPRESSION_DEFLATE:
+			return new DataInputStream(new BufferedInputStream(new InflaterInputStream(new ByteArrayInputStream(data))));
+		default:
+			throw new IOException("Local region file entry has an unknown compression type " + compression + ": " + this.file.getAbsolutePath());
+		}
+	}
+
+	/**
+	 * Writes and removes the specified entries. A null NBT removes the entry.
+	 * All changes are written in one go and the offset table is only updated once at the end
+	 * @param entries
+	 * @return The number of bytes written
+	 * @throws IOException
+	 */
+	public long write(Map<String, NBTTagCompound> entries) throws IOException {
+		if(entries.isEmpty()) {
+			return 0;
+		}
+
+		this.file.getParentFile().mkdirs();
+
+		long bytesWritten = 0;
+
+		BitSet freedSectors = new BitSet();
+
+		try(RandomAccessFile raf = new RandomAccessFile(this.file, "rw")) {
+			if(raf.length() < SECTOR_SIZE) {
+				raf.seek(0);
+				raf.write(EMPTY_SECTOR);
+			}
+
+			for(Map.Entry<String, NBTTagCompound> entry : entries.entrySet()) {
+				Location oldLocation;
+
+				if(entry.getValue() == null) {
+					oldLocation = this.offsets.remove(entry.getKey());
+				} else {
+					ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+					try(DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+						CompressedStreamTools.write(entry.getValue(), out);
+					}
+					Location newLocation = this.writeSectors(raf, bytes.toByteArray(), COMPRESSION_DEFLATE);
+					bytesWritten += newLocation.sectorCount * SECTOR_SIZE;
+					oldLocation = this.offsets.put(entry.getKey(), newLocation);
+				}
+
+				//Old sectors can only be reused once the new offset table has been written
+				if(oldLocation != null) {
+					freedSectors.set(oldLocation.sectorOffset, oldLocation.sectorOffset + oldLocation.sectorCount);
+				}
+			}
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try(DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+				out.writeInt(this.offsets.size());
+				for(Map.Entry<String, Location> entry : this.offsets.entrySet()) {
+					out.writeUTF(entry.getKey());
+					out.writeInt(entry.getValue().sectorOffset);
+					out.writeInt(entry.getValue().sectorCount);
+				}
+			}
+			Location newIndexLocation = this.writeSectors(raf, bytes.toByteArray(), COMPRESSION_DEFLATE);
+			bytesWritten += newIndexLocation.sectorCount * SECTOR_SIZE;
+
+			//The entries and the offset table must be on disk before the header points to them
+			raf.getFD().sync();
+
+			if(this.indexLocation != null) {
+				freedSectors.set(this.indexLocation.sectorOffset, this.indexLocation.sectorOffset + this.indexLocation.sectorCount);
+			}
+			this.indexLocation = newIndexLocation;
+
+			raf.seek(0);
+			raf.writeInt(MAGIC);
+			raf.writeInt(VERSION);
+			raf.writeInt(newIndexLocation.sectorOffset);
+			raf.writeInt(newIndexLocation.sectorCount);
+			bytesWritten += 16;
+
+			//The header must be on disk before the sectors of the previous state can be trimmed
+			raf.getFD().sync();
+
+			this.usedSectors.andNot(freedSectors);
+
+			//Trim unused sectors at the end of the file
+			int usedLength = Math.max(this.usedSectors.length(), 1);
+			if(raf.length() > (long)usedLength * SECTOR_SIZE) {
+				raf.setLength((long)usedLength * SECTOR_SIZE);
+				raf.getFD().sync();
+			}
+		}
+
+		return bytesWritten;
+	}
+
+	private Location writeSectors(RandomAccessFile raf, byte[] data, byte compression) throws IOException {
+		int sectorCount = (data.length + 5 + SECTOR_SIZE - 1) / SECTOR_SIZE;
+
+		int sectorOffset = 1;
+		while(true) {
+			sectorOffset = this.usedSectors.nextClearBit(sectorOffset);
+			int nextUsed = this.usedSectors.nextSetBit(sectorOffset);
+			if(nextUsed < 0 || nextUsed - sectorOffset >= sectorCount) {
+				break;
+			}
+			sectorOffset = nextUsed;
+		}
+
+		this.usedSectors.set(sectorOffset, sectorOffset + sectorCount);
+
+		raf.seek((long)sectorOffset * SECTOR_SIZE);
+		raf.writeInt(data.length);
+		raf.writeByte(compression);
+		raf.write(data);
+
+		int padding = sectorCount * SECTOR_SIZE - data.length - 5;
+		if(padding > 0) {
+			raf.write(EMPTY_SECTOR, 0, padding);
+		}
+
+		return new Location(sectorOffset, sectorCount);
+	}
+}
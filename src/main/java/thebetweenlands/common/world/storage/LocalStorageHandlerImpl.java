@@ -5,7 +5,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -13,7 +12,6 @@ import javax.annotation.Nullable;
 
 import com.google.common.base.Predicate;
 
-import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.util.ITickable;
 import net.minecraft.util.ResourceLocation;
@@ -31,8 +29,10 @@ import thebetweenlands.api.storage.LocalRegion;
 import thebetweenlands.api.storage.LocalStorageReference;
 import thebetweenlands.api.storage.StorageID;
 import thebetweenlands.common.TheBetweenlands;
+import thebetweenlands.common.network.MessageBroadcast;
 import thebetweenlands.common.network.clientbound.MessageSyncLocalStorageData;
 import thebetweenlands.common.registries.StorageRegistry;
+import thebetweenlands.util.TickList;
 
 public class LocalStorageHandlerImpl implements ILocalStorageHandler {
 	private final IWorldStorage worldStorage;
@@ -40,7 +40,8 @@ public class LocalStorageHandlerImpl implements ILocalStorageHandler {
 	private final File localStorageDir;
 
 	private final Map<StorageID, ILocalStorage> localStorage = new HashMap<StorageID, ILocalStorage>();
-	private final List<ILocalStorage> tickableLocalStorage = new ArrayList<>();
+	private final TickList<ILocalStorage> tickableLocalStorage = new TickList<>();
+	private final LocalStorageIndex index = new LocalStorageIndex();
 
 	private final LocalRegionCache regionCache;
 
@@ -93,6 +94,8 @@ public class LocalStorageHandlerImpl implements ILocalStorageHandler {
 
 			storage.onLoaded();
 
+			this.index.add(storage);
+
 			return true;
 		}
 		return false;
@@ -107,16 +110,10 @@ public class LocalStorageHandlerImpl implements ILocalStorageHandler {
 				storage.unlinkAllChunks();
 			}
 
-			this.localStorage.remove(storage.getID());
+			ILocalStorage removedStorage = this.localStorage.remove(storage.getID());
+			this.index.remove(storage);
 
-			Iterator<ILocalStorage> it = this.tickableLocalStorage.iterator();
-			ILocalStorage tickableStorage = null;
-			while(it.hasNext()) {
-				tickableStorage = it.next();
-				if(storage.getID().equals(tickableStorage.getID())) {
-					it.remove();
-				}
-			}
+			this.tickableLocalStorage.remove(removedStorage);
 
 			if(!this.world.isRemote) {
 				this.deleteLocalStorageFile(storage);
@@ -136,54 +133,21 @@ public class LocalStorageHandlerImpl implements ILocalStorageHandler {
 		return this.localStorage.get(id);
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public <T extends ILocalStorage> List<T> getLocalStorages(Class<T> type, double x, double z, @Nullable Predicate<T> filter) {
-		List<T> storages = new ArrayList<>();
-		int cx = MathHelper.floor(x) >> 4;
-		int cz = MathHelper.floor(z) >> 4;
-		Chunk chunk = this.world.getChunk(cx, cz);
-		IChunkStorage chunkStorage = this.getWorldStorage().getChunkStorage(chunk);
-		if(chunkStorage != null) {
-			for(LocalStorageReference ref : chunkStorage.getLocalStorageReferences()) {
-				ILocalStorage localStorage = this.getLocalStorage(ref.getID());
-				if(localStorage != null && localStorage.getBoundingBox() != null && type.isAssignableFrom(localStorage.getClass())
-						&& (filter == null || filter.apply((T) localStorage))) {
-					if(!storages.contains(localStorage)) {
-						storages.add((T) localStorage);
-					}
-				}
-			}
-		}
-		return storages;
+		return this.index.query(type, MathHelper.floor(x) >> 4, MathHelper.floor(z) >> 4, filter, new ArrayList<>());
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public <T extends ILocalStorage> List<T> getLocalStorages(Class<T> type, AxisAlignedBB aabb, @Nullable Predicate<T> filter) {
-		List<T> storages = new ArrayList<>();
-		int sx = MathHelper.floor(aabb.minX) >> 4;
-		int sz = MathHelper.floor(aabb.minZ) >> 4;
-		int ex = MathHelper.floor(aabb.maxX) >> 4;
-		int ez = MathHelper.floor(aabb.maxZ) >> 4;
-		for(int cx = sx; cx <= ex; cx++) {
-			for(int cz = sz; cz <= ez; cz++) {
-				Chunk chunk = this.world.getChunk(cx, cz);
-				IChunkStorage chunkStorage = this.getWorldStorage().getChunkStorage(chunk);
-				if(chunkStorage != null) {
-					for(LocalStorageReference ref : chunkStorage.getLocalStorageReferences()) {
-						ILocalStorage localStorage = this.getLocalStorage(ref.getID());
-						if(localStorage != null && localStorage.getBoundingBox() != null && type.isAssignableFrom(localStorage.getClass()) && localStorage.getBoundingBox().intersects(aabb)
-								&& (filter == null || filter.apply((T) localStorage))) {
-							if(!storages.contains(localStorage)) {
-								storages.add((T) localStorage);
-							}
-						}
-					}
-				}
-			}
+		return this.index.query(type, aabb, filter, new ArrayList<>());
+	}
+
+	@Override
+	public void onLinkedChunksChanged(ILocalStorage storage) {
+		if(this.localStorage.get(storage.getID()) == storage) {
+			this.index.add(storage);
 		}
-		return storages;
 	}
 
 	@Override
@@ -267,16 +231,10 @@ public class LocalStorageHandlerImpl implements ILocalStorageHandler {
 				storage.setDirty(false);
 			}
 
-			this.localStorage.remove(storage.getID());
+			ILocalStorage removedStorage = this.localStorage.remove(storage.getID());
+			this.index.remove(storage);
 
-			Iterator<ILocalStorage> it = this.tickableLocalStorage.iterator();
-			ILocalStorage tickableStorage = null;
-			while(it.hasNext()) {
-				tickableStorage = it.next();
-				if(storage.getID().equals(tickableStorage.getID())) {
-					it.remove();
-				}
-			}
+			this.tickableLocalStorage.remove(removedStorage);
 
 			storage.onUnloaded();
 
@@ -309,19 +267,18 @@ public class LocalStorageHandlerImpl implements ILocalStorageHandler {
 
 	@Override
 	public void update() {
-		for(int i = 0; i < this.tickableLocalStorage.size(); i++) {
-			ILocalStorage localStorage = this.tickableLocalStorage.get(i);
-			((ITickable)localStorage).update();
-
-			IGenericDataManagerAccess dataManager = localStorage.getDataManager();
-			if(dataManager != null) {
-				dataManager.update();
-				if(dataManager.isDirty()) {
-					MessageSyncLocalStorageData message = new MessageSyncLocalStorageData(localStorage, false);
-					for (EntityPlayerMP watcher : localStorage.getWatchers()) {
-						TheBetweenlands.networkWrapper.sendTo(message, watcher);
-					}
-				}
+		this.tickableLocalStorage.forEach(this::updateLocalStorage);
+	}
+
+	private void updateLocalStorage(ILocalStorage localStorage) {
+		((ITickable)localStorage).update();
+
+		IGenericDataManagerAccess dataManager = localStorage.getDataManager();
+		if(dataManager != null) {
+			dataManager.update();
+			if(dataManager.isDirty()) {
+				MessageSyncLocalStorageData message = new MessageSyncLocalStorageData(localStorage, false);
+				MessageBroadcast.sendTo(message, localStorage.getWatchers());
 			}
 		}
 	}
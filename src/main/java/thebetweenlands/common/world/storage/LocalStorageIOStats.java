@@ -0,0 +1,98 @@
+package thebetweenlands.common.world.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import thebetweenlands.util.TimingHistogram;
+
+/**
+ * Statistics of the local storage writers of all worlds
+ */
+public final class LocalStorageIOStats {
+	private LocalStorageIOStats() {}
+
+	static final AtomicInteger QUEUE_DEPTH = new AtomicInteger();
+	static final AtomicInteger MAX_QUEUE_DEPTH = new AtomicInteger();
+
+	static final AtomicLong QUEUED = new AtomicLong();
+	static final AtomicLong COALESCED = new AtomicLong();
+	static final AtomicLong FILES_WRITTEN = new AtomicLong();
+	static final AtomicLong FILES_DELETED = new AtomicLong();
+	static final AtomicLong REGION_ENTRIES_WRITTEN = new AtomicLong();
+	static final AtomicLong BYTES_WRITTEN = new AtomicLong();
+	static final AtomicLong BATCHES = new AtomicLong();
+	static final AtomicLong FAILURES = new AtomicLong();
+
+	/**
+	 * Write latency of a single file or region
+	 */
+	static final TimingHistogram WRITE_LATENCY = new TimingHistogram();
+
+	/**
+	 * Write latency of an entire batch, including the directory sync
+	 */
+	static final TimingHistogram BATCH_LATENCY = new TimingHistogram();
+
+	/**
+	 * Time between a write being queued and written
+	 */
+	static final TimingHistogram QUEUE_LATENCY = new TimingHistogram();
+
+	static void onQueued(boolean coalesced) {
+		QUEUED.incrementAndGet();
+		if(coalesced) {
+			COALESCED.incrementAndGet();
+		} else {
+			int depth = QUEUE_DEPTH.incrementAndGet();
+			int prevMax;
+			while(depth > (prevMax = MAX_QUEUE_DEPTH.get()) && !MAX_QUEUE_DEPTH.compareAndSet(prevMax, depth));
+		}
+	}
+
+	static void onDequeued(int count) {
+		QUEUE_DEPTH.addAndGet(-count);
+	}
+
+	/**
+	 * Returns the number of files that are currently waiting to be written
+	 * @return
+	 */
+	public static int getQueueDepth() {
+		return QUEUE_DEPTH.get();
+	}
+
+	/**
+	 * Resets all statistics except the current queue depth
+	 */
+	public static void reset() {
+		MAX_QUEUE_DEPTH.set(QUEUE_DEPTH.get());
+		QUEUED.set(0);
+		COALESCED.set(0);
+		FILES_WRITTEN.set(0);
+		FILES_DELETED.set(0);
+		REGION_ENTRIES_WRITTEN.set(0);
+		BYTES_WRITTEN.set(0);
+		BATCHES.set(0);
+		FAILURES.set(0);
+		WRITE_LATENCY.reset();
+		BATCH_LATENCY.reset();
+		QUEUE_LATENCY.reset();
+	}
+
+	/**
+	 * Returns a human readable summary of the statistics
+	 * @return
+	 */
+	public static List<String> getSummary() {
+		List<String> lines = new ArrayList<>();
+		lines.add(String.format("Queue depth: %d (max %d), queued: %d, coalesced: %d", QUEUE_DEPTH.get(), MAX_QUEUE_DEPTH.get(), QUEUED.get(), COALESCED.get()));
+		lines.add(String.format("Files written: %d, deleted: %d, region entries written: %d, failures: %d", FILES_WRITTEN.get(), FILES_DELETED.get(), REGION_ENTRIES_WRITTEN.get(), FAILURES.get()));
+		lines.add(String.format("Bytes written: %d, batches: %d", BYTES_WRITTEN.get(), BATCHES.get()));
+		lines.add("Write latency: " + WRITE_LATENCY);
+		lines.add("Batch latency: " + BATCH_LATENCY);
+		lines.add("Queue latency: " + QUEUE_LATENCY);
+		return lines;
+	}
+}
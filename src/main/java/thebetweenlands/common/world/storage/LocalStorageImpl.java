@@ -29,6 +29,7 @@ import thebetweenlands.api.storage.LocalRegion;
 import thebetweenlands.api.storage.LocalStorageReference;
 import thebetweenlands.api.storage.StorageID;
 import thebetweenlands.common.TheBetweenlands;
+import thebetweenlands.common.network.MessageBroadcast;
 import thebetweenlands.common.network.clientbound.MessageAddLocalStorage;
 import thebetweenlands.common.network.clientbound.MessageRemoveLocalStorage;
 
@@ -170,6 +171,7 @@ public abstract class LocalStorageImpl implements ILocalStorage {
 	public void setLinkedChunks(List<ChunkPos> linkedChunks) {
 		this.linkedChunks.clear();
 		this.linkedChunks.addAll(linkedChunks);
+		this.onLinkedChunksChanged();
 	}
 
 	@Override
@@ -232,7 +234,21 @@ public abstract class LocalStorageImpl implements ILocalStorage {
 	 * @param player
 	 */
 	protected void onWatched(EntityPlayerMP player) {
-		this.sendDataToPlayer(new MessageAddLocalStorage(this), player);
+		if(this.worldStorage instanceof WorldStorageImpl) {
+			//Sent batched with the other storages the player started watching this tick
+			((WorldStorageImpl) this.worldStorage).getWatchSyncQueue().addLocalStorage(player, this);
+		} else {
+			this.sendDataToPlayer(new MessageAddLocalStorage(this), player);
+			this.onWatcherSynced(player);
+		}
+	}
+
+	/**
+	 * Called after this storage was sent to a new watcher
+	 * @param player
+	 */
+	protected void onWatcherSynced(EntityPlayerMP player) {
+
 	}
 
 	@Override
@@ -250,7 +266,9 @@ public abstract class LocalStorageImpl implements ILocalStorage {
 	 * @param player
 	 */
 	protected void onUnwatched(EntityPlayerMP player) {
-
+		if(this.worldStorage instanceof WorldStorageImpl) {
+			((WorldStorageImpl) this.worldStorage).getWatchSyncQueue().removeLocalStorage(player, this);
+		}
 	}
 
 	@Override
@@ -280,6 +298,7 @@ public abstract class LocalStorageImpl implements ILocalStorage {
 			this.setDirty(true);
 		}
 		this.linkedChunks.clear();
+		this.onLinkedChunksChanged();
 		return allUnlinked;
 	}
 
@@ -292,6 +311,7 @@ public abstract class LocalStorageImpl implements ILocalStorage {
 				if(this.linkedChunks.add(chunkPos)) {
 					//TODO Send packet
 					this.setDirty(true);
+					this.onLinkedChunksChanged();
 					return true;
 				}
 			}
@@ -309,6 +329,7 @@ public abstract class LocalStorageImpl implements ILocalStorage {
 				if(this.linkedChunks.remove(chunkPos)) {
 					//TODO Send packet
 					this.setDirty(true);
+					this.onLinkedChunksChanged();
 					return true;
 				}
 			}
@@ -316,13 +337,20 @@ public abstract class LocalStorageImpl implements ILocalStorage {
 		return false;
 	}
 
+	/**
+	 * Called when the linked chunks have changed
+	 */
+	protected void onLinkedChunksChanged() {
+		if(this.loaded) {
+			this.worldStorage.getLocalStorageHandler().onLinkedChunksChanged(this);
+		}
+	}
+
 	/**
 	 * Sends the message to all watching players
 	 */
 	protected void sendMessageToAllWatchers(IMessage message) {
-		for (EntityPlayerMP watcher : this.getWatchers()) {
-			this.sendDataToPlayer(message, watcher);
-		}
+		MessageBroadcast.sendTo(message, this.getWatchers());
 	}
 
 	/**
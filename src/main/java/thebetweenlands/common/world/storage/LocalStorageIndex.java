@@ -0,0 +1,213 @@
+package thebetweenlands.common.world.storage;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Predicate;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
+import thebetweenlands.api.storage.ILocalStorage;
+
+/**
+ * Chunk keyed spatial index of all loaded local storages.
+ * Local storages are indexed by their linked chunks, which mirrors the
+ * chunk storage references, so that lookups never have to touch (or load)
+ * any chunks.
+ */
+public class LocalStorageIndex {
+	private static class Entry {
+		private final ILocalStorage storage;
+		private long[] chunks;
+		private int queryMark;
+
+		private Entry(ILocalStorage storage) {
+			this.storage = storage;
+		}
+	}
+
+	private final Long2ObjectMap<List<Entry>> chunkEntries = new Long2ObjectOpenHashMap<>();
+	private final Map<ILocalStorage, Entry> entries = new IdentityHashMap<>();
+
+	private int queryCounter = 0;
+	private int queryDepth = 0;
+
+	/**
+	 * Adds the local storage to the index, or updates its indexed
+	 * chunks if it was already added
+	 * @param storage
+	 */
+	public void add(ILocalStorage storage) {
+		Entry entry = this.entries.get(storage);
+		if(entry == null) {
+			this.entries.put(storage, entry = new Entry(storage));
+		} else {
+			this.unindex(entry);
+		}
+
+		List<ChunkPos> linkedChunks = storage.getLinkedChunks();
+		long[] chunks = new long[linkedChunks.size()];
+		for(int i = 0; i < chunks.length; i++) {
+			ChunkPos pos = linkedChunks.get(i);
+			chunks[i] = ChunkPos.asLong(pos.x, pos.z);
+		}
+		entry.chunks = chunks;
+
+		for(long chunk : chunks) {
+			List<Entry> chunkList = this.chunkEntries.get(chunk);
+			if(chunkList == null) {
+				this.chunkEntries.put(chunk, chunkList = new ArrayList<>(2));
+			}
+			if(!chunkList.contains(entry)) {
+				chunkList.add(entry);
+			}
+		}
+	}
+
+	/**
+	 * Removes the local storage from the index
+	 * @param storage
+	 */
+	public void remove(ILocalStorage storage) {
+		Entry entry = this.entries.remove(storage);
+		if(entry != null) {
+			this.unindex(entry);
+		}
+	}
+
+	private void unindex(Entry entry) {
+		if(entry.chunks != null) {
+			for(long chunk : entry.chunks) {
+				List<Entry> chunkList = this.chunkEntries.get(chunk);
+				if(chunkList != null) {
+					chunkList.remove(entry);
+					if(chunkList.isEmpty()) {
+						this.chunkEntries.remove(chunk);
+					}
+				}
+			}
+			entry.chunks = null;
+		}
+	}
+
+	/**
+	 * Removes all local storages from the index
+	 */
+	public void clear() {
+		this.chunkEntries.clear();
+		this.entries.clear();
+	}
+
+	/**
+	 * Returns the number of indexed local storages
+	 * @return
+	 */
+	public int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * Adds all local storages of the specified type that are linked to the specified chunk to the list
+	 * @param type
+	 * @param chunkX
+	 * @param chunkZ
+	 * @param filter
+	 * @param result
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends ILocalStorage> List<T> query(Class<T> type, int chunkX, int chunkZ, @Nullable Predicate<T> filter, List<T> result) {
+		List<Entry> chunkList = this.chunkEntries.get(ChunkPos.asLong(chunkX, chunkZ));
+		if(chunkList != null) {
+			for(int i = 0; i < chunkList.size(); i++) {
+				ILocalStorage storage = chunkList.get(i).storage;
+				if(storage.getBoundingBox() != null && type.isInstance(storage) && (filter == null || filter.apply((T) storage))) {
+					result.add((T) storage);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Adds all local storages of the specified type that are linked to a chunk within the
+	 * specified AABB and intersect the specified AABB to the list
+	 * @param type
+	 * @param aabb
+	 * @param filter
+	 * @param result
+	 * @return
+	 */
+	public <T extends ILocalStorage> List<T> query(Class<T> type, AxisAlignedBB aabb, @Nullable Predicate<T> filter, List<T> result) {
+		int sx = MathHelper.floor(aabb.minX) >> 4;
+		int sz = MathHelper.floor(aabb.minZ) >> 4;
+		int ex = MathHelper.floor(aabb.maxX) >> 4;
+		int ez = MathHelper.floor(aabb.maxZ) >> 4;
+
+		//Nested queries, e.g. from a filter, must not overwrite the marks of the outer query and use a set instead
+		Set<Entry> visited = this.queryDepth > 0 ? new ReferenceOpenHashSet<>() : null;
+		int mark = visited == null ? ++this.queryCounter : 0;
+
+		long area = (long)(ex - sx + 1) * (long)(ez - sz + 1);
+
+		this.queryDepth++;
+		try {
+			if(area > this.chunkEntries.size()) {
+				//Query covers more chunks than are indexed, cheaper to iterate the index
+				for(Long2ObjectMap.Entry<List<Entry>> chunkEntry : this.chunkEntries.long2ObjectEntrySet()) {
+					long chunk = chunkEntry.getLongKey();
+					int cx = (int)(chunk & 0xFFFFFFFFL);
+					int cz = (int)(chunk >>> 32);
+					if(cx >= sx && cx <= ex && cz >= sz && cz <= ez) {
+						this.collect(type, aabb, filter, chunkEntry.getValue(), mark, visited, result);
+					}
+				}
+			} else {
+				for(int cx = sx; cx <= ex; cx++) {
+					for(int cz = sz; cz <= ez; cz++) {
+						List<Entry> chunkList = this.chunkEntries.get(ChunkPos.asLong(cx, cz));
+						if(chunkList != null) {
+							this.collect(type, aabb, filter, chunkList, mark, visited, result);
+						}
+					}
+				}
+			}
+		} finally {
+			this.queryDepth--;
+		}
+
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T extends ILocalStorage> void collect(Class<T> type, AxisAlignedBB aabb, @Nullable Predicate<T> filter, List<Entry> chunkList, int mark, @Nullable Set<Entry> visited, List<T> result) {
+		for(int i = 0; i < chunkList.size(); i++) {
+			Entry entry = chunkList.get(i);
+			boolean isFirstVisit;
+			if(visited != null) {
+				isFirstVisit = visited.add(entry);
+			} else if(entry.queryMark != mark) {
+				entry.queryMark = mark;
+				isFirstVisit = true;
+			} else {
+				isFirstVisit = false;
+			}
+			if(isFirstVisit) {
+				ILocalStorage storage = entry.storage;
+				AxisAlignedBB bb = storage.getBoundingBox();
+				if(bb != null && type.isInstance(storage) && bb.intersects(aabb) && (filter == null || filter.apply((T) storage))) {
+					result.add((T) storage);
+				}
+			}
+		}
+	}
+}
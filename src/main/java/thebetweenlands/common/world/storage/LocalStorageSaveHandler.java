@@ -1,129 +1,432 @@
 package thebetweenlands.common.world.storage;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.HashSet;
-import java.util.Set;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.annotation.Nullable;
 
 import net.minecraft.nbt.CompressedStreamTools;
 import net.minecraft.nbt.NBTTagCompound;
-import net.minecraft.world.storage.IThreadedFileIO;
-import net.minecraft.world.storage.ThreadedFileIOBase;
+import thebetweenlands.api.storage.StorageID;
 import thebetweenlands.common.TheBetweenlands;
 
-public class LocalStorageSaveHandler implements IThreadedFileIO {
+/**
+ * Writes local storages and local regions asynchronously on a dedicated writer thread.
+ * Repeated saves of the same file are coalesced while queued, queued files are written
+ * in the order they were first queued and grouped into one batch per directory.
+ */
+public class LocalStorageSaveHandler {
 	private static final NBTTagCompound DELETE_NBT = new NBTTagCompound();
 
-	private final ConcurrentHashMap<File, NBTTagCompound> filesToSave = new ConcurrentHashMap<>();
+	private static final int LOCK_STRIPES = 64;
 
-	private final Set<File> fileLocks = new HashSet<>();
+	private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "Betweenlands Local Storage Writer");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY + 1);
+		return thread;
+	});
+
+	private static class PendingWrite {
+		private final File file;
+		private final long queueTime;
+
+		/**
+		 * NBT of the entire file, {@link LocalStorageSaveHandler#DELETE_NBT} if the file should be deleted.
+		 * Null for region files
+		 */
+		private NBTTagCompound nbt;
+
+		/**
+		 * Changed entries of a region file, {@link LocalStorageSaveHandler#DELETE_NBT} if the entry should be deleted.
+		 * Null for non region files
+		 */
+		private Map<String, NBTTagCompound> regionEntries;
+
+		private PendingWrite(File file) {
+			this.file = file;
+			this.queueTime = System.nanoTime();
+		}
+	}
+
+	private final Object queueLock = new Object();
+
+	/**
+	 * Files waiting to be written in the order they were first queued
+	 */
+	private final LinkedHashMap<File, PendingWrite> queue = new LinkedHashMap<>();
 
 	/**
-	 * Tries to queue the region to be saved by the file IO thread
+	 * Files that are currently being written by the writer thread
+	 */
+	private final Map<File, PendingWrite> inFlight = new HashMap<>();
+
+	private boolean drainScheduled = false;
+
+	private final ReentrantLock[] fileLocks = new ReentrantLock[LOCK_STRIPES];
+
+	private final Map<File, LocalRegionFile> regionFiles = new ConcurrentHashMap<>();
+
+	public LocalStorageSaveHandler() {
+		for(int i = 0; i < LOCK_STRIPES; i++) {
+			this.fileLocks[i] = new ReentrantLock();
+		}
+	}
+
+	/**
+	 * Tries to queue a local storage entry of a region to be saved by the writer thread
 	 * @param regionFile The region file
-	 * @param regionNbtCopy A copy of the region NBT that is not changed anywhere else. Null if the file should be deleted
+	 * @param id The ID of the local storage
+	 * @param storageNbtCopy A copy of the local storage NBT that is not changed anywhere else. Null if the entry should be deleted
 	 * @return True if the task was queued
 	 */
-	public boolean queueRegion(File regionFile, @Nullable NBTTagCompound regionNbtCopy) {
-		this.filesToSave.put(regionFile, regionNbtCopy == null ? DELETE_NBT : regionNbtCopy);
-		ThreadedFileIOBase.getThreadedIOInstance().queueIO(this);
+	public boolean queueRegionEntry(File regionFile, StorageID id, @Nullable NBTTagCompound storageNbtCopy) {
+		synchronized(this.queueLock) {
+			PendingWrite write = this.queue.get(regionFile);
+			boolean coalesced = write != null;
+			if(write == null) {
+				this.queue.put(regionFile, write = new PendingWrite(regionFile));
+				write.regionEntries = new HashMap<>();
+			}
+			write.regionEntries.put(id.getStringID(), storageNbtCopy == null ? DELETE_NBT : storageNbtCopy);
+			LocalStorageIOStats.onQueued(coalesced);
+			this.scheduleDrain();
+		}
 		return true;
 	}
 
 	/**
-	 * Triers to queue the local storage to be saved by the file IO thread
+	 * Triers to queue the local storage to be saved by the writer thread
 	 * @param storageFile The local storage file
 	 * @param storageNbtCopy A copy of the local storage NBT that is not changed anywhere else. Null if the file should ne deleted
 	 * @return True if the task was queued
 	 */
 	public boolean queueLocalStorage(File storageFile, @Nullable NBTTagCompound storageNbtCopy) {
-		this.filesToSave.put(storageFile, storageNbtCopy == null ? DELETE_NBT : storageNbtCopy);
-		ThreadedFileIOBase.getThreadedIOInstance().queueIO(this);
+		synchronized(this.queueLock) {
+			PendingWrite write = this.queue.get(storageFile);
+			boolean coalesced = write != null;
+			if(write == null) {
+				this.queue.put(storageFile, write = new PendingWrite(storageFile));
+			}
+			write.nbt = storageNbtCopy == null ? DELETE_NBT : storageNbtCopy;
+			LocalStorageIOStats.onQueued(coalesced);
+			this.scheduleDrain();
+		}
 		return true;
 	}
 
-	private void lockFile(File file) throws InterruptedException {
-		synchronized(this.fileLocks) {
-			while(this.fileLocks.contains(file)) {
-				this.fileLocks.wait();
-			}
-			this.fileLocks.add(file);
+	private void scheduleDrain() {
+		if(!this.drainScheduled) {
+			this.drainScheduled = true;
+			WRITER.execute(this::drain);
 		}
 	}
 
-	private void unlockFile(File file) {
-		synchronized(this.fileLocks) {
-			this.fileLocks.remove(file);
-			this.fileLocks.notifyAll();
-		}
+	private ReentrantLock getFileLock(File file) {
+		return this.fileLocks[(file.hashCode() & 0x7FFFFFFF) % LOCK_STRIPES];
 	}
 
 	/**
 	 * Loads the specified file as NBT
 	 * @param file
 	 * @return
-	 * @throws IOException 
+	 * @throws IOException
 	 */
 	@Nullable
 	public NBTTagCompound loadFileNbt(File file) throws IOException {
-		final NBTTagCompound queuedNbt = this.filesToSave.get(file);
-		if(queuedNbt != null) {
-			return queuedNbt.copy();
-		} else {
-			try {
-				this.lockFile(file);
-				try {
-					return CompressedStreamTools.read(file);
-				} finally {
-					this.unlockFile(file);
-				}
-			} catch(InterruptedException ex) {
-				Thread.currentThread().interrupt();
+		synchronized(this.queueLock) {
+			NBTTagCompound queuedNbt = this.getQueuedFileNbt(this.queue.get(file));
+			if(queuedNbt == null) {
+				queuedNbt = this.getQueuedFileNbt(this.inFlight.get(file));
+			}
+			if(queuedNbt != null) {
+				return queuedNbt == DELETE_NBT ? null : queuedNbt.copy();
+			}
+		}
+		ReentrantLock lock = this.getFileLock(file);
+		lock.lock();
+		try {
+			return CompressedStreamTools.read(file);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Nullable
+	private NBTTagCompound getQueuedFileNbt(@Nullable PendingWrite write) {
+		return write != null ? write.nbt : null;
+	}
+
+	/**
+	 * Loads the local storage entry with the specified ID from the specified region file
+	 * @param regionFile
+	 * @param id
+	 * @return
+	 * @throws IOException
+	 */
+	@Nullable
+	public NBTTagCompound loadRegionEntryNbt(File regionFile, StorageID id) throws IOException {
+		synchronized(this.queueLock) {
+			NBTTagCompound queuedNbt = this.getQueuedRegionEntryNbt(this.queue.get(regionFile), id);
+			if(queuedNbt == null) {
+				queuedNbt = this.getQueuedRegionEntryNbt(this.inFlight.get(regionFile), id);
 			}
-			return null;
+			if(queuedNbt != null) {
+				return queuedNbt == DELETE_NBT ? null : queuedNbt.copy();
+			}
+		}
+		ReentrantLock lock = this.getFileLock(regionFile);
+		lock.lock();
+		try {
+			return this.getRegionFile(regionFile).read(id.getStringID());
+		} finally {
+			lock.unlock();
 		}
 	}
 
-	@Override
-	public boolean writeNextIO() {
-		if(!this.filesToSave.isEmpty()) {
-			final File file = this.filesToSave.keySet().iterator().next();
+	@Nullable
+	private NBTTagCompound getQueuedRegionEntryNbt(@Nullable PendingWrite write, StorageID id) {
+		return write != null && write.regionEntries != null ? write.regionEntries.get(id.getStringID()) : null;
+	}
 
-			final NBTTagCompound nbt = this.filesToSave.remove(file);
+	/**
+	 * Converts a legacy region file, which stores the entire region in one NBT compound, to the
+	 * sector based region file format and deletes the legacy file afterwards.
+	 * Does nothing if the region file already exists
+	 * @param legacyFile
+	 * @param regionFile
+	 * @throws IOException
+	 */
+	public void convertLegacyRegion(File legacyFile, File regionFile) throws IOException {
+		ReentrantLock lock = this.getFileLock(regionFile);
+		lock.lock();
+		try {
+			if(!regionFile.exists() && legacyFile.exists()) {
+				NBTTagCompound legacyNbt = CompressedStreamTools.read(legacyFile);
+				if(legacyNbt != null && legacyNbt.getSize() > 0) {
+					Map<String, NBTTagCompound> entries = new HashMap<>();
+					for(String key : legacyNbt.getKeySet()) {
+						entries.put(key, legacyNbt.getCompoundTag(key));
+					}
 
-			if(nbt != null) {
-				try {
-					this.lockFile(file);
-					try {
-						if(nbt == DELETE_NBT) {
-							if(file.exists()) {
-								file.delete();
-							}
-						} else {
-							try {
-								file.getParentFile().mkdirs();
-								CompressedStreamTools.safeWrite(nbt, file);
-							} catch(Exception ex) {
-								TheBetweenlands.logger.error("Failed to save region or local storage: " + file.getAbsolutePath(), ex);
-							}
-						}
-					} finally {
-						this.unlockFile(file);
+					//Write to a temporary file first so that an interrupted conversion does not leave an incomplete region file behind
+					File tmpFile = new File(regionFile.getAbsolutePath() + "_tmp");
+					if(tmpFile.exists()) {
+						tmpFile.delete();
 					}
-				} catch(InterruptedException ex) {
-					Thread.currentThread().interrupt();
+					LocalRegionFile.open(tmpFile).write(entries);
+					if(!tmpFile.renameTo(regionFile)) {
+						throw new IOException("Failed renaming converted local region file " + tmpFile.getAbsolutePath());
+					}
+					this.regionFiles.remove(regionFile);
+
+					TheBetweenlands.logger.info(String.format("Converted %d local storages of legacy local region file %s", entries.size(), legacyFile.getAbsolutePath()));
+				} else {
+					legacyFile.delete();
+				}
+			}
+			if(regionFile.exists()) {
+				legacyFile.delete();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the cached region file. Must only be called while the file is locked
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	private LocalRegionFile getRegionFile(File file) throws IOException {
+		LocalRegionFile regionFile = this.regionFiles.get(file);
+		if(regionFile == null) {
+			this.regionFiles.put(file, regionFile = LocalRegionFile.open(file));
+		}
+		return regionFile;
+	}
+
+	/**
+	 * Writes all queued files until the queue is empty. Runs on the writer thread
+	 */
+	private void drain() {
+		while(true) {
+			List<PendingWrite> batch;
+
+			synchronized(this.queueLock) {
+				if(this.queue.isEmpty()) {
+					this.drainScheduled = false;
+					this.queueLock.notifyAll();
+					return;
+				}
+				batch = new ArrayList<>(this.queue.values());
+				this.inFlight.putAll(this.queue);
+				this.queue.clear();
+			}
+
+			//Group by directory, keeping the queue order
+			Map<File, List<PendingWrite>> directoryBatches = new LinkedHashMap<>();
+			for(PendingWrite write : batch) {
+				File dir = write.file.getParentFile();
+				List<PendingWrite> directoryBatch = directoryBatches.get(dir);
+				if(directoryBatch == null) {
+					directoryBatches.put(dir, directoryBatch = new ArrayList<>());
 				}
+				directoryBatch.add(write);
+			}
+
+			for(Map.Entry<File, List<PendingWrite>> directoryBatch : directoryBatches.entrySet()) {
+				this.writeBatch(directoryBatch.getKey(), directoryBatch.getValue());
+			}
+		}
+	}
+
+	private void writeBatch(File dir, List<PendingWrite> batch) {
+		long batchStart = System.nanoTime();
+
+		dir.mkdirs();
+
+		boolean syncDir = false;
+
+		for(PendingWrite write : batch) {
+			long writeStart = System.nanoTime();
+
+			LocalStorageIOStats.QUEUE_LATENCY.record(writeStart - write.queueTime);
+
+			ReentrantLock lock = this.getFileLock(write.file);
+			lock.lock();
+			try {
+				if(write.regionEntries != null) {
+					this.writeRegion(write);
+				} else {
+					syncDir |= this.writeFile(write);
+				}
+			} catch(Exception ex) {
+				LocalStorageIOStats.FAILURES.incrementAndGet();
+				TheBetweenlands.logger.error("Failed to save region or local storage: " + write.file.getAbsolutePath(), ex);
+			} finally {
+				synchronized(this.queueLock) {
+					this.inFlight.remove(write.file);
+				}
+				lock.unlock();
+			}
+
+			LocalStorageIOStats.onDequeued(1);
+			LocalStorageIOStats.WRITE_LATENCY.record(System.nanoTime() - writeStart);
+		}
+
+		if(syncDir) {
+			//One sync for all renamed and deleted files of the batch
+			try(FileChannel channel = FileChannel.open(dir.toPath(), StandardOpenOption.READ)) {
+				channel.force(true);
+			} catch(IOException ex) {
+				//Directories can't be synced on all platforms
+			}
+		}
+
+		LocalStorageIOStats.BATCHES.incrementAndGet();
+		LocalStorageIOStats.BATCH_LATENCY.record(System.nanoTime() - batchStart);
+	}
+
+	/**
+	 * Writes or deletes a single file
+	 * @param write
+	 * @return Whether the directory has changed
+	 * @throws IOException
+	 */
+	private boolean writeFile(PendingWrite write) throws IOException {
+		File file = write.file;
+
+		if(write.nbt == DELETE_NBT) {
+			if(file.exists() && file.delete()) {
+				LocalStorageIOStats.FILES_DELETED.incrementAndGet();
+				return true;
 			}
+			return false;
+		}
+
+		File tmpFile = new File(file.getAbsolutePath() + "_tmp");
+		if(tmpFile.exists()) {
+			tmpFile.delete();
+		}
 
-			return true;
+		//Written uncompressed like CompressedStreamTools#safeWrite, the files are read with CompressedStreamTools#read(File)
+		try(FileOutputStream fileOut = new FileOutputStream(tmpFile)) {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+			CompressedStreamTools.write(write.nbt, out);
+			out.flush();
+			//Make sure the data is on disk before the rename, otherwise a crash could leave an empty file behind
+			fileOut.getFD().sync();
 		}
-		return false;
+
+		if(file.exists()) {
+			file.delete();
+		}
+
+		if(!tmpFile.renameTo(file)) {
+			throw new IOException("Failed to rename " + tmpFile.getAbsolutePath());
+		}
+
+		LocalStorageIOStats.FILES_WRITTEN.incrementAndGet();
+		LocalStorageIOStats.BYTES_WRITTEN.addAndGet(file.length());
+
+		return true;
 	}
 
+	/**
+	 * Writes all changed entries of a region file
+	 * @param write
+	 * @throws IOException
+	 */
+	private void writeRegion(PendingWrite write) throws IOException {
+		Map<String, NBTTagCompound> entries = new HashMap<>(write.regionEntries.size());
+		for(Map.Entry<String, NBTTagCompound> entry : write.regionEntries.entrySet()) {
+			entries.put(entry.getKey(), entry.getValue() == DELETE_NBT ? null : entry.getValue());
+		}
+
+		try {
+			LocalRegionFile regionFile = this.getRegionFile(write.file);
+			LocalStorageIOStats.BYTES_WRITTEN.addAndGet(regionFile.write(entries));
+			LocalStorageIOStats.REGION_ENTRIES_WRITTEN.addAndGet(entries.size());
+			if(regionFile.isEmpty()) {
+				this.regionFiles.remove(write.file);
+				write.file.delete();
+			}
+		} catch(IOException ex) {
+			//Drop cached offsets, they may not match the file anymore
+			this.regionFiles.remove(write.file);
+			throw ex;
+		}
+	}
+
+	/**
+	 * Blocks until all queued files have been written
+	 */
 	public void flush() {
-		while(this.writeNextIO());
+		synchronized(this.queueLock) {
+			while(this.drainScheduled) {
+				try {
+					this.queueLock.wait();
+				} catch(InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
 	}
 }
@@ -0,0 +1,127 @@
+package thebetweenlands.common.world.storage;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.nbt.NBTTagCompound;
+import thebetweenlands.api.storage.ILocalStorage;
+import thebetweenlands.common.TheBetweenlands;
+import thebetweenlands.common.network.clientbound.MessageAddLocalStorage;
+import thebetweenlands.common.network.clientbound.MessageSyncChunkStorage;
+import thebetweenlands.common.network.clientbound.MessageSyncWatchedStorages;
+
+/**
+ * Collects the chunk storages and local storages that players started watching and sends them
+ * batched in {@link MessageSyncWatchedStorages} on the next world storage tick.
+ * Each local storage is sent once per player no matter how many watched chunks reference it,
+ * and chunk storages without any data aren't sent at all
+ */
+public class StorageWatchSyncQueue {
+	private static final int MAX_ENTRIES_PER_MESSAGE = 256;
+
+	private static class PendingSync {
+		private final Set<LocalStorageImpl> localStorages = new LinkedHashSet<>();
+		private final Set<ChunkStorageImpl> chunkStorages = new LinkedHashSet<>();
+	}
+
+	private final WorldStorageImpl worldStorage;
+	private final Map<EntityPlayerMP, PendingSync> pending = new LinkedHashMap<>();
+
+	public StorageWatchSyncQueue(WorldStorageImpl worldStorage) {
+		this.worldStorage = worldStorage;
+	}
+
+	private PendingSync getPendingSync(EntityPlayerMP player) {
+		PendingSync sync = this.pending.get(player);
+		if(sync == null) {
+			this.pending.put(player, sync = new PendingSync());
+		}
+		return sync;
+	}
+
+	public void addLocalStorage(EntityPlayerMP player, LocalStorageImpl storage) {
+		this.getPendingSync(player).localStorages.add(storage);
+	}
+
+	public void removeLocalStorage(EntityPlayerMP player, LocalStorageImpl storage) {
+		PendingSync sync = this.pending.get(player);
+		if(sync != null) {
+			sync.localStorages.remove(storage);
+		}
+	}
+
+	public void addChunkStorage(EntityPlayerMP player, ChunkStorageImpl storage) {
+		this.getPendingSync(player).chunkStorages.add(storage);
+	}
+
+	public void removeChunkStorage(EntityPlayerMP player, ChunkStorageImpl storage) {
+		PendingSync sync = this.pending.get(player);
+		if(sync != null) {
+			sync.chunkStorages.remove(storage);
+		}
+	}
+
+	/**
+	 * Sends all queued storages to their players
+	 */
+	public void flush() {
+		if(this.pending.isEmpty()) {
+			return;
+		}
+
+		for(Map.Entry<EntityPlayerMP, PendingSync> entry : this.pending.entrySet()) {
+			EntityPlayerMP player = entry.getKey();
+			PendingSync sync = entry.getValue();
+
+			if(player.hasDisconnected() || player.world != this.worldStorage.getWorld()) {
+				continue;
+			}
+
+			List<LocalStorageImpl> syncedLocalStorages = new ArrayList<>(sync.localStorages.size());
+
+			MessageSyncWatchedStorages message = new MessageSyncWatchedStorages();
+
+			for(LocalStorageImpl storage : sync.localStorages) {
+				//Storage may have been removed or unwatched since it was queued
+				if(this.worldStorage.getLocalStorageHandler().getLocalStorage(storage.getID()) == storage && storage.getWatchers().contains(player)) {
+					message.addLocalStorage(new MessageAddLocalStorage(storage));
+					syncedLocalStorages.add(storage);
+					message = this.sendIfFull(message, player);
+				}
+			}
+
+			for(ChunkStorageImpl storage : sync.chunkStorages) {
+				if(storage.getWatchers().contains(player)) {
+					NBTTagCompound nbt = storage.writeToNBT(new NBTTagCompound(), true);
+					if(nbt.getSize() > 0) {
+						message.addChunkStorage(new MessageSyncChunkStorage(storage, nbt));
+						message = this.sendIfFull(message, player);
+					}
+				}
+			}
+
+			if(message.getSize() > 0) {
+				TheBetweenlands.networkWrapper.sendTo(message, player);
+			}
+
+			for(LocalStorageImpl storage : syncedLocalStorages) {
+				storage.onWatcherSynced(player);
+			}
+		}
+
+		this.pending.clear();
+	}
+
+	private MessageSyncWatchedStorages sendIfFull(MessageSyncWatchedStorages message, EntityPlayerMP player) {
+		if(message.getSize() >= MAX_ENTRIES_PER_MESSAGE) {
+			TheBetweenlands.networkWrapper.sendTo(message, player);
+			return new MessageSyncWatchedStorages();
+		}
+		return message;
+	}
+}
@@ -1,5 +1,7 @@
 package thebetweenlands.common.world.storage;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.nbt.NBTBase;
 import net.minecraft.nbt.NBTTagCompound;
@@ -22,12 +24,9 @@ import thebetweenlands.api.storage.IWorldStorage;
 import thebetweenlands.common.TheBetweenlands;
 import thebetweenlands.common.config.BetweenlandsConfig;
 import thebetweenlands.common.lib.ModInfo;
+import thebetweenlands.util.TickList;
 
 import javax.annotation.Nullable;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import java.util.concurrent.Callable;
 
 public abstract class WorldStorageImpl implements IWorldStorage {
@@ -124,13 +123,15 @@ public abstract class WorldStorageImpl implements IWorldStorage {
 	@CapabilityInject(IWorldStorage.class)
 	public static final Capability<IWorldStorage> CAPABILITY_INSTANCE = null;
 
-	private Map<ChunkPos, ChunkStorageImpl> storageMap = new HashMap<>();
-	private List<ITickable> tickableStorages = new ArrayList<>();
+	private Long2ObjectMap<ChunkStorageImpl> storageMap = new Long2ObjectOpenHashMap<>();
+	private TickList<ITickable> tickableStorages = new TickList<>();
 
 	private World world;
 
 	private ILocalStorageHandler localStorageHandler;
 
+	private final StorageWatchSyncQueue watchSyncQueue = new StorageWatchSyncQueue(this);
+
 	/**
 	 * Sets the capability's world
 	 * @param world
@@ -157,12 +158,12 @@ public abstract class WorldStorageImpl implements IWorldStorage {
 
 	@Override
 	public void loadChunk(Chunk chunk) {
-		if(!this.storageMap.containsKey(chunk.getPos())) {
+		if(!this.storageMap.containsKey(ChunkPos.asLong(chunk.x, chunk.z))) {
 			try {
 				ChunkStorageImpl storage = new BetweenlandsChunkStorage(this, chunk);
 				storage.init();
 				storage.setDefaults();
-				this.storageMap.put(chunk.getPos(), storage);
+				this.storageMap.put(ChunkPos.asLong(chunk.x, chunk.z), storage);
 
 				if(storage instanceof ITickable) {
 					this.tickableStorages.add((ITickable) storage);
@@ -178,14 +179,14 @@ public abstract class WorldStorageImpl implements IWorldStorage {
 
 	@Override
 	public void readAndLoadChunk(Chunk chunk, NBTTagCompound nbt) {
-		if(this.storageMap.containsKey(chunk.getPos())) {
+		if(this.storageMap.containsKey(ChunkPos.asLong(chunk.x, chunk.z))) {
 			if(BetweenlandsConfig.DEBUG.debug) TheBetweenlands.logger.warn(String.format("Reading chunk storage at %s, but chunk storage is already loaded!", "[x=" + chunk.x + ", z=" + chunk.z + "]"));
 		} else {
 			try {
 				ChunkStorageImpl storage = new BetweenlandsChunkStorage(this, chunk);
 				storage.init();
 				storage.readFromNBT(nbt, false);
-				this.storageMap.put(chunk.getPos(), storage);
+				this.storageMap.put(ChunkPos.asLong(chunk.x, chunk.z), storage);
 
 				if(storage instanceof ITickable) {
 					this.tickableStorages.add((ITickable) storage);
@@ -198,10 +199,10 @@ public abstract class WorldStorageImpl implements IWorldStorage {
 
 	@Override
 	public void unloadChunk(Chunk chunk) {
-		if(!this.storageMap.containsKey(chunk.getPos())) {
+		if(!this.storageMap.containsKey(ChunkPos.asLong(chunk.x, chunk.z))) {
 			if(BetweenlandsConfig.DEBUG.debug) TheBetweenlands.logger.warn(String.format("Unloading chunk storage at %s, but chunk storage is not loaded!", "[x=" + chunk.x + ", z=" + chunk.z + "]"));
 		} else {
-			ChunkStorageImpl storage = this.storageMap.remove(chunk.getPos());
+			ChunkStorageImpl storage = this.storageMap.remove(ChunkPos.asLong(chunk.x, chunk.z));
 			if(storage instanceof ITickable) {
 				this.tickableStorages.remove((ITickable) storage);
 			}
@@ -211,11 +212,11 @@ public abstract class WorldStorageImpl implements IWorldStorage {
 
 	@Override
 	public NBTTagCompound saveChunk(Chunk chunk) {
-		if(!this.storageMap.containsKey(chunk.getPos())) {
+		if(!this.storageMap.containsKey(ChunkPos.asLong(chunk.x, chunk.z))) {
 			if(BetweenlandsConfig.DEBUG.debug) TheBetweenlands.logger.warn(String.format("Saving chunk storage at %s, but chunk storage is not loaded!", "[x=" + chunk.x + ", z=" + chunk.z + "]"));
 		} else {
 			try {
-				ChunkStorageImpl storage = this.storageMap.get(chunk.getPos());
+				ChunkStorageImpl storage = this.storageMap.get(ChunkPos.asLong(chunk.x, chunk.z));
 				NBTTagCompound nbt = storage.writeToNBT(new NBTTagCompound(), false);
 				storage.setDirty(false);
 				return nbt;
@@ -228,7 +229,7 @@ public abstract class WorldStorageImpl implements IWorldStorage {
 
 	@Override
 	public void watchChunk(ChunkPos pos, EntityPlayerMP player) {
-		ChunkStorageImpl storage = this.storageMap.get(pos);
+		ChunkStorageImpl storage = this.storageMap.get(ChunkPos.asLong(pos.x, pos.z));
 		if(storage != null) {
 			storage.addWatcher(player);
 		}
@@ -236,7 +237,7 @@ public abstract class WorldStorageImpl implements IWorldStorage {
 
 	@Override
 	public void unwatchChunk(ChunkPos pos, EntityPlayerMP player) {
-		ChunkStorageImpl storage = this.storageMap.get(pos);
+		ChunkStorageImpl storage = this.storageMap.get(ChunkPos.asLong(pos.x, pos.z));
 		if(storage != null) {
 			storage.removeWatcher(player);
 		}
@@ -244,7 +245,7 @@ public abstract class WorldStorageImpl implements IWorldStorage {
 
 	@Override
 	public ChunkStorageImpl getChunkStorage(Chunk chunk) {
-		return this.storageMap.get(chunk.getPos());
+		return this.storageMap.get(ChunkPos.asLong(chunk.x, chunk.z));
 	}
 
 	@Override
@@ -252,13 +253,23 @@ public abstract class WorldStorageImpl implements IWorldStorage {
 		return this.localStorageHandler;
 	}
 
+	/**
+	 * Returns the queue of storages that need to be sent to their new watchers
+	 * @return
+	 */
+	public StorageWatchSyncQueue getWatchSyncQueue() {
+		return this.watchSyncQueue;
+	}
+
 	@Override
 	public void tick() {
+		if(!this.world.isRemote) {
+			//Storages must be sent before any of their updates are
+			this.watchSyncQueue.flush();
+		}
+
 		this.localStorageHandler.update();
 
-		for(int i = 0; i < this.tickableStorages.size(); i++) {
-			ITickable tickable = this.tickableStorages.get(i);
-			tickable.update();
-		}
+		this.tickableStorages.forEach(ITickable::update);
 	}
 }
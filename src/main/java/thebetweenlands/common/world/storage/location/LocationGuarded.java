@@ -1,33 +1,57 @@
 package thebetweenlands.common.world.storage.location;
 
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Nullable;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.server.management.PlayerChunkMap;
 import net.minecraft.util.ITickable;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import thebetweenlands.api.storage.IChunkStorage;
 import thebetweenlands.api.storage.IWorldStorage;
 import thebetweenlands.api.storage.LocalRegion;
 import thebetweenlands.api.storage.StorageID;
+import thebetweenlands.common.network.MessageBroadcast;
+import thebetweenlands.common.network.clientbound.MessageBlockGuardChanges;
 import thebetweenlands.common.network.clientbound.MessageBlockGuardData;
-import thebetweenlands.common.network.clientbound.MessageBlockGuardSectionChange;
 import thebetweenlands.common.network.clientbound.MessageClearBlockGuard;
 import thebetweenlands.common.world.storage.location.guard.BlockLocationGuard;
-import thebetweenlands.common.world.storage.location.guard.BlockLocationGuard.GuardChunkSection;
 
 public class LocationGuarded extends LocationStorage implements ITickable {
+	/**
+	 * If more blocks of a chunk change within one tick the whole chunk is synced instead
+	 */
+	private static final int MAX_CHUNK_CHANGES = 1024;
+
 	private BlockLocationGuard guard = new BlockLocationGuard() {
 		@Override
 		public boolean setGuarded(World world, BlockPos pos, boolean guarded) {
 			if(super.setGuarded(world, pos, guarded)) {
 				LocationGuarded.this.setDirty(true);
 				if(!LocationGuarded.this.getWatchers().isEmpty()) {
-					LocationGuarded.this.queuedChanges.add(new BlockPos(pos.getX() / 16, pos.getY() / 16, pos.getZ() / 16));
+					long chunk = ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4);
+					IntSet changes = LocationGuarded.this.queuedChanges.get(chunk);
+					if(changes == null) {
+						LocationGuarded.this.queuedChanges.put(chunk, changes = new IntOpenHashSet());
+					}
+					changes.add(pos.getY() << 8 | (pos.getZ() & 15) << 4 | (pos.getX() & 15));
 				}
 				return true;
 			}
@@ -40,14 +64,19 @@ public class LocationGuarded extends LocationStorage implements ITickable {
 			LocationGuarded.this.setDirty(true);
 			if(!LocationGuarded.this.getWatchers().isEmpty()) {
 				LocationGuarded.this.queuedChanges.clear();
+				LocationGuarded.this.outdatedChunks.clear();
 				LocationGuarded.this.queuedClear = true;
 			}
 		}
 	};
 
-	private Set<BlockPos> queuedChanges = new HashSet<>();
+	//Changed positions per world chunk since the last update
+	private Long2ObjectMap<IntSet> queuedChanges = new Long2ObjectOpenHashMap<>();
 	private boolean queuedClear;
 
+	//World chunks whose changes weren't sent to a watcher because the watcher wasn't watching the chunk
+	private Map<EntityPlayerMP, LongSet> outdatedChunks = new HashMap<>();
+
 	public LocationGuarded(IWorldStorage worldStorage, StorageID id, @Nullable LocalRegion region) {
 		super(worldStorage, id, region);
 	}
@@ -75,36 +104,97 @@ public class LocationGuarded extends LocationStorage implements ITickable {
 	}
 
 	@Override
-	public void onWatched(EntityPlayerMP player) {
-		super.onWatched(player);
+	public boolean addWatcher(IChunkStorage chunkStorage, EntityPlayerMP player) {
+		boolean added = super.addWatcher(chunkStorage, player);
+		if(!added) {
+			//Player is already watching through another chunk, resync the newly watched chunk if it missed changes
+			LongSet outdated = this.outdatedChunks.get(player);
+			if(outdated != null) {
+				int chunkX = chunkStorage.getChunk().x;
+				int chunkZ = chunkStorage.getChunk().z;
+				if(outdated.remove(ChunkPos.asLong(chunkX, chunkZ))) {
+					this.sendDataToPlayer(new MessageBlockGuardData(this, chunkX, chunkZ), player);
+				}
+				if(outdated.isEmpty()) {
+					this.outdatedChunks.remove(player);
+				}
+			}
+		}
+		return added;
+	}
+
+	@Override
+	protected void onWatcherSynced(EntityPlayerMP player) {
+		super.onWatcherSynced(player);
 		MessageBlockGuardData message = new MessageBlockGuardData(this);
 		this.sendDataToPlayer(message, player);
 	}
 
+	@Override
+	protected void onUnwatched(EntityPlayerMP player) {
+		super.onUnwatched(player);
+		this.outdatedChunks.remove(player);
+	}
+
 	@Override
 	public void update() {
 		if(this.queuedClear) {
-			MessageClearBlockGuard message = new MessageClearBlockGuard(this); 
-			for(EntityPlayerMP watcher : this.getWatchers()) {
-				this.sendDataToPlayer(message, watcher);
-			}
+			this.sendMessageToAllWatchers(new MessageClearBlockGuard(this));
 			this.queuedClear = false;
 		} else if(!this.queuedChanges.isEmpty()) {
-			if(this.getWatchers().isEmpty()) {
-				this.queuedChanges.clear();
-			} else {
-				Iterator<BlockPos> it = this.queuedChanges.iterator();
-				while(it.hasNext()) {
-					BlockPos pos = it.next();
-					BlockPos worldPos = new BlockPos(pos.getX() * 16, pos.getY() * 16, pos.getZ() * 16);
-					GuardChunkSection section = this.guard.getSection(worldPos);
-					MessageBlockGuardSectionChange message = new MessageBlockGuardSectionChange(this, worldPos, section); 
+			if(!this.getWatchers().isEmpty()) {
+				World world = this.getWorldStorage().getWorld();
+				PlayerChunkMap playerChunkMap = world instanceof WorldServer ? ((WorldServer) world).getPlayerChunkMap() : null;
+
+				BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+				IntArrayList guarded = new IntArrayList();
+				IntArrayList unguarded = new IntArrayList();
+				List<EntityPlayerMP> recipients = new ArrayList<>();
+
+				for(Long2ObjectMap.Entry<IntSet> entry : this.queuedChanges.long2ObjectEntrySet()) {
+					long chunk = entry.getLongKey();
+					int chunkX = (int) chunk;
+					int chunkZ = (int) (chunk >> 32);
+					IntSet changes = entry.getValue();
+
+					IMessage message;
+					if(changes.size() > MAX_CHUNK_CHANGES) {
+						message = new MessageBlockGuardData(this, chunkX, chunkZ);
+					} else {
+						guarded.clear();
+						unguarded.clear();
+						IntIterator it = changes.iterator();
+						while(it.hasNext()) {
+							int change = it.nextInt();
+							pos.setPos(chunkX * 16 + (change & 15), change >> 8, chunkZ * 16 + ((change >> 4) & 15));
+							if(this.guard.isGuarded(world, null, pos)) {
+								guarded.add(change);
+							} else {
+								unguarded.add(change);
+							}
+						}
+						message = new MessageBlockGuardChanges(this, chunkX, chunkZ, guarded, unguarded);
+					}
+
+					//Changes of chunks that aren't linked can't be resynced when the chunk is watched
+					boolean filter = playerChunkMap != null && this.getLinkedChunks().contains(new ChunkPos(chunkX, chunkZ));
+
+					recipients.clear();
 					for(EntityPlayerMP watcher : this.getWatchers()) {
-						this.sendDataToPlayer(message, watcher);
+						if(!filter || playerChunkMap.isPlayerWatchingChunk(watcher, chunkX, chunkZ)) {
+							recipients.add(watcher);
+						} else {
+							LongSet outdated = this.outdatedChunks.get(watcher);
+							if(outdated == null) {
+								this.outdatedChunks.put(watcher, outdated = new LongOpenHashSet());
+							}
+							outdated.add(chunk);
+						}
 					}
-					it.remove();
+					MessageBroadcast.sendTo(message, recipients);
 				}
 			}
+			this.queuedChanges.clear();
 		}
 	}
-}
\ No newline at end of file
+}
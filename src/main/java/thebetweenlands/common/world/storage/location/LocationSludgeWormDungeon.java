@@ -1,16 +1,14 @@
 package thebetweenlands.common.world.storage.location;
 
-import java.util.Set;
-
 import javax.annotation.Nullable;
 
+import it.unimi.dsi.fastutil.longs.LongSet;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.network.datasync.DataParameter;
 import net.minecraft.network.datasync.DataSerializers;
 import net.minecraft.util.math.AxisAlignedBB;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.World;
 import net.minecraft.world.WorldServer;
@@ -64,8 +62,8 @@ public class LocationSludgeWormDungeon extends LocationGuarded {
 			private boolean[] playerOccupancy = new boolean[MAX_FLOORS];
 
 			@Override
-			protected void updateSpawnerChunks(WorldServer world, Set<ChunkPos> spawnerChunks) {
-				super.updateSpawnerChunks(world, spawnerChunks);
+			protected LongSet getSpawnerChunks(WorldServer world) {
+				LongSet spawnerChunks = super.getSpawnerChunks(world);
 
 				for(int i = 0; i < this.playerOccupancy.length; i++) {
 					this.playerOccupancy[i] = false;
@@ -78,6 +76,8 @@ public class LocationSludgeWormDungeon extends LocationGuarded {
 						this.playerOccupancy[floor] = true;
 					}
 				}
+
+				return spawnerChunks;
 			}
 
 			@Override
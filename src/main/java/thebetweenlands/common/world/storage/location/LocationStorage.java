@@ -530,27 +530,7 @@ public class LocationStorage extends LocalStorageImpl {
 	 * @return
 	 */
 	public static LocationAmbience getAmbience(World world, Vec3d position) {
-		List<LocationStorage> locations = LocationStorage.getLocations(world, position);
-		if(locations.isEmpty())
-			return null;
-		Collections.sort(locations, LAYER_SORTER);
-		LocationStorage highestLocation = null;
-		for(int i = 0; i < locations.size(); i++) {
-			LocationStorage storage = locations.get(i);
-			if(storage.hasAmbience() || storage.inheritAmbience)
-				highestLocation = storage;
-		}
-		if(highestLocation != null) {
-			if(highestLocation.ambience == null && highestLocation.inheritAmbience) {
-				for(int i = 0; i < locations.size(); i++) {
-					LocationStorage storage = locations.get(i);
-					if(storage.hasAmbience())
-						return storage.ambience;
-				}
-			}
-			return highestLocation.ambience;
-		}
-		return null;
+		return getAmbience(LocationStorage.getLocations(world, position));
 	}
 
 	/**
@@ -559,7 +539,15 @@ public class LocationStorage extends LocalStorageImpl {
 	 * @return
 	 */
 	public static LocationAmbience getAmbience(Entity entity) {
-		List<LocationStorage> locations = getLocations(entity);
+		return getAmbience(getLocations(entity));
+	}
+
+	/**
+	 * Returns the highest priority ambience of the specified locations. The list is sorted by layer
+	 * @param locations
+	 * @return
+	 */
+	public static LocationAmbience getAmbience(List<LocationStorage> locations) {
 		if(locations.isEmpty())
 			return null;
 		Collections.sort(locations, LAYER_SORTER);
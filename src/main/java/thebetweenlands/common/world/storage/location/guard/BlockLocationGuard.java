@@ -1,5 +1,8 @@
 package thebetweenlands.common.world.storage.location.guard;
 
+import java.util.Arrays;
+import java.util.Collection;
+
 import javax.annotation.Nullable;
 
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
@@ -7,6 +10,7 @@ import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import net.minecraft.entity.Entity;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
+import net.minecraft.network.PacketBuffer;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.Explosion;
@@ -29,6 +33,87 @@ public class BlockLocationGuard implements ILocationGuard {
 		return this.chunkMap.get(id);
 	}
 
+	/**
+	 * Returns the chunk at the specified guard chunk coordinates
+	 * @param chunkX
+	 * @param chunkZ
+	 * @return
+	 */
+	@Nullable
+	public GuardChunk getChunk(int chunkX, int chunkZ) {
+		return this.chunkMap.get(ChunkPos.asLong(chunkX, chunkZ));
+	}
+
+	/**
+	 * Returns all chunks of this guard
+	 * @return
+	 */
+	public Collection<GuardChunk> getChunks() {
+		return this.chunkMap.values();
+	}
+
+	/**
+	 * Chunks of the guard are indexed by block coordinate / 16, i.e. rounded towards zero,
+	 * so a guard chunk coordinate at or below zero also covers blocks of the world chunk below it.
+	 * Returns the lowest world chunk coordinate that is covered by the specified guard chunk coordinate
+	 * @param guardChunkCoord
+	 * @return
+	 */
+	public static int getMinWorldChunkCoord(int guardChunkCoord) {
+		return guardChunkCoord <= 0 ? guardChunkCoord - 1 : guardChunkCoord;
+	}
+
+	/**
+	 * Returns the highest guard chunk coordinate that covers blocks of the specified world chunk coordinate.
+	 * The lowest guard chunk coordinate is always equal to the world chunk coordinate
+	 * @see #getMinWorldChunkCoord(int)
+	 * @param worldChunkCoord
+	 * @return
+	 */
+	public static int getMaxGuardChunkCoord(int worldChunkCoord) {
+		return worldChunkCoord < 0 ? worldChunkCoord + 1 : worldChunkCoord;
+	}
+
+	/**
+	 * Writes the specified chunk to the buffer. If the chunk doesn't exist it is written as empty chunk
+	 * @param buf
+	 * @param chunkX Guard chunk X coordinate
+	 * @param chunkZ Guard chunk Z coordinate
+	 */
+	public void writeChunk(PacketBuffer buf, int chunkX, int chunkZ) {
+		buf.writeInt(chunkX);
+		buf.writeInt(chunkZ);
+		GuardChunk chunk = this.getChunk(chunkX, chunkZ);
+		if(chunk != null) {
+			chunk.writeToBuffer(buf);
+		} else {
+			buf.writeShort(0);
+		}
+	}
+
+	/**
+	 * Reads a chunk written by {@link #writeChunk(PacketBuffer, int, int)} and replaces the existing chunk
+	 * @param buf
+	 */
+	public void readChunk(PacketBuffer buf) {
+		int x = buf.readInt();
+		int z = buf.readInt();
+		GuardChunk chunk = new GuardChunk(x, z);
+		chunk.readFromBuffer(buf);
+		if(chunk.isEmpty()) {
+			this.chunkMap.remove(ChunkPos.asLong(x, z));
+		} else {
+			this.chunkMap.put(ChunkPos.asLong(x, z), chunk);
+		}
+	}
+
+	/**
+	 * Removes all chunks without any further side effects, used when the guard is synced
+	 */
+	public void clearChunks() {
+		this.chunkMap.clear();
+	}
+
 	/**
 	 * Returns the chunk section at the specified position
 	 * @param pos
@@ -129,6 +214,16 @@ public class BlockLocationGuard implements ILocationGuard {
 	}
 
 	public static class GuardChunkSection {
+		public static final byte ENCODING_EMPTY = 0;
+		public static final byte ENCODING_FULL = 1;
+		public static final byte ENCODING_RAW = 2;
+		public static final byte ENCODING_RLE = 3;
+
+		/**
+		 * Maximum length of an encoded section
+		 */
+		public static final int MAX_ENCODED_LENGTH = 513;
+
 		private final byte[] data; //8 blocks per byte, 2 bytes per row, 2*16*16 bytes in total
 		private int blockRefCount = 0;
 
@@ -201,6 +296,90 @@ public class BlockLocationGuard implements ILocationGuard {
 		public void writeData(byte[] arr) {
 			System.arraycopy(this.data, 0, arr, 0, 512);
 		}
+
+		/**
+		 * Encodes the section as all clear, all guarded, run-length encoded or raw data, whichever is smallest.
+		 * The first byte is the encoding, followed by the encoded data
+		 * @return
+		 */
+		public byte[] encode() {
+			if(this.blockRefCount == 0) {
+				return new byte[] { ENCODING_EMPTY };
+			} else if(this.blockRefCount == 16 * 16 * 16) {
+				return new byte[] { ENCODING_FULL };
+			}
+
+			//Runs of equal bytes are stored as (run length - 1, value) pairs
+			byte[] encoded = new byte[MAX_ENCODED_LENGTH];
+			encoded[0] = ENCODING_RLE;
+			int length = 1;
+			for(int i = 0; i < this.data.length && length + 2 < MAX_ENCODED_LENGTH; ) {
+				byte value = this.data[i];
+				int run = 1;
+				while(run < 256 && i + run < this.data.length && this.data[i + run] == value) {
+					run++;
+				}
+				encoded[length++] = (byte) (run - 1);
+				encoded[length++] = value;
+				i += run;
+				if(i == this.data.length) {
+					return Arrays.copyOf(encoded, length);
+				}
+			}
+
+			//Run-length encoding isn't smaller than the raw data
+			encoded[0] = ENCODING_RAW;
+			System.arraycopy(this.data, 0, encoded, 1, 512);
+			return encoded;
+		}
+
+		/**
+		 * Decodes a section encoded by {@link #encode()}
+		 * @param encoded
+		 * @return the decoded section, or null if the section is empty
+		 * @throws IllegalArgumentException if the encoded data is invalid
+		 */
+		@Nullable
+		public static GuardChunkSection decode(byte[] encoded) {
+			if(encoded.length == 0) {
+				throw new IllegalArgumentException("Invalid block guard data");
+			}
+
+			byte[] data = new byte[512];
+
+			switch(encoded[0]) {
+			case ENCODING_EMPTY:
+				return null;
+			case ENCODING_FULL:
+				Arrays.fill(data, (byte) 0xFF);
+				break;
+			case ENCODING_RAW:
+				if(encoded.length != 513) {
+					throw new IllegalArgumentException("Invalid block guard data");
+				}
+				System.arraycopy(encoded, 1, data, 0, 512);
+				break;
+			case ENCODING_RLE:
+				int index = 0;
+				for(int i = 1; i + 1 < encoded.length; i += 2) {
+					int run = (encoded[i] & 0xFF) + 1;
+					if(index + run > data.length) {
+						throw new IllegalArgumentException("Invalid block guard data");
+					}
+					Arrays.fill(data, index, index + run, encoded[i + 1]);
+					index += run;
+				}
+				if(index != data.length) {
+					throw new IllegalArgumentException("Invalid block guard data");
+				}
+				break;
+			default:
+				throw new IllegalArgumentException("Invalid block guard data");
+			}
+
+			GuardChunkSection section = new GuardChunkSection(data);
+			return section.isEmpty() ? null : section;
+		}
 	}
 
 	public static class GuardChunk {
@@ -254,16 +433,57 @@ public class BlockLocationGuard implements ILocationGuard {
 			}
 		}
 
+		public boolean isEmpty() {
+			for(GuardChunkSection section : this.sections) {
+				if(section != null && !section.isEmpty()) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Writes a bit mask of the non-empty sections followed by the encoded sections
+		 * @param buf
+		 */
+		public void writeToBuffer(PacketBuffer buf) {
+			int mask = 0;
+			for(int i = 0; i < this.sections.length; i++) {
+				if(this.sections[i] != null && !this.sections[i].isEmpty()) {
+					mask |= 1 << i;
+				}
+			}
+			buf.writeShort(mask);
+			for(int i = 0; i < this.sections.length; i++) {
+				if((mask & (1 << i)) != 0) {
+					buf.writeByteArray(this.sections[i].encode());
+				}
+			}
+		}
+
+		/**
+		 * Reads the sections written by {@link #writeToBuffer(PacketBuffer)}
+		 * @param buf
+		 * @throws IllegalArgumentException if the section data is invalid
+		 */
+		public void readFromBuffer(PacketBuffer buf) {
+			this.clear();
+			int mask = buf.readUnsignedShort();
+			for(int i = 0; i < this.sections.length; i++) {
+				if((mask & (1 << i)) != 0) {
+					this.sections[i] = GuardChunkSection.decode(buf.readByteArray(GuardChunkSection.MAX_ENCODED_LENGTH));
+				}
+			}
+		}
+
 		public NBTTagCompound writeToNBT(NBTTagCompound nbt) {
 			NBTTagList sectionsNbt = new NBTTagList();
 			for(int i = 0; i < this.sections.length; i++) {
 				GuardChunkSection section = this.sections[i];
-				if(section != null) {
-					byte[] data = new byte[512];
-					section.writeData(data);
+				if(section != null && !section.isEmpty()) {
 					NBTTagCompound sectionNbt = new NBTTagCompound();
 					sectionNbt.setByte("Y", (byte)i);
-					sectionNbt.setByteArray("Data", data);
+					sectionNbt.setByteArray("Encoded", section.encode());
 					sectionsNbt.appendTag(sectionNbt);
 				}
 			}
@@ -278,8 +498,13 @@ public class BlockLocationGuard implements ILocationGuard {
 				for(int i = 0; i < sectionsNbt.tagCount(); i++) {
 					NBTTagCompound sectionNbt = sectionsNbt.getCompoundTagAt(i);
 					int y = sectionNbt.getByte("Y");
-					byte[] data = sectionNbt.getByteArray("Data");
-					this.sections[y] = new GuardChunkSection(data);
+					if(sectionNbt.hasKey("Data", Constants.NBT.TAG_BYTE_ARRAY)) {
+						//Old format with raw data
+						byte[] data = sectionNbt.getByteArray("Data");
+						this.sections[y] = new GuardChunkSection(data);
+					} else {
+						this.sections[y] = GuardChunkSection.decode(sectionNbt.getByteArray("Encoded"));
+					}
 				}
 			}
 		}
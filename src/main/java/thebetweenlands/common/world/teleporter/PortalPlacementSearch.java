@@ -0,0 +1,400 @@
+package thebetweenlands.common.world.teleporter;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.BlockPos.MutableBlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.border.WorldBorder;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.gen.layer.IntCache;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.ServerTickEvent;
+import thebetweenlands.api.capability.IPortalCapability;
+import thebetweenlands.common.TheBetweenlands;
+import thebetweenlands.common.config.BetweenlandsConfig;
+import thebetweenlands.common.handler.PlayerPortalHandler;
+import thebetweenlands.common.registries.BiomeRegistry;
+import thebetweenlands.common.registries.CapabilityRegistry;
+import thebetweenlands.common.world.gen.biome.decorator.SurfaceType;
+
+/**
+ * Staged search for the destination of a new portal. Candidate chunks are first scored from the biome layer
+ * and the biome height parameters without generating any chunks, then only the chunks around the best few
+ * candidates are generated, spread over several ticks while the player is held in the portal. Once a suitable
+ * candidate is found the player is teleported and {@link TeleporterBetweenlands} places the portal in the
+ * already generated area
+ */
+public class PortalPlacementSearch {
+	private static final Map<UUID, PortalPlacementSearch> SEARCHES = new LinkedHashMap<>();
+
+	private static final int MAX_CANDIDATES = 4;
+	private static final int MIN_SUITABLE_COLUMNS = 8;
+	private static final long MAX_NANOS_PER_TICK = 5000000L;
+
+	private static final double VALID_BIOME_WEIGHT = 4.0D;
+	private static final double FLATNESS_WEIGHT = 1.0D;
+	private static final double DISTANCE_WEIGHT = 2.0D;
+	private static final double GENERATED_BONUS = 1.0D;
+
+	private final EntityPlayerMP player;
+	private final int dimension;
+	private final boolean isToBL;
+	private final BlockPos start;
+
+	private final long[] candidates = new long[MAX_CANDIDATES];
+	private final double[] candidateScores = new double[MAX_CANDIDATES];
+	private int candidateCount;
+
+	private int candidateIndex;
+	private int neighbourIndex;
+
+	private BlockPos fallback;
+	private int fallbackSuitableColumns = -1;
+
+	private int scoredChunks;
+	private int providedChunks;
+	private int ticks;
+	private long scoreNanos;
+	private long generateNanos;
+
+	private PortalPlacementSearch(EntityPlayerMP player, WorldServer toWorld) {
+		this.player = player;
+		this.dimension = toWorld.provider.getDimension();
+		this.isToBL = this.dimension == BetweenlandsConfig.WORLD_AND_DIMENSION.dimensionId;
+
+		double moveFactor = player.world.provider.getMovementFactor() / toWorld.provider.getMovementFactor();
+		WorldBorder border = toWorld.getWorldBorder();
+		this.start = new BlockPos(
+				MathHelper.clamp(player.posX * moveFactor, border.minX() + 16, border.maxX() - 16),
+				player.posY,
+				MathHelper.clamp(player.posZ * moveFactor, border.minZ() + 16, border.maxZ() - 16));
+	}
+
+	/**
+	 * Returns whether the destination of a new portal in the specified world can be searched for over several ticks.
+	 * Worlds without a surface, such as the Nether and the End, still use the synchronous search of {@link TeleporterBetweenlands}
+	 * @param toWorld
+	 * @return
+	 */
+	public static boolean canSearch(WorldServer toWorld) {
+		if(toWorld.provider.getDimension() == BetweenlandsConfig.WORLD_AND_DIMENSION.dimensionId) {
+			return true;
+		}
+		return toWorld.provider.getDimensionType().getId() != 1 && toWorld.provider.hasSkyLight();
+	}
+
+	/**
+	 * Starts searching for a new portal destination for the specified player. The player is teleported once the search is done
+	 * @param player
+	 * @param toWorld
+	 */
+	public static void start(EntityPlayerMP player, WorldServer toWorld) {
+		if(!SEARCHES.containsKey(player.getUniqueID())) {
+			PortalPlacementSearch search = new PortalPlacementSearch(player, toWorld);
+			search.score(toWorld);
+			SEARCHES.put(player.getUniqueID(), search);
+		}
+	}
+
+	/**
+	 * Returns whether a portal destination is currently being searched for the specified player
+	 * @param player
+	 * @return
+	 */
+	public static boolean isSearching(EntityPlayerMP player) {
+		return SEARCHES.containsKey(player.getUniqueID());
+	}
+
+	/**
+	 * Cancels the portal destination search of the specified player, if there is one
+	 * @param player
+	 */
+	public static void cancel(EntityPlayerMP player) {
+		SEARCHES.remove(player.getUniqueID());
+	}
+
+	@SubscribeEvent
+	public static void onServerTick(ServerTickEvent event) {
+		if(event.phase == TickEvent.Phase.END && !SEARCHES.isEmpty()) {
+			Iterator<PortalPlacementSearch> it = SEARCHES.values().iterator();
+			while(it.hasNext()) {
+				PortalPlacementSearch search = it.next();
+
+				if(search.player.hasDisconnected() || search.player.isDead) {
+					it.remove();
+					continue;
+				}
+
+				MinecraftServer server = search.player.server;
+				WorldServer toWorld = server.getWorld(search.dimension);
+
+				if(toWorld == null) {
+					it.remove();
+					continue;
+				}
+
+				BlockPos destination = search.update(toWorld);
+
+				if(destination != null) {
+					it.remove();
+					search.teleport(toWorld, destination);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Scores all chunks within the biome search range and keeps the best candidates. Only the biome layer
+	 * and the biome height parameters are used, no chunks are generated
+	 * @param world
+	 */
+	private void score(WorldServer world) {
+		long startTime = System.nanoTime();
+
+		int range = BetweenlandsConfig.WORLD_AND_DIMENSION.portalBiomeSearchRange;
+		Set<String> unsafeBiomes = BetweenlandsConfig.WORLD_AND_DIMENSION.portalUnsafeBiomesSet;
+		WorldBorder border = world.getWorldBorder();
+
+		int minChunkX = (this.start.getX() - range) >> 4;
+		int minChunkZ = (this.start.getZ() - range) >> 4;
+		int chunksX = ((this.start.getX() + range) >> 4) - minChunkX + 1;
+		int chunksZ = ((this.start.getZ() + range) >> 4) - minChunkZ + 1;
+		int biomesX = chunksX << 2;
+
+		IntCache.resetIntCache();
+		Biome[] biomes = world.getBiomeProvider().getBiomesForGeneration(new Biome[0], minChunkX << 2, minChunkZ << 2, biomesX, chunksZ << 2);
+
+		int[] validSamples = new int[chunksX * chunksZ];
+		float[] variations = new float[chunksX * chunksZ];
+		float maxVariation = 0.0F;
+
+		for(int i = 0; i < biomesX * (chunksZ << 2); i++) {
+			Biome biome = biomes[i];
+			int chunk = (i % biomesX >> 2) + (i / biomesX >> 2) * chunksX;
+
+			boolean valid;
+			if(this.isToBL) {
+				valid = biome == BiomeRegistry.SWAMPLANDS || biome == BiomeRegistry.PATCHY_ISLANDS;
+			} else {
+				valid = biome.getBaseHeight() > 0.0F && !unsafeBiomes.contains(biome.getRegistryName().toString());
+			}
+
+			if(valid) {
+				validSamples[chunk]++;
+			}
+
+			variations[chunk] += Math.abs(biome.getHeightVariation()) / 16.0F;
+			maxVariation = Math.max(maxVariation, variations[chunk]);
+		}
+
+		for(int i = 0; i < chunksX * chunksZ; i++) {
+			if(validSamples[i] == 0) {
+				continue;
+			}
+
+			int chunkX = minChunkX + i % chunksX;
+			int chunkZ = minChunkZ + i / chunksX;
+			int centerX = (chunkX << 4) + 8;
+			int centerZ = (chunkZ << 4) + 8;
+
+			if(centerX <= border.minX() + 24 || centerZ <= border.minZ() + 24 || centerX >= border.maxX() - 24 || centerZ >= border.maxZ() - 24) {
+				continue;
+			}
+
+			double dx = centerX - this.start.getX();
+			double dz = centerZ - this.start.getZ();
+			double distance = Math.sqrt(dx * dx + dz * dz);
+
+			double score = validSamples[i] / 16.0D * VALID_BIOME_WEIGHT - distance / range * DISTANCE_WEIGHT;
+			if(maxVariation > 0.0F) {
+				score -= variations[i] / maxVariation * FLATNESS_WEIGHT;
+			}
+			if(world.getChunkProvider().isChunkGeneratedAt(chunkX, chunkZ)) {
+				//Already generated chunks are cheap to check
+				score += GENERATED_BONUS;
+			}
+
+			this.offerCandidate(ChunkPos.asLong(chunkX, chunkZ), score);
+			this.scoredChunks++;
+		}
+
+		if(this.candidateCount == 0) {
+			//No suitable biome nearby, use the start position
+			this.offerCandidate(ChunkPos.asLong(this.start.getX() >> 4, this.start.getZ() >> 4), 0.0D);
+		}
+
+		this.scoreNanos = System.nanoTime() - startTime;
+	}
+
+	private void offerCandidate(long chunk, double score) {
+		int index = this.candidateCount;
+		while(index > 0 && this.candidateScores[index - 1] < score) {
+			index--;
+		}
+		if(index >= MAX_CANDIDATES) {
+			return;
+		}
+		int moved = Math.min(this.candidateCount, MAX_CANDIDATES - 1) - index;
+		if(moved > 0) {
+			System.arraycopy(this.candidates, index, this.candidates, index + 1, moved);
+			System.arraycopy(this.candidateScores, index, this.candidateScores, index + 1, moved);
+		}
+		this.candidates[index] = chunk;
+		this.candidateScores[index] = score;
+		this.candidateCount = Math.min(this.candidateCount + 1, MAX_CANDIDATES);
+	}
+
+	/**
+	 * Generates the chunks around the candidates until the per tick budget is exhausted
+	 * @param world
+	 * @return The portal destination once the search is done, null otherwise
+	 */
+	@Nullable
+	private BlockPos update(WorldServer world) {
+		long startTime = System.nanoTime();
+
+		this.ticks++;
+
+		try {
+			boolean provided = false;
+
+			while(this.candidateIndex < this.candidateCount) {
+				long candidate = this.candidates[this.candidateIndex];
+				int chunkX = (int) candidate;
+				int chunkZ = (int) (candidate >> 32);
+
+				//Generate the 3x3 chunks around the candidate so that the candidate itself is populated
+				while(this.neighbourIndex < 9) {
+					int x = chunkX + this.neighbourIndex % 3 - 1;
+					int z = chunkZ + this.neighbourIndex / 3 - 1;
+
+					if(world.getChunkProvider().getLoadedChunk(x, z) == null) {
+						if(provided && System.nanoTime() - startTime >= MAX_NANOS_PER_TICK) {
+							return null;
+						}
+
+						world.getChunk(x, z);
+
+						this.providedChunks++;
+						provided = true;
+					}
+
+					this.neighbourIndex++;
+				}
+
+				MutableBlockPos bestColumn = new MutableBlockPos();
+				int suitableColumns = this.checkCandidate(world, world.getChunk(chunkX, chunkZ), bestColumn);
+
+				if(suitableColumns >= MIN_SUITABLE_COLUMNS) {
+					return bestColumn.toImmutable();
+				}
+
+				if(suitableColumns > this.fallbackSuitableColumns) {
+					this.fallbackSuitableColumns = suitableColumns;
+					this.fallback = bestColumn.toImmutable();
+				}
+
+				this.candidateIndex++;
+				this.neighbourIndex = 0;
+			}
+
+			return this.fallback;
+		} finally {
+			this.generateNanos += System.nanoTime() - startTime;
+		}
+	}
+
+	/**
+	 * Counts the columns of the candidate chunk whose surface is suitable for a portal and
+	 * finds the suitable column that is closest to the center of the chunk
+	 * @param world
+	 * @param chunk
+	 * @param bestColumn Set to the best column, or the center of the chunk if no column is suitable
+	 * @return
+	 */
+	private int checkCandidate(WorldServer world, Chunk chunk, MutableBlockPos bestColumn) {
+		int baseX = chunk.x << 4;
+		int baseZ = chunk.z << 4;
+		int maxHeight = world.getActualHeight() - 16;
+
+		bestColumn.setPos(baseX + 8, MathHelper.clamp(chunk.getHeightValue(8, 8), 1, maxHeight), baseZ + 8);
+
+		MutableBlockPos checkPos = new MutableBlockPos();
+
+		int suitableColumns = 0;
+		int bestDistance = Integer.MAX_VALUE;
+
+		for(int x = 0; x < 16; x++) {
+			for(int z = 0; z < 16; z++) {
+				int height = chunk.getHeightValue(x, z);
+
+				if(height <= 0 || height >= maxHeight) {
+					continue;
+				}
+
+				checkPos.setPos(baseX + x, height - 1, baseZ + z);
+				IBlockState surface = chunk.getBlockState(checkPos);
+
+				boolean suitable;
+				if(this.isToBL) {
+					suitable = SurfaceType.MIXED_GROUND.matches(surface);
+				} else {
+					suitable = surface.isNormalCube();
+				}
+
+				if(suitable) {
+					checkPos.setY(height);
+					IBlockState above = chunk.getBlockState(checkPos);
+
+					if(above.getBlock().isAir(above, world, checkPos)) {
+						suitableColumns++;
+
+						int distance = (x - 8) * (x - 8) + (z - 8) * (z - 8);
+						if(distance < bestDistance) {
+							bestDistance = distance;
+							bestColumn.setPos(baseX + x, height, baseZ + z);
+						}
+					}
+				}
+			}
+		}
+
+		return suitableColumns;
+	}
+
+	private void teleport(WorldServer toWorld, BlockPos destination) {
+		long startTime = System.nanoTime();
+
+		TeleporterHandler.transferToDim(this.player, toWorld, destination);
+
+		this.player.timeUntilPortal = 10;
+		IPortalCapability cap = this.player.getCapability(CapabilityRegistry.CAPABILITY_PORTAL, null);
+		if(cap != null) {
+			cap.setInPortal(false);
+			cap.setTicksUntilTeleport(PlayerPortalHandler.MAX_PORTAL_TIME);
+		}
+
+		long placeNanos = System.nanoTime() - startTime;
+
+		TheBetweenlands.logger.info(String.format(Locale.ROOT, "Portal destination search for %s to dimension %d at %d, %d: scored %d chunks in %.3fms, provided %d chunks for %d of %d candidates over %d ticks in %.3fms, placed portal in %.3fms",
+				this.player.getName(), this.dimension, destination.getX(), destination.getZ(),
+				this.scoredChunks, this.scoreNanos / 1000000.0D,
+				this.providedChunks, Math.min(this.candidateIndex + 1, this.candidateCount), this.candidateCount, this.ticks, this.generateNanos / 1000000.0D,
+				placeNanos / 1000000.0D));
+	}
+}
@@ -3,6 +3,7 @@ package thebetweenlands.common.world.teleporter;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 import java.util.function.Function;
 
@@ -28,6 +29,7 @@ import net.minecraft.world.biome.Biome;
 import net.minecraft.world.border.WorldBorder;
 import net.minecraft.world.chunk.Chunk;
 import net.minecraft.world.gen.layer.IntCache;
+import thebetweenlands.common.TheBetweenlands;
 import thebetweenlands.common.block.structure.BlockTreePortal;
 import thebetweenlands.common.config.BetweenlandsConfig;
 import thebetweenlands.common.handler.PlayerRespawnHandler;
@@ -46,10 +48,30 @@ public final class TeleporterBetweenlands extends Teleporter {
 	private final boolean makePortal;
 	private final boolean setSpawn;
 	private final boolean isToEnd;
+	@Nullable
+	private final BlockPos preparedCenter;
+
+	/**
+	 * Search radius around a destination that was prepared by {@link PortalPlacementSearch}.
+	 * Stays within the already generated chunks around the prepared column
+	 */
+	private static final int PREPARED_SEARCH_RADIUS = 8;
 
 	public static final String LAST_PORTAL_POS_NBT = "thebetweenlands.last_portal_location";
 
 	public TeleporterBetweenlands(int fromDim, AxisAlignedBB fromBounds, WorldServer toWorld, boolean makePortal, boolean setSpawn) {
+		this(fromDim, fromBounds, toWorld, makePortal, setSpawn, null);
+	}
+
+	/**
+	 * @param fromDim
+	 * @param fromBounds
+	 * @param toWorld
+	 * @param makePortal
+	 * @param setSpawn
+	 * @param preparedCenter Destination prepared by {@link PortalPlacementSearch}, or null if the destination should be searched synchronously
+	 */
+	public TeleporterBetweenlands(int fromDim, AxisAlignedBB fromBounds, WorldServer toWorld, boolean makePortal, boolean setSpawn, @Nullable BlockPos preparedCenter) {
 		super(toWorld);
 		this.fromBounds = fromBounds;
 		this.fromDim = fromDim;
@@ -57,6 +79,7 @@ public final class TeleporterBetweenlands extends Teleporter {
 		this.makePortal = makePortal;
 		this.setSpawn = setSpawn;
 		this.isToEnd = this.toWorld.provider.getDimensionType().getId() == 1;
+		this.preparedCenter = preparedCenter;
 	}
 
 	@Override
@@ -82,7 +105,7 @@ public final class TeleporterBetweenlands extends Teleporter {
 						} else {
 							//Portal failed to generate... fallback?
 
-							BlockPos pos = this.findSuitableBetweenlandsPortalPos(entity.getPosition());
+							BlockPos pos = this.preparedCenter != null ? this.preparedCenter : this.findSuitableBetweenlandsPortalPos(entity.getPosition());
 							Chunk chunk = this.getDecoratedChunk(this.toWorld, pos); //Force chunk to generate
 							pos = new BlockPos(pos.getX(), chunk.getHeight(pos), pos.getZ());
 							for(int xo = -1; xo <= 1; xo++) {
@@ -433,18 +456,29 @@ public final class TeleporterBetweenlands extends Teleporter {
 	public boolean makePortal(Entity entity) {
 		if(this.makePortal) {
 			boolean isToBL = this.toWorld.provider.getDimension() == BetweenlandsConfig.WORLD_AND_DIMENSION.dimensionId;
+			long startTime = System.nanoTime();
 			BlockPos center;
-			if(isToBL) {
+			if(this.preparedCenter != null) {
+				center = this.preparedCenter;
+			} else if(isToBL) {
 				center = this.findSuitableBetweenlandsPortalPos(entity.getPosition());
 			} else {
 				center = this.findSuitableNonBLPortalPos(entity.getPosition());
 			}
+			long searchNanos = System.nanoTime() - startTime;
+			boolean generated;
 			if(isToBL && this.generateBetweenlandsTreePortal(entity, center)) {
-				return true;
+				generated = true;
 			} else if(!isToBL && this.generateTreePortal(entity, center)) {
-				return true;
+				generated = true;
+			} else {
+				generated = this.generateSmallPortal(entity, center);
 			}
-			return this.generateSmallPortal(entity, center);
+			if(this.preparedCenter == null) {
+				TheBetweenlands.logger.info(String.format(Locale.ROOT, "Synchronous portal destination search to dimension %d at %d, %d: searched in %.3fms, placed portal in %.3fms",
+						this.toWorld.provider.getDimension(), center.getX(), center.getZ(), searchNanos / 1000000.0D, (System.nanoTime() - startTime - searchNanos) / 1000000.0D));
+			}
+			return generated;
 		}
 		return false;
 	}
@@ -452,7 +486,7 @@ public final class TeleporterBetweenlands extends Teleporter {
 	protected boolean generateBetweenlandsTreePortal(Entity entity, BlockPos center) {
 		WorldGenWeedwoodPortalTree genTree = new WorldGenWeedwoodPortalTree();
 
-		return this.spiralGenerate(center, 64, 0, 0, checkPos -> {
+		return this.spiralGenerate(center, this.getSearchRadius(64), 0, 0, checkPos -> {
 			WorldBorder border = this.toWorld.getWorldBorder();
 	
 			if(checkPos.getX() > border.minX() + 16 && checkPos.getZ() > border.minZ() + 16 && checkPos.getX() < border.maxX() - 16 && checkPos.getZ() < border.maxZ() - 16) {
@@ -474,7 +508,7 @@ public final class TeleporterBetweenlands extends Teleporter {
 	protected boolean generateTreePortal(Entity entity, BlockPos center) {
 		WorldGenWeedwoodPortalTree genTree = new WorldGenWeedwoodPortalTree();
 
-		return this.spiralGenerate(center, 64, Math.min(center.getY() - 2, 8), 8, checkPos -> {
+		return this.spiralGenerate(center, this.getSearchRadius(64), Math.min(center.getY() - 2, 8), 8, checkPos -> {
 			WorldBorder border = this.toWorld.getWorldBorder();
 			
 			if(checkPos.getX() > border.minX() + 16 && checkPos.getZ() > border.minZ() + 16 && checkPos.getX() < border.maxX() - 16 && checkPos.getZ() < border.maxZ() - 16 &&
@@ -496,7 +530,7 @@ public final class TeleporterBetweenlands extends Teleporter {
 	protected boolean generateSmallPortal(Entity entity, BlockPos center) {
 		WorldGenSmallPortal genPortal = new WorldGenSmallPortal(EnumFacing.NORTH);
 
-		if(this.spiralGenerate(center, 64, Math.min(center.getY() - 2, 8), 8, checkPos -> {
+		if(this.spiralGenerate(center, this.getSearchRadius(64), Math.min(center.getY() - 2, 8), 8, checkPos -> {
 			WorldBorder border = this.toWorld.getWorldBorder();
 			
 			if(checkPos.getX() > border.minX() + 6 && checkPos.getZ() > border.minZ() + 6 && checkPos.getX() < border.maxX() - 6 && checkPos.getZ() < border.maxZ() - 6 &&
@@ -516,7 +550,7 @@ public final class TeleporterBetweenlands extends Teleporter {
 			return true;
 		}
 
-		if(this.spiralGenerate(center, 32, Math.min(center.getY() - 2, 8), 8, checkPos -> {
+		if(this.spiralGenerate(center, this.getSearchRadius(32), Math.min(center.getY() - 2, 8), 8, checkPos -> {
 			WorldBorder border = this.toWorld.getWorldBorder();
 			
 			if(checkPos.getX() > border.minX() + 6 && checkPos.getZ() > border.minZ() + 6 && checkPos.getX() < border.maxX() - 6 && checkPos.getZ() < border.maxZ() - 6 &&
@@ -567,6 +601,15 @@ public final class TeleporterBetweenlands extends Teleporter {
 		}
 	}
 
+	/**
+	 * Returns the spiral search radius, which is limited to the already generated area if the destination was prepared
+	 * @param radius
+	 * @return
+	 */
+	protected int getSearchRadius(int radius) {
+		return this.preparedCenter != null ? Math.min(radius, PREPARED_SEARCH_RADIUS) : radius;
+	}
+
 	protected boolean spiralGenerate(BlockPos center, int radius, int yDown, int yUp, Function<MutableBlockPos, Boolean> gen) {
 		MutableBlockPos checkPos = new MutableBlockPos();
 
@@ -0,0 +1,77 @@
+package thebetweenlands.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+
+/**
+ * Lightweight alternative to the {@link net.minecraft.profiler.Profiler} that accumulates the
+ * total time spent in nested named sections. Sections are identified by their full path, e.g. <code>biome.section</code>.
+ * Not thread safe
+ */
+public class SectionTimings {
+	private final Object2LongMap<String> times = new Object2LongOpenHashMap<>();
+
+	private String[] paths = new String[16];
+	private long[] starts = new long[16];
+	private int depth = 0;
+
+	/**
+	 * Starts a new section nested in the current section
+	 * @param name
+	 */
+	public void start(String name) {
+		if(this.depth == this.paths.length) {
+			this.paths = Arrays.copyOf(this.paths, this.depth * 2);
+			this.starts = Arrays.copyOf(this.starts, this.depth * 2);
+		}
+		this.paths[this.depth] = this.depth == 0 ? name : this.paths[this.depth - 1] + "." + name;
+		this.starts[this.depth] = System.nanoTime();
+		this.depth++;
+	}
+
+	/**
+	 * Ends the current section
+	 */
+	public void end() {
+		if(this.depth > 0) {
+			this.depth--;
+			String path = this.paths[this.depth];
+			this.times.put(path, this.times.getLong(path) + System.nanoTime() - this.starts[this.depth]);
+			this.paths[this.depth] = null;
+		}
+	}
+
+	/**
+	 * Returns the total time spent in the specified section in nanoseconds
+	 * @param path
+	 * @return
+	 */
+	public long getTime(String path) {
+		return this.times.getLong(path);
+	}
+
+	/**
+	 * Returns all sections sorted by their total time, longest first
+	 * @return
+	 */
+	public List<Object2LongMap.Entry<String>> getSortedTimes() {
+		List<Object2LongMap.Entry<String>> entries = new ArrayList<>(this.times.object2LongEntrySet());
+		entries.sort((e1, e2) -> Long.compare(e2.getLongValue(), e1.getLongValue()));
+		return entries;
+	}
+
+	/**
+	 * Removes all recorded times and aborts all open sections
+	 */
+	public void reset() {
+		this.times.clear();
+		for(int i = 0; i < this.depth; i++) {
+			this.paths[i] = null;
+		}
+		this.depth = 0;
+	}
+}
@@ -0,0 +1,133 @@
+package thebetweenlands.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+
+/**
+ * Identity based list of objects that are ticked, with O(1) add, remove and contains.
+ * Objects that are added or removed during {@link #forEach(Consumer)} are only added or removed
+ * once the iteration has finished, so that objects can safely remove themselves while they are ticked.
+ * Removing an object moves the last object into its place, so the order isn't preserved
+ * @param <T>
+ */
+public class TickList<T> {
+	private final List<T> elements = new ArrayList<>();
+	private final Reference2IntOpenHashMap<T> indices = new Reference2IntOpenHashMap<>();
+
+	private final ReferenceLinkedOpenHashSet<T> pendingAdditions = new ReferenceLinkedOpenHashSet<>();
+	private final ReferenceOpenHashSet<T> pendingRemovals = new ReferenceOpenHashSet<>();
+
+	private boolean iterating;
+
+	public TickList() {
+		this.indices.defaultReturnValue(-1);
+	}
+
+	/**
+	 * Adds the object if it isn't contained yet
+	 * @param obj
+	 * @return true if the object was added
+	 */
+	public boolean add(T obj) {
+		if(this.iterating) {
+			if(this.pendingRemovals.remove(obj)) {
+				return true;
+			}
+			return !this.indices.containsKey(obj) && this.pendingAdditions.add(obj);
+		}
+		if(this.indices.containsKey(obj)) {
+			return false;
+		}
+		this.indices.put(obj, this.elements.size());
+		this.elements.add(obj);
+		return true;
+	}
+
+	/**
+	 * Removes the object if it is contained
+	 * @param obj
+	 * @return true if the object was removed
+	 */
+	public boolean remove(T obj) {
+		if(this.iterating) {
+			if(this.pendingAdditions.remove(obj)) {
+				return true;
+			}
+			return this.indices.containsKey(obj) && this.pendingRemovals.add(obj);
+		}
+		int index = this.indices.removeInt(obj);
+		if(index < 0) {
+			return false;
+		}
+		T last = this.elements.remove(this.elements.size() - 1);
+		if(index < this.elements.size()) {
+			this.elements.set(index, last);
+			this.indices.put(last, index);
+		}
+		return true;
+	}
+
+	/**
+	 * Returns whether the object is contained, including pending additions and removals
+	 * @param obj
+	 * @return
+	 */
+	public boolean contains(T obj) {
+		return (this.indices.containsKey(obj) && !this.pendingRemovals.contains(obj)) || this.pendingAdditions.contains(obj);
+	}
+
+	public int size() {
+		return this.elements.size() - this.pendingRemovals.size() + this.pendingAdditions.size();
+	}
+
+	public void clear() {
+		if(this.iterating) {
+			this.pendingAdditions.clear();
+			this.pendingRemovals.addAll(this.elements);
+		} else {
+			this.elements.clear();
+			this.indices.clear();
+		}
+	}
+
+	/**
+	 * Performs the action for all objects. Objects removed during the iteration are skipped
+	 * if they haven't been visited yet, objects added during the iteration are not visited
+	 * @param action
+	 */
+	public void forEach(Consumer<? super T> action) {
+		if(this.iterating) {
+			throw new IllegalStateException("Tick list is already being iterated");
+		}
+		this.iterating = true;
+		try {
+			for(int i = 0; i < this.elements.size(); i++) {
+				T obj = this.elements.get(i);
+				if(this.pendingRemovals.isEmpty() || !this.pendingRemovals.contains(obj)) {
+					action.accept(obj);
+				}
+			}
+		} finally {
+			this.iterating = false;
+
+			if(!this.pendingRemovals.isEmpty()) {
+				for(T obj : this.pendingRemovals) {
+					this.remove(obj);
+				}
+				this.pendingRemovals.clear();
+			}
+
+			if(!this.pendingAdditions.isEmpty()) {
+				for(T obj : this.pendingAdditions) {
+					this.add(obj);
+				}
+				this.pendingAdditions.clear();
+			}
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package thebetweenlands.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread safe histogram of durations with power of two microsecond buckets.
+ * Recording is lock free and allocation free, percentiles are approximated by the bucket upper bounds
+ */
+public final class TimingHistogram {
+	private static final int BUCKETS = 32;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a duration
+	 * @param nanos Duration in nanoseconds
+	 */
+	public void record(long nanos) {
+		if(nanos < 0) {
+			nanos = 0;
+		}
+		long micros = nanos / 1000L;
+		int bucket = micros <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+		this.buckets.incrementAndGet(bucket);
+		this.count.incrementAndGet();
+		this.sum.addAndGet(nanos);
+		long prevMax;
+		while(nanos > (prevMax = this.max.get()) && !this.max.compareAndSet(prevMax, nanos));
+	}
+
+	/**
+	 * Returns the number of recorded durations
+	 * @return
+	 */
+	public long getCount() {
+		return this.count.get();
+	}
+
+	/**
+	 * Returns the sum of all recorded durations in nanoseconds
+	 * @return
+	 */
+	public long getTotal() {
+		return this.sum.get();
+	}
+
+	/**
+	 * Returns the mean duration in nanoseconds
+	 * @return
+	 */
+	public long getMean() {
+		long count = this.count.get();
+		return count == 0 ? 0 : this.sum.get() / count;
+	}
+
+	/**
+	 * Returns the longest recorded duration in nanoseconds
+	 * @return
+	 */
+	public long getMax() {
+		return this.max.get();
+	}
+
+	/**
+	 * Returns an upper bound of the specified percentile in nanoseconds
+	 * @param percentile Percentile between 0 and 1
+	 * @return
+	 */
+	public long getPercentile(double percentile) {
+		long count = this.count.get();
+		if(count == 0) {
+			return 0;
+		}
+		long threshold = (long) Math.ceil(count * Math.min(1.0D, Math.max(0.0D, percentile)));
+		long seen = 0;
+		for(int i = 0; i < BUCKETS; i++) {
+			seen += this.buckets.get(i);
+			if(seen >= threshold) {
+				return Math.min(this.max.get(), (1L << i) * 1000L);
+			}
+		}
+		return this.max.get();
+	}
+
+	/**
+	 * Resets the histogram
+	 */
+	public void reset() {
+		for(int i = 0; i < BUCKETS; i++) {
+			this.buckets.set(i, 0);
+		}
+		this.count.set(0);
+		this.sum.set(0);
+		this.max.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("n=%d, mean=%.3fms, p50<=%.3fms, p90<=%.3fms, p99<=%.3fms, max=%.3fms", this.getCount(),
+				this.getMean() / 1000000.0D, this.getPercentile(0.5D) / 1000000.0D, this.getPercentile(0.9D) / 1000000.0D,
+				this.getPercentile(0.99D) / 1000000.0D, this.getMax() / 1000000.0D);
+	}
+}